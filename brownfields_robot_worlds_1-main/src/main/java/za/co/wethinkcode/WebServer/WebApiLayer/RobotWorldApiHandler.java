@@ -107,7 +107,11 @@ public class RobotWorldApiHandler {
 
             // Add robot to a world
             World world = RobotWorldServer.getWorld();
-            world.addRobot(robot);
+            if (!world.addRobot(robot)) {
+                String message = world.isFull() ? "No more space in this world" : "Too many of you in this world";
+                context.status(400).json(Map.of("result", "ERROR", "message", message));
+                return;
+            }
 
             // Build response matching socket server format
             Map<String, Object> response = new HashMap<>();
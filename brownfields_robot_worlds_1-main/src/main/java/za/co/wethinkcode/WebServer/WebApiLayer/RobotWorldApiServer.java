@@ -1,14 +1,18 @@
 package za.co.wethinkcode.WebServer.WebApiLayer;
 
 import io.javalin.Javalin;
+import za.co.wethinkcode.server.RobotWorldServer;
 
 /**
  * A Web API server for the RobotWorld application, providing an HTTP interface
  * to interact with the game world. It handles requests to retrieve world details
- * and manage robots using Javalin as the web framework.
+ * and manage robots using Javalin as the web framework, and carries the socket
+ * server's JSON protocol over a WebSocket at {@value RobotWorldWebSocketHandler#PATH}.
  */
 public class RobotWorldApiServer {
     private final Javalin server;
+    private final RobotWorldWebSocketHandler webSocketHandler = new RobotWorldWebSocketHandler(
+            RobotWorldServer::getWorld, RobotWorldServer::getAdmission);
 
     /**
      * Constructs a new RobotWorldApiServer, initializing the Javalin server
@@ -24,6 +28,7 @@ public class RobotWorldApiServer {
         server.get("/world", RobotWorldApiHandler::getWorld);
         server.get("/world/{name}", RobotWorldApiHandler::getWorld);
         server.post("/robot/{name}", RobotWorldApiHandler::handleCommand);
+        server.ws(RobotWorldWebSocketHandler.PATH, webSocketHandler::configure);
     }
 
     /**
@@ -0,0 +1,112 @@
+package za.co.wethinkcode.WebServer.WebApiLayer;
+
+import io.javalin.websocket.WsCloseContext;
+import io.javalin.websocket.WsCloseStatus;
+import io.javalin.websocket.WsConfig;
+import io.javalin.websocket.WsConnectContext;
+import io.javalin.websocket.WsContext;
+import io.javalin.websocket.WsErrorContext;
+import io.javalin.websocket.WsMessageContext;
+import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
+import za.co.wethinkcode.server.handler.AdmissionControl;
+import za.co.wethinkcode.server.world.World;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Serves the socket server's JSON protocol over a WebSocket, for bots that can
+ * only reach us through HTTP infrastructure. Each text message is one request
+ * and gets one text message back, exactly as one line does on the TCP server.
+ * Every session has its own {@link ServerCommandProcessor}, so robots launched
+ * in a session are removed when it closes. Sessions count against the same
+ * {@link AdmissionControl} as TCP clients and get the same rate limit, so a
+ * client refused or throttled on TCP gains nothing by switching to WebSocket.
+ */
+public class RobotWorldWebSocketHandler {
+    /** Path the endpoint is mounted on. */
+    public static final String PATH = "/ws";
+
+    private final Supplier<World> world;
+    private final Supplier<AdmissionControl> admission;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a handler whose sessions play in the world supplied when they
+     * connect, without admission control or rate limits.
+     *
+     * @param world supplies the current world
+     */
+    public RobotWorldWebSocketHandler(Supplier<World> world) {
+        this(world, () -> AdmissionControl.UNLIMITED);
+    }
+
+    /**
+     * Creates a handler whose sessions play in the world, and are admitted by
+     * the admission control, supplied when they connect.
+     *
+     * @param world     supplies the current world
+     * @param admission supplies the server's admission control
+     */
+    public RobotWorldWebSocketHandler(Supplier<World> world, Supplier<AdmissionControl> admission) {
+        this.world = world;
+        this.admission = admission;
+    }
+
+    /**
+     * Wires the handler into a Javalin WebSocket route.
+     *
+     * @param ws the route's configuration
+     */
+    public void configure(WsConfig ws) {
+        ws.onConnect(this::onConnect);
+        ws.onMessage(this::onMessage);
+        ws.onClose(this::onClose);
+        ws.onError(this::onError);
+    }
+
+    /** @return the number of open sessions */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    private void onConnect(WsConnectContext ctx) {
+        AdmissionControl control = admission.get();
+        if (!control.tryAdmit()) {
+            ctx.send(AdmissionControl.rejectionResponse());
+            ctx.closeSession(WsCloseStatus.TRY_AGAIN_LATER, "Server is full");
+            return;
+        }
+        sessions.put(ctx.sessionId(), new Session(new ServerCommandProcessor(world.get(), control.getRateLimit()), control));
+    }
+
+    private void onMessage(WsMessageContext ctx) {
+        Session session = sessions.get(ctx.sessionId());
+        if (session != null) {
+            ctx.send(session.processor().processMessage(ctx.message()));
+        }
+    }
+
+    private void onClose(WsCloseContext ctx) {
+        release(ctx);
+    }
+
+    private void onError(WsErrorContext ctx) {
+        release(ctx);
+    }
+
+    private void release(WsContext ctx) {
+        Session session = sessions.remove(ctx.sessionId());
+        if (session != null) {
+            session.processor().close();
+            session.admission().release();
+        }
+    }
+
+    /**
+     * An admitted session: its processor and the admission control to release it to.
+     */
+    private record Session(ServerCommandProcessor processor, AdmissionControl admission) {
+    }
+}
@@ -14,6 +14,7 @@ public class WebServer {
     private static World world;
     private static final Logger logger = LoggerFactory.getLogger(WebServer.class);
     private WebApiHandler webApiHandler;
+    private final RobotWorldWebSocketHandler webSocketHandler = new RobotWorldWebSocketHandler(() -> world);
 
     public WebServer() {
         webApiHandler = new WebApiHandler(world);
@@ -38,6 +39,9 @@ public class WebServer {
         this.server.post("/robot/{name}", context -> webApiHandler.create(context));
         this.server.post("/robot/{name}/{command}", context -> webApiHandler.processRobotCommands(context));
         this.server.post("/robot/{name}/{command}/{argument}", context -> webApiHandler.processRobotCommands(context));
+
+        // Same JSON protocol as the TCP server, one persistent session per client
+        this.server.ws(RobotWorldWebSocketHandler.PATH, webSocketHandler::configure);
     }
 
     public static void main(String[] args) {
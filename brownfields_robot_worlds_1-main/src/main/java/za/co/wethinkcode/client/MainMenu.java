@@ -141,7 +141,7 @@ public class MainMenu {
                 try {
                     Socket clientSocket = serverSocket.accept();
                     System.out.println("New client connected: " + clientSocket.getInetAddress());
-                    new ClientHandler(clientSocket, world).start();
+                    new Thread(new ClientHandler(clientSocket, world)).start();
                 } catch (IOException e) {
                     System.err.println("Error accepting client connection: " + e.getMessage());
                 }
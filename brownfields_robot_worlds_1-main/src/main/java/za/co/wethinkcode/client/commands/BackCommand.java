@@ -1,10 +1,10 @@
 package za.co.wethinkcode.client.commands;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import za.co.wethinkcode.protocol.ResponseEncoder;
 import za.co.wethinkcode.server.commands.Command;
 import za.co.wethinkcode.server.utils.MovementValidator;
 import za.co.wethinkcode.server.utils.RobotDestroyedException;
+import za.co.wethinkcode.server.model.Coordinates;
 import za.co.wethinkcode.server.model.Direction;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
@@ -36,96 +36,63 @@ public class BackCommand implements Command {
 
     @Override
     public String execute() {
-        try {
-            Position original = robot.getPosition();
-            Position current = original;
-            Position next;
-
-            int actualStepsMoved = 0;
-
-            for (int i = 0; i < steps; i++) {
-                next = getNextBackwardPosition(current, robot.getDirection());
-
-                if (MovementValidator.isBlocked(next, robot, world)) {
-                    if (actualStepsMoved > 0) {
-                        robot.setPosition(current);
-                        return createPartialMoveResponse();
-                    }
-                    return createObstructedResponse();
-                }
-
-                current = next;
-                actualStepsMoved++;
-            }
-
-            robot.setPosition(current);
-            return actualStepsMoved == steps ? createSuccessResponse() : createPartialMoveResponse();
+        return moveBack(world, robot, steps);
+    }
 
+    /**
+     * Moves a robot back without creating a command object, for callers such
+     * as the server's command handlers that run the same logic for every request.
+     *
+     * @param world the world in which the robot operates
+     * @param robot the robot to move
+     * @param steps the number of steps to move
+     * @return a JSON string representing the result of the move
+     */
+    public static String moveBack(World world, Robot robot, int steps) {
+        try {
+            return ResponseEncoder.ok(move(world, robot, steps), robot);
         } catch (RobotDestroyedException e) {
-            return createRobotDestroyedResponse(e.getMessage());
+            // No state included since robot is destroyed
+            return ResponseEncoder.ok(e.getMessage());
         }
     }
 
+    /**
+     * Moves a robot back, as {@link #moveBack} does, and returns the outcome
+     * instead of a response, for callers that encode it themselves.
+     *
+     * @param world the world in which the robot operates
+     * @param robot the robot to move
+     * @param steps the number of steps to move
+     * @return "Done", or "Obstructed" if the robot stopped short
+     * @throws RobotDestroyedException if the robot is destroyed on the way
+     */
+    public static String move(World world, Robot robot, int steps) {
+        Position original = robot.getPosition();
+        Direction direction = robot.getDirection();
+        int dx = -Coordinates.dx(direction);
+        int dy = -Coordinates.dy(direction);
+        int x = original.getX();
+        int y = original.getY();
+
+        int actualStepsMoved = 0;
+
+        // Step on primitive coordinates; a Position is only created for the final cell
+        for (int i = 0; i < steps; i++) {
+            if (MovementValidator.isBlocked(x + dx, y + dy, robot, world)) {
+                if (actualStepsMoved > 0) {
+                    robot.setPosition(new Position(x, y));
+                }
+                return "Obstructed";
+            }
 
-    private Position getNextBackwardPosition(Position position, Direction direction) {
-        int x = position.getX();
-        int y = position.getY();
-
-        return switch (direction) {
-            case NORTH -> new Position(x, y - 1); // subtract instead of add
-            case EAST -> new Position(x - 1, y);
-            case SOUTH -> new Position(x, y + 1); // add instead of subtract
-            case WEST -> new Position(x + 1, y);
-            default -> throw new IllegalStateException("Invalid direction");
-        };
-    }
-
-    private String createSuccessResponse() {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", "Done");
-        response.add("data", data);
-
-        response.add("state", new StateCommand(robot).toJson());
-        return new Gson().toJson(response);
-    }
-
-    private String createPartialMoveResponse() {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", "Obstructed");
-        response.add("data", data);
-
-        response.add("state", new StateCommand(robot).toJson());
-        return new Gson().toJson(response);
-    }
-
-    private String createObstructedResponse() {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", "Obstructed");
-        response.add("data", data);
-
-        response.add("state", new StateCommand(robot).toJson());
-        return new Gson().toJson(response);
-    }
-
-    private String createRobotDestroyedResponse(String message) {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", message);
-        response.add("data", data);
+            x += dx;
+            y += dy;
+            actualStepsMoved++;
+        }
 
-        // No state included since robot is destroyed
-        return new Gson().toJson(response);
+        robot.setPosition(new Position(x, y));
+        return actualStepsMoved == steps ? "Done" : "Obstructed";
     }
 
     /**
@@ -1,14 +1,13 @@
 package za.co.wethinkcode.client.commands;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import za.co.wethinkcode.protocol.JsonBuffer;
+import za.co.wethinkcode.protocol.ResponseEncoder;
 import za.co.wethinkcode.server.commands.Command;
+import za.co.wethinkcode.server.model.Coordinates;
 import za.co.wethinkcode.server.model.Direction;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
-import za.co.wethinkcode.server.utils.ShootingValidator;
 import za.co.wethinkcode.server.world.World;
-import za.co.wethinkcode.server.world.obstacles.Obstacle;
 
 /**
  * A command that allows the robot to fire a gun in its current direction.
@@ -42,155 +41,151 @@ public class FireCommand implements Command {
 
     @Override
     public String execute() {
+        return fire(world, robot, shotDistance);
+    }
+
+    /**
+     * Fires a robot's gun without creating a command object. The range comes
+     * from the shots the robot has before this one.
+     *
+     * @param world the world in which the robot operates
+     * @param robot the robot that fires
+     * @return a JSON string representing the result of the command
+     */
+    public static String fire(World world, Robot robot) {
+        return fire(world, robot, calculateShotDistance(robot.getShots()));
+    }
+
+    private static String fire(World world, Robot robot, int shotDistance) {
+        Shot shot = shoot(world, robot, shotDistance);
+        if (shot.error() != null) {
+            return ResponseEncoder.commandError(shot.error());
+        }
+        return shot.target() != null ? createHitResponse(robot, shot) : createShotResponse(robot, shot.message());
+    }
+
+    /**
+     * Fires a robot's gun, as {@link #fire(World, Robot)} does, and returns
+     * what happened instead of a response, for callers that encode it themselves.
+     *
+     * @param world the world in which the robot operates
+     * @param robot the robot that fires
+     * @return the outcome of the shot
+     */
+    public static Shot shoot(World world, Robot robot) {
+        return shoot(world, robot, calculateShotDistance(robot.getShots()));
+    }
+
+    private static Shot shoot(World world, Robot robot, int shotDistance) {
         if (robot.getShots() <= 0) {
-            return createErrorResponse("No shots available");
+            return Shot.failed("No shots available");
         }
 
         robot.setShots(robot.getShots() - 1);
 
         if (shotDistance == 0) {
-            return createErrorResponse("Gun not configured for firing");
+            return Shot.failed("Gun not configured for firing");
         }
 
-        Obstacle hitObstacle = checkForObstacleHit();
-        Robot hitRobot = checkForHit();
-        if (!(hitObstacle == null)) {
-            return createHitResponse();
+        boolean hitObstacle = hitsObstacle(world, robot, shotDistance);
+        Robot hitRobot = findHit(world, robot, shotDistance);
+        if (hitObstacle) {
+            return new Shot(null, "Hit Obstacle", null, -1);
+        }
+        if (hitRobot == null) {
+            return new Shot(null, "Miss", null, -1);
         }
 
-        return hitRobot != null ? createHitResponse(hitRobot) : createMissResponse();
+        if (hitRobot.takeHit()) {
+            // A dead robot never finishes its reload or repair
+            world.cancelRobotTimer(hitRobot);
+        }
+        return new Shot(null, "Hit", hitRobot, calculateDistance(robot.getPosition(), hitRobot.getPosition()));
     }
 
     protected Robot checkForHit() {
-        Position currentPos = robot.getPosition();
-        Direction direction = robot.getDirection();
+        return findHit(world, robot, shotDistance);
+    }
 
-        for (int step = 1; step <= shotDistance; step++) {
-            Position checkPos = calculatePositionInDirection(currentPos, direction, step);
+    protected boolean checkForObstacleHit() {
+        return hitsObstacle(world, robot, shotDistance);
+    }
 
-            if (ShootingValidator.isBlocked(checkPos, world)) {
-                return null;
-            }
+    private static Robot findHit(World world, Robot robot, int shotDistance) {
+        Position currentPos = robot.getPosition();
+        Direction direction = robot.getDirection();
+        int x = currentPos.getX();
+        int y = currentPos.getY();
+        int blocker = world.getDistanceToBlocker(x, y, direction, shotDistance);
 
+        // The shot stops at the first obstacle or edge, so only cells before it can hold a target
+        for (int step = 1; step < blocker; step++) {
             // Check for robots in this position
-            for (Robot other : world.getRobots()) {
-                if (!other.equals(robot) && other.getPosition().equals(checkPos)) {
-                    return other;
-                }
+            Robot other = world.getRobotAt(x + Coordinates.dx(direction) * step, y + Coordinates.dy(direction) * step);
+            if (other != null && !other.equals(robot)) {
+                return other;
             }
         }
         return null;
     }
 
-    protected Obstacle checkForObstacleHit() {
+    private static boolean hitsObstacle(World world, Robot robot, int shotDistance) {
         Position currentPos = robot.getPosition();
         Direction direction = robot.getDirection();
+        int blocker = world.getDistanceToBlocker(currentPos.getX(), currentPos.getY(), direction, shotDistance);
 
-        for (int step = 1; step <= shotDistance; step++) {
-            Position checkPos = calculatePositionInDirection(currentPos, direction, step);
-
-            // Check for obstacle in this position
-            for (Obstacle obstacle : world.getObstacles()) {
-                if (obstacle.blocksPosition(checkPos.getX(), checkPos.getY())) {
-                    return obstacle;
-                }
-            }
-
-            if (ShootingValidator.isBlocked(checkPos, world)) {
-                return null;
-            }
-        }
-        return null;
+        // A blocker inside the world is an obstacle; outside it is the edge
+        return blocker <= shotDistance
+                && world.isPositionValid(currentPos.getX() + Coordinates.dx(direction) * blocker,
+                        currentPos.getY() + Coordinates.dy(direction) * blocker);
     }
 
 
-    private Position calculatePositionInDirection(Position start, Direction direction, int steps) {
-        int newX = start.getX();
-        int newY = start.getY();
-
-        switch (direction) {
-            case NORTH: newY += steps; break;
-            case EAST: newX += steps; break;
-            case SOUTH: newY -= steps; break;
-            case WEST: newX -= steps; break;
+    private static String createHitResponse(Robot robot, Shot shot) {
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("OK");
+            json.name("data").beginObject()
+                    .name("message").value(shot.message())
+                    .name("distance").value(shot.distance())
+                    .name("robot").value(shot.target().getName())
+                    .name("state");
+            writeState(json, shot.target());
+            json.endObject();
+            return endWithShots(json, robot);
         }
-
-        return new Position(newX, newY);
     }
 
-    private String createHitResponse(Robot hitRobot) {
-        hitRobot.takeHit();
-
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", "Hit");
-        data.addProperty("distance", calculateDistance(robot.getPosition(), hitRobot.getPosition()));
-        data.addProperty("robot", hitRobot.getName());
-        data.add("state", createStateJson(hitRobot));
-        response.add("data", data);
-
-        JsonObject state = new JsonObject();
-        state.addProperty("shots", robot.getShots());
-        response.add("state", state);
-
-        return response.toString();
-    }
-
-    private String createHitResponse(){
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", "Hit Obstacle");
-        response.add("data", data);
-
-        JsonObject state = new JsonObject();
-        state.addProperty("shots", robot.getShots());
-        response.add("state", state);
-
-        return response.toString();
+    private static void writeState(JsonBuffer json, Robot robot) {
+        json.beginObject();
+        json.name("position").position(robot.getPosition().getX(), robot.getPosition().getY());
+        json.name("direction").value(robot.getDirection().name());
+        json.name("shields").value(robot.getShields());
+        json.name("shots").value(robot.getShots());
+        json.name("status").value(robot.getStatus().name());
+        json.endObject();
     }
 
-    private JsonObject createStateJson(Robot robot) {
-        JsonObject state = new JsonObject();
-        state.add("position", new Gson().toJsonTree(
-                new int[]{robot.getPosition().getX(), robot.getPosition().getY()}));
-        state.addProperty("direction", robot.getDirection().name());
-        state.addProperty("shields", robot.getShields());
-        state.addProperty("shots", robot.getShots());
-        state.addProperty("status", robot.getStatus().name());
-        return state;
+    private static String createShotResponse(Robot robot, String message) {
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("OK");
+            json.name("data").beginObject().name("message").value(message).endObject();
+            return endWithShots(json, robot);
+        }
     }
 
-    private String createMissResponse() {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", "Miss");
-        response.add("data", data);
-
-        JsonObject state = new JsonObject();
-        state.addProperty("shots", robot.getShots());
-        response.add("state", state);
-
-        return response.toString();
+    /**
+     * Finishes a response with the firing robot's remaining shots as its state.
+     */
+    private static String endWithShots(JsonBuffer json, Robot robot) {
+        json.name("state").beginObject().name("shots").value(robot.getShots()).endObject();
+        return json.endObject().finish();
     }
 
-    private int calculateDistance(Position pos1, Position pos2) {
+    private static int calculateDistance(Position pos1, Position pos2) {
         return Math.abs(pos1.getX() - pos2.getX()) + Math.abs(pos1.getY() - pos2.getY());
     }
 
-    private String createErrorResponse(String message) {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "ERROR");
-        response.addProperty("message", message);
-        return response.toString();
-    }
-
-    private int calculateShotDistance(int shots) {
+    private static int calculateShotDistance(int shots) {
         if (shots <= 0) return 0;
         if (shots >= 5) return 1;
         return 6 - shots;
@@ -213,4 +208,18 @@ public class FireCommand implements Command {
 
     @Override
     public String display() { return "FIRE " + robot.getName(); }
+
+    /**
+     * The outcome of one shot.
+     *
+     * @param error    why the gun did not fire, or null if it did
+     * @param message  "Hit", "Miss" or "Hit Obstacle"
+     * @param target   the robot hit, or null
+     * @param distance how far away the robot hit was, or -1
+     */
+    public record Shot(String error, String message, Robot target, int distance) {
+        private static Shot failed(String error) {
+            return new Shot(error, null, null, -1);
+        }
+    }
 }
\ No newline at end of file
@@ -1,23 +1,26 @@
 package za.co.wethinkcode.client.commands;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import za.co.wethinkcode.protocol.JsonBuffer;
+import za.co.wethinkcode.protocol.ResponseEncoder;
 import za.co.wethinkcode.server.model.Direction;
 import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.ObjectInDirection;
 import za.co.wethinkcode.server.world.World;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents a visual scan command for a robot.
  * Scans the world for visible objects and builds a JSON response.
  */
 public class LookCommand {
-    private final JsonArray objects = new JsonArray();
+    private final List<SeenObject> objects = new ArrayList<>();
     private final World world;
     private final Robot robot;
     private final int visibilityRange;
-    private final Gson gson = new Gson();
 
     /**
      * Constructs a {@code LookCommand} for the specified robot and world.
@@ -49,14 +52,20 @@ public class LookCommand {
             }
         }
 
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-        JsonObject data = new JsonObject();
-        data.add("objects", objects);
-        data.addProperty("visibilityRange", visibilityRange);
-        response.add("data", data);
-        response.add("state", new StateCommand(robot).toJson());
-        return gson.toJson(response);
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("OK");
+            json.name("data").beginObject().name("objects").beginArray();
+            for (SeenObject object : objects) {
+                json.beginObject()
+                        .name("direction").value(object.direction())
+                        .name("type").value(object.type())
+                        .name("distance").value(object.distance())
+                        .endObject();
+            }
+            json.endArray().name("visibilityRange").value(visibilityRange).endObject();
+            ResponseEncoder.writeState(json, robot);
+            return json.endObject().finish();
+        }
     }
 
     /**
@@ -67,11 +76,8 @@ public class LookCommand {
      * @param distance  how far the object is from the robot
      */
     public void addObject(String direction, String type, int distance) {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("direction", direction.toUpperCase()); // Ensure direction is uppercase
-        obj.addProperty("type", type);
-        obj.addProperty("distance", distance);
-        objects.add(obj);
+        // Ensure direction is uppercase
+        objects.add(new SeenObject(direction.toUpperCase(), type, distance));
     }
 
     /**
@@ -80,9 +86,20 @@ public class LookCommand {
      * @return a JSON representation of what the robot sees
      */
     public JsonObject toJson() {
+        JsonArray objectsJson = new JsonArray();
+        for (SeenObject object : objects) {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("direction", object.direction());
+            obj.addProperty("type", object.type());
+            obj.addProperty("distance", object.distance());
+            objectsJson.add(obj);
+        }
         JsonObject visionJson = new JsonObject();
-        visionJson.add("objects", objects);
+        visionJson.add("objects", objectsJson);
         visionJson.addProperty("visibilityRange", visibilityRange);
         return visionJson;
     }
+
+    private record SeenObject(String direction, String type, int distance) {
+    }
 }
\ No newline at end of file
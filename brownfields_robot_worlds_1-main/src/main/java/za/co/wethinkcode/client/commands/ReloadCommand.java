@@ -1,7 +1,7 @@
 package za.co.wethinkcode.client.commands;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import za.co.wethinkcode.protocol.JsonBuffer;
+import za.co.wethinkcode.protocol.ResponseEncoder;
 import za.co.wethinkcode.server.commands.Command;
 import za.co.wethinkcode.server.world.World;
 import za.co.wethinkcode.server.model.Robot;
@@ -16,9 +16,12 @@ import za.co.wethinkcode.client.commands.StateCommand;
  */
 
 public class ReloadCommand implements Command {
+    /** The messages of a reload that started and one refused because the robot was busy. */
+    public static final String STARTED = "Reloading weapons";
+    public static final String BUSY = "Robot is currently busy and cannot reload";
+
     private final World world;
     private final Robot robot;
-    private volatile boolean isReloading = false;
 
     /**
      * Constructs a ReloadCommand for a robot within a world.
@@ -35,48 +38,58 @@ public class ReloadCommand implements Command {
     /**
      * Executes the reload command.
      *
-     * If the robot is not currently busy, it starts reloading by setting the status to RELOAD
-     * and spawning a thread that waits for the reload time. After the delay, the robot's shots
-     * are refilled and status is reset to NORMAL. If already busy, returns an error response.
+     * If the robot is not currently busy, it starts reloading by atomically setting the status
+     * to RELOAD and scheduling the end of the reload on the world's timer. After the delay,
+     * the robot's shots are refilled and status is reset to NORMAL. If already busy, returns
+     * an error response.
      *
      * @return JSON string indicating success or error
      */
 
     @Override
-    public synchronized String execute() {
-        // Check if robot is already reloading or in another special state
-        if (robot.getStatus() != Robot.Status.NORMAL || isReloading) {
-            return createErrorResponse("Robot is currently busy and cannot reload");
+    public String execute() {
+        return reload(world, robot);
+    }
+
+    /**
+     * Starts a robot reloading without creating a command object, exactly as {@link #execute()} does.
+     *
+     * @param world the game world containing the robot
+     * @param robot the robot that will reload
+     * @return JSON string indicating success or error
+     */
+
+    public static String reload(World world, Robot robot) {
+        if (!start(world, robot)) {
+            return ResponseEncoder.commandError(BUSY);
         }
+        return successResponse(robot, world.getReloadTime());
+    }
 
-        // Mark as reloading
-        isReloading = true;
-        robot.setStatus(Robot.Status.RELOAD);
+    /**
+     * Starts a robot reloading, as {@link #reload(World, Robot)} does, without encoding a response.
+     *
+     * @param world the game world containing the robot
+     * @param robot the robot that will reload
+     * @return false if the robot is busy and cannot reload
+     */
+    public static boolean start(World world, Robot robot) {
+        // Mark as reloading, unless the robot is already reloading or in another special state
+        if (!robot.compareAndSetStatus(Robot.Status.NORMAL, Robot.Status.RELOAD)) {
+            return false;
+        }
 
         // Get reload time from world config
         int reloadTime = world.getReloadTime();
 
-        // Create a new thread to handle the reload delay
-        new Thread(() -> {
-            try {
-                // Wait for the reload time
-                Thread.sleep(reloadTime * 1000L);
-
-                // After reload time is done, reset shots to max and set status back to normal
-                synchronized (this) {
-                    robot.setShots(world.getMaxShots());
-                    robot.setStatus(Robot.Status.NORMAL);
-                    isReloading = false;
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                synchronized (this) {
-                    isReloading = false;
-                }
+        // After reload time is done, reset shots to max and set status back to normal
+        world.scheduleForRobot(robot, reloadTime * 1000L, () -> {
+            if (robot.getStatus() == Robot.Status.RELOAD) {
+                robot.setShots(world.getMaxShots());
+                robot.compareAndSetStatus(Robot.Status.RELOAD, Robot.Status.NORMAL);
             }
-        }).start();
-
-        return createSuccessResponse(reloadTime);
+        });
+        return true;
     }
 
     /**
@@ -87,16 +100,19 @@ public class ReloadCommand implements Command {
      */
 
     public String createSuccessResponse(int reloadTime) {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", "Reloading weapons");
-        data.addProperty("reloadTime", reloadTime);
-        response.add("data", data);
+        return successResponse(robot, reloadTime);
+    }
 
-        response.add("state", new StateCommand(robot).toJson());
-        return new Gson().toJson(response);
+    private static String successResponse(Robot robot, int reloadTime) {
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("OK");
+            json.name("data").beginObject()
+                    .name("message").value(STARTED)
+                    .name("reloadTime").value(reloadTime)
+                    .endObject();
+            ResponseEncoder.writeState(json, robot);
+            return json.endObject().finish();
+        }
     }
 
     /**
@@ -107,10 +123,7 @@ public class ReloadCommand implements Command {
      */
 
     public String createErrorResponse(String message) {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "ERROR");
-        response.addProperty("message", message);
-        return new Gson().toJson(response);
+        return ResponseEncoder.commandError(message);
     }
 
     /**
@@ -1,7 +1,6 @@
 package za.co.wethinkcode.client.commands;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import za.co.wethinkcode.protocol.ResponseEncoder;
 import za.co.wethinkcode.server.commands.Command;
 import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
@@ -11,6 +10,9 @@ import za.co.wethinkcode.server.world.World;
  */
 
 public class RepairCommand implements Command {
+    /** The message of a repair refused because the robot was busy. */
+    public static final String BUSY = "Robot is currently busy and cannot repair";
+
     private final World world;
     private final Robot robot;
     private int repairTime;
@@ -36,54 +38,48 @@ public class RepairCommand implements Command {
 
     @Override
     public String execute() {
-        // Check if robot is already repairing or in another special state
-        if (robot.getStatus() != Robot.Status.NORMAL) {
-            return createErrorResponse("Robot is currently busy and cannot repair");
+        return repair(world, robot);
+    }
+
+    /**
+     * Starts a robot repairing without creating a command object, exactly as {@link #execute()} does.
+     *
+     * @param world the game world
+     * @param robot the robot performing the repair
+     * @return a JSON response indicating success or error
+     */
+
+    public static String repair(World world, Robot robot) {
+        if (!start(world, robot)) {
+            return ResponseEncoder.commandError(BUSY);
         }
+        return ResponseEncoder.ok("Done", robot);
+    }
 
-        // Set robot to repair state
-        robot.setStatus(Robot.Status.REPAIR);
+    /**
+     * Starts a robot repairing, as {@link #repair(World, Robot)} does, without encoding a response.
+     *
+     * @param world the game world
+     * @param robot the robot performing the repair
+     * @return false if the robot is busy and cannot repair
+     */
+    public static boolean start(World world, Robot robot) {
+        // Set robot to repair state, unless it is already repairing or in another special state
+        if (!robot.compareAndSetStatus(Robot.Status.NORMAL, Robot.Status.REPAIR)) {
+            return false;
+        }
 
         // Get repair time from world config
         int repairTime = world.getRepairTime();
 
-        // Create a new thread to handle the repair delay
-        new Thread(() -> {
-            try {
-                // Wait for the repair time
-                Thread.sleep(repairTime * 1000L);
-
-                // After repair time is done, restore shields and set status back to normal
-                synchronized (robot) {
-                    robot.setShields(world.getMaxShieldStrength());
-                    robot.setStatus(Robot.Status.NORMAL);
-                }
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+        // After repair time is done, restore shields and set status back to normal
+        world.scheduleForRobot(robot, repairTime * 1000L, () -> {
+            if (robot.getStatus() == Robot.Status.REPAIR) {
+                robot.setShields(world.getMaxShieldStrength());
+                robot.compareAndSetStatus(Robot.Status.REPAIR, Robot.Status.NORMAL);
             }
-        }).start();
-
-        return createSuccessResponse(repairTime);
-    }
-
-    private String createSuccessResponse(int repairTime) {
-        this.repairTime = repairTime;
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", "Done");
-        response.add("data", data);
-
-        response.add("state", new StateCommand(robot).toJson());
-        return new Gson().toJson(response);
-    }
-
-    private String createErrorResponse(String message) {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "ERROR");
-        response.addProperty("message", message);
-        return new Gson().toJson(response);
+        });
+        return true;
     }
 
     /**
@@ -2,6 +2,7 @@ package za.co.wethinkcode.client.commands;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import za.co.wethinkcode.protocol.JsonBuffer;
 import za.co.wethinkcode.server.model.Direction;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
@@ -48,6 +49,22 @@ public class StateCommand {
         return stateJson;
     }
 
+    /**
+     * Writes the robot's state into a response buffer, in the same form as {@link #toJson()}.
+     *
+     * @param json the buffer to write to
+     */
+
+    public void writeTo(JsonBuffer json) {
+        json.beginObject();
+        json.name("position").position(position.getX(), position.getY());
+        json.name("direction").value(direction.name());
+        json.name("shields").value(shields);
+        json.name("shots").value(shots);
+        json.name("status").value(status);
+        json.endObject();
+    }
+
     /**
      * Returns the robot's current status.
      *
@@ -1,11 +1,10 @@
 package za.co.wethinkcode.client.commands;
 
+import za.co.wethinkcode.protocol.ResponseEncoder;
 import za.co.wethinkcode.server.commands.Command;
 import za.co.wethinkcode.server.world.World;
 import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.model.Direction;
-import com.google.gson.JsonObject;
-import com.google.gson.Gson;
 
 /**
  * A command that turns the robot 90 degrees to the left (counter-clockwise).
@@ -15,7 +14,6 @@ import com.google.gson.Gson;
 public class TurnLeftCommand implements Command {
     private final World world;
     private final Robot robot;
-    private final Gson gson = new Gson();
 
     /**
      * Constructs a TurnLeftCommand for the specified robot and world.
@@ -38,14 +36,31 @@ public class TurnLeftCommand implements Command {
 
     @Override
     public String execute() {
-        Direction currentDirection = robot.getDirection();
-        Direction newDirection = calculateNewDirection(currentDirection);
-        robot.setDirection(newDirection);
+        return turnLeft(robot);
+    }
+
+    /**
+     * Turns a robot left without creating a command object.
+     *
+     * @param robot the robot to turn
+     * @return JSON string representing the result of the command
+     */
+
+    public static String turnLeft(Robot robot) {
+        turn(robot);
+        return ResponseEncoder.ok("Done", robot);
+    }
 
-        return createResponse(newDirection);
+    /**
+     * Turns a robot left without encoding a response.
+     *
+     * @param robot the robot to turn
+     */
+    public static void turn(Robot robot) {
+        robot.setDirection(calculateNewDirection(robot.getDirection()));
     }
 
-    private Direction calculateNewDirection(Direction currentDirection) {
+    private static Direction calculateNewDirection(Direction currentDirection) {
         return switch (currentDirection) {
             case NORTH -> Direction.WEST;
             case WEST -> Direction.SOUTH;
@@ -54,20 +69,6 @@ public class TurnLeftCommand implements Command {
         };
     }
 
-    private String createResponse(Direction newDirection) {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", "Done");
-        response.add("data", data);
-
-        JsonObject state = new StateCommand(robot).toJson();
-        response.add("state", state);
-
-        return gson.toJson(response);
-    }
-
     /**
      * Returns the name of the command.
      *
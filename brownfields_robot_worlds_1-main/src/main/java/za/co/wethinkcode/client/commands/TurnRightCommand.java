@@ -1,11 +1,10 @@
 package za.co.wethinkcode.client.commands;
 
+import za.co.wethinkcode.protocol.ResponseEncoder;
 import za.co.wethinkcode.server.commands.Command;
 import za.co.wethinkcode.server.world.World;
 import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.model.Direction;
-import com.google.gson.JsonObject;
-import com.google.gson.Gson;
 
 /**
  * A command that turns the robot 90 degrees to the right (clockwise).
@@ -15,7 +14,6 @@ import com.google.gson.Gson;
 public class TurnRightCommand implements Command {
     private final World world;
     private final Robot robot;
-    private final Gson gson = new Gson();
 
     /**
      * Constructs a TurnRightCommand for the specified robot and world.
@@ -38,15 +36,32 @@ public class TurnRightCommand implements Command {
 
     @Override
     public String execute() {
-        Direction currentDirection = robot.getDirection();
-        Direction newDirection = calculateNewDirection(currentDirection);
-        robot.setDirection(newDirection);
+        return turnRight(robot);
+    }
+
+    /**
+     * Turns a robot right without creating a command object.
+     *
+     * @param robot the robot to turn
+     * @return JSON string representing the result of the command
+     */
+
+    public static String turnRight(Robot robot) {
+        turn(robot);
+        return ResponseEncoder.ok("Done", robot);
+    }
 
-        return createResponse(newDirection);
+    /**
+     * Turns a robot right without encoding a response.
+     *
+     * @param robot the robot to turn
+     */
+    public static void turn(Robot robot) {
+        robot.setDirection(calculateNewDirection(robot.getDirection()));
     }
 
 
-    private Direction calculateNewDirection(Direction currentDirection) {
+    private static Direction calculateNewDirection(Direction currentDirection) {
         return switch (currentDirection) {
             case NORTH -> Direction.EAST;
             case EAST -> Direction.SOUTH;
@@ -55,20 +70,6 @@ public class TurnRightCommand implements Command {
         };
     }
 
-    private String createResponse(Direction newDirection) {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.addProperty("message", "Done");
-        response.add("data", data);
-
-        JsonObject state = new StateCommand(robot).toJson();
-        response.add("state", state);
-
-        return gson.toJson(response);
-    }
-
     /**
      * Returns the name of the command.
      *
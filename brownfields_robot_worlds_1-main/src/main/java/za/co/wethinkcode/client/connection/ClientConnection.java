@@ -1,5 +1,8 @@
 package za.co.wethinkcode.client.connection;
 
+import za.co.wethinkcode.protocol.Compression;
+import za.co.wethinkcode.protocol.client.ResponseDecompressor;
+
 import java.io.*;
 import java.net.*;
 import java.util.*;
@@ -13,6 +16,7 @@ public class ClientConnection {
     private Socket socket;
     private PrintWriter out;
     private Scanner in;
+    private ResponseDecompressor decompressor;
 
     /**
      * Creates a new uninitialized client connection.
@@ -105,14 +109,35 @@ public class ClientConnection {
     }
 
     /**
-     * Receives a message from the server.
+     * Asks the server to compress responses of at least {@code threshold} bytes.
+     * Must be called while no other response is outstanding.
+     *
+     * @param threshold the smallest response worth compressing
+     * @return {@code true} if the server agreed
+     */
+
+    public boolean enableCompression(int threshold) {
+        send(Compression.negotiationRequest(threshold));
+        String reply = receive();
+        if (reply == null || !reply.contains("\"result\":\"OK\"")) {
+            return false;
+        }
+        if (decompressor == null) {
+            decompressor = new ResponseDecompressor();
+        }
+        return true;
+    }
+
+    /**
+     * Receives a message from the server, inflating it if it was compressed.
      *
      * @return the received message, or {@code null} if unavailable
      */
 
     public String receive() {
         if (in != null && in.hasNextLine()) {
-            return in.nextLine();
+            String line = in.nextLine();
+            return decompressor == null ? line : decompressor.decode(line);
         }
         return null;
     }
@@ -123,6 +148,10 @@ public class ClientConnection {
 
     public void disconnect() {
         try {
+            if (decompressor != null) {
+                decompressor.end();
+                decompressor = null;
+            }
             if (socket != null) {
                 socket.close();
                 System.out.println("Disconnected from the server.");
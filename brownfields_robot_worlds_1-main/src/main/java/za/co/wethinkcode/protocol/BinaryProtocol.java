@@ -0,0 +1,136 @@
+package za.co.wethinkcode.protocol;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Constants and primitives shared by the client and server codecs of the
+ * compact binary wire protocol. JSON lines remain the default protocol.
+ *
+ * <p>A client opts in by sending the {@link #HANDSHAKE} bytes as the very
+ * first bytes of a connection; the server echoes them back, and from then on
+ * both sides exchange frames made of a 4-byte big-endian payload length
+ * followed by the payload. The first handshake byte can never start a JSON
+ * request, so the server tells the protocols apart by a connection's first byte.</p>
+ *
+ * <p>Request payload: opcode, robot name, then the opcode's arguments —
+ * LAUNCH: make; FORWARD and BACK: steps (int); TURN: 0 for left, 1 for right.
+ * Response payload: status ({@link #OK} or {@link #ERROR}), message, a flag
+ * byte that is 1 when the robot's state follows (x and y as ints, direction,
+ * shields and shots as shorts, status), then for LOOK the number of objects
+ * (short) and each object's direction, type code and distance (int), and for
+ * FIRE the distance to what was hit (int, -1 for a miss) and the robot hit.
+ * Strings are a 2-byte length followed by UTF-8 bytes; directions and robot
+ * statuses are enum ordinals.</p>
+ */
+public final class BinaryProtocol {
+    /** Sent by a client to switch its connection to binary, and echoed by the server to accept. */
+    public static final byte[] HANDSHAKE = {(byte) 0xB1, 'R', 'W', 1};
+    /** Largest payload either side accepts. */
+    public static final int MAX_FRAME_BYTES = 1 << 16;
+
+    public static final byte LAUNCH = 1;
+    public static final byte LOOK = 2;
+    public static final byte STATE = 3;
+    public static final byte FORWARD = 4;
+    public static final byte BACK = 5;
+    public static final byte TURN = 6;
+    public static final byte FIRE = 7;
+    public static final byte RELOAD = 8;
+    public static final byte REPAIR = 9;
+
+    public static final byte OK = 0;
+    public static final byte ERROR = 1;
+
+    /** Marks an object type that is not in {@link #OBJECT_TYPES}; its name follows as a string. */
+    public static final byte OTHER_TYPE = -1;
+
+    private static final String[] COMMANDS = {
+            null, "launch", "look", "state", "forward", "back", "turn", "fire", "reload", "repair"
+    };
+    private static final String[] OBJECT_TYPES = {"EDGE", "ROBOT", "OBSTACLE", "MOUNTAIN", "LAKE", "PIT", "MINE"};
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Returns the JSON command name of an opcode.
+     *
+     * @param opcode the opcode
+     * @return the command name
+     * @throws IllegalArgumentException if the opcode is unknown
+     */
+    public static String commandName(byte opcode) {
+        if (opcode < LAUNCH || opcode > REPAIR) {
+            throw new IllegalArgumentException("Unknown opcode " + opcode);
+        }
+        return COMMANDS[opcode];
+    }
+
+    /**
+     * Writes a look object type as its one-byte code, followed by the name if it has no code.
+     *
+     * @param out  the output
+     * @param type the type name, such as "EDGE" or "ROBOT"
+     * @throws IOException if writing fails
+     */
+    public static void writeObjectType(DataOutput out, String type) throws IOException {
+        for (int code = 0; code < OBJECT_TYPES.length; code++) {
+            if (OBJECT_TYPES[code].equals(type)) {
+                out.writeByte(code);
+                return;
+            }
+        }
+        out.writeByte(OTHER_TYPE);
+        writeString(out, type);
+    }
+
+    /**
+     * Reads a look object type written by {@link #writeObjectType}.
+     *
+     * @param in the input
+     * @return the type name
+     * @throws IOException if reading fails or the code is unknown
+     */
+    public static String readObjectType(DataInput in) throws IOException {
+        byte code = in.readByte();
+        if (code == OTHER_TYPE) {
+            return readString(in);
+        }
+        if (code < 0 || code >= OBJECT_TYPES.length) {
+            throw new IOException("Unknown object type " + code);
+        }
+        return OBJECT_TYPES[code];
+    }
+
+    /**
+     * Writes a string as a 2-byte length and its UTF-8 bytes.
+     *
+     * @param out   the output
+     * @param value the string, or null for an empty string
+     * @throws IOException if writing fails or the string is too long
+     */
+    public static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String longer than 65535 bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}.
+     *
+     * @param in the input
+     * @return the string
+     * @throws IOException if reading fails
+     */
+    public static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readUnsignedShort()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,39 @@
+package za.co.wethinkcode.protocol;
+
+/**
+ * Constants shared by the client and server sides of negotiated response
+ * compression on the JSON socket protocol.
+ *
+ * <p>A client sends {@link #negotiationRequest(int)}; from then on, any response
+ * at least as long as the agreed threshold is sent as one line of the form
+ * {@code {"encoding":"deflate","data":"<base64>"}}. The data is a slice of a
+ * single deflate stream that lasts for the whole connection, flushed after
+ * every response, so later responses reuse the dictionary built up by earlier
+ * ones and must be inflated in order. Shorter responses are sent as they are.</p>
+ */
+public final class Compression {
+    /** The only encoding the server offers. */
+    public static final String DEFLATE = "deflate";
+    /** Smallest threshold the server accepts, so small state replies are never compressed. */
+    public static final int MIN_THRESHOLD = 256;
+    /** Threshold used when the client does not ask for one. */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    /** Start of every compressed line; the base64 data follows. */
+    public static final String ENVELOPE_PREFIX = "{\"encoding\":\"" + DEFLATE + "\",\"data\":\"";
+    /** End of every compressed line. */
+    public static final String ENVELOPE_SUFFIX = "\"}";
+
+    private Compression() {
+    }
+
+    /**
+     * Builds the request that turns compression on.
+     *
+     * @param threshold the smallest response, in bytes, worth compressing
+     * @return the request line
+     */
+    public static String negotiationRequest(int threshold) {
+        return "{\"command\":\"compress\",\"arguments\":[\"" + DEFLATE + "\"," + threshold + "]}";
+    }
+}
@@ -0,0 +1,300 @@
+package za.co.wethinkcode.protocol;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A small JSON writer over a reusable character buffer, for responses whose
+ * shape is fixed, so they are written straight out instead of being built as
+ * a Gson tree and serialized.
+ *
+ * <p>Buffers are taken with {@link #acquire()}, in a try-with-resources block,
+ * and handed back by {@link #finish()}, or by {@link #close()} if writing
+ * fails. They come from the {@link Pool} of the connection whose request is
+ * running, so they are reused whichever thread runs the request; other
+ * callers get a pool of their thread's own. Output matches what Gson writes
+ * by default: null values are left out along with their names, and characters
+ * that are unsafe in HTML are escaped.</p>
+ */
+public final class JsonBuffer implements AutoCloseable {
+    /** Buffers that grew beyond this while writing a large response are not kept. */
+    private static final int MAX_RETAINED_CHARS = 64 * 1024;
+    /** Deepest nesting supported; one bit of {@link #hasValue} per level. */
+    private static final int MAX_DEPTH = 63;
+
+    /** The pool of the connection whose request the thread is running, if any. */
+    private static final ThreadLocal<Pool> BOUND = new ThreadLocal<>();
+    private static final ThreadLocal<Pool> THREAD_POOLS = ThreadLocal.withInitial(Pool::new);
+
+    private final Pool owner;
+    private StringBuilder chars = new StringBuilder(256);
+    private String pendingName;
+    private long hasValue;
+    private int depth;
+    private boolean inUse;
+
+    private JsonBuffer(Pool owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Takes an empty buffer from the running connection's pool, or from this
+     * thread's pool outside of a connection's request. A buffer being written
+     * further up the call stack is never handed out twice.
+     *
+     * @return a buffer to write one response into
+     */
+    public static JsonBuffer acquire() {
+        Pool pool = BOUND.get();
+        return (pool != null ? pool : THREAD_POOLS.get()).take();
+    }
+
+    /**
+     * Encodes a single string value, such as a request id.
+     *
+     * @param value the string
+     * @return the quoted and escaped JSON string
+     */
+    public static String quote(String value) {
+        try (JsonBuffer json = acquire()) {
+            return json.value(value).finish();
+        }
+    }
+
+    /**
+     * Returns what was written and hands the buffer back for reuse.
+     *
+     * @return the JSON text
+     */
+    public String finish() {
+        String json = chars.toString();
+        close();
+        return json;
+    }
+
+    /**
+     * Hands the buffer back, dropping anything written, if {@link #finish()}
+     * has not already done so.
+     */
+    @Override
+    public void close() {
+        if (!inUse) {
+            return;
+        }
+        if (chars.capacity() > MAX_RETAINED_CHARS) {
+            chars = new StringBuilder(256);
+        } else {
+            chars.setLength(0);
+        }
+        pendingName = null;
+        hasValue = 0;
+        depth = 0;
+        inUse = false;
+        owner.giveBack(this);
+    }
+
+    public JsonBuffer beginObject() {
+        open('{');
+        return this;
+    }
+
+    public JsonBuffer endObject() {
+        close('}');
+        return this;
+    }
+
+    public JsonBuffer beginArray() {
+        open('[');
+        return this;
+    }
+
+    public JsonBuffer endArray() {
+        close(']');
+        return this;
+    }
+
+    /**
+     * Names the next value written inside an object.
+     */
+    public JsonBuffer name(String name) {
+        pendingName = name;
+        return this;
+    }
+
+    public JsonBuffer value(String value) {
+        if (value == null) {
+            pendingName = null;
+            return this;
+        }
+        separate();
+        writeString(value);
+        return this;
+    }
+
+    public JsonBuffer value(long value) {
+        separate();
+        chars.append(value);
+        return this;
+    }
+
+    public JsonBuffer value(boolean value) {
+        separate();
+        chars.append(value);
+        return this;
+    }
+
+    /**
+     * Writes an {@code [x, y]} pair, the form positions take in every response.
+     */
+    public JsonBuffer position(int x, int y) {
+        separate();
+        chars.append('[').append(x).append(',').append(y).append(']');
+        return this;
+    }
+
+    /**
+     * Writes a value that is already JSON text, such as the response of a
+     * command run inside a batch.
+     */
+    public JsonBuffer rawValue(String json) {
+        separate();
+        chars.append(json);
+        return this;
+    }
+
+    private void open(char bracket) {
+        separate();
+        if (depth == MAX_DEPTH) {
+            throw new IllegalStateException("JSON nested too deeply");
+        }
+        chars.append(bracket);
+        depth++;
+        hasValue &= ~(1L << depth);
+    }
+
+    private void close(char bracket) {
+        chars.append(bracket);
+        depth--;
+    }
+
+    /**
+     * Writes the comma before a value that is not the first at its level, and the pending name.
+     */
+    private void separate() {
+        long bit = 1L << depth;
+        if ((hasValue & bit) != 0) {
+            chars.append(',');
+        }
+        hasValue |= bit;
+        if (pendingName != null) {
+            writeString(pendingName);
+            chars.append(':');
+            pendingName = null;
+        }
+    }
+
+    private void writeString(String value) {
+        chars.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> chars.append("\\\"");
+                case '\\' -> chars.append("\\\\");
+                case '\n' -> chars.append("\\n");
+                case '\r' -> chars.append("\\r");
+                case '\t' -> chars.append("\\t");
+                case '\b' -> chars.append("\\b");
+                case '\f' -> chars.append("\\f");
+                case '<', '>', '&', '=', '\'', '\u2028', '\u2029' -> unicodeEscape(c);
+                default -> {
+                    if (c < 0x20) {
+                        unicodeEscape(c);
+                    } else {
+                        chars.append(c);
+                    }
+                }
+            }
+        }
+        chars.append('"');
+    }
+
+    private void unicodeEscape(char c) {
+        chars.append("\\u");
+        String hex = Integer.toHexString(c);
+        for (int i = hex.length(); i < 4; i++) {
+            chars.append('0');
+        }
+        chars.append(hex);
+    }
+
+    /**
+     * The buffers of one owner, such as a connection, whose requests may run
+     * on any thread, including several at once.
+     */
+    public static final class Pool {
+        /** Most idle buffers kept; a connection rarely writes more responses at once. */
+        private static final int MAX_IDLE = 8;
+
+        private final ArrayDeque<JsonBuffer> idle = new ArrayDeque<>();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Runs work on the calling thread with this pool's buffers handed out
+         * by {@link #acquire()}.
+         *
+         * @param work the work, such as handling one request
+         * @param <T>  the result type
+         * @return the work's result
+         */
+        public <T> T use(Supplier<T> work) {
+            Pool previous = BOUND.get();
+            BOUND.set(this);
+            try {
+                return work.get();
+            } finally {
+                if (previous == null) {
+                    BOUND.remove();
+                } else {
+                    BOUND.set(previous);
+                }
+            }
+        }
+
+        /** @return the number of buffers waiting to be reused */
+        public int getIdleCount() {
+            lock.lock();
+            try {
+                return idle.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private JsonBuffer take() {
+            JsonBuffer buffer;
+            lock.lock();
+            try {
+                buffer = idle.poll();
+            } finally {
+                lock.unlock();
+            }
+            if (buffer == null) {
+                buffer = new JsonBuffer(this);
+            }
+            buffer.inUse = true;
+            return buffer;
+        }
+
+        private void giveBack(JsonBuffer buffer) {
+            lock.lock();
+            try {
+                if (idle.size() < MAX_IDLE) {
+                    idle.push(buffer);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
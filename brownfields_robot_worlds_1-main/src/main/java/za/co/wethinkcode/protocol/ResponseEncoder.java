@@ -0,0 +1,131 @@
+package za.co.wethinkcode.protocol;
+
+import za.co.wethinkcode.client.commands.StateCommand;
+import za.co.wethinkcode.server.model.Robot;
+
+/**
+ * Encoders for the response shapes shared by the robot commands, written
+ * straight into a reused {@link JsonBuffer}.
+ *
+ * <p>Every response starts with its "result", which lets a batch tell a failed
+ * command from its response text without parsing it. A request id is only put
+ * in front of the result as the response leaves the processor.</p>
+ */
+public final class ResponseEncoder {
+    private static final String ERROR_PREFIX = "{\"result\":\"ERROR\"";
+
+    private ResponseEncoder() {
+    }
+
+    /**
+     * Encodes {@code {"result":"OK","data":{"message":...},"state":{...}}}.
+     *
+     * @param message the message
+     * @param robot   the robot whose state is reported
+     * @return the response
+     */
+    public static String ok(String message, Robot robot) {
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("OK");
+            json.name("data").beginObject().name("message").value(message).endObject();
+            writeState(json, robot);
+            return json.endObject().finish();
+        }
+    }
+
+    /**
+     * Encodes {@code {"result":"OK","data":{"message":...}}}, for responses without a state.
+     *
+     * @param message the message
+     * @return the response
+     */
+    public static String ok(String message) {
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("OK");
+            json.name("data").beginObject().name("message").value(message).endObject();
+            return json.endObject().finish();
+        }
+    }
+
+    /**
+     * Encodes {@code {"result":"OK","state":{...}}}.
+     *
+     * @param robot the robot whose state is reported
+     * @return the response
+     */
+    public static String state(Robot robot) {
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("OK");
+            writeState(json, robot);
+            return json.endObject().finish();
+        }
+    }
+
+    /**
+     * Encodes {@code {"result":"ERROR","data":{"message":...}}}.
+     *
+     * @param message the error message
+     * @return the response
+     */
+    public static String error(String message) {
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("ERROR");
+            json.name("data").beginObject().name("message").value(message).endObject();
+            return json.endObject().finish();
+        }
+    }
+
+    /**
+     * Encodes {@code {"result":"ERROR","message":...}}, the form the busy and
+     * out-of-ammunition errors of reload, repair and fire have always taken.
+     *
+     * @param message the error message
+     * @return the response
+     */
+    public static String commandError(String message) {
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("ERROR").name("message").value(message);
+            return json.endObject().finish();
+        }
+    }
+
+    /**
+     * Writes a robot's state as the "state" field of the object being written.
+     *
+     * @param json  the buffer
+     * @param robot the robot
+     */
+    public static void writeState(JsonBuffer json, Robot robot) {
+        json.name("state");
+        new StateCommand(robot).writeTo(json);
+    }
+
+    /**
+     * Adds the client's request id to a response, as its first field, so the
+     * client can match the response to its request. Responses that are not
+     * JSON objects are returned as they are.
+     *
+     * @param response the response
+     * @param id       the request id as sent, or null if the client gave none
+     * @param numeric  true if the id was sent as a number
+     * @return the response carrying the id
+     */
+    public static String withId(String response, String id, boolean numeric) {
+        if (id == null || !response.startsWith("{")) {
+            return response;
+        }
+        String idJson = numeric ? id : JsonBuffer.quote(id);
+        String rest = response.substring(1);
+        return rest.equals("}") ? "{\"id\":" + idJson + "}" : "{\"id\":" + idJson + "," + rest;
+    }
+
+    /**
+     * Checks whether a response produced by these encoders, or by a command, is an error.
+     *
+     * @param response the response text
+     * @return true if its result is "ERROR"
+     */
+    public static boolean isError(String response) {
+        return response.startsWith(ERROR_PREFIX);
+    }
+}
@@ -0,0 +1,167 @@
+package za.co.wethinkcode.protocol.client;
+
+import za.co.wethinkcode.protocol.BinaryProtocol;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Robot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Client side of the binary wire protocol described in {@link BinaryProtocol}:
+ * the handshake, request encoders for each opcode, framing, and the response decoder.
+ */
+public final class BinaryClientCodec {
+
+    private BinaryClientCodec() {
+    }
+
+    /**
+     * Switches a freshly opened connection to the binary protocol.
+     *
+     * @param out the connection's output
+     * @param in  the connection's input
+     * @throws IOException if the server does not accept the binary protocol
+     */
+    public static void handshake(DataOutputStream out, DataInputStream in) throws IOException {
+        out.write(BinaryProtocol.HANDSHAKE);
+        out.flush();
+        byte[] reply = new byte[BinaryProtocol.HANDSHAKE.length];
+        in.readFully(reply);
+        if (!Arrays.equals(reply, BinaryProtocol.HANDSHAKE)) {
+            throw new IOException("Server did not accept the binary protocol");
+        }
+    }
+
+    /**
+     * Encodes a launch request.
+     *
+     * @param robot the robot name
+     * @param make  the robot make
+     * @return the request payload
+     */
+    public static byte[] launch(String robot, String make) {
+        return encode(BinaryProtocol.LAUNCH, robot, out -> BinaryProtocol.writeString(out, make));
+    }
+
+    /**
+     * Encodes a forward or back request.
+     *
+     * @param forward true for forward, false for back
+     * @param robot   the robot name
+     * @param steps   the number of steps
+     * @return the request payload
+     */
+    public static byte[] move(boolean forward, String robot, int steps) {
+        return encode(forward ? BinaryProtocol.FORWARD : BinaryProtocol.BACK, robot, out -> out.writeInt(steps));
+    }
+
+    /**
+     * Encodes a turn request.
+     *
+     * @param robot the robot name
+     * @param right true to turn right, false to turn left
+     * @return the request payload
+     */
+    public static byte[] turn(String robot, boolean right) {
+        return encode(BinaryProtocol.TURN, robot, out -> out.writeByte(right ? 1 : 0));
+    }
+
+    /**
+     * Encodes a request that takes no arguments: look, state, fire, reload or repair.
+     *
+     * @param opcode the opcode
+     * @param robot  the robot name
+     * @return the request payload
+     */
+    public static byte[] command(byte opcode, String robot) {
+        return encode(opcode, robot, out -> { });
+    }
+
+    /**
+     * Writes a payload as one frame.
+     *
+     * @param out     the connection's output
+     * @param payload the payload
+     * @throws IOException if writing fails
+     */
+    public static void writeFrame(DataOutputStream out, byte[] payload) throws IOException {
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    /**
+     * Reads one frame's payload.
+     *
+     * @param in the connection's input
+     * @return the payload
+     * @throws IOException if reading fails or the frame is too large
+     */
+    public static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > BinaryProtocol.MAX_FRAME_BYTES) {
+            throw new IOException("Invalid frame length " + length);
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    /**
+     * Decodes a response payload.
+     *
+     * @param opcode  the opcode of the request being answered
+     * @param payload the response payload
+     * @return the decoded response
+     * @throws IOException if the payload is malformed
+     */
+    public static BinaryResponse decodeResponse(byte opcode, byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        boolean ok = in.readByte() == BinaryProtocol.OK;
+        String message = BinaryProtocol.readString(in);
+
+        BinaryResponse.State state = null;
+        if (in.readByte() == 1) {
+            state = new BinaryResponse.State(in.readInt(), in.readInt(), Direction.values()[in.readByte()],
+                    in.readShort(), in.readShort(), Robot.Status.values()[in.readByte()]);
+        }
+
+        List<BinaryResponse.SeenObject> objects = new ArrayList<>();
+        int distance = -1;
+        String target = "";
+        if (ok && opcode == BinaryProtocol.LOOK) {
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                objects.add(new BinaryResponse.SeenObject(Direction.values()[in.readByte()],
+                        BinaryProtocol.readObjectType(in), in.readInt()));
+            }
+        } else if (ok && opcode == BinaryProtocol.FIRE) {
+            distance = in.readInt();
+            target = BinaryProtocol.readString(in);
+        }
+        return new BinaryResponse(ok, message, state, objects, distance, target);
+    }
+
+    private static byte[] encode(byte opcode, String robot, ArgumentWriter arguments) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(opcode);
+            BinaryProtocol.writeString(out, robot);
+            arguments.write(out);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private interface ArgumentWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,43 @@
+package za.co.wethinkcode.protocol.client;
+
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Robot;
+
+import java.util.List;
+
+/**
+ * A server response decoded from the binary wire protocol.
+ *
+ * @param ok       true if the command succeeded
+ * @param message  the server's message, possibly empty
+ * @param state    the robot's state, or null if the response carried none
+ * @param objects  the objects seen by a look; empty for other commands
+ * @param distance for a fire, the distance to what was hit, or -1 for a miss or other commands
+ * @param target   for a fire, the name of the robot hit, or an empty string
+ */
+public record BinaryResponse(boolean ok, String message, State state, List<SeenObject> objects,
+                             int distance, String target) {
+
+    /**
+     * A robot's state as sent by the server.
+     *
+     * @param x         the x-coordinate
+     * @param y         the y-coordinate
+     * @param direction the direction faced
+     * @param shields   the remaining shields
+     * @param shots     the remaining shots
+     * @param status    the robot's status
+     */
+    public record State(int x, int y, Direction direction, int shields, int shots, Robot.Status status) {
+    }
+
+    /**
+     * One object reported by a look.
+     *
+     * @param direction the direction it was seen in
+     * @param type      the object type, such as "EDGE", "ROBOT" or "PIT"
+     * @param distance  how far away it is
+     */
+    public record SeenObject(Direction direction, String type, int distance) {
+    }
+}
@@ -0,0 +1,54 @@
+package za.co.wethinkcode.protocol.client;
+
+import za.co.wethinkcode.protocol.Compression;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Client side of negotiated response compression. Holds the connection's
+ * single {@link Inflater}, so every line from the server must pass through
+ * {@link #decode(String)} in the order it arrived.
+ */
+public class ResponseDecompressor {
+    private final Inflater inflater = new Inflater();
+    private final byte[] chunk = new byte[8192];
+    private final ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+
+    /**
+     * Returns the JSON response carried by a line from the server.
+     *
+     * @param line the line as received, or null at end of stream
+     * @return the response, inflated if it was compressed
+     * @throws IllegalStateException if compressed data is corrupt
+     */
+    public String decode(String line) {
+        if (line == null || !line.startsWith(Compression.ENVELOPE_PREFIX)
+                || !line.endsWith(Compression.ENVELOPE_SUFFIX)) {
+            return line;
+        }
+        String data = line.substring(Compression.ENVELOPE_PREFIX.length(),
+                line.length() - Compression.ENVELOPE_SUFFIX.length());
+        inflater.setInput(Base64.getDecoder().decode(data));
+        inflated.reset();
+        try {
+            int read;
+            while ((read = inflater.inflate(chunk)) > 0) {
+                inflated.write(chunk, 0, read);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed response", e);
+        }
+        return inflated.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Frees the native memory held by the inflater.
+     */
+    public void end() {
+        inflater.end();
+    }
+}
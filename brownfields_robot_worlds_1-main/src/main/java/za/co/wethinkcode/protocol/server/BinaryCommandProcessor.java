@@ -0,0 +1,227 @@
+package za.co.wethinkcode.protocol.server;
+
+import za.co.wethinkcode.client.commands.BackCommand;
+import za.co.wethinkcode.client.commands.FireCommand;
+import za.co.wethinkcode.client.commands.ForwardCommand;
+import za.co.wethinkcode.client.commands.ReloadCommand;
+import za.co.wethinkcode.client.commands.RepairCommand;
+import za.co.wethinkcode.client.commands.TurnLeftCommand;
+import za.co.wethinkcode.client.commands.TurnRightCommand;
+import za.co.wethinkcode.protocol.BinaryProtocol;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.utils.RobotDestroyedException;
+import za.co.wethinkcode.server.utils.VisionFinder;
+import za.co.wethinkcode.server.world.World;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Server side of the binary wire protocol described in {@link BinaryProtocol}.
+ * Decodes request frames straight into a reusable {@link Request}, so no request text is
+ * parsed, has the connection's {@link ServerCommandProcessor} admit them and
+ * resolve their robot, then runs the command and writes the outcome and the
+ * robot's state straight into the response frame, so no JSON is built either.
+ */
+public class BinaryCommandProcessor {
+    private final ServerCommandProcessor commandProcessor;
+    private final World world;
+    private final Request request = new Request();
+
+    /**
+     * Creates a binary front end for a connection's command processor.
+     *
+     * @param commandProcessor the connection's command processor
+     * @param world            the shared game world
+     */
+    public BinaryCommandProcessor(ServerCommandProcessor commandProcessor, World world) {
+        this.commandProcessor = commandProcessor;
+        this.world = world;
+    }
+
+    /**
+     * Reads a client's opening bytes and reports whether they are the binary
+     * handshake. If they are not, the stream is reset so the bytes can be read
+     * again as JSON.
+     *
+     * @param in the connection's input; must support mark and reset
+     * @return true if the client asked for the binary protocol
+     * @throws IOException if reading fails
+     */
+    public static boolean readHandshake(InputStream in) throws IOException {
+        byte[] handshake = BinaryProtocol.HANDSHAKE;
+        in.mark(handshake.length);
+        for (byte expected : handshake) {
+            if (in.read() != (expected & 0xFF)) {
+                in.reset();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Processes one request payload and returns the response payload.
+     *
+     * @param payload the request payload
+     * @return the response payload
+     */
+    public byte[] process(byte[] payload) {
+        byte opcode;
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+            opcode = in.readByte();
+            decodeRequest(opcode, BinaryProtocol.readString(in), in);
+        } catch (IOException | IllegalArgumentException e) {
+            return encodeError("Malformed binary request: " + e.getMessage());
+        }
+
+        // The command runs on the robot the processor resolved, and is encoded from it, without building JSON
+        return commandProcessor.processRobotRequest(request, context -> {
+            try {
+                return execute(opcode, context);
+            } catch (IOException e) {
+                return encodeError(e.getMessage());
+            }
+        }, BinaryCommandProcessor::encodeError);
+    }
+
+    private void decodeRequest(byte opcode, String robotName, DataInputStream in) throws IOException {
+        request.reset();
+        request.setRobot(robotName);
+        request.setCommand(BinaryProtocol.commandName(opcode));
+        request.beginArguments();
+        switch (opcode) {
+            case BinaryProtocol.LAUNCH -> request.addArgument(BinaryProtocol.readString(in));
+            case BinaryProtocol.FORWARD, BinaryProtocol.BACK -> request.addArgument(Integer.toString(in.readInt()));
+            case BinaryProtocol.TURN -> request.addArgument(in.readByte() == 0 ? "left" : "right");
+            default -> {
+                // No arguments
+            }
+        }
+    }
+
+    /**
+     * Runs a command, as its {@link BuiltInCommand} would, and encodes the outcome.
+     */
+    private byte[] execute(byte opcode, CommandContext context) throws IOException {
+        Robot robot = context.getRobot();
+        if (opcode == BinaryProtocol.LAUNCH) {
+            Robot launched;
+            try {
+                launched = BuiltInCommand.launch(context, request.getArgument(0));
+            } catch (IllegalStateException e) {
+                return encodeError(e.getMessage());
+            }
+            return encode(BinaryProtocol.OK, "", launched).toByteArray();
+        }
+        if (robot == null) {
+            return encodeError("Robot not found");
+        }
+
+        switch (opcode) {
+            case BinaryProtocol.STATE -> {
+                return encode(BinaryProtocol.OK, "", robot).toByteArray();
+            }
+            case BinaryProtocol.LOOK -> {
+                List<VisionFinder.Sighting> sightings = new VisionFinder(world, robot).findSightings(robot);
+                Frame frame = encode(BinaryProtocol.OK, "", robot);
+                frame.out.writeShort(sightings.size());
+                for (VisionFinder.Sighting sighting : sightings) {
+                    frame.out.writeByte(Direction.valueOf(sighting.direction()).ordinal());
+                    BinaryProtocol.writeObjectType(frame.out, sighting.type());
+                    frame.out.writeInt(sighting.distance());
+                }
+                return frame.toByteArray();
+            }
+            case BinaryProtocol.FIRE -> {
+                FireCommand.Shot shot = FireCommand.shoot(world, robot);
+                if (shot.error() != null) {
+                    return encodeError(shot.error());
+                }
+                Frame frame = encode(BinaryProtocol.OK, shot.message(), robot);
+                frame.out.writeInt(shot.distance());
+                BinaryProtocol.writeString(frame.out, shot.target() != null ? shot.target().getName() : "");
+                return frame.toByteArray();
+            }
+            case BinaryProtocol.FORWARD, BinaryProtocol.BACK -> {
+                int steps = request.getIntArgument(0);
+                try {
+                    String outcome = opcode == BinaryProtocol.FORWARD
+                            ? ForwardCommand.move(world, robot, steps) : BackCommand.move(world, robot, steps);
+                    return encode(BinaryProtocol.OK, outcome, robot).toByteArray();
+                } catch (RobotDestroyedException e) {
+                    // The robot has left the world, so there is no state to report
+                    return encode(BinaryProtocol.OK, e.getMessage(), null).toByteArray();
+                }
+            }
+            case BinaryProtocol.TURN -> {
+                if (request.getArgument(0).equals("left")) {
+                    TurnLeftCommand.turn(robot);
+                } else {
+                    TurnRightCommand.turn(robot);
+                }
+                return encode(BinaryProtocol.OK, "Done", robot).toByteArray();
+            }
+            case BinaryProtocol.RELOAD -> {
+                return ReloadCommand.start(world, robot)
+                        ? encode(BinaryProtocol.OK, ReloadCommand.STARTED, robot).toByteArray()
+                        : encodeError(ReloadCommand.BUSY);
+            }
+            case BinaryProtocol.REPAIR -> {
+                return RepairCommand.start(world, robot)
+                        ? encode(BinaryProtocol.OK, "Done", robot).toByteArray()
+                        : encodeError(RepairCommand.BUSY);
+            }
+            default -> {
+                return encodeError("Unsupported command");
+            }
+        }
+    }
+
+    /**
+     * Starts a response frame with its status, message and, if there is a
+     * robot, the robot's state. Commands with more to say write it after.
+     */
+    private static Frame encode(byte status, String message, Robot robot) throws IOException {
+        Frame frame = new Frame();
+        frame.out.writeByte(status);
+        BinaryProtocol.writeString(frame.out, message != null ? message : "");
+        frame.out.writeByte(robot != null ? 1 : 0);
+        if (robot != null) {
+            frame.out.writeInt(robot.getPosition().getX());
+            frame.out.writeInt(robot.getPosition().getY());
+            frame.out.writeByte(robot.getDirection().ordinal());
+            frame.out.writeShort(robot.getShields());
+            frame.out.writeShort(robot.getShots());
+            frame.out.writeByte(robot.getStatus().ordinal());
+        }
+        return frame;
+    }
+
+    private static byte[] encodeError(String message) {
+        try {
+            return encode(BinaryProtocol.ERROR, message, null).toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A response payload being written.
+     */
+    private static final class Frame {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        private final DataOutputStream out = new DataOutputStream(bytes);
+
+        byte[] toByteArray() {
+            return bytes.toByteArray();
+        }
+    }
+}
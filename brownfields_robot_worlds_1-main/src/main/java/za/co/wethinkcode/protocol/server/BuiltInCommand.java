@@ -0,0 +1,239 @@
+package za.co.wethinkcode.protocol.server;
+
+import za.co.wethinkcode.client.commands.BackCommand;
+import za.co.wethinkcode.client.commands.FireCommand;
+import za.co.wethinkcode.client.commands.ForwardCommand;
+import za.co.wethinkcode.client.commands.ReloadCommand;
+import za.co.wethinkcode.client.commands.RepairCommand;
+import za.co.wethinkcode.client.commands.TurnLeftCommand;
+import za.co.wethinkcode.client.commands.TurnRightCommand;
+import za.co.wethinkcode.protocol.JsonBuffer;
+import za.co.wethinkcode.protocol.ResponseEncoder;
+import za.co.wethinkcode.server.commands.DumpCommand;
+import za.co.wethinkcode.server.commands.RobotsCommand;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.utils.PositionFinder;
+import za.co.wethinkcode.server.utils.VisionFinder;
+import za.co.wethinkcode.server.world.World;
+
+/**
+ * The commands the server understands out of the box, one stateless handler each.
+ */
+public enum BuiltInCommand implements CommandHandler {
+    LAUNCH {
+        @Override
+        public String handle(CommandContext context) {
+            try {
+                Request request = context.getRequest();
+                if (!request.hasArguments()) {
+                    return ResponseEncoder.error("Launch requires arguments: [make]");
+                }
+                if (request.getArgumentCount() < 1) {
+                    return ResponseEncoder.error("Launch requires make");
+                }
+
+                Robot robot;
+                try {
+                    robot = launch(context, request.getArgument(0));
+                } catch (IllegalStateException e) {
+                    return ResponseEncoder.error(e.getMessage());
+                }
+                Position pos = robot.getPosition();
+
+                try (JsonBuffer json = JsonBuffer.acquire()) {
+                    json.beginObject().name("result").value("OK");
+                    json.name("data").beginObject().name("position").position(pos.getX(), pos.getY()).endObject();
+                    ResponseEncoder.writeState(json, robot);
+                    return json.endObject().finish();
+                }
+            } catch (Exception e) {
+                return ResponseEncoder.error("Invalid launch parameters: " + e.getMessage());
+            }
+        }
+    },
+
+    LOOK {
+        @Override
+        public String handle(CommandContext context) {
+            Robot robot = context.getRobot();
+            if (robot == null) {
+                return ResponseEncoder.error("Robot not found");
+            }
+            try (JsonBuffer json = JsonBuffer.acquire()) {
+                json.beginObject().name("result").value("OK").name("data");
+                new VisionFinder(context.getWorld(), robot).writeInAbsoluteDirections(json, robot);
+                ResponseEncoder.writeState(json, robot);
+                return json.endObject().finish();
+            }
+        }
+    },
+
+    STATE {
+        @Override
+        public String handle(CommandContext context) {
+            Robot robot = context.getRobot();
+            return robot == null ? ResponseEncoder.error("Robot not found") : ResponseEncoder.state(robot);
+        }
+    },
+
+    FORWARD {
+        @Override
+        public String handle(CommandContext context) {
+            Robot robot = context.getRobot();
+            if (robot == null) {
+                return ResponseEncoder.error("Robot not found");
+            }
+            return ForwardCommand.moveForward(context.getWorld(), robot, steps(context.getRequest()));
+        }
+    },
+
+    BACK {
+        @Override
+        public String handle(CommandContext context) {
+            Robot robot = context.getRobot();
+            if (robot == null) {
+                return ResponseEncoder.error("Robot not found");
+            }
+            return BackCommand.moveBack(context.getWorld(), robot, steps(context.getRequest()));
+        }
+    },
+
+    TURN {
+        @Override
+        public String handle(CommandContext context) {
+            Robot robot = context.getRobot();
+            if (robot == null) {
+                return ResponseEncoder.error("Robot not found");
+            }
+            Request request = context.getRequest();
+            if (request.getArgumentCount() < 1) {
+                return ResponseEncoder.error("Turn requires direction argument");
+            }
+            return switch (request.getArgument(0).toLowerCase()) {
+                case "left" -> TurnLeftCommand.turnLeft(robot);
+                case "right" -> TurnRightCommand.turnRight(robot);
+                default -> ResponseEncoder.error("Invalid direction. Must be 'left' or 'right'");
+            };
+        }
+    },
+
+    FIRE {
+        @Override
+        public String handle(CommandContext context) {
+            Robot robot = context.getRobot();
+            return robot == null ? ResponseEncoder.error("Robot not found") : FireCommand.fire(context.getWorld(), robot);
+        }
+    },
+
+    RELOAD {
+        @Override
+        public String handle(CommandContext context) {
+            Robot robot = context.getRobot();
+            return robot == null ? ResponseEncoder.error("Robot not found") : ReloadCommand.reload(context.getWorld(), robot);
+        }
+    },
+
+    REPAIR {
+        @Override
+        public String handle(CommandContext context) {
+            Robot robot = context.getRobot();
+            return robot == null ? ResponseEncoder.error("Robot not found") : RepairCommand.repair(context.getWorld(), robot);
+        }
+    },
+
+    /**
+     * Dumps the whole world, or only the region given as [x, y, width, height] arguments.
+     */
+    DUMP {
+        @Override
+        public boolean actsOnRobot() {
+            return false;
+        }
+
+        @Override
+        public boolean canCompleteOutOfOrder() {
+            return true;
+        }
+
+        @Override
+        public String handle(CommandContext context) {
+            Request request = context.getRequest();
+            int[] region = null;
+            if (request.getArgumentCount() >= 4) {
+                region = new int[]{request.getIntArgument(0), request.getIntArgument(1),
+                        request.getIntArgument(2), request.getIntArgument(3)};
+            }
+            return new DumpCommand(context.getWorld(), region).execute();
+        }
+    },
+
+    ROBOTS {
+        @Override
+        public boolean actsOnRobot() {
+            return false;
+        }
+
+        @Override
+        public boolean canCompleteOutOfOrder() {
+            return true;
+        }
+
+        @Override
+        public String handle(CommandContext context) {
+            return new RobotsCommand(context.getWorld()).execute();
+        }
+    };
+
+    private final String commandName = name().toLowerCase();
+
+    @Override
+    public String getName() {
+        return commandName;
+    }
+
+    /**
+     * Places a new robot for the request at a random open position and records
+     * it as launched by the connection.
+     *
+     * @param context the launch request
+     * @param make    the robot's make
+     * @return the robot, now in the world
+     * @throws IllegalStateException if the robot cannot be launched, with the reason as its message
+     */
+    static Robot launch(CommandContext context, String make) {
+        World world = context.getWorld();
+
+        // Check if robot exists
+        if (context.getRobot() != null) {
+            throw new IllegalStateException("Too many of you in this world");
+        }
+
+        if (world.isFull()) {
+            throw new IllegalStateException("No more space in this world");
+        }
+
+        Position pos = new PositionFinder(world).findRandomOpenPosition();
+        if (pos == null) {
+            throw new IllegalStateException("No more space in this world");
+        }
+
+        Robot robot = new Robot(context.getRobotName(), pos);
+        robot.setMake(make);
+        robot.setShields(world.getMaxShieldStrength());
+        robot.setShots(world.getMaxShots());
+        if (!world.addRobot(robot)) {
+            // Another client launched the same name, or filled the world, since the checks above
+            throw new IllegalStateException(world.isFull() ? "No more space in this world" : "Too many of you in this world");
+        }
+        context.addOwnedRobot(robot);
+        return robot;
+    }
+
+    /**
+     * Forward and back move one step unless told otherwise.
+     */
+    private static int steps(Request request) {
+        return request.getArgumentCount() > 0 ? request.getIntArgument(0) : 1;
+    }
+}
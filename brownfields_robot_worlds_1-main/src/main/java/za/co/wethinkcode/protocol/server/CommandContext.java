@@ -0,0 +1,59 @@
+package za.co.wethinkcode.protocol.server;
+
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+
+import java.util.List;
+
+/**
+ * What a {@link CommandHandler} gets to work with: the world, the request and
+ * its robot, and the connection's list of robots. Each connection reuses one
+ * context for all of its requests.
+ */
+public final class CommandContext {
+    private final World world;
+    private final List<Robot> ownedRobots;
+    private Request request;
+    private Robot robot;
+
+    CommandContext(World world, List<Robot> ownedRobots) {
+        this.world = world;
+        this.ownedRobots = ownedRobots;
+    }
+
+    CommandContext prepare(Request request, Robot robot) {
+        this.request = request;
+        this.robot = robot;
+        return this;
+    }
+
+    /** @return the shared game world */
+    public World getWorld() {
+        return world;
+    }
+
+    /** @return the request being handled */
+    public Request getRequest() {
+        return request;
+    }
+
+    /** @return the name of the request's robot, or null if it named none */
+    public String getRobotName() {
+        return request.getRobot();
+    }
+
+    /** @return the request's robot, or null if no robot of that name is in the world */
+    public Robot getRobot() {
+        return robot;
+    }
+
+    /**
+     * Records a robot as launched by this connection, so it is removed from the
+     * world when the connection closes.
+     *
+     * @param robot a robot that has just been added to the world
+     */
+    public void addOwnedRobot(Robot robot) {
+        ownedRobots.add(robot);
+    }
+}
@@ -20,6 +20,19 @@ public record CommandFactory(World world) {
         return new DumpCommand(world);
     }
 
+    /**
+     * Creates a command that dumps a rectangular region of the world.
+     *
+     * @param x      the region's x-coordinate
+     * @param y      the region's y-coordinate
+     * @param width  the region's width
+     * @param height the region's height
+     * @return a DumpCommand instance limited to the region
+     */
+    public Command createDumpCommand(int x, int y, int width, int height) {
+        return new DumpCommand(world, new int[]{x, y, width, height});
+    }
+
     public Command createSaveCommand() {
         return new SaveCommand(world);
     }
@@ -0,0 +1,56 @@
+package za.co.wethinkcode.protocol.server;
+
+/**
+ * Handles one command of the socket protocol. Handlers are stateless and
+ * built once, so a single instance serves every request on every connection;
+ * anything that belongs to the request or the connection comes from the
+ * {@link CommandContext}.
+ *
+ * <p>Handlers are looked up by name in a {@link CommandRegistry}. Besides the
+ * built-in {@link BuiltInCommand}s, further commands can be plugged in as
+ * services: list the implementing classes, which need a public no-argument
+ * constructor, in {@code META-INF/services/za.co.wethinkcode.protocol.server.CommandHandler}.</p>
+ */
+public interface CommandHandler {
+
+    /**
+     * Returns the name clients send in the request's "command" field.
+     *
+     * "batch" and "compress" are handled by the protocol itself and cannot be taken.
+     *
+     * @return the command name, in lower case
+     */
+    String getName();
+
+    /**
+     * Reports whether the command acts on the request's robot. Such commands
+     * run under the world's shared command lock, only after the robot has been
+     * checked to be alive, and may be sent inside a batch. Other commands, such
+     * as the server's own administration commands, run on their own.
+     *
+     * @return true for robot commands
+     */
+    default boolean actsOnRobot() {
+        return true;
+    }
+
+    /**
+     * Reports whether a request for this command that carries an id may be
+     * answered out of order, after requests the client sent later. Such
+     * requests run on their own thread, so the handler must not change the
+     * connection's robots, and should only read the world.
+     *
+     * @return true if slow requests for this command need not hold up the connection
+     */
+    default boolean canCompleteOutOfOrder() {
+        return false;
+    }
+
+    /**
+     * Runs the command.
+     *
+     * @param context the request being handled and the connection it came from
+     * @return the JSON response
+     */
+    String handle(CommandContext context);
+}
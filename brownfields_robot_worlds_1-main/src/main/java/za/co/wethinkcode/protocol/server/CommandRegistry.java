@@ -0,0 +1,77 @@
+package za.co.wethinkcode.protocol.server;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * Maps command names to their {@link CommandHandler}s. A registry is built
+ * once and never changes, so every connection can share it.
+ */
+public final class CommandRegistry {
+    private final Map<String, CommandHandler> handlers = new HashMap<>();
+
+    /**
+     * Creates a registry of the given handlers.
+     *
+     * @param handlers the handlers
+     * @throws IllegalArgumentException if two handlers have the same name, or
+     *                                  one takes the name "batch" or "compress"
+     */
+    public CommandRegistry(Collection<? extends CommandHandler> handlers) {
+        for (CommandHandler handler : handlers) {
+            String name = handler.getName().toLowerCase();
+            if (name.equals(ServerCommandProcessor.BATCH) || name.equals(ServerCommandProcessor.COMPRESS)) {
+                throw new IllegalArgumentException("Command '" + name + "' is part of the protocol itself");
+            }
+            if (this.handlers.putIfAbsent(name, handler) != null) {
+                throw new IllegalArgumentException("More than one handler for command '" + name + "'");
+            }
+        }
+    }
+
+    /**
+     * Returns the registry the server uses: the built-in commands and any
+     * handlers installed as services.
+     *
+     * @return the shared default registry
+     */
+    public static CommandRegistry defaults() {
+        return Defaults.REGISTRY;
+    }
+
+    /**
+     * Finds the handler for a command.
+     *
+     * @param command the command name, in lower case
+     * @return the handler, or null if the command is unknown
+     */
+    public CommandHandler find(String command) {
+        return handlers.get(command);
+    }
+
+    /**
+     * Returns the names of all registered commands.
+     *
+     * @return the command names
+     */
+    public Set<String> getCommandNames() {
+        return Set.copyOf(handlers.keySet());
+    }
+
+    private static final class Defaults {
+        static final CommandRegistry REGISTRY = load();
+
+        private static CommandRegistry load() {
+            List<CommandHandler> all = new ArrayList<>(List.of(BuiltInCommand.values()));
+            for (CommandHandler plugin : ServiceLoader.load(CommandHandler.class)) {
+                all.add(plugin);
+            }
+            return new CommandRegistry(all);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package za.co.wethinkcode.protocol.server;
+
+import java.util.Map;
+
+/**
+ * How fast one connection may send commands. Each connection gets its own
+ * {@link TokenBucket}; a command costs tokens according to its type, so
+ * expensive reads such as look and dump use up the allowance faster than turns.
+ *
+ * @param tokensPerSecond the rate the bucket refills at, or 0 for no limit
+ * @param burst           the most tokens a bucket holds, allowing short bursts; must
+ *                        cover the most expensive command
+ * @param costs           the cost of each command by name; commands not listed cost 1
+ */
+public record RateLimit(double tokensPerSecond, int burst, Map<String, Integer> costs) {
+    /** Costs used unless others are given. */
+    public static final Map<String, Integer> DEFAULT_COSTS = Map.of(
+            "dump", 20,
+            "robots", 5,
+            "look", 5,
+            "fire", 2,
+            "launch", 2);
+
+    /** No limit at all. */
+    public static final RateLimit UNLIMITED = new RateLimit(0, 0, DEFAULT_COSTS);
+
+    public RateLimit {
+        if (tokensPerSecond < 0 || (tokensPerSecond > 0 && burst <= 0)) {
+            throw new IllegalArgumentException("Rate limit needs a positive rate and burst");
+        }
+        costs = Map.copyOf(costs);
+        if (tokensPerSecond > 0 && burst < maxCost(costs)) {
+            throw new IllegalArgumentException("Burst must be at least the most expensive command's cost");
+        }
+    }
+
+    /**
+     * Creates a limit with the default command costs.
+     *
+     * @param tokensPerSecond the rate the bucket refills at
+     * @param burst           the most tokens a bucket holds
+     * @return the limit
+     */
+    public static RateLimit of(double tokensPerSecond, int burst) {
+        return new RateLimit(tokensPerSecond, burst, DEFAULT_COSTS);
+    }
+
+    /**
+     * Returns the cost of the most expensive command.
+     *
+     * @param costs the cost of each command by name
+     * @return the highest cost, and at least 1
+     */
+    public static int maxCost(Map<String, Integer> costs) {
+        return costs.values().stream().mapToInt(Integer::intValue).max().orElse(1);
+    }
+
+    /** @return true if commands are limited at all */
+    public boolean isLimited() {
+        return tokensPerSecond > 0;
+    }
+
+    /**
+     * Returns the cost of a command.
+     *
+     * @param command the command name, in lower case
+     * @return its cost in tokens
+     */
+    public int costOf(String command) {
+        return costs.getOrDefault(command, 1);
+    }
+
+    /**
+     * Creates a full bucket for a new connection.
+     *
+     * @return the bucket
+     */
+    public TokenBucket newBucket() {
+        return new TokenBucket(tokensPerSecond, burst);
+    }
+}
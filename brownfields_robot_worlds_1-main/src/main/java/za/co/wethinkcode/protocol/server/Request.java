@@ -0,0 +1,206 @@
+package za.co.wethinkcode.protocol.server;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A decoded client request. Each connection reuses one instance for every
+ * message, and the entries of a batch come from a pool the request keeps, so
+ * decoding a request allocates little beyond its field values.
+ *
+ * <p>The "arguments" array is held position by position: an argument that is a
+ * plain value is available from {@link #getArgument(int)}, and one that is an
+ * object, as in a batch, from {@link #getEntry(int)}.</p>
+ */
+public class Request {
+    /** Batch entries are decoded one level deep; objects nested further are skipped. */
+    static final int MAX_DEPTH = 2;
+
+    private final int depth;
+    private final List<String> arguments = new ArrayList<>();
+    private final List<Request> entries = new ArrayList<>();
+    private final List<Request> pool = new ArrayList<>();
+    private int pooledInUse;
+    private String id;
+    private boolean numericId;
+    private String command;
+    private String robot;
+    private boolean argumentList;
+    private boolean stopOnError;
+
+    /**
+     * Creates an empty top-level request.
+     */
+    public Request() {
+        this(1);
+    }
+
+    private Request(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * Clears the request so it can be decoded into again.
+     */
+    public void reset() {
+        id = null;
+        numericId = false;
+        command = null;
+        robot = null;
+        argumentList = false;
+        stopOnError = false;
+        arguments.clear();
+        entries.clear();
+        for (int i = 0; i < pooledInUse; i++) {
+            pool.get(i).reset();
+        }
+        pooledInUse = 0;
+    }
+
+    /**
+     * Copies the request, for work that outlives this instance's reuse.
+     *
+     * @return a new request with the same contents
+     */
+    public Request copy() {
+        Request copy = new Request(depth);
+        copyInto(copy);
+        return copy;
+    }
+
+    private void copyInto(Request copy) {
+        copy.id = id;
+        copy.numericId = numericId;
+        copy.command = command;
+        copy.robot = robot;
+        copy.argumentList = argumentList;
+        copy.stopOnError = stopOnError;
+        for (int i = 0; i < arguments.size(); i++) {
+            Request entry = entries.get(i);
+            if (entry == null) {
+                copy.addArgument(arguments.get(i));
+            } else {
+                entry.copyInto(copy.addEntry());
+            }
+        }
+    }
+
+    /** @return the id the client gave the request, as sent, or null if it gave none */
+    public String getId() {
+        return id;
+    }
+
+    /** @return true if the id was sent as a number rather than a string */
+    public boolean hasNumericId() {
+        return numericId;
+    }
+
+    /** @return the command name as sent, or null if there was none */
+    public String getCommand() {
+        return command;
+    }
+
+    /** @return the robot name, or null if there was none */
+    public String getRobot() {
+        return robot;
+    }
+
+    /** @return true if the request carried an "arguments" array */
+    public boolean hasArguments() {
+        return argumentList;
+    }
+
+    /** @return the number of entries in the "arguments" array */
+    public int getArgumentCount() {
+        return arguments.size();
+    }
+
+    /**
+     * Returns a plain argument as text; numbers and booleans are given as written.
+     *
+     * @param index the position in the "arguments" array
+     * @return the argument
+     * @throws IllegalArgumentException if the argument is an object, an array or null
+     */
+    public String getArgument(int index) {
+        String argument = arguments.get(index);
+        if (argument == null) {
+            throw new IllegalArgumentException("Argument " + index + " is not a value");
+        }
+        return argument;
+    }
+
+    /**
+     * Returns a plain argument as a whole number, accepting numbers and numeric strings.
+     *
+     * @param index the position in the "arguments" array
+     * @return the argument
+     * @throws NumberFormatException if the argument is not a number
+     */
+    public int getIntArgument(int index) {
+        String argument = getArgument(index);
+        try {
+            return Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            return (int) Double.parseDouble(argument);
+        }
+    }
+
+    /**
+     * Returns an argument that is an object, such as one command of a batch.
+     *
+     * @param index the position in the "arguments" array
+     * @return the decoded entry, or null if the argument is not an object
+     */
+    public Request getEntry(int index) {
+        return entries.get(index);
+    }
+
+    /** @return true if a batch should stop at its first failing command */
+    public boolean isStopOnError() {
+        return stopOnError;
+    }
+
+    void setId(String id, boolean numeric) {
+        this.id = id;
+        this.numericId = numeric;
+    }
+
+    void setCommand(String command) {
+        this.command = command;
+    }
+
+    void setRobot(String robot) {
+        this.robot = robot;
+    }
+
+    void setStopOnError(boolean stopOnError) {
+        this.stopOnError = stopOnError;
+    }
+
+    void beginArguments() {
+        argumentList = true;
+    }
+
+    void addArgument(String argument) {
+        arguments.add(argument);
+        entries.add(null);
+    }
+
+    /**
+     * Adds an object argument and returns the pooled request to decode it into,
+     * or null if it is nested too deeply and should be skipped.
+     */
+    Request addEntry() {
+        Request entry = null;
+        if (depth < MAX_DEPTH) {
+            if (pooledInUse == pool.size()) {
+                pool.add(new Request(depth + 1));
+            }
+            entry = pool.get(pooledInUse++);
+        }
+        arguments.add(null);
+        entries.add(entry);
+        return entry;
+    }
+}
@@ -0,0 +1,353 @@
+package za.co.wethinkcode.protocol.server;
+
+import java.io.IOException;
+
+/**
+ * Decodes request lines into a {@link Request} by scanning the line in place,
+ * without building a JSON tree. Only "id", "command", "robot", "arguments"
+ * and "stopOnError" are kept; every other field is skipped unread.
+ *
+ * <p>Each connection keeps one reader and resets it for every line, so a
+ * request costs no reader, buffer or stream of its own; only the values kept
+ * are copied out of the line. Besides standard JSON, names and strings may be
+ * unquoted or single-quoted, as Gson's lenient reader, which requests were
+ * read with before, allowed.</p>
+ */
+public final class RequestReader {
+    /** Holds a string while its escapes are decoded; reused for every line. */
+    private final StringBuilder text = new StringBuilder();
+    /** The closing brackets of the containers a skipped value is nested in. */
+    private final StringBuilder closers = new StringBuilder();
+    private String line;
+    private int pos;
+
+    /**
+     * Decodes one request line with a reader of its own, for callers that
+     * have no connection to keep one for.
+     *
+     * @param json    the request line
+     * @param request the request to decode into; it is reset first
+     * @throws IOException           if the line is not valid JSON
+     * @throws IllegalStateException if the line is JSON but not a request object
+     */
+    public static void read(String json, Request request) throws IOException {
+        new RequestReader().decode(json, request);
+    }
+
+    /**
+     * Decodes one request line.
+     *
+     * @param json    the request line
+     * @param request the request to decode into; it is reset first
+     * @throws IOException           if the line is not valid JSON
+     * @throws IllegalStateException if the line is JSON but not a request object
+     */
+    public void decode(String json, Request request) throws IOException {
+        request.reset();
+        line = json;
+        pos = 0;
+        closers.setLength(0);
+        try {
+            int c = nextNonWhitespace();
+            if (c == -1) {
+                throw new IOException("End of input");
+            }
+            if (c != '{') {
+                throw new IllegalStateException("Expected a request object");
+            }
+            readObject(request);
+            if (nextNonWhitespace() != -1) {
+                throw new IOException("Unexpected content after the request");
+            }
+        } finally {
+            line = null;
+        }
+    }
+
+    private void readObject(Request request) throws IOException {
+        expect('{');
+        if (nextNonWhitespace() == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            String name = readName();
+            expect(':');
+            switch (name) {
+                case "id" -> readId(request);
+                case "command" -> request.setCommand(readValue());
+                case "robot" -> request.setRobot(readValue());
+                case "stopOnError" -> request.setStopOnError(Boolean.parseBoolean(readValue()));
+                case "arguments" -> readArguments(request);
+                default -> skipValue();
+            }
+            if (!endOfElement('}')) {
+                return;
+            }
+        }
+    }
+
+    private void readArguments(Request request) throws IOException {
+        if (nextNonWhitespace() != '[') {
+            skipValue();
+            return;
+        }
+        request.beginArguments();
+        expect('[');
+        if (nextNonWhitespace() == ']') {
+            pos++;
+            return;
+        }
+        do {
+            if (nextNonWhitespace() == '{') {
+                Request entry = request.addEntry();
+                if (entry != null) {
+                    readObject(entry);
+                } else {
+                    skipValue();
+                }
+            } else {
+                request.addArgument(readValue());
+            }
+        } while (endOfElement(']'));
+    }
+
+    /**
+     * Reads the request id, which may be a string or a number; anything else is ignored.
+     */
+    private void readId(Request request) throws IOException {
+        int c = nextNonWhitespace();
+        if (c == '"' || c == '\'') {
+            request.setId(readQuoted(), false);
+        } else if (c == '{' || c == '[') {
+            skipValue();
+        } else {
+            String literal = readLiteral();
+            if (isNumber(literal)) {
+                request.setId(literal, true);
+            } else if (!isKeyword(literal)) {
+                request.setId(literal, false);
+            }
+        }
+    }
+
+    /**
+     * Reads a plain value as text, or skips an object or array and returns null.
+     */
+    private String readValue() throws IOException {
+        int c = nextNonWhitespace();
+        if (c == '"' || c == '\'') {
+            return readQuoted();
+        }
+        if (c == '{' || c == '[') {
+            skipValue();
+            return null;
+        }
+        String literal = readLiteral();
+        return literal.equals("null") ? null : literal;
+    }
+
+    private String readName() throws IOException {
+        int c = nextNonWhitespace();
+        return c == '"' || c == '\'' ? readQuoted() : readLiteral();
+    }
+
+    /**
+     * Skips one value, however deeply nested, without recursing, so a hostile
+     * line cannot exhaust the stack.
+     */
+    private void skipValue() throws IOException {
+        do {
+            int c = nextNonWhitespace();
+            switch (c) {
+                case -1 -> throw new IOException("End of input");
+                case '{' -> open('}');
+                case '[' -> open(']');
+                case '}', ']' -> {
+                    int last = closers.length() - 1;
+                    if (last < 0 || closers.charAt(last) != c) {
+                        throw new IOException("Unexpected '" + (char) c + "' at " + pos);
+                    }
+                    closers.setLength(last);
+                    pos++;
+                }
+                case ',', ':' -> {
+                    if (closers.isEmpty()) {
+                        throw new IOException("Unexpected '" + (char) c + "' at " + pos);
+                    }
+                    pos++;
+                }
+                case '"', '\'' -> readQuoted();
+                default -> readLiteral();
+            }
+        } while (!closers.isEmpty());
+    }
+
+    private void open(char closer) {
+        closers.append(closer);
+        pos++;
+    }
+
+    /**
+     * Steps over the separator after an element of an object or array.
+     *
+     * @return true if another element follows, false if the container has ended
+     */
+    private boolean endOfElement(char closer) throws IOException {
+        int c = nextNonWhitespace();
+        pos++;
+        if (c == ',') {
+            return true;
+        }
+        if (c == closer) {
+            return false;
+        }
+        throw new IOException(c == -1 ? "End of input" : "Expected ',' or '" + closer + "' at " + (pos - 1));
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = nextNonWhitespace();
+        if (c != expected) {
+            throw new IOException(c == -1 ? "End of input" : "Expected '" + expected + "' at " + pos);
+        }
+        pos++;
+    }
+
+    private String readQuoted() throws IOException {
+        char quote = line.charAt(pos++);
+        int start = pos;
+        // Most strings have no escapes and are cut straight out of the line
+        while (pos < line.length()) {
+            char c = line.charAt(pos);
+            if (c == quote) {
+                return line.substring(start, pos++);
+            }
+            if (c == '\\') {
+                break;
+            }
+            pos++;
+        }
+        text.setLength(0);
+        text.append(line, start, pos);
+        while (pos < line.length()) {
+            char c = line.charAt(pos++);
+            if (c == quote) {
+                return text.toString();
+            }
+            text.append(c == '\\' ? readEscape() : c);
+        }
+        throw new IOException("Unterminated string");
+    }
+
+    private char readEscape() throws IOException {
+        if (pos >= line.length()) {
+            throw new IOException("Unterminated escape sequence");
+        }
+        char c = line.charAt(pos++);
+        return switch (c) {
+            case 'b' -> '\b';
+            case 'f' -> '\f';
+            case 'n' -> '\n';
+            case 'r' -> '\r';
+            case 't' -> '\t';
+            case '"', '\'', '\\', '/' -> c;
+            case 'u' -> {
+                if (pos + 4 > line.length()) {
+                    throw new IOException("Unterminated escape sequence");
+                }
+                int decoded = 0;
+                for (int end = pos + 4; pos < end; pos++) {
+                    int digit = Character.digit(line.charAt(pos), 16);
+                    if (digit < 0) {
+                        throw new IOException("Malformed escape sequence at " + pos);
+                    }
+                    decoded = decoded << 4 | digit;
+                }
+                yield (char) decoded;
+            }
+            default -> throw new IOException("Invalid escape sequence at " + (pos - 1));
+        };
+    }
+
+    /**
+     * Reads an unquoted word: a number, true, false, null, or lenient text.
+     */
+    private String readLiteral() throws IOException {
+        int start = pos;
+        while (pos < line.length() && !endsLiteral(line.charAt(pos))) {
+            pos++;
+        }
+        if (pos == start) {
+            throw new IOException(pos < line.length() ? "Unexpected '" + line.charAt(pos) + "' at " + pos : "End of input");
+        }
+        return line.substring(start, pos);
+    }
+
+    private static boolean endsLiteral(char c) {
+        return switch (c) {
+            case ' ', '\t', '\n', '\r', ',', ':', '{', '}', '[', ']', '"', '\'', '\\', '/', '#', ';', '=' -> true;
+            default -> false;
+        };
+    }
+
+    private int nextNonWhitespace() {
+        while (pos < line.length()) {
+            char c = line.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isKeyword(String literal) {
+        return literal.equals("null") || literal.equals("true") || literal.equals("false");
+    }
+
+    /**
+     * Checks for a JSON number: an optional minus, digits, an optional
+     * fraction and an optional exponent.
+     */
+    private static boolean isNumber(String literal) {
+        int i = 0;
+        int length = literal.length();
+        if (i < length && literal.charAt(i) == '-') {
+            i++;
+        }
+        int digits = i;
+        while (i < length && isDigit(literal.charAt(i))) {
+            i++;
+        }
+        if (i == digits) {
+            return false;
+        }
+        if (i < length && literal.charAt(i) == '.') {
+            int fraction = ++i;
+            while (i < length && isDigit(literal.charAt(i))) {
+                i++;
+            }
+            if (i == fraction) {
+                return false;
+            }
+        }
+        if (i < length && (literal.charAt(i) == 'e' || literal.charAt(i) == 'E')) {
+            i++;
+            if (i < length && (literal.charAt(i) == '+' || literal.charAt(i) == '-')) {
+                i++;
+            }
+            int exponent = i;
+            while (i < length && isDigit(literal.charAt(i))) {
+                i++;
+            }
+            if (i == exponent) {
+                return false;
+            }
+        }
+        return i == length;
+    }
+}
@@ -0,0 +1,96 @@
+package za.co.wethinkcode.protocol.server;
+
+import za.co.wethinkcode.protocol.Compression;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses one connection's large responses once the client has asked for it.
+ * A single {@link Deflater} is reused for the life of the connection and
+ * flushed after each response, as described in {@link Compression}.
+ */
+public class ResponseCompressor {
+    private final byte[] chunk = new byte[8192];
+    private final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    private Deflater deflater;
+    private int threshold;
+
+    /**
+     * Turns compression on for the rest of the connection.
+     *
+     * @param threshold the smallest response, in bytes, worth compressing
+     * @throws IllegalArgumentException if the threshold is below {@link Compression#MIN_THRESHOLD}
+     */
+    public void enable(int threshold) {
+        if (threshold < Compression.MIN_THRESHOLD) {
+            throw new IllegalArgumentException("Compression threshold must be at least " + Compression.MIN_THRESHOLD);
+        }
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        }
+        this.threshold = threshold;
+    }
+
+    /** @return true once the client has negotiated compression */
+    public boolean isEnabled() {
+        return deflater != null;
+    }
+
+    /**
+     * Returns the line to send for a response: compressed if compression is on
+     * and the response is large enough, otherwise the response itself.
+     *
+     * @param response the JSON response
+     * @return the line to send
+     */
+    public String encode(String response) {
+        if (deflater == null || !reachesThreshold(response)) {
+            return response;
+        }
+        deflater.setInput(response.getBytes(StandardCharsets.UTF_8));
+        compressed.reset();
+        int written;
+        do {
+            written = deflater.deflate(chunk, 0, chunk.length, Deflater.SYNC_FLUSH);
+            compressed.write(chunk, 0, written);
+        } while (written == chunk.length);
+        return Compression.ENVELOPE_PREFIX
+                + Base64.getEncoder().encodeToString(compressed.toByteArray())
+                + Compression.ENVELOPE_SUFFIX;
+    }
+
+    /**
+     * Checks a response's size in UTF-8, the bytes actually sent, against the
+     * threshold, without encoding it.
+     */
+    private boolean reachesThreshold(String response) {
+        int chars = response.length();
+        // Every char takes one to three bytes, so most responses are decided by their length alone
+        if (chars >= threshold) {
+            return true;
+        }
+        if (chars * 3 < threshold) {
+            return false;
+        }
+        int bytes = 0;
+        for (int i = 0; i < chars; i++) {
+            char c = response.charAt(i);
+            // A surrogate pair takes four bytes, two for each half
+            bytes += c < 0x80 ? 1 : c < 0x800 || Character.isSurrogate(c) ? 2 : 3;
+        }
+        return bytes >= threshold;
+    }
+
+    /**
+     * Frees the native memory held by the deflater.
+     */
+    public void end() {
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+    }
+}
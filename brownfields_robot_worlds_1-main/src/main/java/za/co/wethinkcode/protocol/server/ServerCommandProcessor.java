@@ -1,27 +1,55 @@
 package za.co.wethinkcode.protocol.server;
 
-import com.google.gson.*;
-import za.co.wethinkcode.server.commands.Command;
-import za.co.wethinkcode.client.commands.StateCommand;
-import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.protocol.Compression;
+import za.co.wethinkcode.protocol.JsonBuffer;
+import za.co.wethinkcode.protocol.ResponseEncoder;
 import za.co.wethinkcode.server.model.Robot;
-import za.co.wethinkcode.server.utils.PositionFinder;
-import za.co.wethinkcode.server.utils.VisionFinder;
 import za.co.wethinkcode.server.world.World;
 
-import java.sql.SQLException;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * The ServerCommandProcessor class handles all incoming commands on the server side.
  * It processes messages from clients, interprets robot and world-related commands, and
- * uses a CommandFactory to create and execute the appropriate actions in the game world.
+ * runs them with the shared, stateless handlers of a {@link CommandRegistry}.
+ * One processor serves each connection and keeps that connection's state.
+ *
+ * <p>A request may carry an "id", which is echoed in its response. Requests
+ * with an id for a command that only reads the world, such as "dump", may be
+ * answered out of order, so they do not hold up the commands sent after them.</p>
  */
 public class ServerCommandProcessor {
+    /** Most commands one batch may hold, since a batch keeps other clients waiting. */
+    private static final int MAX_BATCH_SIZE = 100;
+    /** Most requests one connection may have running out of order at a time; the rest run in order. */
+    private static final int MAX_IN_FLIGHT = 4;
+    /** Commands handled by the processor itself, which no {@link CommandHandler} can take. */
+    static final String BATCH = "batch";
+    static final String COMPRESS = "compress";
+
     protected final World world;
-    private final Gson gson = new Gson();
-    private final CommandFactory commandFactory;
+    private final CommandRegistry registry;
+    private final CommandContext context;
+    private final ResponseCompressor compressor = new ResponseCompressor();
+    private final RateLimit rateLimit;
+    private final TokenBucket tokens;
+    private final Request request = new Request();
+    private final RequestReader reader = new RequestReader();
+    /** Response buffers, reused by this connection's requests on whichever thread they run. */
+    private final JsonBuffer.Pool buffers = new JsonBuffer.Pool();
+    /** Keeps responses, and the compressed stream they share, in the order they are sent. */
+    private final ReentrantLock sendLock = new ReentrantLock();
+    private final Condition allAnswered = sendLock.newCondition();
+    private int inFlight;
+    private boolean closed;
     protected List<Robot> robots = new ArrayList<>();
 
     /**
@@ -30,302 +58,504 @@ public class ServerCommandProcessor {
      * @param world the game world in which robots operate
      */
     public ServerCommandProcessor(World world) {
+        this(world, RateLimit.UNLIMITED);
+    }
+
+    /**
+     * Creates a new ServerCommandProcessor that refuses commands sent faster
+     * than its connection's rate limit allows.
+     *
+     * @param world     the game world in which robots operate
+     * @param rateLimit the rate limit for this connection
+     */
+    public ServerCommandProcessor(World world, RateLimit rateLimit) {
+        this(world, rateLimit, CommandRegistry.defaults());
+    }
+
+    /**
+     * Creates a new ServerCommandProcessor that runs commands with the given
+     * handlers. The handlers are shared; only the connection's own state, such
+     * as its robots, rate limit and compression, is kept here.
+     *
+     * @param world     the game world in which robots operate
+     * @param rateLimit the rate limit for this connection
+     * @param registry  the command handlers
+     */
+    public ServerCommandProcessor(World world, RateLimit rateLimit, CommandRegistry registry) {
         this.world = world;
-        this.commandFactory = new CommandFactory(world);
+        this.registry = registry;
+        this.context = new CommandContext(world, robots);
+        this.rateLimit = rateLimit;
+        this.tokens = rateLimit.isLimited() ? rateLimit.newBucket() : null;
     }
 
     /**
      * Processes a JSON message from the client and executes the appropriate command.
+     * The message is decoded into this connection's reusable {@link Request}. Once
+     * the client has negotiated compression, large responses come back compressed.
      */
     public String processMessage(String message) {
-        try {
-            JsonObject request = gson.fromJson(message, JsonObject.class);
-
-            if (!request.has("command")) {
-                return createErrorResponse("Missing command");
+        return buffers.use(() -> {
+            String response = parse(message);
+            if (response == null) {
+                response = processRequest(request);
             }
+            response = ResponseEncoder.withId(response, request.getId(), request.hasNumericId());
+            sendLock.lock();
+            try {
+                return compressor.encode(response);
+            } finally {
+                sendLock.unlock();
+            }
+        });
+    }
 
-            String command = request.get("command").getAsString().toLowerCase();
+    /**
+     * Processes a JSON message from the client and hands its response to
+     * {@code reply}. A request with an id for a command that may complete out
+     * of order runs on its own virtual thread, and {@code reply} is called from
+     * that thread once it is done; every other request is answered before this
+     * method returns. Responses are never handed over after {@link #close()}.
+     *
+     * @param message the request line
+     * @param reply   takes each response, ready to send
+     */
+    public void processMessage(String message, Consumer<String> reply) {
+        buffers.use(() -> {
+            handleMessage(message, reply);
+            return null;
+        });
+    }
 
-            // Server administration commands
-            return switch (command) {
-                case "dump" -> {
-                    try {
-                        yield commandFactory.createDumpCommand().execute();
-                    } catch (SQLException e) {
-                        yield createErrorResponse("Failed to dump world: " + e.getMessage());
-                    }
-                }
-                case "robots" -> {
-                    try {
-                        yield commandFactory.createRobotsCommand().execute();
-                    } catch (SQLException e) {
-                        yield createErrorResponse("Failed to list robots: " + e.getMessage());
-                    }
-                }
-                default ->
-                    // Robot operation commands
-                        processRobotCommand(request);
-            };
+    private void handleMessage(String message, Consumer<String> reply) {
+        String response = parse(message);
+        if (response == null) {
+            response = refuse(admit(request));
+        }
+        if (response == null) {
+            CommandHandler handler = registry.find(request.getCommand().toLowerCase());
+            if (request.getId() != null && handler != null && handler.canCompleteOutOfOrder() && startInFlight()) {
+                Request detached = request.copy();
+                Thread.ofVirtual().name("request-" + detached.getId()).start(() -> buffers.use(() -> {
+                    String result = runDetached(handler, detached);
+                    deliver(ResponseEncoder.withId(result, detached.getId(), detached.hasNumericId()), reply, true);
+                    return null;
+                }));
+                return;
+            }
+            response = dispatch(request);
+        }
+        deliver(ResponseEncoder.withId(response, request.getId(), request.hasNumericId()), reply, false);
+    }
 
-        } catch (JsonSyntaxException e) {
+    /**
+     * Decodes a message into this connection's reusable {@link Request}, with
+     * the connection's reader.
+     *
+     * @return an error response if the message is not a valid request, otherwise null
+     */
+    private String parse(String message) {
+        try {
+            reader.decode(message, request);
+            return null;
+        } catch (IOException | IllegalStateException e) {
             return createErrorResponse("Invalid JSON format");
         } catch (Exception e) {
             return createErrorResponse(e.getMessage());
         }
     }
 
-    private String processRobotCommand(JsonObject request) {
-        Robot robot = world.getRobotByName(request.get("robot").getAsString());
+    /**
+     * Executes a request that has already been decoded, such as one from the
+     * binary protocol, and returns the JSON response.
+     */
+    public String processRequest(Request request) {
+        return buffers.use(() -> {
+            Refusal refusal = admit(request);
+            return refusal != null ? refuse(refusal) : dispatch(request);
+        });
+    }
 
-        if (robot != null && robot.getStatus() == Robot.Status.DEAD) {
-            return createErrorResponse("Robot is DEAD and cannot execute commands");
-        }
-
-        String command = request.get("command").getAsString();
-        String robotName = request.get("robot").getAsString();
-
-        switch (command) {
-            case "launch":
-                return processLaunchCommand(robotName, request);
-            case "look":
-                return processLookCommand(robotName);
-            case "state":
-                return processStateCommand(robotName);
-            case "forward":
-            case "back":
-                return processMoveCommand(robotName, request);
-            case "turn":
-                return processTurnCommand(robotName, request);
-            case "fire":
-                return processFireCommand(robotName);
-            case "reload":
-                return processReloadCommand(robotName);
-            case "repair":
-                return processRepairCommand(robotName);
-            default:
-                return createErrorResponse("Unsupported command");
+    /**
+     * Runs a robot command for a front end that encodes its own responses,
+     * such as the binary protocol, so no JSON is built for it. The request is
+     * admitted and its robot checked exactly as for a JSON request; the action
+     * then runs under the world's shared command lock.
+     *
+     * @param request the decoded request
+     * @param action  runs the command, given the request and its robot, and encodes the response
+     * @param refuse  encodes an error from its message
+     * @return the encoded response
+     */
+    <T> T processRobotRequest(Request request, Function<CommandContext, T> action, Function<String, T> refuse) {
+        Refusal refusal = admit(request);
+        if (refusal != null) {
+            return refuse.apply(refusal.message());
+        }
+        CommandHandler handler = registry.find(request.getCommand().toLowerCase());
+        Lock lock = world.getCommandLock().readLock();
+        lock.lock();
+        try {
+            Robot robot = request.getRobot() == null ? null : world.getRobotByName(request.getRobot());
+            String problem = checkRobotCommand(request, robot, handler);
+            return problem != null ? refuse.apply(problem) : action.apply(context.prepare(request, robot));
+        } catch (Exception e) {
+            return refuse.apply(e.getMessage());
+        } finally {
+            lock.unlock();
         }
     }
 
-    private String processLaunchCommand(String robotName, JsonObject request) {
-        try {
-            if (!request.has("arguments")) {
-                return createErrorResponse("Launch requires arguments: [make]");
+    /**
+     * Checks that a request names a command and is within the rate limit.
+     *
+     * @return why the request is refused, or null if it may run
+     */
+    private Refusal admit(Request request) {
+        if (request.getCommand() == null) {
+            return new Refusal("Missing command", 0);
+        }
+        if (tokens != null) {
+            int cost = costOf(request.getCommand().toLowerCase(), request);
+            if (cost > rateLimit.burst()) {
+                return new Refusal("Batch costs more than the rate limit allows at once", 0);
             }
-
-            String command = request.get("command").getAsString();
-            if (!command.equalsIgnoreCase("launch")) return createErrorResponse("Unsupported command");
-
-            JsonArray args = request.getAsJsonArray("arguments");
-            if (args.size() < 1) {
-                return createErrorResponse("Launch requires make");
+            long retryAfterMillis = tokens.tryConsume(cost);
+            if (retryAfterMillis > 0) {
+                return new Refusal("Too many requests, retry after " + retryAfterMillis + " ms", retryAfterMillis);
             }
+        }
+        return null;
+    }
 
-            String make = args.get(0).getAsString();
+    /**
+     * Encodes a refusal as a response, telling a throttled client how long to wait.
+     *
+     * @return the response, or null if there is no refusal
+     */
+    private String refuse(Refusal refusal) {
+        if (refusal == null) {
+            return null;
+        }
+        return refusal.retryAfterMillis() > 0 ? createThrottledResponse(refusal) : createErrorResponse(refusal.message());
+    }
 
-            // Get values from world config
-            int shields = world.getMaxShieldStrength();
-            int shots = world.getMaxShots();
+    private String dispatch(Request request) {
+        try {
+            String command = request.getCommand().toLowerCase();
 
-            // Check if robot exists
-            if (world.getRobotByName(robotName) != null) {
-                return createErrorResponse("Too many of you in this world");
+            // Batches and compression belong to the connection rather than the world
+            if (command.equals(BATCH)) {
+                return processBatch(request);
             }
-
-            Position pos = new PositionFinder(world).findRandomOpenPosition();
-            if (pos == null) {
-                return createErrorResponse("No more space in this world");
+            if (command.equals(COMPRESS)) {
+                return negotiateCompression(request);
             }
 
-            Robot robot = new Robot(robotName, pos);
-            robot.setMake(make);
-            robot.setShields(shields);
-            robot.setShots(shots);
-            world.addRobot(robot);
-            robots.add(robot);
+            CommandHandler handler = registry.find(command);
+            if (handler != null && !handler.actsOnRobot()) {
+                // Server administration commands
+                return handler.handle(context.prepare(request, null));
+            }
+            return processSharedRobotCommand(request, handler);
 
-            return createSuccessResponse(robot);
         } catch (Exception e) {
-            return createErrorResponse("Invalid launch parameters: " + e.getMessage());
+            return createErrorResponse(e.getMessage());
         }
     }
 
-    private String processLookCommand(String robotName) {
-        Robot robot = world.getRobotByName(robotName);
-        if (robot == null) {
-            return createErrorResponse("Robot not found");
+    /**
+     * Runs a request that was copied off the connection, with a context of its
+     * own, since the connection's context is in use by the requests after it.
+     * It holds the world's read lock, so it never sees a batch half done.
+     */
+    private String runDetached(CommandHandler handler, Request detached) {
+        Lock lock = world.getCommandLock().readLock();
+        lock.lock();
+        try {
+            return handler.handle(new CommandContext(world, robots).prepare(detached, null));
+        } catch (Exception e) {
+            return createErrorResponse(e.getMessage());
+        } finally {
+            lock.unlock();
         }
-
-        VisionFinder visionFinder = new VisionFinder(world, robot);
-        JsonObject visionData = visionFinder.findInAbsoluteDirections(robot);
-
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-        response.add("data", visionData);
-        response.add("state", new StateCommand(robot).toJson());
-        return gson.toJson(response);
     }
 
-    private String processStateCommand(String robotName) {
-        Robot robot = world.getRobotByName(robotName);
-        if (robot == null) {
-            return createErrorResponse("Robot not found");
+    private boolean startInFlight() {
+        sendLock.lock();
+        try {
+            if (closed || inFlight >= MAX_IN_FLIGHT) {
+                return false;
+            }
+            inFlight++;
+            return true;
+        } finally {
+            sendLock.unlock();
         }
-
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-        response.add("state", new StateCommand(robot).toJson());
-        return gson.toJson(response);
     }
 
-    // handling movement <forward and back> commands
-    private String processMoveCommand(String robotName, JsonObject request) {
-        Robot robot = world.getRobotByName(robotName);
-        if (robot == null) {
-            return createErrorResponse("Robot not found");
-        }
-
-        int steps = 1;
-
-        JsonArray args = request.getAsJsonArray("arguments");
-        if (request.has("arguments")) {
-            if (!args.isEmpty()) {
-                steps = args.get(0).getAsInt();
+    /**
+     * Compresses a response if needed and hands it over, one at a time, so
+     * that responses reach the client in the order the compressor saw them.
+     */
+    private void deliver(String response, Consumer<String> reply, boolean detached) {
+        sendLock.lock();
+        try {
+            if (detached && --inFlight == 0) {
+                allAnswered.signalAll();
+            }
+            if (!closed) {
+                reply.accept(compressor.encode(response));
             }
+        } finally {
+            sendLock.unlock();
         }
+    }
 
-        String movementDirection = request.get("command").getAsString(); // accessing 'movementDirection' <forward/back>
-        Command command;
-
-        switch (movementDirection) {
-            case "forward":
-                command = commandFactory.createForwardCommand(robot, steps);
-                break;
-            case "back":
-                command = commandFactory.createBackCommand(robot, steps);
-                break;
-            default:
-                return createErrorResponse("Invalid move. Must be 'forward' or 'back'");
-        }
+    /**
+     * Checks whether requests are still running out of order.
+     *
+     * @return true if some request has yet to be answered
+     */
+    public boolean hasRequestsInFlight() {
+        sendLock.lock();
         try {
-            return command.execute();
-        } catch (SQLException e) {
-            return createErrorResponse("Failed to move: " + e.getMessage());
+            return inFlight > 0;
+        } finally {
+            sendLock.unlock();
         }
     }
 
-    private String processTurnCommand(String robotName, JsonObject request) {
-        Robot robot = world.getRobotByName(robotName);
-        if (robot == null) {
-            return createErrorResponse("Robot not found");
+    /**
+     * Waits for the requests running out of order to be answered, such as when
+     * the client has stopped sending but is still reading.
+     *
+     * @param timeoutMillis the longest to wait
+     * @return true if every request has been answered
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    public boolean awaitInFlight(long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        sendLock.lock();
+        try {
+            while (inFlight > 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = allAnswered.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            sendLock.unlock();
         }
+    }
 
-        if (!request.has("arguments")) {
-            return createErrorResponse("Turn requires direction argument");
+    /**
+     * A batch costs as much as the commands in it, so batching cannot get round the limit.
+     */
+    private int costOf(String command, Request request) {
+        if (!command.equals(BATCH) || !request.hasArguments()) {
+            return rateLimit.costOf(command);
         }
-
-        JsonArray args = request.getAsJsonArray("arguments");
-        if (args.size() < 1) {
-            return createErrorResponse("Turn requires direction argument");
+        int cost = 0;
+        for (int i = 0; i < request.getArgumentCount(); i++) {
+            Request entry = request.getEntry(i);
+            boolean named = entry != null && entry.getCommand() != null;
+            cost += rateLimit.costOf(named ? entry.getCommand().toLowerCase() : "");
         }
+        return Math.max(1, cost);
+    }
 
-        String direction = args.get(0).getAsString().toLowerCase();
-        Command command;
-
-        switch (direction) {
-            case "left":
-                command = commandFactory.createTurnLeftCommand(robot);
-                break;
-            case "right":
-                command = commandFactory.createTurnRightCommand(robot);
-                break;
-            default:
-                return createErrorResponse("Invalid direction. Must be 'left' or 'right'");
+    /**
+     * Turns on compression of large responses for this connection. Arguments are
+     * the encoding, which must be "deflate", and optionally the threshold in bytes.
+     */
+    private String negotiateCompression(Request request) {
+        if (request.getArgumentCount() == 0 || !request.getArgument(0).equalsIgnoreCase(Compression.DEFLATE)) {
+            return createErrorResponse("Unsupported encoding");
         }
-
+        int threshold = request.getArgumentCount() > 1 ? request.getIntArgument(1) : Compression.DEFAULT_THRESHOLD;
         try {
-            return command.execute();
-        } catch (SQLException e) {
-            return createErrorResponse("Failed to turn: " + e.getMessage());
+            compressor.enable(threshold);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(e.getMessage());
         }
-    }
 
-    private String processFireCommand(String robotName) {
-        Robot robot = world.getRobotByName(robotName);
-        if (robot == null) {
-            return createErrorResponse("Robot not found");
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("OK");
+            json.name("data").beginObject()
+                    .name("encoding").value(Compression.DEFLATE)
+                    .name("threshold").value(threshold)
+                    .endObject();
+            return json.endObject().finish();
         }
+    }
 
-        Command command = commandFactory.createFireCommand(robot);
+    private String processSharedRobotCommand(Request request, CommandHandler handler) {
+        Lock lock = world.getCommandLock().readLock();
+        lock.lock();
         try {
-            return command.execute();
-        } catch (SQLException e) {
-            return createErrorResponse("Failed to fire: " + e.getMessage());
+            return processRobotCommand(request, handler);
+        } finally {
+            lock.unlock();
         }
     }
 
-    private String processReloadCommand(String robotName) {
-        Robot robot = world.getRobotByName(robotName);
-        if (robot == null) {
-            return createErrorResponse("Robot not found");
+    /**
+     * Runs a list of robot commands, given as the "arguments" of a "batch" request,
+     * in order and without other clients' commands in between. Entries without a
+     * "robot" act on the batch's robot. With "stopOnError": true the batch ends at
+     * the first failing command. The response holds one result per command run.
+     */
+    private String processBatch(Request request) {
+        if (!request.hasArguments()) {
+            return createErrorResponse("Batch requires a list of commands");
+        }
+        if (request.getArgumentCount() > MAX_BATCH_SIZE) {
+            return createErrorResponse("Batch holds more than " + MAX_BATCH_SIZE + " commands");
         }
+        boolean stopOnError = request.isStopOnError();
 
-        Command command = commandFactory.createReloadCommand(robot);
+        List<String> results = new ArrayList<>(request.getArgumentCount());
+        boolean failed = false;
+        Lock lock = world.getCommandLock().writeLock();
+        lock.lock();
         try {
-            return command.execute();
-        } catch (SQLException e) {
-            return createErrorResponse("Failed to reload: " + e.getMessage());
+            for (int i = 0; i < request.getArgumentCount(); i++) {
+                String result = processBatchEntry(request.getEntry(i), request);
+                results.add(result);
+                if (ResponseEncoder.isError(result)) {
+                    failed = true;
+                    if (stopOnError) {
+                        break;
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
         }
-    }
 
-    private String processRepairCommand(String robotName) {
-        Robot robot = world.getRobotByName(robotName);
-        if (robot == null) {
-            return createErrorResponse("Robot not found");
+        // Each result is already JSON, so it is copied in as it is rather than parsed again
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value(failed ? "ERROR" : "OK");
+            json.name("data").beginObject().name("results").beginArray();
+            for (String result : results) {
+                json.rawValue(result);
+            }
+            json.endArray().endObject();
+            return json.endObject().finish();
         }
+    }
 
-        Command command = commandFactory.createRepairCommand(robot);
+    private String processBatchEntry(Request entry, Request batch) {
+        if (entry == null) {
+            return createErrorResponse("Batch entries must be commands");
+        }
+        if (entry.getCommand() == null) {
+            return createErrorResponse("Missing command");
+        }
+        if (entry.getCommand().equalsIgnoreCase(BATCH)) {
+            return createErrorResponse("Batches cannot be nested");
+        }
+        if (entry.getRobot() == null) {
+            entry.setRobot(batch.getRobot());
+        }
         try {
-            return command.execute();
-        } catch (SQLException e) {
-            return createErrorResponse("Failed to repair: " + e.getMessage());
+            return processRobotCommand(entry, registry.find(entry.getCommand().toLowerCase()));
+        } catch (Exception e) {
+            return createErrorResponse(e.getMessage());
         }
     }
 
-    private String createSuccessResponse(Robot robot) {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-
-        JsonObject data = new JsonObject();
-        data.add("position", gson.toJsonTree(new int[]{
-                robot.getPosition().getX(),
-                robot.getPosition().getY()
-        }));
-
-        response.add("data", data);
-        response.add("state", new StateCommand(robot).toJson());
+    private String processRobotCommand(Request request, CommandHandler handler) {
+        // Resolve the robot once; the handler works on this instance
+        Robot robot = request.getRobot() == null ? null : world.getRobotByName(request.getRobot());
+        String problem = checkRobotCommand(request, robot, handler);
+        return problem != null ? createErrorResponse(problem) : handler.handle(context.prepare(request, robot));
+    }
 
-        return gson.toJson(response);
+    /**
+     * Checks that a robot command names a robot that is not dead, and that the
+     * command is one that acts on robots.
+     *
+     * @return why the command cannot run, or null if it can
+     */
+    private static String checkRobotCommand(Request request, Robot robot, CommandHandler handler) {
+        if (request.getRobot() == null) {
+            return "Missing robot";
+        }
+        if (robot != null && robot.getStatus() == Robot.Status.DEAD) {
+            return "Robot is DEAD and cannot execute commands";
+        }
+        if (handler == null || !handler.actsOnRobot()) {
+            return "Unsupported command";
+        }
+        return null;
     }
 
     private String createErrorResponse(String message) {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "ERROR");
+        return ResponseEncoder.error(message);
+    }
+
+    /**
+     * Refuses a command sent faster than the rate limit allows, telling the
+     * client how long to wait before trying again.
+     */
+    private String createThrottledResponse(Refusal refusal) {
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("ERROR");
+            json.name("data").beginObject()
+                    .name("message").value(refusal.message())
+                    .name("retryAfterMs").value(refusal.retryAfterMillis())
+                    .endObject();
+            return json.endObject().finish();
+        }
+    }
 
-        JsonObject data = new JsonObject();
-        data.addProperty("message", message);
-        response.add("data", data);
-        return gson.toJson(response);
+    /**
+     * Returns the robots launched through this processor, that is, by its connection.
+     *
+     * @return the robots this connection owns, including any that have since died
+     */
+    public List<Robot> getOwnedRobots() {
+        return List.copyOf(robots);
     }
 
     /**
-     * Removes all robots from the world.
+     * Removes the robots this connection launched from the world. Robots of
+     * other clients, including namesakes launched after one of these died,
+     * are left alone.
      */
     public void removeAllRobots() {
         for (Robot robot : robots) {
-            world.removeRobot(robot);
+            world.releaseRobot(robot);
         }
+        robots.clear();
         System.out.println("Robots removed");
     }
-}
\ No newline at end of file
+
+    /**
+     * Cleans up when the connection closes: removes this connection's robots
+     * and frees the compressor. Requests still running out of order are left
+     * to finish, but their responses are dropped.
+     */
+    public void close() {
+        sendLock.lock();
+        try {
+            closed = true;
+            compressor.end();
+        } finally {
+            sendLock.unlock();
+        }
+        removeAllRobots();
+    }
+
+    /**
+     * Why a request was refused before it ran.
+     *
+     * @param message          the reason given to the client
+     * @param retryAfterMillis how long a throttled client should wait, or 0
+     */
+    private record Refusal(String message, long retryAfterMillis) {
+    }
+}
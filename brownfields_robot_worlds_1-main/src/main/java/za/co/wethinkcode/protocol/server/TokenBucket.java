@@ -0,0 +1,47 @@
+package za.co.wethinkcode.protocol.server;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket for one connection. Tokens refill continuously up to the
+ * burst size; a command that finds too few tokens is refused, with the time
+ * until enough will have refilled. A bucket belongs to one connection and is
+ * only used from the thread serving it.
+ */
+public class TokenBucket {
+    private final double tokensPerNano;
+    private final int capacity;
+    private double tokens;
+    private long refilledAt;
+
+    /**
+     * Creates a full bucket.
+     *
+     * @param tokensPerSecond the refill rate
+     * @param capacity        the most tokens the bucket holds
+     */
+    public TokenBucket(double tokensPerSecond, int capacity) {
+        this.tokensPerNano = tokensPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.refilledAt = System.nanoTime();
+    }
+
+    /**
+     * Takes tokens for a command if there are enough.
+     *
+     * @param cost the command's cost, no more than the capacity
+     * @return 0 if the command may run, otherwise how many milliseconds to wait
+     */
+    public long tryConsume(int cost) {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+
+        if (tokens >= cost) {
+            tokens -= cost;
+            return 0;
+        }
+        return Math.max(1, (long) Math.ceil((cost - tokens) / tokensPerNano / TimeUnit.MILLISECONDS.toNanos(1)));
+    }
+}
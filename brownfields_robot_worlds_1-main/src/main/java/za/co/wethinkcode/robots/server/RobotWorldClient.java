@@ -2,6 +2,8 @@ package za.co.wethinkcode.robots.server;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
+import java.util.List;
+
 /**
  * A basic interface that wraps the expected Robot Worlds API so that we can easily connect to and send requests to the server.
  */
@@ -31,5 +33,23 @@ public interface RobotWorldClient {
      */
     JsonNode sendRequest(String requestJsonString);
 
+    /**
+     * Sends several requests without waiting for each reply in turn. The server
+     * answers pipelined requests in the order they were sent, except that
+     * requests with an "id" may be answered as soon as they finish; their
+     * responses echo the id and are matched back to their requests by it.
+     * @param requestJsonStrings the Json strings to send to server, in order
+     * @return the responses as JsonNodes, in the same order as the requests
+     */
+    List<JsonNode> sendRequests(List<String> requestJsonStrings);
+
     String sendRequestAsString(String requestString);
+
+    /**
+     * Asks the server to compress responses of at least the given size; the
+     * client inflates them transparently from then on.
+     * @param threshold the smallest response, in bytes, worth compressing
+     * @return true if the server agreed
+     */
+    boolean enableCompression(int threshold);
 }
\ No newline at end of file
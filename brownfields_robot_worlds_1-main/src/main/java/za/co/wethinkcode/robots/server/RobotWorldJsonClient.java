@@ -3,25 +3,40 @@ package za.co.wethinkcode.robots.server;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import za.co.wethinkcode.protocol.Compression;
+import za.co.wethinkcode.protocol.client.ResponseDecompressor;
 
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.PrintStream;
 import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class RobotWorldJsonClient implements RobotWorldClient {
     private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    /**
+     * Most requests sent ahead of their replies. Keeps a pipelined batch small enough
+     * that neither side blocks writing while the other is not reading.
+     */
+    private static final int PIPELINE_WINDOW = 64;
 
     private Socket socket;
     private PrintStream out;
     private BufferedReader in;
+    private ResponseDecompressor decompressor;
 
     @Override
     public void connect(String ipAddress, int port) {
         try {
             socket = new Socket(ipAddress, port);
-            out = new PrintStream(socket.getOutputStream());
+            out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()));
             in = new BufferedReader(new InputStreamReader(
                     socket.getInputStream()));
         } catch (IOException e) {
@@ -38,6 +53,10 @@ public class RobotWorldJsonClient implements RobotWorldClient {
     @Override
     public void disconnect() {
         try {
+            if (decompressor != null) {
+                decompressor.end();
+                decompressor = null;
+            }
             out.close();
             in.close();
             socket.close();
@@ -52,7 +71,53 @@ public class RobotWorldJsonClient implements RobotWorldClient {
         try {
             out.println(requestJsonString);
             out.flush();
-            return OBJECT_MAPPER.readTree(in.readLine());
+            return OBJECT_MAPPER.readTree(readResponse());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error parsing server response as JSON.", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading server response.", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * Requests with an "id" may be answered out of order, so their responses
+     * are put back in place by the id they echo. Responses without an id
+     * arrive in the order their requests were sent.
+     */
+    @Override
+    public List<JsonNode> sendRequests(List<String> requestJsonStrings) {
+        List<JsonNode> responses = new ArrayList<>(requestJsonStrings.size());
+        try {
+            for (int start = 0; start < requestJsonStrings.size(); start += PIPELINE_WINDOW) {
+                int end = Math.min(start + PIPELINE_WINDOW, requestJsonStrings.size());
+                Map<String, Deque<Integer>> waitingById = new HashMap<>();
+                Deque<Integer> waitingInOrder = new ArrayDeque<>();
+                for (int i = start; i < end; i++) {
+                    String request = requestJsonStrings.get(i);
+                    String id = idOf(request);
+                    if (id != null) {
+                        waitingById.computeIfAbsent(id, key -> new ArrayDeque<>()).add(i);
+                    } else {
+                        waitingInOrder.add(i);
+                    }
+                    out.println(request);
+                    responses.add(null);
+                }
+                out.flush();
+                for (int i = start; i < end; i++) {
+                    JsonNode response = OBJECT_MAPPER.readTree(readResponse());
+                    JsonNode id = response.get("id");
+                    Deque<Integer> waiting = id == null ? null : waitingById.get(id.toString());
+                    Integer slot = waiting != null ? waiting.poll() : waitingInOrder.poll();
+                    if (slot == null) {
+                        // The server did not echo an id the client could read; take the first unanswered request
+                        slot = responses.subList(start, end).indexOf(null) + start;
+                    }
+                    responses.set(slot, response);
+                }
+            }
+            return responses;
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Error parsing server response as JSON.", e);
         } catch (IOException e) {
@@ -65,9 +130,42 @@ public class RobotWorldJsonClient implements RobotWorldClient {
         try {
             out.println(requestString);
             out.flush();
-            return in.readLine();
+            return readResponse();
         } catch (IOException e) {
             throw new RuntimeException("Error reading server response.", e);
         }
     }
+
+    @Override
+    public boolean enableCompression(int threshold) {
+        JsonNode reply = sendRequest(Compression.negotiationRequest(threshold));
+        if (!"OK".equals(reply.path("result").asText())) {
+            return false;
+        }
+        if (decompressor == null) {
+            decompressor = new ResponseDecompressor();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the request's id as JSON text, so numeric 7 and string "7" differ,
+     * or null if it has none or cannot be read.
+     */
+    private static String idOf(String request) {
+        if (!request.contains("id")) {
+            return null;
+        }
+        try {
+            JsonNode id = OBJECT_MAPPER.readTree(request).get("id");
+            return id == null || id.isNull() ? null : id.toString();
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private String readResponse() throws IOException {
+        String line = in.readLine();
+        return decompressor == null ? line : decompressor.decode(line);
+    }
 }
@@ -2,8 +2,12 @@ package za.co.wethinkcode.server;
 
 import za.co.wethinkcode.database.DbConfig;
 import za.co.wethinkcode.flow.Recorder;
+import za.co.wethinkcode.protocol.server.RateLimit;
 import za.co.wethinkcode.server.commands.SaveCommand;
+import za.co.wethinkcode.server.handler.AdmissionControl;
 import za.co.wethinkcode.server.handler.ClientHandler;
+import za.co.wethinkcode.server.handler.NioServer;
+import za.co.wethinkcode.server.handler.OutboundPolicy;
 import za.co.wethinkcode.server.world.World;
 import za.co.wethinkcode.server.world.WorldConfig;
 import za.co.wethinkcode.server.world.obstacles.Lake;
@@ -16,6 +20,12 @@ import java.util.*;
 
 public class RobotWorldServer {
     private static int PORT = 5000;
+    private static boolean USE_NIO = false;
+    private static boolean USE_VIRTUAL_THREADS = false;
+    private static int REACTORS = Runtime.getRuntime().availableProcessors();
+    private static OutboundPolicy OUTBOUND_POLICY = OutboundPolicy.DEFAULT;
+    private static int IDLE_TIMEOUT_MS = 30 * 60 * 1000;
+    private static AdmissionControl ADMISSION = AdmissionControl.UNLIMITED;
     private static World world;
 
     public static void main(String[] args) {
@@ -38,6 +48,43 @@ public class RobotWorldServer {
                 PORT = Integer.parseInt(arguments.get("-p"));
             }
 
+            // -io nio serves clients from a few selector threads instead of one thread each;
+            // -io virtual keeps one thread per client, but a cheap virtual one
+            if (arguments.containsKey("-io")) {
+                USE_NIO = arguments.get("-io").equalsIgnoreCase("nio");
+                USE_VIRTUAL_THREADS = arguments.get("-io").equalsIgnoreCase("virtual");
+            }
+            if (arguments.containsKey("-reactors")) {
+                REACTORS = Integer.parseInt(arguments.get("-reactors"));
+            }
+
+            // Limits on responses a slow client may leave unread before it is dropped
+            if (arguments.containsKey("-outbound-bytes") || arguments.containsKey("-outbound-stall-ms")
+                    || arguments.containsKey("-overflow")) {
+                OUTBOUND_POLICY = new OutboundPolicy(
+                        Integer.parseInt(arguments.getOrDefault("-outbound-bytes",
+                                String.valueOf(OutboundPolicy.DEFAULT.maxBytes()))),
+                        Long.parseLong(arguments.getOrDefault("-outbound-stall-ms",
+                                String.valueOf(OutboundPolicy.DEFAULT.maxStallMillis()))),
+                        !arguments.getOrDefault("-overflow", "drop").equalsIgnoreCase("disconnect"));
+            }
+
+            // Clients that send nothing for this long are disconnected; 0 keeps them forever
+            if (arguments.containsKey("-idle-timeout-ms")) {
+                IDLE_TIMEOUT_MS = Integer.parseInt(arguments.get("-idle-timeout-ms"));
+            }
+
+            // Admission control: -max-connections caps clients, -rate and -burst limit each
+            // client's commands in tokens per second, with look and dump costing more than turns
+            if (arguments.containsKey("-max-connections") || arguments.containsKey("-rate")) {
+                double rate = Double.parseDouble(arguments.getOrDefault("-rate", "0"));
+                int defaultBurst = Math.max((int) Math.ceil(rate * 2), RateLimit.maxCost(RateLimit.DEFAULT_COSTS));
+                int burst = Integer.parseInt(arguments.getOrDefault("-burst", String.valueOf(defaultBurst)));
+                ADMISSION = new AdmissionControl(
+                        Integer.parseInt(arguments.getOrDefault("-max-connections", "0")),
+                        rate > 0 ? RateLimit.of(rate, burst) : RateLimit.UNLIMITED);
+            }
+
             // Handle world size argument or load from config
             WorldConfig config;
             if (arguments.containsKey("-s")) {
@@ -58,15 +105,33 @@ public class RobotWorldServer {
                 config = new WorldConfig("config.properties");
             }
 
+            // Handle seed and density arguments; both apply to the -s world and to config.properties
+            if (arguments.containsKey("-seed")) {
+                config.properties.setProperty("SEED", arguments.get("-seed"));
+            }
+            if (arguments.containsKey("-d")) {
+                config.properties.setProperty("OBSTACLE_DENSITY", arguments.get("-d"));
+            }
+            if (arguments.containsKey("-max-robots")) {
+                config.properties.setProperty("MAX_ROBOTS", arguments.get("-max-robots"));
+            }
+
+            // -o N generates N random obstacles; -o x,y places a single one
+            String obstacleArgument = arguments.get("-o");
+            if (obstacleArgument != null && !obstacleArgument.contains(",")) {
+                config.properties.setProperty("NUM_OBSTACLES", obstacleArgument);
+            }
+
             world = new World(config);
+            System.out.println("World generated from seed " + world.getSeed());
 
             // Handle obstacle argument
-            if (arguments.containsKey("-o")) {
-                String[] coords = arguments.get("-o").split(",");
+            if (obstacleArgument != null && obstacleArgument.contains(",")) {
+                String[] coords = obstacleArgument.split(",");
                 int x = Integer.parseInt(coords[0]);
                 int y = Integer.parseInt(coords[1]);
 
-                Random rand = new Random();
+                Random rand = new Random(world.getSeed());
                 int obstacleType = rand.nextInt(3);
 
                 if (obstacleType == 0) {
@@ -113,6 +178,13 @@ public class RobotWorldServer {
     }
 
     private static void startServer(World world) throws IOException {
+        if (USE_NIO) {
+            NioServer server = new NioServer(PORT, world, REACTORS, OUTBOUND_POLICY, IDLE_TIMEOUT_MS, ADMISSION);
+            System.out.println("Robot World Server running on port " + PORT + " with " + REACTORS + " reactor threads");
+            server.serve();
+            return;
+        }
+
         try (ServerSocket serverSocket = new ServerSocket(PORT)) {
             System.out.println("Robot World Server running on port " + PORT);
 
@@ -120,7 +192,12 @@ public class RobotWorldServer {
                 try {
                     Socket clientSocket = serverSocket.accept();
                     System.out.println("New client connected: " + clientSocket.getInetAddress());
-                    new ClientHandler(clientSocket, world).start();
+                    ClientHandler handler = new ClientHandler(clientSocket, world, OUTBOUND_POLICY, IDLE_TIMEOUT_MS, ADMISSION);
+                    if (USE_VIRTUAL_THREADS) {
+                        Thread.ofVirtual().name("client-" + clientSocket.getPort()).start(handler);
+                    } else {
+                        new Thread(handler).start();
+                    }
                 } catch (IOException e) {
                     System.err.println("Error accepting client connection: " + e.getMessage());
                 }
@@ -128,6 +205,14 @@ public class RobotWorldServer {
         }
     }
 
+    public static void setAdmission(AdmissionControl admission) {
+        ADMISSION = admission;
+    }
+
+    public static AdmissionControl getAdmission() {
+        return ADMISSION;
+    }
+
     public static void setWorld(World newWorld) {
         world = newWorld;
     }
@@ -2,6 +2,7 @@ package za.co.wethinkcode.server;
 
 import za.co.wethinkcode.protocol.server.CommandFactory;
 import za.co.wethinkcode.server.entities.WorldProperty;
+import za.co.wethinkcode.server.handler.OutboundMetrics;
 import za.co.wethinkcode.server.persistence.WorldDAOInterface;
 import za.co.wethinkcode.server.persistence.WorldDao;
 import za.co.wethinkcode.server.world.World;
@@ -20,6 +21,7 @@ import java.util.Scanner;
 public class ServerConsole {
     private final Scanner scanner;
     private CommandFactory commandFactory; // Non-final to allow reassignment
+    private World world;
     private boolean isRunning;
     private final WorldDao worldDao;
     WorldDAOInterface dao;
@@ -41,6 +43,7 @@ public class ServerConsole {
      */
     public ServerConsole(Scanner scanner, World world) {
         this.scanner = scanner;
+        this.world = world;
         this.commandFactory = new CommandFactory(world);
         this.isRunning = true;
         this.worldDao = new WorldDao("jdbc:sqlite:robot-worlds.db");
@@ -48,7 +51,7 @@ public class ServerConsole {
 
     /**
      * Starts the console interface, allowing users to enter commands such as
-     * 'help', 'robots', 'dump', 'quit', and 'restore'.
+     * 'help', 'robots', 'dump', 'queues', 'timers', 'quit', and 'restore'.
      */
     public void start() {
         System.out.println(BOLD + "\n═══════════════════════════════════════════════");
@@ -88,6 +91,12 @@ public class ServerConsole {
             case "restore":
                 handleRestoreCommand();
                 break;
+            case "queues":
+                System.out.println(OutboundMetrics.summary());
+                break;
+            case "timers":
+                System.out.println("Pending timers: " + world.getPendingTimerCount());
+                break;
             case "worlds":
                 try {
                     String sql = "SELECT w.id, w.world_name, w.world_size, w.created_at, " +
@@ -159,6 +168,7 @@ public class ServerConsole {
         try {
             World restoredWorld = worldDao.restoreWorld();
             RobotWorldServer.setWorld(restoredWorld);
+            this.world = RobotWorldServer.getWorld();
             this.commandFactory = new CommandFactory(RobotWorldServer.getWorld());
             System.out.println(GREEN + " ✅ World restored successfully." + RESET);
         } catch (SQLException e) {
@@ -174,6 +184,8 @@ public class ServerConsole {
         System.out.println(" robots  - List all active robots");
         System.out.println(" restore - Restore world from database");
         System.out.println(" worlds - Display all saved worlds from database");
+        System.out.println(" queues  - Show outbound queue depth and slow-client drops");
+        System.out.println(" timers  - Show reloads and repairs waiting to finish");
         System.out.println(" quit    - Disconnect all and shut down");
         System.out.println(" help    - Show this help message");
     }
@@ -1,8 +1,7 @@
 package za.co.wethinkcode.server.commands;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
 import za.co.wethinkcode.client.commands.StateCommand;
+import za.co.wethinkcode.protocol.JsonBuffer;
 import za.co.wethinkcode.server.world.WorldDumper;
 import za.co.wethinkcode.server.world.obstacles.Obstacle;
 import za.co.wethinkcode.server.model.Position;
@@ -19,6 +18,7 @@ import java.util.List;
 public class DumpCommand implements Command {
     private final World world;
     private final WorldDumper worldDumper;
+    private final int[] region;
 
     // ANSI styling
     private static final String RESET = "\u001B[0m";
@@ -32,8 +32,19 @@ public class DumpCommand implements Command {
      * @param world the game world to dump
      */
     public DumpCommand(World world) {
+        this(world, null);
+    }
+
+    /**
+     * Constructs a DumpCommand limited to a region of the world.
+     *
+     * @param world  the game world to dump
+     * @param region the region as {x, y, width, height}, or {@code null} for the whole world
+     */
+    public DumpCommand(World world, int[] region) {
         this.world = world;
         this.worldDumper = new WorldDumper(world);
+        this.region = region;
     }
 
     /**
@@ -43,10 +54,15 @@ public class DumpCommand implements Command {
      */
     @Override
     public String execute() {
-        JsonObject response = new JsonObject();
-        response.addProperty("result", "OK");
-        response.add("data", worldDumper.createWorldDump());
-        return new Gson().toJson(response);
+        try (JsonBuffer json = JsonBuffer.acquire()) {
+            json.beginObject().name("result").value("OK").name("data");
+            if (region == null) {
+                worldDumper.writeWorldDump(json);
+            } else {
+                worldDumper.writeRegionDump(json, region[0], region[1], region[2], region[3]);
+            }
+            return json.endObject().finish();
+        }
     }
 
     /**
@@ -0,0 +1,88 @@
+package za.co.wethinkcode.server.handler;
+
+import za.co.wethinkcode.protocol.server.RateLimit;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-wide admission control: caps how many clients may be connected at
+ * once and carries the per-connection command {@link RateLimit}. One instance
+ * is shared by every connection a server accepts.
+ */
+public class AdmissionControl {
+    /** How long a refused client is told to wait before reconnecting. */
+    static final long RETRY_AFTER_MILLIS = 1000;
+
+    /** Admits every client and does not limit commands. */
+    public static final AdmissionControl UNLIMITED = new AdmissionControl(0, RateLimit.UNLIMITED);
+
+    private final int maxConnections;
+    private final RateLimit rateLimit;
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /**
+     * Creates admission control for a server.
+     *
+     * @param maxConnections the most clients connected at once, or 0 for no limit
+     * @param rateLimit      the command rate limit for each connection
+     */
+    public AdmissionControl(int maxConnections, RateLimit rateLimit) {
+        this.maxConnections = maxConnections;
+        this.rateLimit = rateLimit;
+    }
+
+    /**
+     * Admits a new client if there is room. Every admitted client must be
+     * {@link #release() released} when it disconnects.
+     *
+     * @return true if the client was admitted
+     */
+    public boolean tryAdmit() {
+        if (maxConnections <= 0) {
+            connections.incrementAndGet();
+            return true;
+        }
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Frees the place taken by a client that has disconnected.
+     */
+    public void release() {
+        connections.decrementAndGet();
+    }
+
+    /** @return the number of clients currently admitted */
+    public int getConnections() {
+        return connections.get();
+    }
+
+    /** @return the command rate limit for each connection */
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Returns the response sent to a client refused because the server is full.
+     *
+     * @return the ERROR response
+     */
+    public static String rejectionResponse() {
+        return "{\"result\":\"ERROR\",\"data\":{\"message\":\"Server is full, retry after "
+                + RETRY_AFTER_MILLIS + " ms\",\"retryAfterMs\":" + RETRY_AFTER_MILLIS + "}}";
+    }
+
+    /**
+     * Returns the line sent to a TCP client refused because the server is full.
+     *
+     * @return the ERROR response, newline included
+     */
+    static byte[] rejection() {
+        return (rejectionResponse() + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,24 +1,44 @@
 package za.co.wethinkcode.server.handler;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.net.Socket;
-import java.util.List;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
+import za.co.wethinkcode.protocol.BinaryProtocol;
+import za.co.wethinkcode.protocol.server.BinaryCommandProcessor;
 import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
-import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
 
 /**
- * Handles communication with a single client in a separate thread.
+ * Handles communication with a single client on its own thread, either a
+ * platform thread or a virtual thread.
  * Listens for commands from the client, processes them, and sends back responses.
+ * Responses go through a bounded {@link OutboundQueue} drained by a separate
+ * virtual writer thread, so a client that stops reading is disconnected
+ * rather than blocking the thread that runs its commands. On disconnect,
+ * including after an idle timeout, exactly the robots this client launched
+ * are removed and the socket is closed.
  */
-public class ClientHandler extends Thread {
+public class ClientHandler implements Runnable {
     private final Socket clientSocket;
     private final World world;
     private final ServerCommandProcessor commandProcessor;
+    private final OutboundPolicy outboundPolicy;
+    private final OutboundQueue outbound;
+    private final int idleTimeoutMillis;
+    private final AdmissionControl admission;
+    /** Set when a response could not be queued, possibly by a request answered out of order. */
+    private volatile boolean overflowed;
 
     /**
      * Constructs a new {@code ClientHandler} to manage communication for a connected client.
@@ -27,52 +47,193 @@ public class ClientHandler extends Thread {
      * @param world the shared game world
      */
     public ClientHandler(Socket socket, World world) {
+        this(socket, world, OutboundPolicy.DEFAULT);
+    }
+
+    /**
+     * Constructs a new {@code ClientHandler} with specific limits on unread responses.
+     *
+     * @param socket         the client socket
+     * @param world          the shared game world
+     * @param outboundPolicy the limits on responses the client leaves unread
+     */
+    public ClientHandler(Socket socket, World world, OutboundPolicy outboundPolicy) {
+        this(socket, world, outboundPolicy, 0);
+    }
+
+    /**
+     * Constructs a new {@code ClientHandler} that also drops clients which go quiet.
+     *
+     * @param socket            the client socket
+     * @param world             the shared game world
+     * @param outboundPolicy    the limits on responses the client leaves unread
+     * @param idleTimeoutMillis how long the client may send nothing before it is
+     *                          disconnected, or 0 to wait forever
+     */
+    public ClientHandler(Socket socket, World world, OutboundPolicy outboundPolicy, int idleTimeoutMillis) {
+        this(socket, world, outboundPolicy, idleTimeoutMillis, AdmissionControl.UNLIMITED);
+    }
+
+    /**
+     * Constructs a new {@code ClientHandler} subject to the server's admission control.
+     *
+     * @param socket            the client socket
+     * @param world             the shared game world
+     * @param outboundPolicy    the limits on responses the client leaves unread
+     * @param idleTimeoutMillis how long the client may send nothing before it is
+     *                          disconnected, or 0 to wait forever
+     * @param admission         the server's connection cap and command rate limit
+     */
+    public ClientHandler(Socket socket, World world, OutboundPolicy outboundPolicy, int idleTimeoutMillis,
+                         AdmissionControl admission) {
         this.clientSocket = socket;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.admission = admission;
         this.world = world;
-        this.commandProcessor = new ServerCommandProcessor(world);
+        this.commandProcessor = new ServerCommandProcessor(world, admission.getRateLimit());
+        this.outboundPolicy = outboundPolicy;
+        this.outbound = new OutboundQueue(outboundPolicy, String.valueOf(socket.getRemoteSocketAddress()));
     }
 
     /**
-     * Starts the handler thread.
+     * Runs the handler on the calling thread.
      * Reads client input, processes commands via {@code ServerCommandProcessor},
-     * and writes responses until the client disconnects or an error occurs.
+     * and queues responses until the client disconnects or an error occurs.
+     * The writer flushes only once the queue is empty, so pipelined responses
+     * share a flush. A client that opens with the binary handshake is served the
+     * binary protocol instead of JSON lines. A client arriving while the server
+     * is full gets one ERROR line and is disconnected.
      */
     @Override
     public void run() {
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-             PrintWriter out = new PrintWriter(clientSocket.getOutputStream(), true)) {
-
-            processClientCommands(in, out);
+        if (!admission.tryAdmit()) {
+            rejectClient();
+            return;
+        }
+        Thread writer = Thread.ofVirtual()
+                .name("client-writer-" + clientSocket.getPort())
+                .start(this::writeResponses);
+        // The writer may block on a client that has stopped reading, so the stall limit is checked for it
+        outbound.watchForStalls(this::disconnectStalledClient);
+        try (InputStream input = new BufferedInputStream(clientSocket.getInputStream())) {
+            clientSocket.setSoTimeout(idleTimeoutMillis);
+            clientSocket.setKeepAlive(true);
+            if (BinaryCommandProcessor.readHandshake(input)) {
+                processBinaryCommands(new DataInputStream(input));
+            } else {
+                processClientCommands(new BufferedReader(new InputStreamReader(input)));
+            }
 
+            // The client is done sending; give the writer a chance to deliver what is left
+            commandProcessor.awaitInFlight(outboundPolicy.maxStallMillis());
+            outbound.close();
+            writer.join(outboundPolicy.maxStallMillis());
+        } catch (SocketTimeoutException e) {
+            System.out.println("Closing idle connection from " + clientSocket.getInetAddress());
         } catch (IOException e) {
             System.out.println("Exception in client handler: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
+            outbound.discard();
             closeClientSocket();
+            admission.release();
         }
     }
 
-    private void processClientCommands(BufferedReader in, PrintWriter out) throws IOException {
+    private void rejectClient() {
+        try (Socket socket = clientSocket) {
+            socket.getOutputStream().write(AdmissionControl.rejection());
+            System.out.println("Refused client " + socket.getInetAddress() + ": server is full");
+        } catch (IOException e) {
+            System.err.println("Error refusing client: " + e.getMessage());
+        }
+    }
+
+    private void processClientCommands(BufferedReader in) throws IOException {
         String inputLine;
         while ((inputLine = in.readLine()) != null) {
-            String response = commandProcessor.processMessage(inputLine);
-            out.println(response);
+            commandProcessor.processMessage(inputLine, this::reply);
+            if (overflowed) {
+                throw new IOException("Client is not reading its responses");
+            }
         }
     }
 
-    private void closeClientSocket() {
+    /**
+     * Queues a JSON response. Responses to requests answered out of order
+     * arrive on their own threads, so a client too far behind is cut off by
+     * closing its socket, which ends the reading loop.
+     */
+    private void reply(String response) {
+        if (!outbound.offer(ByteBuffer.wrap((response + "\n").getBytes(StandardCharsets.UTF_8)), true)) {
+            disconnectStalledClient();
+        }
+    }
+
+    /**
+     * Cuts off a client that is too far behind on reading its responses, which
+     * unblocks both a writer stuck on the socket and a reader waiting for requests.
+     */
+    private void disconnectStalledClient() {
+        overflowed = true;
+        try {
+            clientSocket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing socket: " + e.getMessage());
+        }
+    }
+
+    private void processBinaryCommands(DataInputStream in) throws IOException {
+        BinaryCommandProcessor binaryProcessor = new BinaryCommandProcessor(commandProcessor, world);
+        send(ByteBuffer.wrap(BinaryProtocol.HANDSHAKE.clone()));
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException e) {
+                return;
+            }
+            if (length < 0 || length > BinaryProtocol.MAX_FRAME_BYTES) {
+                throw new IOException("Invalid frame length " + length);
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+
+            byte[] response = binaryProcessor.process(payload);
+            send(ByteBuffer.allocate(Integer.BYTES + response.length).putInt(response.length).put(response).flip());
+        }
+    }
+
+    private void send(ByteBuffer response) throws IOException {
+        if (!outbound.offer(response, true)) {
+            throw new IOException("Client is not reading its responses");
+        }
+    }
+
+    private void writeResponses() {
         try {
-            /*
-                loop through list of robots and remove
-             */
-            List<Robot> robots = world.getRobots();
-            for (Robot robot : robots) {
-                String name = robot.getName();
-                if (robot.getName().equals(name)) {
-                    world.removeRobot(robot);
-                    return;
+            OutputStream out = new BufferedOutputStream(clientSocket.getOutputStream());
+            ByteBuffer next;
+            while ((next = outbound.awaitNext()) != null) {
+                out.write(next.array(), next.arrayOffset() + next.position(), next.remaining());
+                outbound.remove();
+                if (outbound.isEmpty()) {
+                    out.flush();
                 }
             }
+            out.flush();
+        } catch (IOException e) {
+            // The socket is gone; the reading side will notice and clean up
+            outbound.discard();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
+    private void closeClientSocket() {
+        commandProcessor.close();
+        try {
             clientSocket.close();
             System.out.println("Client disconnected");
         } catch (IOException e) {
@@ -0,0 +1,299 @@
+package za.co.wethinkcode.server.handler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import za.co.wethinkcode.protocol.BinaryProtocol;
+import za.co.wethinkcode.protocol.server.BinaryCommandProcessor;
+import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
+import za.co.wethinkcode.server.world.World;
+
+/**
+ * State of one client connection served by an {@link NioServer} reactor.
+ * Splits incoming bytes into newline-delimited requests, or into length-prefixed
+ * frames if the client opened with the binary handshake, runs each one through
+ * the connection's own {@code ServerCommandProcessor}, and queues the
+ * responses in a bounded {@link OutboundQueue} until the socket can take them.
+ * Responses to requests answered out of order are queued from other threads,
+ * which then tell the reactor that the connection has something to write.
+ */
+public class NioConnection {
+    /** Longest request line accepted before the connection is dropped. */
+    static final int MAX_LINE_BYTES = 1 << 20;
+
+    private enum Mode { UNDECIDED, HANDSHAKE, JSON, BINARY }
+
+    private final SocketChannel channel;
+    private final ServerCommandProcessor commandProcessor;
+    private final BinaryCommandProcessor binaryProcessor;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+    private final OutboundQueue outbound;
+    private final AdmissionControl admission;
+    private final Consumer<NioConnection> onReply;
+    private volatile Thread reactorThread;
+    private volatile boolean overflowed;
+    private boolean inputClosed;
+    private Mode mode = Mode.UNDECIDED;
+    private int handshakeBytes;
+    private int frameLength = -1;
+    private long lastReadAt = System.nanoTime();
+    private boolean closed;
+
+    /**
+     * Creates the state for a newly accepted client.
+     *
+     * @param channel        the client channel
+     * @param world          the shared game world
+     * @param outboundPolicy the limits on responses the client leaves unread
+     * @param admission      the server's admission control, which has already admitted this client
+     */
+    public NioConnection(SocketChannel channel, World world, OutboundPolicy outboundPolicy,
+                         AdmissionControl admission) {
+        this(channel, world, outboundPolicy, admission, connection -> { });
+    }
+
+    /**
+     * Creates the state for a newly accepted client whose reactor wants to
+     * hear about responses queued from other threads.
+     *
+     * @param channel        the client channel
+     * @param world          the shared game world
+     * @param outboundPolicy the limits on responses the client leaves unread
+     * @param admission      the server's admission control, which has already admitted this client
+     * @param onReply        called, off the reactor thread, after a response
+     *                       answered out of order has been queued
+     */
+    public NioConnection(SocketChannel channel, World world, OutboundPolicy outboundPolicy,
+                         AdmissionControl admission, Consumer<NioConnection> onReply) {
+        this.channel = channel;
+        this.onReply = onReply;
+        this.outbound = new OutboundQueue(outboundPolicy, remoteAddress(channel));
+        this.admission = admission;
+        this.commandProcessor = new ServerCommandProcessor(world, admission.getRateLimit());
+        this.binaryProcessor = new BinaryCommandProcessor(commandProcessor, world);
+    }
+
+    /**
+     * Reads what the client has sent and answers every complete request.
+     *
+     * @param buffer a scratch buffer owned by the calling reactor
+     * @return false once the client has closed its side of the connection
+     * @throws IOException if reading fails, a request line is too long, or the
+     *                     client is too far behind on reading its responses
+     */
+    boolean read(ByteBuffer buffer) throws IOException {
+        reactorThread = Thread.currentThread();
+        int read;
+        while ((read = channel.read(buffer.clear())) > 0) {
+            buffer.flip();
+            lastReadAt = System.nanoTime();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                switch (mode) {
+                    case UNDECIDED -> {
+                        // The handshake's first byte can never start a JSON request
+                        if (b == BinaryProtocol.HANDSHAKE[0]) {
+                            mode = Mode.HANDSHAKE;
+                            handshakeBytes = 1;
+                        } else {
+                            mode = Mode.JSON;
+                            acceptJson(b);
+                        }
+                    }
+                    case HANDSHAKE -> acceptHandshake(b);
+                    case JSON -> acceptJson(b);
+                    case BINARY -> acceptBinary(b);
+                }
+            }
+        }
+        if (read < 0) {
+            inputClosed = true;
+        }
+        return read >= 0;
+    }
+
+    /**
+     * Writes as many queued responses as the socket accepts.
+     *
+     * @return true if every queued response has been written
+     * @throws IOException if writing fails or the oldest response has waited too long
+     */
+    boolean flush() throws IOException {
+        ByteBuffer next;
+        while ((next = outbound.peek()) != null) {
+            channel.write(next);
+            if (next.hasRemaining()) {
+                if (outbound.isStalled()) {
+                    throw new IOException("Client is not reading its responses");
+                }
+                return false;
+            }
+            outbound.remove();
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether responses are waiting to be written.
+     *
+     * @return true if the outbound queue is not empty
+     */
+    boolean hasPendingWrites() {
+        return !outbound.isEmpty();
+    }
+
+    /**
+     * Returns this connection's registration with a selector.
+     *
+     * @param selector the reactor's selector
+     * @return the key, or null if the channel is not registered with it
+     */
+    SelectionKey keyFor(Selector selector) {
+        return channel.keyFor(selector);
+    }
+
+    /**
+     * Checks whether a response could not be queued because the client is too
+     * far behind on reading.
+     *
+     * @return true if the connection should be dropped
+     */
+    boolean isOverflowed() {
+        return overflowed;
+    }
+
+    /**
+     * Checks whether the client has closed its side of the connection.
+     *
+     * @return true once the client will send nothing more
+     */
+    boolean isInputClosed() {
+        return inputClosed;
+    }
+
+    /**
+     * Checks whether requests are still running out of order, so responses may yet be queued.
+     *
+     * @return true if some request has yet to be answered
+     */
+    boolean hasRequestsInFlight() {
+        return commandProcessor.hasRequestsInFlight();
+    }
+
+    /**
+     * Checks whether the client has sent nothing for longer than a timeout.
+     *
+     * @param now         the current {@link System#nanoTime()}
+     * @param timeoutNanos the idle timeout
+     * @return true if the connection should be reaped
+     */
+    boolean isIdle(long now, long timeoutNanos) {
+        return now - lastReadAt > timeoutNanos;
+    }
+
+    /**
+     * Closes the channel, removes the robots this client launched, and frees
+     * its place with the admission control.
+     */
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        admission.release();
+        outbound.discard();
+        commandProcessor.close();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing socket: " + e.getMessage());
+        }
+    }
+
+    private void acceptHandshake(byte b) throws IOException {
+        if (b != BinaryProtocol.HANDSHAKE[handshakeBytes]) {
+            throw new IOException("Invalid binary handshake");
+        }
+        if (++handshakeBytes == BinaryProtocol.HANDSHAKE.length) {
+            mode = Mode.BINARY;
+            send(ByteBuffer.wrap(BinaryProtocol.HANDSHAKE.clone()));
+        }
+    }
+
+    private void acceptJson(byte b) throws IOException {
+        if (b == '\n') {
+            handleLine();
+            return;
+        }
+        line.write(b);
+        if (line.size() > MAX_LINE_BYTES) {
+            throw new IOException("Request line longer than " + MAX_LINE_BYTES + " bytes");
+        }
+    }
+
+    private void acceptBinary(byte b) throws IOException {
+        line.write(b);
+        if (frameLength < 0) {
+            if (line.size() == Integer.BYTES) {
+                frameLength = ByteBuffer.wrap(line.toByteArray()).getInt();
+                line.reset();
+                if (frameLength < 0 || frameLength > BinaryProtocol.MAX_FRAME_BYTES) {
+                    throw new IOException("Invalid frame length " + frameLength);
+                }
+                if (frameLength == 0) {
+                    handleFrame();
+                }
+            }
+        } else if (line.size() == frameLength) {
+            handleFrame();
+        }
+    }
+
+    private void handleFrame() throws IOException {
+        byte[] response = binaryProcessor.process(line.toByteArray());
+        line.reset();
+        frameLength = -1;
+        send(ByteBuffer.allocate(Integer.BYTES + response.length).putInt(response.length).put(response).flip());
+    }
+
+    private void handleLine() throws IOException {
+        String request = line.toString(StandardCharsets.UTF_8);
+        line.reset();
+        if (request.endsWith("\r")) {
+            request = request.substring(0, request.length() - 1);
+        }
+        commandProcessor.processMessage(request, this::reply);
+        if (overflowed) {
+            throw new IOException("Client is not reading its responses");
+        }
+    }
+
+    private void reply(String response) {
+        if (!outbound.offer(ByteBuffer.wrap((response + "\n").getBytes(StandardCharsets.UTF_8)), true)) {
+            overflowed = true;
+        }
+        if (Thread.currentThread() != reactorThread) {
+            onReply.accept(this);
+        }
+    }
+
+    private void send(ByteBuffer response) throws IOException {
+        if (!outbound.offer(response, true)) {
+            throw new IOException("Client is not reading its responses");
+        }
+    }
+
+    private static String remoteAddress(SocketChannel channel) {
+        try {
+            return String.valueOf(channel.getRemoteAddress());
+        } catch (IOException e) {
+            return "unknown client";
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package za.co.wethinkcode.server.handler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import za.co.wethinkcode.server.world.World;
+
+/**
+ * Non-blocking alternative to one {@link ClientHandler} thread per client.
+ * An acceptor hands new connections round-robin to a small, fixed pool of
+ * reactor threads; each reactor multiplexes its clients over one
+ * {@link Selector}. The protocol is the same newline-delimited JSON, and every
+ * client gets its own {@code ServerCommandProcessor}, exactly as with
+ * {@code ClientHandler}. Responses to requests answered out of order are
+ * queued by other threads, which wake the reactor so it writes them.
+ */
+public class NioServer {
+    private static final int READ_BUFFER_BYTES = 8192;
+
+    private final World world;
+    private final OutboundPolicy outboundPolicy;
+    private final long idleTimeoutNanos;
+    private final AdmissionControl admission;
+    private final ServerSocketChannel serverChannel;
+    private final Reactor[] reactors;
+    private volatile boolean running = true;
+    private int nextReactor;
+
+    /**
+     * Binds the server socket and starts the reactor threads.
+     *
+     * @param port         the port to listen on, or 0 for any free port
+     * @param world        the shared game world
+     * @param reactorCount the number of reactor threads
+     * @throws IOException if the socket cannot be bound
+     */
+    public NioServer(int port, World world, int reactorCount) throws IOException {
+        this(port, world, reactorCount, OutboundPolicy.DEFAULT);
+    }
+
+    /**
+     * Binds the server socket and starts the reactor threads, with specific
+     * limits on responses a client leaves unread.
+     *
+     * @param port           the port to listen on, or 0 for any free port
+     * @param world          the shared game world
+     * @param reactorCount   the number of reactor threads
+     * @param outboundPolicy the limits on responses a client leaves unread
+     * @throws IOException if the socket cannot be bound
+     */
+    public NioServer(int port, World world, int reactorCount, OutboundPolicy outboundPolicy) throws IOException {
+        this(port, world, reactorCount, outboundPolicy, 0);
+    }
+
+    /**
+     * Binds the server socket and starts the reactor threads, with limits on
+     * unread responses and on how long a client may stay silent.
+     *
+     * @param port              the port to listen on, or 0 for any free port
+     * @param world             the shared game world
+     * @param reactorCount      the number of reactor threads
+     * @param outboundPolicy    the limits on responses a client leaves unread
+     * @param idleTimeoutMillis how long a client may send nothing before it is
+     *                          disconnected, or 0 to wait forever
+     * @throws IOException if the socket cannot be bound
+     */
+    public NioServer(int port, World world, int reactorCount, OutboundPolicy outboundPolicy,
+                     int idleTimeoutMillis) throws IOException {
+        this(port, world, reactorCount, outboundPolicy, idleTimeoutMillis, AdmissionControl.UNLIMITED);
+    }
+
+    /**
+     * Binds the server socket and starts the reactor threads, subject to the
+     * server's admission control.
+     *
+     * @param port              the port to listen on, or 0 for any free port
+     * @param world             the shared game world
+     * @param reactorCount      the number of reactor threads
+     * @param outboundPolicy    the limits on responses a client leaves unread
+     * @param idleTimeoutMillis how long a client may send nothing before it is
+     *                          disconnected, or 0 to wait forever
+     * @param admission         the connection cap and command rate limit
+     * @throws IOException if the socket cannot be bound
+     */
+    public NioServer(int port, World world, int reactorCount, OutboundPolicy outboundPolicy,
+                     int idleTimeoutMillis, AdmissionControl admission) throws IOException {
+        this.world = world;
+        this.admission = admission;
+        this.outboundPolicy = outboundPolicy;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        this.reactors = new Reactor[Math.max(1, reactorCount)];
+        for (int i = 0; i < reactors.length; i++) {
+            reactors[i] = new Reactor();
+            Thread thread = new Thread(reactors[i], "nio-reactor-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     *
+     * @return the local port
+     * @throws IOException if the address cannot be read
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Accepts clients on the calling thread until {@link #stop()} is called.
+     */
+    public void serve() {
+        while (running) {
+            try {
+                SocketChannel client = serverChannel.accept();
+                System.out.println("New client connected: " + client.getRemoteAddress());
+                client.configureBlocking(false);
+                reactors[nextReactor].assign(client);
+                nextReactor = (nextReactor + 1) % reactors.length;
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Error accepting client connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops accepting clients and closes every open connection.
+     */
+    public void stop() {
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing server socket: " + e.getMessage());
+        }
+        for (Reactor reactor : reactors) {
+            reactor.shutdown();
+        }
+    }
+
+    /** One selector thread serving the connections assigned to it. */
+    private class Reactor implements Runnable {
+        private final Selector selector;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        private final Queue<NioConnection> replied = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_BYTES);
+
+        Reactor() throws IOException {
+            this.selector = Selector.open();
+        }
+
+        void assign(SocketChannel client) {
+            pending.add(client);
+            selector.wakeup();
+        }
+
+        void replied(NioConnection connection) {
+            replied.add(connection);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                long sweepMillis = idleTimeoutNanos > 0
+                        ? Math.max(1, Math.min(1000, TimeUnit.NANOSECONDS.toMillis(idleTimeoutNanos) / 2)) : 0;
+                while (running) {
+                    selector.select(sweepMillis);
+                    registerPending();
+                    writeReplies();
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handle(key);
+                    }
+                    if (idleTimeoutNanos > 0) {
+                        reapIdle();
+                    }
+                }
+            } catch (IOException | ClosedSelectorException e) {
+                System.err.println("Reactor stopped: " + e.getMessage());
+            } finally {
+                closeAll();
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel client;
+            while ((client = pending.poll()) != null) {
+                if (!admission.tryAdmit()) {
+                    reject(client);
+                    continue;
+                }
+                NioConnection connection = new NioConnection(client, world, outboundPolicy, admission, this::replied);
+                try {
+                    client.register(selector, SelectionKey.OP_READ, connection);
+                } catch (IOException e) {
+                    System.err.println("Error registering client: " + e.getMessage());
+                    connection.close();
+                }
+            }
+        }
+
+        private void reject(SocketChannel client) {
+            // The refusal is one short line, which fits in any socket's send buffer
+            try (client) {
+                client.write(ByteBuffer.wrap(AdmissionControl.rejection()));
+                System.out.println("Refused client: server is full");
+            } catch (IOException e) {
+                System.err.println("Error refusing client: " + e.getMessage());
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            NioConnection connection = (NioConnection) key.attachment();
+            try {
+                if (key.isReadable() && !connection.read(buffer)) {
+                    // The client half-closed; send what has been answered so far before closing
+                    afterWrite(key, connection);
+                    return;
+                }
+                if (connection.hasPendingWrites()) {
+                    afterWrite(key, connection);
+                }
+            } catch (IOException e) {
+                System.out.println("Exception in client handler: " + e.getMessage());
+                disconnect(key, connection);
+            }
+        }
+
+        /**
+         * Writes the responses other threads have queued since the last select.
+         */
+        private void writeReplies() {
+            NioConnection connection;
+            while ((connection = replied.poll()) != null) {
+                SelectionKey key = connection.keyFor(selector);
+                if (key == null || !key.isValid()) {
+                    continue;
+                }
+                if (connection.isOverflowed()) {
+                    System.out.println("Exception in client handler: Client is not reading its responses");
+                    disconnect(key, connection);
+                    continue;
+                }
+                try {
+                    afterWrite(key, connection);
+                } catch (IOException e) {
+                    System.out.println("Exception in client handler: " + e.getMessage());
+                    disconnect(key, connection);
+                }
+            }
+        }
+
+        /**
+         * Flushes a connection and decides what to wait for next. A client that
+         * has stopped sending is disconnected once every request it sent has
+         * been answered, or as soon as it leaves a response unread.
+         */
+        private void afterWrite(SelectionKey key, NioConnection connection) throws IOException {
+            boolean flushed = connection.flush();
+            if (!connection.isInputClosed()) {
+                key.interestOps(flushed ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } else if (flushed && connection.hasRequestsInFlight()) {
+                key.interestOps(0);
+            } else {
+                disconnect(key, connection);
+            }
+        }
+
+        private void reapIdle() {
+            long now = System.nanoTime();
+            for (SelectionKey key : selector.keys()) {
+                if (key.isValid() && key.attachment() instanceof NioConnection connection
+                        && connection.isIdle(now, idleTimeoutNanos)) {
+                    System.out.println("Closing idle connection");
+                    disconnect(key, connection);
+                }
+            }
+        }
+
+        private void disconnect(SelectionKey key, NioConnection connection) {
+            key.cancel();
+            connection.close();
+            System.out.println("Client disconnected");
+        }
+
+        private void closeAll() {
+            SocketChannel client;
+            while ((client = pending.poll()) != null) {
+                try {
+                    client.close();
+                } catch (IOException e) {
+                    System.err.println("Error closing socket: " + e.getMessage());
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof NioConnection connection) {
+                    connection.close();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error closing selector: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package za.co.wethinkcode.server.handler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server-wide counters for the per-connection outbound queues, and the
+ * queues themselves, so an operator can spot clients that are not reading
+ * their responses.
+ */
+public final class OutboundMetrics {
+    private static final Set<OutboundQueue> queues = ConcurrentHashMap.newKeySet();
+    private static final AtomicLong queuedBytes = new AtomicLong();
+    private static final AtomicLong queuedMessages = new AtomicLong();
+    private static final AtomicLong peakQueueBytes = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final AtomicLong overflowDisconnects = new AtomicLong();
+
+    private OutboundMetrics() {
+    }
+
+    static void register(OutboundQueue queue) {
+        queues.add(queue);
+    }
+
+    static void unregister(OutboundQueue queue) {
+        queues.remove(queue);
+    }
+
+    static void queued(int bytes, long queueBytes) {
+        queuedBytes.addAndGet(bytes);
+        queuedMessages.incrementAndGet();
+        peakQueueBytes.accumulateAndGet(queueBytes, Math::max);
+    }
+
+    static void written(int bytes) {
+        queuedBytes.addAndGet(-bytes);
+        queuedMessages.decrementAndGet();
+    }
+
+    static void dropped() {
+        dropped.incrementAndGet();
+    }
+
+    static void overflowDisconnect() {
+        overflowDisconnects.incrementAndGet();
+    }
+
+    /** @return bytes queued for all clients and not yet written */
+    public static long getQueuedBytes() {
+        return queuedBytes.get();
+    }
+
+    /** @return responses queued for all clients and not yet written */
+    public static long getQueuedMessages() {
+        return queuedMessages.get();
+    }
+
+    /** @return the deepest any single client's queue has been, in bytes */
+    public static long getPeakQueueBytes() {
+        return peakQueueBytes.get();
+    }
+
+    /** @return non-essential messages dropped because a client's queue was full */
+    public static long getDropped() {
+        return dropped.get();
+    }
+
+    /** @return clients disconnected for reading too slowly */
+    public static long getOverflowDisconnects() {
+        return overflowDisconnects.get();
+    }
+
+    /**
+     * Summarises the counters for the server console, followed by the depth
+     * of each connected client's queue.
+     *
+     * @return one line per counter and per connection
+     */
+    public static String summary() {
+        StringBuilder summary = new StringBuilder()
+                .append("Queued bytes:          ").append(getQueuedBytes()).append("\n")
+                .append("Queued messages:       ").append(getQueuedMessages()).append("\n")
+                .append("Peak queue bytes:      ").append(getPeakQueueBytes()).append("\n")
+                .append("Dropped pushes:        ").append(getDropped()).append("\n")
+                .append("Overflow disconnects:  ").append(getOverflowDisconnects());
+        for (OutboundQueue queue : queues) {
+            summary.append("\n  ").append(queue.getClient()).append(": ")
+                    .append(queue.getQueuedBytes()).append(" bytes in ")
+                    .append(queue.getQueuedMessages()).append(" messages");
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,20 @@
+package za.co.wethinkcode.server.handler;
+
+/**
+ * Limits on how much a client may leave unread before the server gives up on it.
+ *
+ * @param maxBytes         the most response bytes queued for one client
+ * @param maxStallMillis   how long the oldest queued response may wait to be written
+ * @param dropNonEssential true to drop non-essential pushes that do not fit, rather than
+ *                         disconnecting; responses to requests are always essential
+ */
+public record OutboundPolicy(int maxBytes, long maxStallMillis, boolean dropNonEssential) {
+    /** 1 MiB per client, 30 seconds to drain it, and drop pushes rather than disconnect. */
+    public static final OutboundPolicy DEFAULT = new OutboundPolicy(1 << 20, 30_000, true);
+
+    public OutboundPolicy {
+        if (maxBytes <= 0 || maxStallMillis <= 0) {
+            throw new IllegalArgumentException("Outbound limits must be positive");
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package za.co.wethinkcode.server.handler;
+
+import za.co.wethinkcode.server.world.TimingWheel;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded queue of responses waiting to be written to one client.
+ * Commands only ever add to it, so a client that stops reading can never
+ * block the thread that processes its requests; once the client is too far
+ * behind, as set by its {@link OutboundPolicy}, it is disconnected instead.
+ */
+public class OutboundQueue {
+    /** Checks the queues of blocking writers for stalls; one thread serves every connection. */
+    private static final TimingWheel WATCHDOG = new TimingWheel("outbound-watchdog", 100, 64);
+
+    private final OutboundPolicy policy;
+    private final String client;
+    private final Deque<Entry> entries = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private long queuedBytes;
+    private boolean closed;
+
+    private record Entry(ByteBuffer buffer, int size, long queuedAt) {
+    }
+
+    /**
+     * Creates an empty queue that is not listed in {@link OutboundMetrics}.
+     *
+     * @param policy the limits to enforce
+     */
+    public OutboundQueue(OutboundPolicy policy) {
+        this.policy = policy;
+        this.client = null;
+    }
+
+    /**
+     * Creates an empty queue for a connection, listed in {@link OutboundMetrics}
+     * until it is discarded.
+     *
+     * @param policy the limits to enforce
+     * @param client the client's address, to tell the queue apart from others
+     */
+    public OutboundQueue(OutboundPolicy policy, String client) {
+        this.policy = policy;
+        this.client = client;
+        OutboundMetrics.register(this);
+    }
+
+    /** @return the client's address, or null if the queue is not listed */
+    public String getClient() {
+        return client;
+    }
+
+    /**
+     * Queues a message for the client.
+     *
+     * @param message   the bytes to send
+     * @param essential false for pushes the client can do without
+     * @return false if the client is too far behind and should be disconnected
+     */
+    public boolean offer(ByteBuffer message, boolean essential) {
+        int size = message.remaining();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            boolean full = queuedBytes + size > policy.maxBytes();
+            if (full && !essential && policy.dropNonEssential() && !isStalled(now)) {
+                OutboundMetrics.dropped();
+                return true;
+            }
+            if (full || isStalled(now)) {
+                OutboundMetrics.overflowDisconnect();
+                return false;
+            }
+            entries.add(new Entry(message, size, now));
+            queuedBytes += size;
+            OutboundMetrics.queued(size, queuedBytes);
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the oldest message without removing it, for non-blocking writers
+     * that may only manage part of it.
+     *
+     * @return the oldest message, or null if none is queued
+     */
+    public ByteBuffer peek() {
+        lock.lock();
+        try {
+            Entry head = entries.peek();
+            return head == null ? null : head.buffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the oldest message once it has been written.
+     */
+    public void remove() {
+        lock.lock();
+        try {
+            Entry head = entries.poll();
+            if (head != null) {
+                queuedBytes -= head.size();
+                OutboundMetrics.written(head.size());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a message, for blocking writers. The message stays counted
+     * against the queue until {@link #remove()} is called.
+     *
+     * @return the oldest message, or null once the queue is closed and drained
+     * @throws InterruptedException if the writer is interrupted
+     */
+    public ByteBuffer awaitNext() throws InterruptedException {
+        lock.lock();
+        try {
+            while (entries.isEmpty() && !closed) {
+                notEmpty.await();
+            }
+            Entry head = entries.peek();
+            return head == null ? null : head.buffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether the oldest message has waited longer than the policy allows.
+     *
+     * @return true if the client should be disconnected
+     */
+    public boolean isStalled() {
+        lock.lock();
+        try {
+            return isStalled(System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Disconnects the client once it is too far behind, even if nothing more
+     * is offered. A blocking writer stuck on a client that reads nothing cannot
+     * check for itself, and if the client sends nothing either, no offer ever
+     * notices. The check repeats until the queue is closed.
+     *
+     * @param onStall run once on the watchdog's thread when the queue stalls;
+     *                it must be quick, such as closing the socket
+     */
+    public void watchForStalls(Runnable onStall) {
+        long interval = Math.max(10, policy.maxStallMillis() / 4);
+        WATCHDOG.schedule(interval, () -> {
+            boolean stalled;
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                stalled = isStalled(System.nanoTime());
+            } finally {
+                lock.unlock();
+            }
+            if (stalled) {
+                OutboundMetrics.overflowDisconnect();
+                onStall.run();
+            } else {
+                watchForStalls(onStall);
+            }
+        });
+    }
+
+    /** @return true if no message is waiting */
+    public boolean isEmpty() {
+        lock.lock();
+        try {
+            return entries.isEmpty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the number of messages waiting to be written */
+    public int getQueuedMessages() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** @return the number of bytes waiting to be written */
+    public long getQueuedBytes() {
+        lock.lock();
+        try {
+            return queuedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting messages; a blocked writer drains what is left and then stops.
+     */
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the queue and forgets anything not yet written.
+     */
+    public void discard() {
+        lock.lock();
+        try {
+            closed = true;
+            while (!entries.isEmpty()) {
+                OutboundMetrics.written(entries.poll().size());
+            }
+            queuedBytes = 0;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (client != null) {
+            OutboundMetrics.unregister(this);
+        }
+    }
+
+    private boolean isStalled(long now) {
+        Entry head = entries.peek();
+        return head != null && now - head.queuedAt() > TimeUnit.MILLISECONDS.toNanos(policy.maxStallMillis());
+    }
+}
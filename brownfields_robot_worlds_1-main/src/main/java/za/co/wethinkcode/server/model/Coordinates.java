@@ -0,0 +1,107 @@
+package za.co.wethinkcode.server.model;
+
+/**
+ * Primitive coordinate helpers for hot paths. A cell is packed into a single
+ * {@code long} with x in the high 32 bits and y in the low 32 bits, so ray
+ * marching, movement and robot lookups can work on coordinates without
+ * allocating a {@link Position} per step. {@code Position} remains the type
+ * used at the protocol boundary.
+ *
+ * <p>Stepping follows the world's convention: NORTH is +y and EAST is +x.</p>
+ */
+public final class Coordinates {
+
+    private Coordinates() {
+    }
+
+    /**
+     * Packs a cell into a single long.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the packed cell
+     */
+    public static long pack(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    /**
+     * Packs a position into a single long.
+     *
+     * @param position the position to pack
+     * @return the packed cell
+     */
+    public static long pack(Position position) {
+        return pack(position.getX(), position.getY());
+    }
+
+    /**
+     * Returns the x-coordinate of a packed cell.
+     *
+     * @param packed the packed cell
+     * @return the x-coordinate
+     */
+    public static int x(long packed) {
+        return (int) (packed >> 32);
+    }
+
+    /**
+     * Returns the y-coordinate of a packed cell.
+     *
+     * @param packed the packed cell
+     * @return the y-coordinate
+     */
+    public static int y(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Returns the x-offset of one step in a direction.
+     *
+     * @param direction the direction
+     * @return -1, 0 or 1
+     */
+    public static int dx(Direction direction) {
+        return switch (direction) {
+            case EAST -> 1;
+            case WEST -> -1;
+            case NORTH, SOUTH -> 0;
+        };
+    }
+
+    /**
+     * Returns the y-offset of one step in a direction.
+     *
+     * @param direction the direction
+     * @return -1, 0 or 1
+     */
+    public static int dy(Direction direction) {
+        return switch (direction) {
+            case NORTH -> 1;
+            case SOUTH -> -1;
+            case EAST, WEST -> 0;
+        };
+    }
+
+    /**
+     * Moves a packed cell a number of steps in a direction.
+     *
+     * @param packed    the packed starting cell
+     * @param direction the direction to move
+     * @param steps     the number of steps; negative steps move backwards
+     * @return the packed cell reached
+     */
+    public static long step(long packed, Direction direction, int steps) {
+        return pack(x(packed) + dx(direction) * steps, y(packed) + dy(direction) * steps);
+    }
+
+    /**
+     * Unpacks a cell into a position, for handing back to the protocol layer.
+     *
+     * @param packed the packed cell
+     * @return the position
+     */
+    public static Position toPosition(long packed) {
+        return new Position(x(packed), y(packed));
+    }
+}
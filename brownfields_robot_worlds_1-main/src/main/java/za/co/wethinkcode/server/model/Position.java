@@ -1,7 +1,5 @@
 package za.co.wethinkcode.server.model;
 
-import java.util.Objects;
-
 /**
  * Immutable 2D coordinate representing a position in the robot world.
  * Used for locating entities like robots and obstacles.
@@ -59,7 +57,7 @@ public class Position {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(x, y);
+        return 31 * x + y;
     }
 
     /**
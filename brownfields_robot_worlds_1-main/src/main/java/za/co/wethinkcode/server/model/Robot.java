@@ -1,6 +1,7 @@
 package za.co.wethinkcode.server.model;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Represents a robot entity in the world, holding attributes like name, position,
@@ -13,7 +14,8 @@ public class Robot {
     private Direction direction;
     private int shields;
     private int shots;
-    private Status status = Status.NORMAL;
+    private final AtomicReference<Status> status = new AtomicReference<>(Status.NORMAL);
+    private PositionListener positionListener;
 
     /**
      * Enumeration of possible robot statuses.
@@ -22,6 +24,21 @@ public class Robot {
         NORMAL, RELOAD, REPAIR, DEAD
     }
 
+    /**
+     * Receives every change of a robot's position, so that the world
+     * the robot lives in can keep its position index current.
+     */
+    public interface PositionListener {
+        /**
+         * Called after the robot's position has changed.
+         *
+         * @param robot the robot that moved
+         * @param from  the previous position, or {@code null} if none was set
+         * @param to    the new position
+         */
+        void positionChanged(Robot robot, Position from, Position to);
+    }
+
     /**
      * Creates a robot with the specified name and initial position.
      * Default direction is {@code NORTH}.
@@ -65,7 +82,20 @@ public class Robot {
      * @param position new position
      */
     public void setPosition(Position position) {
+        Position previous = this.position;
         this.position = position;
+        if (positionListener != null && !Objects.equals(previous, position)) {
+            positionListener.positionChanged(this, previous, position);
+        }
+    }
+
+    /**
+     * Sets the listener notified when this robot's position changes.
+     *
+     * @param positionListener the listener, or {@code null} to stop notifications
+     */
+    public void setPositionListener(PositionListener positionListener) {
+        this.positionListener = positionListener;
     }
 
     /** @return the direction the robot is facing */
@@ -96,7 +126,7 @@ public class Robot {
         this.shields = shields;
         if (this.shields < 0) {
             this.shields = 0;
-            this.status = Status.DEAD;
+            this.status.set(Status.DEAD);
         }
     }
 
@@ -116,7 +146,7 @@ public class Robot {
 
     /** @return current status of the robot */
     public Status getStatus() {
-        return status;
+        return status.get();
     }
 
     /**
@@ -125,7 +155,19 @@ public class Robot {
      * @param status new status
      */
     public void setStatus(Status status) {
-        this.status = status;
+        this.status.set(status);
+    }
+
+    /**
+     * Atomically moves the robot from one status to another, so two commands
+     * cannot both start a timed action such as a reload or repair.
+     *
+     * @param expected the status the robot must currently have
+     * @param next     the new status
+     * @return {@code true} if the status was changed, {@code false} if it was not {@code expected}
+     */
+    public boolean compareAndSetStatus(Status expected, Status next) {
+        return status.compareAndSet(expected, next);
     }
 
     /**
@@ -135,7 +177,7 @@ public class Robot {
      * @return {@code true} if robot died from this hit, {@code false} otherwise
      */
     public boolean takeHit() {
-        if (this.status == Status.DEAD) {
+        if (this.status.get() == Status.DEAD) {
             return true;
         }
 
@@ -143,7 +185,7 @@ public class Robot {
 
         if (this.shields < 0) {
             this.shields = 0;
-            this.status = Status.DEAD;
+            this.status.set(Status.DEAD);
             return true;
         }
         return false;
@@ -155,7 +197,7 @@ public class Robot {
      * @return {@code true} if not {@code DEAD}, else {@code false}
      */
     public boolean isAlive() {
-        return this.status != Status.DEAD;
+        return this.status.get() != Status.DEAD;
     }
 
     /** @inheritDoc */
@@ -3,8 +3,7 @@ package za.co.wethinkcode.server.utils;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
-import za.co.wethinkcode.server.world.obstacles.Obstacle;
-import za.co.wethinkcode.server.world.obstacles.Pit;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
 
 /**
  * Utility class for validating robot movement in the world.
@@ -28,34 +27,41 @@ public class MovementValidator {
      * @throws RobotDestroyedException if the robot falls into a pit
      */
     public static boolean isBlocked(Position position, Robot robot, World world) {
+        return isBlocked(position.getX(), position.getY(), robot, world);
+    }
+
+    /**
+     * Primitive form of {@link #isBlocked(Position, Robot, World)} that
+     * checks a cell without allocating.
+     *
+     * @param x     the x-coordinate the robot wants to move to
+     * @param y     the y-coordinate the robot wants to move to
+     * @param robot the robot attempting the move
+     * @param world the world context containing obstacles and robots
+     * @return {@code true} if the cell is blocked; {@code false} otherwise
+     * @throws RobotDestroyedException if the robot falls into a pit
+     */
+    public static boolean isBlocked(int x, int y, Robot robot, World world) {
         // Check world boundaries first
-        if (!world.isPositionValid(position)) {
+        if (!world.isPositionValid(x, y)) {
             return true;
         }
 
+        ObstacleKind obstacle = world.getObstacleKindAt(x, y);
+
         // Check for pits (which destroy the robot)
-        for (Obstacle obstacle : world.getObstacles()) {
-            if (obstacle instanceof Pit && obstacle.blocksPosition(position.getX(), position.getY())) {
-                world.removeRobot(robot);
-                throw new RobotDestroyedException("Fell into a bottomless pit");
-            }
+        if (obstacle.destroysRobots()) {
+            world.removeRobot(robot);
+            throw new RobotDestroyedException("Fell into a bottomless pit");
         }
 
         // Check for other obstacles
-        for (Obstacle obstacle : world.getObstacles()) {
-            if (obstacle.blocksPosition(position.getX(), position.getY())) {
-                return true;
-            }
+        if (obstacle.isBlocking()) {
+            return true;
         }
 
         // Check for other robots (movement-specific)
-        for (Robot otherRobot : world.getRobots()) {
-            if (!otherRobot.equals(robot) &&
-                    otherRobot.getPosition().equals(position)) {
-                return true;
-            }
-        }
-
-        return false;
+        Robot otherRobot = world.getRobotAt(x, y);
+        return otherRobot != null && !otherRobot.equals(robot);
     }
 }
\ No newline at end of file
@@ -1,9 +1,7 @@
 package za.co.wethinkcode.server.utils;
 
 import za.co.wethinkcode.server.model.Position;
-import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
-import za.co.wethinkcode.server.world.obstacles.Obstacle;
 
 import java.util.Random;
 
@@ -25,58 +23,13 @@ public class PositionFinder {
     }
 
     /**
-     * Attempts to find a random open position within the world.
-     * It checks that the position is not occupied by any robot or obstacle,
-     * and that it is within the world's valid bounds.
+     * Finds a random open position within the world: inside the world's bounds,
+     * not covered by an obstacle and not occupied by a robot. Every open cell is
+     * equally likely, and the search only fails when the world is full.
      *
-     * @return a valid {@link Position} or {@code null} if no open position was found after 100 attempts
+     * @return a valid {@link Position} or {@code null} if no open position exists
      */
     public Position findRandomOpenPosition() {
-        int width = world.getWidth();
-        int height = world.getHeight();
-        int attempts = 100;
-
-        if (world.getRobots().isEmpty()){
-            Position pos = new Position(0, 0);
-
-            if (!isPositionOccupied(pos) && world.isPositionValid(pos)) {
-                return pos;
-            }
-
-        } else {
-            for (int i = 0; i < attempts; i++) {
-                int x = random.nextInt(width);
-                int y = random.nextInt(height);
-                Position pos = new Position(x, y);
-
-                if (!isPositionOccupied(pos) && world.isPositionValid(pos)) {
-                    return pos;
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Checks if a given position is already occupied by another robot or obstacle.
-     *
-     * @param pos the position to check
-     * @return true if the position is occupied, false otherwise
-     */
-    private boolean isPositionOccupied(Position pos) {
-        // Check against other robots
-        for (Robot robot : world.getRobots()) {
-            if (robot.getPosition().equals(pos)) {
-                return true;
-            }
-        }
-
-        // Check against obstacles
-        for (Obstacle obstacle : world.getObstacles()) {
-            if (obstacle.blocksPosition(pos.getX(), pos.getY())) {
-                return true;
-            }
-        }
-        return false;
+        return world.getRandomFreePosition(random);
     }
-}
\ No newline at end of file
+}
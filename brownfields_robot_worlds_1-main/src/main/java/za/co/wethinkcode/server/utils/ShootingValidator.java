@@ -3,7 +3,6 @@ package za.co.wethinkcode.server.utils;
 
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.world.World;
-import za.co.wethinkcode.server.world.obstacles.Obstacle;
 
 /**
  * Utility class for validating if a shot is blocked before reaching a target.
@@ -18,16 +17,26 @@ public class ShootingValidator {
      * @return true if a shot is blocked at the position; false otherwise.
      */
     public static boolean isBlocked(Position position, World world) {
+        return isBlocked(position.getX(), position.getY(), world);
+    }
+
+    /**
+     * Determines if a shot is blocked at the specified cell, without allocating.
+     *
+     * @param x The x-coordinate to check.
+     * @param y The y-coordinate to check.
+     * @param world The current game world containing obstacles and boundaries.
+     * @return true if a shot is blocked at the cell; false otherwise.
+     */
+    public static boolean isBlocked(int x, int y, World world) {
         // Check world boundaries
-        if (!world.isPositionValid(position)) {
+        if (!world.isPositionValid(x, y)) {
             return true;
         }
 
         // Check for obstacles that block shots (like mountains)
-        for (Obstacle obstacle : world.getObstacles()) {
-            if (obstacle.blocksPosition(position.getX(), position.getY())) {
-                return true;
-            }
+        if (world.isPositionBlocked(x, y)) {
+            return true;
         }
 
         // Don't check for other robots here - they should be hittable
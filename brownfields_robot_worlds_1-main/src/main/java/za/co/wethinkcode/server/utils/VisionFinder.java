@@ -2,13 +2,17 @@ package za.co.wethinkcode.server.utils;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import za.co.wethinkcode.protocol.JsonBuffer;
+import za.co.wethinkcode.server.model.Coordinates;
 import za.co.wethinkcode.server.model.Direction;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
 import za.co.wethinkcode.server.world.World;
-import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -27,8 +31,52 @@ public class VisionFinder {
     }
 
     public JsonObject findInAbsoluteDirections(Robot robot) {
-        JsonObject visionData = new JsonObject();
         JsonArray objects = new JsonArray();
+        for (Sighting sighting : scan(robot)) {
+            JsonObject obj = new JsonObject();
+            obj.addProperty("direction", sighting.direction());
+            obj.addProperty("type", sighting.type());
+            obj.addProperty("distance", sighting.distance());
+            objects.add(obj);
+        }
+
+        JsonObject visionData = new JsonObject();
+        visionData.add("objects", objects);
+        visionData.addProperty("visibilityRange", world.getVisibilityRange());
+        return visionData;
+    }
+
+    /**
+     * Writes the same vision data as {@link #findInAbsoluteDirections(Robot)}
+     * straight into a response buffer.
+     *
+     * @param json  the buffer to write the data object to
+     * @param robot the robot that is looking
+     */
+    public void writeInAbsoluteDirections(JsonBuffer json, Robot robot) {
+        json.beginObject().name("objects").beginArray();
+        for (Sighting sighting : scan(robot)) {
+            json.beginObject()
+                    .name("direction").value(sighting.direction())
+                    .name("type").value(sighting.type())
+                    .name("distance").value(sighting.distance())
+                    .endObject();
+        }
+        json.endArray().name("visibilityRange").value(world.getVisibilityRange()).endObject();
+    }
+
+    /**
+     * Returns what the robot sees, for callers that encode it themselves.
+     *
+     * @param robot the robot that is looking
+     * @return the nearest object seen in each direction, if any
+     */
+    public List<Sighting> findSightings(Robot robot) {
+        return scan(robot);
+    }
+
+    private List<Sighting> scan(Robot robot) {
+        List<Sighting> objects = new ArrayList<>(4);
         Set<String> reportedDirections = new HashSet<>();
 
         Position robotPos = robot.getPosition();
@@ -40,53 +88,46 @@ public class VisionFinder {
         }
 
         checkImmediateEdges(objects, reportedDirections, robotPos);
-
-        visionData.add("objects", objects);
-        visionData.addProperty("visibilityRange", world.getVisibilityRange());
-        return visionData;
+        return objects;
     }
 
-    private void scanDirection(JsonArray objects, Set<String> reportedDirections,
+    private void scanDirection(List<Sighting> objects, Set<String> reportedDirections,
                                Position start, Direction direction) {
-        Position current = start;
-
-        for (int distance = 1; distance <= world.getVisibilityRange(); distance++) {
-            current = getNextPosition(current, direction);
-
-            if (!world.isPositionValid(current)) {
-                report(objects, reportedDirections, direction.name(), "EDGE", distance);
-                break;
-            }
-
-            int x = current.getX();
-            int y = current.getY();
-
-            Obstacle blockingObstacle = world.getObstacles().stream()
-                    .filter(o -> o.blocksPosition(x, y))
-                    .findFirst()
-                    .orElse(null);
-
-            if (blockingObstacle != null) {
-                report(objects, reportedDirections, direction.name(), blockingObstacle.getType().toUpperCase(), distance);
-                break;
+        int range = world.getVisibilityRange();
+        Direction worldDirection = toWorldDirection(direction);
+        int x = start.getX();
+        int y = start.getY();
+        int dx = Coordinates.dx(worldDirection);
+        int dy = Coordinates.dy(worldDirection);
+        int blocker = world.getDistanceToBlocker(x, y, worldDirection, range);
+
+        // Only the cells in front of the nearest obstacle or edge can hold a visible robot
+        for (int distance = 1; distance < blocker; distance++) {
+            Robot blockingRobot = world.getRobotAt(x + dx * distance, y + dy * distance);
+
+            if (blockingRobot != null && !blockingRobot.equals(robot)) {
+                report(objects, reportedDirections, direction.name(), "ROBOT", distance);
+                return;
             }
+        }
 
-            // Create a new variable to hold the current position for the lambda
-            Position finalCurrent = current;
-            Robot blockingRobot = world.getRobots().stream()
-                    .filter(r -> !r.equals(robot) && r.getPosition().equals(finalCurrent))
-                    .findFirst()
-                    .orElse(null);
+        if (blocker > range) {
+            return;
+        }
 
-            if (blockingRobot != null) {
-                report(objects, reportedDirections, direction.name(), "ROBOT", distance);
-                break;
-            }
+        int blockerX = x + dx * blocker;
+        int blockerY = y + dy * blocker;
+        if (!world.isPositionValid(blockerX, blockerY)) {
+            report(objects, reportedDirections, direction.name(), "EDGE", blocker);
+            return;
         }
+
+        ObstacleKind blockingObstacle = world.getObstacleKindAt(blockerX, blockerY);
+        report(objects, reportedDirections, direction.name(), blockingObstacle.getTypeName().toUpperCase(), blocker);
     }
 
 
-    private void checkImmediateEdges(JsonArray objects, Set<String> reportedDirections, Position pos) {
+    private void checkImmediateEdges(List<Sighting> objects, Set<String> reportedDirections, Position pos) {
         if (pos.getY() == 0 && !reportedDirections.contains("NORTH")) {
             report(objects, reportedDirections, "NORTH", "EDGE", 1);
         }
@@ -101,21 +142,30 @@ public class VisionFinder {
         }
     }
 
-    private Position getNextPosition(Position current, Direction direction) {
+    /**
+     * Vision reports NORTH as decreasing y, the opposite of the world's
+     * movement convention, so north and south are swapped when asking the world.
+     */
+    private Direction toWorldDirection(Direction direction) {
         return switch (direction) {
-            case NORTH -> new Position(current.getX(), current.getY() - 1);
-            case EAST  -> new Position(current.getX() + 1, current.getY());
-            case SOUTH -> new Position(current.getX(), current.getY() + 1);
-            case WEST  -> new Position(current.getX() - 1, current.getY());
+            case NORTH -> Direction.SOUTH;
+            case SOUTH -> Direction.NORTH;
+            case EAST, WEST -> direction;
         };
     }
 
-    private void report(JsonArray objects, Set<String> reportedDirections, String direction, String type, int distance) {
-        JsonObject obj = new JsonObject();
-        obj.addProperty("direction", direction);
-        obj.addProperty("type", type);
-        obj.addProperty("distance", distance);
-        objects.add(obj);
+    private void report(List<Sighting> objects, Set<String> reportedDirections, String direction, String type, int distance) {
+        objects.add(new Sighting(direction, type, distance));
         reportedDirections.add(direction);
     }
+
+    /**
+     * The nearest object a robot sees in one direction.
+     *
+     * @param direction the direction looked in
+     * @param type      the kind of object, such as "EDGE" or "ROBOT"
+     * @param distance  how many steps away it is
+     */
+    public record Sighting(String direction, String type, int distance) {
+    }
 }
@@ -0,0 +1,147 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Coordinates;
+import za.co.wethinkcode.server.model.Direction;
+
+/**
+ * Precomputed distance from every cell to the nearest static blocker in each
+ * of the four directions. A blocker is either a cell covered by an obstacle
+ * or the edge of the world, so a value of {@code 1} means the neighbouring
+ * cell is already blocked.
+ *
+ * <p>Lets look, fire and movement answer "how far can I see or travel before
+ * hitting terrain" in O(1), leaving only robots to be checked along the way.
+ * Directions follow the world's convention: NORTH is +y and EAST is +x.</p>
+ */
+public class BlockerDistanceTable {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int width;
+    private final int height;
+    private final OccupancyGrid occupancy;
+    private final int[][] distances;
+
+    /**
+     * Creates a table for the given grid and computes every distance.
+     *
+     * @param width     the world width
+     * @param height    the world height
+     * @param occupancy the grid recording which cells are blocked
+     */
+    public BlockerDistanceTable(int width, int height, OccupancyGrid occupancy) {
+        this.width = width;
+        this.height = height;
+        this.occupancy = occupancy;
+        this.distances = new int[DIRECTIONS.length][width * height];
+        rebuild();
+    }
+
+    /**
+     * Returns the number of steps from a cell to the first blocked cell or
+     * the world edge in the given direction.
+     *
+     * @param direction the direction to travel
+     * @param x         the starting x-coordinate, inside the world
+     * @param y         the starting y-coordinate, inside the world
+     * @return the distance to the nearest blocker, always at least 1
+     */
+    public int distance(Direction direction, int x, int y) {
+        return distances[direction.ordinal()][y * width + x];
+    }
+
+    /**
+     * Recomputes every distance from the occupancy grid.
+     */
+    public final void rebuild() {
+        int[] north = distances[Direction.NORTH.ordinal()];
+        int[] east = distances[Direction.EAST.ordinal()];
+        int[] south = distances[Direction.SOUTH.ordinal()];
+        int[] west = distances[Direction.WEST.ordinal()];
+
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            east[row + width - 1] = 1;
+            for (int x = width - 2; x >= 0; x--) {
+                east[row + x] = occupancy.isBlocked(x + 1, y) ? 1 : east[row + x + 1] + 1;
+            }
+            west[row] = 1;
+            for (int x = 1; x < width; x++) {
+                west[row + x] = occupancy.isBlocked(x - 1, y) ? 1 : west[row + x - 1] + 1;
+            }
+        }
+
+        for (int x = 0; x < width; x++) {
+            north[(height - 1) * width + x] = 1;
+            for (int y = height - 2; y >= 0; y--) {
+                north[y * width + x] = occupancy.isBlocked(x, y + 1) ? 1 : north[(y + 1) * width + x] + 1;
+            }
+            south[x] = 1;
+            for (int y = 1; y < height; y++) {
+                south[y * width + x] = occupancy.isBlocked(x, y - 1) ? 1 : south[(y - 1) * width + x] + 1;
+            }
+        }
+    }
+
+    /**
+     * Updates the distances affected by a change to the blocked state of the
+     * cells in a rectangle. Only the runs of cells that can see into the
+     * rectangle are touched, stopping at the first cell whose value is unchanged.
+     *
+     * @param x      the rectangle's x-coordinate
+     * @param y      the rectangle's y-coordinate
+     * @param width  the rectangle's width
+     * @param height the rectangle's height
+     */
+    public void refresh(int x, int y, int width, int height) {
+        int minX = Math.max(x, 0);
+        int minY = Math.max(y, 0);
+        int maxX = Math.min(x + width, this.width) - 1;
+        int maxY = Math.min(y + height, this.height) - 1;
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        // Visit cells farthest along each direction first, so every
+        // propagation starts from a value that is already up to date
+        for (int cy = minY; cy <= maxY; cy++) {
+            for (int cx = maxX; cx >= minX; cx--) {
+                propagate(Direction.EAST, cx, cy);
+            }
+            for (int cx = minX; cx <= maxX; cx++) {
+                propagate(Direction.WEST, cx, cy);
+            }
+        }
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = maxY; cy >= minY; cy--) {
+                propagate(Direction.NORTH, cx, cy);
+            }
+            for (int cy = minY; cy <= maxY; cy++) {
+                propagate(Direction.SOUTH, cx, cy);
+            }
+        }
+    }
+
+    private void propagate(Direction direction, int changedX, int changedY) {
+        int[] table = distances[direction.ordinal()];
+        int dx = Coordinates.dx(direction);
+        int dy = Coordinates.dy(direction);
+
+        int value = occupancy.isBlocked(changedX, changedY) ? 1 : table[changedY * width + changedX] + 1;
+        int x = changedX - dx;
+        int y = changedY - dy;
+
+        while (x >= 0 && x < width && y >= 0 && y < height) {
+            int index = y * width + x;
+            if (table[index] == value) {
+                return;
+            }
+            table[index] = value;
+            if (occupancy.isBlocked(x, y)) {
+                return;
+            }
+            value++;
+            x -= dx;
+            y -= dy;
+        }
+    }
+}
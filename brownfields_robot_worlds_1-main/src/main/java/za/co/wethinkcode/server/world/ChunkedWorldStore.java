@@ -0,0 +1,274 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Sparse world storage split into fixed-size square chunks. A chunk is only
+ * allocated when an obstacle or robot first touches it and is released again
+ * once it holds neither, so memory grows with the world's content rather
+ * than its area.
+ *
+ * <p>Each chunk keeps the obstacles that overlap it, a per-cell obstacle kind
+ * for O(1) blocked checks, and a count of the robots standing on it.
+ * Chunks are immutable: every change replaces the chunk in the map, so
+ * queries running alongside a change see the chunk either before or after
+ * it, never half-updated.</p>
+ */
+public class ChunkedWorldStore implements ObstacleIndex {
+    /** Chunks are CHUNK_SIZE x CHUNK_SIZE cells. */
+    public static final int CHUNK_SIZE = 64;
+    private static final int CHUNK_SHIFT = 6;
+
+    private final int width;
+    private final int height;
+    private final Map<Long, Chunk> chunks = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty store for a world of the given size.
+     *
+     * @param width  the world width
+     * @param height the world height
+     */
+    public ChunkedWorldStore(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Returns the number of chunks currently allocated.
+     *
+     * @return the allocated chunk count
+     */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Records a robot arriving on a cell, allocating its chunk if needed.
+     * Cells outside the world are ignored.
+     *
+     * @param position the cell the robot entered, or {@code null}
+     */
+    public void robotEntered(Position position) {
+        if (isInside(position)) {
+            chunks.compute(chunkKey(position.getX() >> CHUNK_SHIFT, position.getY() >> CHUNK_SHIFT), (key, chunk) -> {
+                Chunk target = chunk != null ? chunk : Chunk.EMPTY;
+                return target.withRobots(target.robots + 1);
+            });
+        }
+    }
+
+    /**
+     * Records a robot leaving a cell, releasing its chunk if it is now empty.
+     * Cells outside the world are ignored.
+     *
+     * @param position the cell the robot left, or {@code null}
+     */
+    public void robotLeft(Position position) {
+        if (isInside(position)) {
+            chunks.computeIfPresent(chunkKey(position.getX() >> CHUNK_SHIFT, position.getY() >> CHUNK_SHIFT), (key, chunk) -> {
+                Chunk target = chunk.withRobots(chunk.robots - 1);
+                return target.isEmpty() ? null : target;
+            });
+        }
+    }
+
+    @Override
+    public void add(Obstacle obstacle) {
+        forEachChunkCovering(obstacle, (cx, cy) -> chunks.compute(chunkKey(cx, cy), (key, chunk) ->
+                (chunk != null ? chunk : Chunk.EMPTY).withObstacle(obstacle, cx << CHUNK_SHIFT, cy << CHUNK_SHIFT)));
+    }
+
+    @Override
+    public void remove(Obstacle obstacle) {
+        forEachChunkCovering(obstacle, (cx, cy) -> chunks.computeIfPresent(chunkKey(cx, cy), (key, chunk) -> {
+            Chunk target = chunk.withoutObstacle(obstacle, cx << CHUNK_SHIFT, cy << CHUNK_SHIFT);
+            return target.isEmpty() ? null : target;
+        }));
+    }
+
+    @Override
+    public void clear() {
+        for (Long key : chunks.keySet()) {
+            chunks.computeIfPresent(key, (k, chunk) -> chunk.robots == 0 ? null : chunk.withoutObstacles());
+        }
+    }
+
+    @Override
+    public ObstacleKind kindAt(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return ObstacleKind.NONE;
+        }
+        Chunk chunk = chunks.get(chunkKey(x >> CHUNK_SHIFT, y >> CHUNK_SHIFT));
+        return chunk == null ? ObstacleKind.NONE : chunk.kindAt(x & (CHUNK_SIZE - 1), y & (CHUNK_SIZE - 1));
+    }
+
+    @Override
+    public void forEachIntersecting(int x, int y, int width, int height, Consumer<Obstacle> action) {
+        int minX = Math.max(x, 0);
+        int minY = Math.max(y, 0);
+        int maxX = (int) Math.min((long) x + width, this.width) - 1;
+        int maxY = (int) Math.min((long) y + height, this.height) - 1;
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        int minCx = minX >> CHUNK_SHIFT;
+        int minCy = minY >> CHUNK_SHIFT;
+        int maxCx = maxX >> CHUNK_SHIFT;
+        int maxCy = maxY >> CHUNK_SHIFT;
+        long spanned = (long) (maxCx - minCx + 1) * (maxCy - minCy + 1);
+
+        // Walk whichever is smaller: the chunks under the region, or the chunks that exist
+        if (spanned <= chunks.size()) {
+            for (int cy = minCy; cy <= maxCy; cy++) {
+                for (int cx = minCx; cx <= maxCx; cx++) {
+                    Chunk chunk = chunks.get(chunkKey(cx, cy));
+                    if (chunk != null) {
+                        reportOnce(chunk, cx, cy, minX, minY, maxX, maxY, action);
+                    }
+                }
+            }
+        } else {
+            chunks.forEach((key, chunk) -> {
+                int cx = (int) (key >> 32);
+                int cy = key.intValue();
+                if (cx >= minCx && cx <= maxCx && cy >= minCy && cy <= maxCy) {
+                    reportOnce(chunk, cx, cy, minX, minY, maxX, maxY, action);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reports the obstacles of one chunk that overlap a region. An obstacle can
+     * span several chunks, so it is only reported by the chunk holding the first
+     * cell it shares with the region.
+     */
+    private void reportOnce(Chunk chunk, int cx, int cy, int minX, int minY, int maxX, int maxY,
+                            Consumer<Obstacle> action) {
+        for (Obstacle obstacle : chunk.obstacles) {
+            if (!ObstacleIndex.intersects(obstacle, minX, minY, maxX - minX + 1L, maxY - minY + 1L)) {
+                continue;
+            }
+            int firstX = Math.max(obstacle.getX(), minX);
+            int firstY = Math.max(obstacle.getY(), minY);
+            if (firstX >> CHUNK_SHIFT == cx && firstY >> CHUNK_SHIFT == cy) {
+                action.accept(obstacle);
+            }
+        }
+    }
+
+    private void forEachChunkCovering(Obstacle obstacle, ChunkAction action) {
+        int minX = Math.max(obstacle.getX(), 0);
+        int minY = Math.max(obstacle.getY(), 0);
+        int maxX = (int) Math.min((long) obstacle.getX() + obstacle.getWidth(), width) - 1;
+        int maxY = (int) Math.min((long) obstacle.getY() + obstacle.getHeight(), height) - 1;
+
+        for (int cy = minY >> CHUNK_SHIFT; cy <= maxY >> CHUNK_SHIFT; cy++) {
+            for (int cx = minX >> CHUNK_SHIFT; cx <= maxX >> CHUNK_SHIFT; cx++) {
+                action.apply(cx, cy);
+            }
+        }
+    }
+
+    private boolean isInside(Position position) {
+        return position != null && position.getX() >= 0 && position.getX() < width
+                && position.getY() >= 0 && position.getY() < height;
+    }
+
+    private static long chunkKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        void apply(int cx, int cy);
+    }
+
+    /**
+     * One chunk's contents. Never changed once built; the with- methods
+     * return a new chunk, sharing whatever did not change.
+     */
+    private static final class Chunk {
+        static final Chunk EMPTY = new Chunk(List.of(), null, 0);
+
+        private final List<Obstacle> obstacles;
+        /** Obstacle kind per cell; only allocated while the chunk holds obstacles. */
+        private final byte[] kinds;
+        private final int robots;
+
+        private Chunk(List<Obstacle> obstacles, byte[] kinds, int robots) {
+            this.obstacles = obstacles;
+            this.kinds = kinds;
+            this.robots = robots;
+        }
+
+        boolean isEmpty() {
+            return obstacles.isEmpty() && robots == 0;
+        }
+
+        ObstacleKind kindAt(int localX, int localY) {
+            return kinds == null ? ObstacleKind.NONE : ObstacleKind.fromCode(kinds[localY * CHUNK_SIZE + localX]);
+        }
+
+        Chunk withRobots(int robots) {
+            return new Chunk(obstacles, kinds, robots);
+        }
+
+        Chunk withoutObstacles() {
+            return new Chunk(List.of(), null, robots);
+        }
+
+        Chunk withObstacle(Obstacle obstacle, int originX, int originY) {
+            List<Obstacle> list = new ArrayList<>(obstacles.size() + 1);
+            list.addAll(obstacles);
+            list.add(obstacle);
+            byte[] cells = kinds == null ? new byte[CHUNK_SIZE * CHUNK_SIZE] : kinds.clone();
+            mark(cells, obstacle, originX, originY);
+            return new Chunk(Collections.unmodifiableList(list), cells, robots);
+        }
+
+        Chunk withoutObstacle(Obstacle obstacle, int originX, int originY) {
+            List<Obstacle> list = new ArrayList<>(obstacles);
+            if (!list.remove(obstacle)) {
+                return this;
+            }
+            if (list.isEmpty()) {
+                return new Chunk(List.of(), null, robots);
+            }
+            byte[] cells = new byte[CHUNK_SIZE * CHUNK_SIZE];
+            for (Obstacle remaining : list) {
+                mark(cells, remaining, originX, originY);
+            }
+            return new Chunk(Collections.unmodifiableList(list), cells, robots);
+        }
+
+        private static void mark(byte[] kinds, Obstacle obstacle, int originX, int originY) {
+            byte code = ObstacleKind.of(obstacle).code();
+            int minX = Math.max(obstacle.getX() - originX, 0);
+            int minY = Math.max(obstacle.getY() - originY, 0);
+            int maxX = (int) Math.min((long) obstacle.getX() + obstacle.getWidth() - originX, CHUNK_SIZE);
+            int maxY = (int) Math.min((long) obstacle.getY() + obstacle.getHeight() - originY, CHUNK_SIZE);
+
+            // Where obstacles overlap the first one wins, except that pits always take precedence
+            for (int y = minY; y < maxY; y++) {
+                for (int x = minX; x < maxX; x++) {
+                    int index = y * CHUNK_SIZE + x;
+                    if (kinds[index] == ObstacleKind.NONE.code() || code == ObstacleKind.PIT.code()) {
+                        kinds[index] = code;
+                    }
+                }
+            }
+        }
+    }
+}
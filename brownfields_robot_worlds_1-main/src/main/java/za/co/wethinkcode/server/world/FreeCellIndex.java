@@ -0,0 +1,142 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Position;
+
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Set of the cells in a world that are neither covered by an obstacle nor
+ * occupied by a robot, supporting uniform random sampling in O(1).
+ *
+ * <p>Free cell ids ({@code y * width + x}) are kept densely packed at the
+ * front of an array; each cell also remembers its slot, so a cell is added or
+ * removed by swapping it with the last free cell.</p>
+ *
+ * <p>Guarded by a {@link ReentrantLock} rather than a monitor, so a virtual
+ * thread waiting for it does not pin its carrier thread.</p>
+ */
+public class FreeCellIndex {
+    private final int width;
+    private final int height;
+    private final int[] free;
+    private final int[] slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private int count;
+
+    /**
+     * Creates an index for a world of the given size with every cell free.
+     *
+     * @param width  the world width
+     * @param height the world height
+     */
+    public FreeCellIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int cells = width * height;
+        this.free = new int[cells];
+        this.slots = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            free[cell] = cell;
+            slots[cell] = cell;
+        }
+        this.count = cells;
+    }
+
+    /**
+     * Records whether a cell is free. Cells outside the world are ignored.
+     *
+     * @param x      the x-coordinate
+     * @param y      the y-coordinate
+     * @param isFree true if the cell is now free; false if it is taken
+     */
+    public void update(int x, int y, boolean isFree) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        int cell = y * width + x;
+        lock.lock();
+        try {
+            if (isFree) {
+                add(cell);
+            } else {
+                remove(cell);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Checks whether a cell is recorded as free.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return true if the cell is free; false if it is taken or outside the world
+     */
+    public boolean isFree(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        lock.lock();
+        try {
+            return slots[y * width + x] >= 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Picks a free cell uniformly at random.
+     *
+     * @param random the source of randomness
+     * @return a free cell, or {@code null} if every cell is taken
+     */
+    public Position sample(Random random) {
+        int cell;
+        lock.lock();
+        try {
+            if (count == 0) {
+                return null;
+            }
+            cell = free[random.nextInt(count)];
+        } finally {
+            lock.unlock();
+        }
+        return new Position(cell % width, cell / width);
+    }
+
+    /**
+     * Returns the number of free cells.
+     *
+     * @return the free cell count
+     */
+    public int getFreeCount() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void add(int cell) {
+        if (slots[cell] >= 0) {
+            return;
+        }
+        free[count] = cell;
+        slots[cell] = count;
+        count++;
+    }
+
+    private void remove(int cell) {
+        int slot = slots[cell];
+        if (slot < 0) {
+            return;
+        }
+        int last = free[--count];
+        free[slot] = last;
+        slots[last] = slot;
+        slots[cell] = -1;
+    }
+}
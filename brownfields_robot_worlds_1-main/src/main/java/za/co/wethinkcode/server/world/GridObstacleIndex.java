@@ -0,0 +1,180 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Coordinates;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * Obstacle index for small or densely packed worlds. Point queries read the
+ * {@link OccupancyGrid} and ray queries read a {@link BlockerDistanceTable},
+ * both in O(1). Rectangle queries read buckets holding the obstacles that
+ * overlap each block of BUCKET_SIZE x BUCKET_SIZE cells, so they only look at
+ * obstacles near the rectangle.
+ */
+public class GridObstacleIndex implements ObstacleIndex {
+    /** Largest world, in cells, that also keeps per-direction blocker distances. */
+    private static final long MAX_DISTANCE_CELLS = 1L << 22;
+    /** Buckets cover BUCKET_SIZE x BUCKET_SIZE cells. */
+    private static final int BUCKET_SHIFT = 4;
+
+    private final int width;
+    private final int height;
+    private final int bucketColumns;
+    private final OccupancyGrid occupancy;
+    private final BlockerDistanceTable distances;
+    /** The obstacles overlapping each block of cells; a bucket is allocated on first use. */
+    private final List<Obstacle>[] buckets;
+
+    /**
+     * Creates an empty index for a world of the given size.
+     *
+     * @param width  the world width
+     * @param height the world height
+     */
+    @SuppressWarnings("unchecked")
+    public GridObstacleIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.bucketColumns = bucketsFor(width);
+        this.occupancy = new OccupancyGrid(width, height);
+        this.distances = (long) width * height <= MAX_DISTANCE_CELLS
+                ? new BlockerDistanceTable(width, height, occupancy) : null;
+        this.buckets = new List[bucketColumns * bucketsFor(height)];
+    }
+
+    @Override
+    public void add(Obstacle obstacle) {
+        forEachBucketCovering(obstacle, bucket -> {
+            if (buckets[bucket] == null) {
+                buckets[bucket] = new ArrayList<>();
+            }
+            buckets[bucket].add(obstacle);
+        });
+        occupancy.mark(obstacle);
+        refreshDistances(obstacle);
+    }
+
+    @Override
+    public void remove(Obstacle obstacle) {
+        forEachBucketCovering(obstacle, bucket -> {
+            List<Obstacle> items = buckets[bucket];
+            if (items != null) {
+                items.removeIf(item -> item == obstacle);
+            }
+        });
+        // Only the obstacles sharing its buckets can overlap it
+        List<Obstacle> overlapping = new ArrayList<>();
+        forEachIntersecting(obstacle.getX(), obstacle.getY(), obstacle.getWidth(), obstacle.getHeight(), overlapping::add);
+        occupancy.unmark(obstacle, overlapping);
+        refreshDistances(obstacle);
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(buckets, null);
+        occupancy.clear();
+        if (distances != null) {
+            distances.rebuild();
+        }
+    }
+
+    @Override
+    public ObstacleKind kindAt(int x, int y) {
+        return occupancy.kindAt(x, y);
+    }
+
+    @Override
+    public void forEachIntersecting(int x, int y, int width, int height, Consumer<Obstacle> action) {
+        int minX = Math.max(x, 0);
+        int minY = Math.max(y, 0);
+        int maxX = (int) Math.min((long) x + width, this.width) - 1;
+        int maxY = (int) Math.min((long) y + height, this.height) - 1;
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        for (int by = minY >> BUCKET_SHIFT; by <= maxY >> BUCKET_SHIFT; by++) {
+            for (int bx = minX >> BUCKET_SHIFT; bx <= maxX >> BUCKET_SHIFT; bx++) {
+                List<Obstacle> items = buckets[by * bucketColumns + bx];
+                if (items != null) {
+                    reportOnce(items, bx, by, minX, minY, maxX, maxY, action);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reports the obstacles of one bucket that overlap a region. An obstacle can
+     * span several buckets, so it is only reported by the bucket holding the
+     * first cell it shares with the region.
+     */
+    private static void reportOnce(List<Obstacle> items, int bx, int by, int minX, int minY, int maxX, int maxY,
+                                   Consumer<Obstacle> action) {
+        for (Obstacle obstacle : items) {
+            if (!ObstacleIndex.intersects(obstacle, minX, minY, maxX - minX + 1L, maxY - minY + 1L)) {
+                continue;
+            }
+            if (Math.max(obstacle.getX(), minX) >> BUCKET_SHIFT == bx && Math.max(obstacle.getY(), minY) >> BUCKET_SHIFT == by) {
+                action.accept(obstacle);
+            }
+        }
+    }
+
+    private void forEachBucketCovering(Obstacle obstacle, IntConsumer action) {
+        int minX = Math.max(obstacle.getX(), 0);
+        int minY = Math.max(obstacle.getY(), 0);
+        int maxX = (int) Math.min((long) obstacle.getX() + obstacle.getWidth(), width) - 1;
+        int maxY = (int) Math.min((long) obstacle.getY() + obstacle.getHeight(), height) - 1;
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        for (int by = minY >> BUCKET_SHIFT; by <= maxY >> BUCKET_SHIFT; by++) {
+            for (int bx = minX >> BUCKET_SHIFT; bx <= maxX >> BUCKET_SHIFT; bx++) {
+                action.accept(by * bucketColumns + bx);
+            }
+        }
+    }
+
+    private static int bucketsFor(int cells) {
+        return (cells + (1 << BUCKET_SHIFT) - 1) >> BUCKET_SHIFT;
+    }
+
+    @Override
+    public int distanceToObstacle(int x, int y, Direction direction, int maxDistance) {
+        if (distances == null || x < 0 || x >= width || y < 0 || y >= height) {
+            return marchToObstacle(x, y, direction, maxDistance);
+        }
+
+        // The table also stops at the edge; a blocker outside the world is not an obstacle
+        int distance = distances.distance(direction, x, y);
+        int blockerX = x + Coordinates.dx(direction) * distance;
+        int blockerY = y + Coordinates.dy(direction) * distance;
+        if (distance > maxDistance || !occupancy.isBlocked(blockerX, blockerY)) {
+            return maxDistance + 1;
+        }
+        return distance;
+    }
+
+    private int marchToObstacle(int x, int y, Direction direction, int maxDistance) {
+        for (int step = 1; step <= maxDistance; step++) {
+            if (occupancy.isBlocked(x + Coordinates.dx(direction) * step, y + Coordinates.dy(direction) * step)) {
+                return step;
+            }
+        }
+        return maxDistance + 1;
+    }
+
+    private void refreshDistances(Obstacle obstacle) {
+        if (distances != null) {
+            distances.refresh(obstacle.getX(), obstacle.getY(), obstacle.getWidth(), obstacle.getHeight());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
+
+import java.util.function.Consumer;
+
+/**
+ * Spatial index over the obstacles in a world. The world keeps the index in
+ * sync with its obstacle list and uses it for point, rectangle and ray queries,
+ * so none of them has to walk every obstacle.
+ *
+ * <p>Only cells inside the world are considered; the parts of an obstacle
+ * that hang over the edge are ignored. Directions follow the world's
+ * convention: NORTH is +y and EAST is +x.</p>
+ */
+public interface ObstacleIndex {
+
+    /**
+     * Adds an obstacle to the index.
+     *
+     * @param obstacle the obstacle to add
+     */
+    void add(Obstacle obstacle);
+
+    /**
+     * Removes an obstacle from the index.
+     *
+     * @param obstacle the obstacle to remove
+     */
+    void remove(Obstacle obstacle);
+
+    /**
+     * Removes every obstacle from the index.
+     */
+    void clear();
+
+    /**
+     * Returns the kind of obstacle covering a cell. Pits take precedence
+     * over any obstacle they overlap.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the obstacle kind, or {@code NONE} if no obstacle covers the cell
+     */
+    ObstacleKind kindAt(int x, int y);
+
+    /**
+     * Passes every obstacle that overlaps the part of a rectangle inside the
+     * world to an action.
+     *
+     * @param x      the rectangle's x-coordinate
+     * @param y      the rectangle's y-coordinate
+     * @param width  the rectangle's width
+     * @param height the rectangle's height
+     * @param action called once for each overlapping obstacle
+     */
+    void forEachIntersecting(int x, int y, int width, int height, Consumer<Obstacle> action);
+
+    /**
+     * Returns how many steps it takes to reach the first obstacle cell in a
+     * direction. The world edge is not considered.
+     *
+     * @param x           the starting x-coordinate
+     * @param y           the starting y-coordinate
+     * @param direction   the direction to travel
+     * @param maxDistance the furthest distance of interest
+     * @return the distance to the obstacle, or {@code maxDistance + 1} if there is none within range
+     */
+    default int distanceToObstacle(int x, int y, Direction direction, int maxDistance) {
+        if (maxDistance <= 0) {
+            return maxDistance + 1;
+        }
+
+        int[] nearest = {maxDistance + 1};
+        switch (direction) {
+            case NORTH -> forEachIntersecting(x, y + 1, 1, maxDistance,
+                    o -> nearest[0] = Math.min(nearest[0], Math.max(o.getY(), y + 1) - y));
+            case EAST -> forEachIntersecting(x + 1, y, maxDistance, 1,
+                    o -> nearest[0] = Math.min(nearest[0], Math.max(o.getX(), x + 1) - x));
+            case SOUTH -> forEachIntersecting(x, y - maxDistance, 1, maxDistance,
+                    o -> nearest[0] = Math.min(nearest[0], y - Math.min(o.getBottomRightY(), y - 1)));
+            case WEST -> forEachIntersecting(x - maxDistance, y, maxDistance, 1,
+                    o -> nearest[0] = Math.min(nearest[0], x - Math.min(o.getBottomRightX(), x - 1)));
+        }
+        return nearest[0];
+    }
+
+    /**
+     * Checks whether an obstacle overlaps a rectangle.
+     *
+     * @param obstacle the obstacle to check
+     * @param x        the rectangle's x-coordinate
+     * @param y        the rectangle's y-coordinate
+     * @param width    the rectangle's width
+     * @param height   the rectangle's height
+     * @return true if they share at least one cell
+     */
+    static boolean intersects(Obstacle obstacle, long x, long y, long width, long height) {
+        return obstacle.getX() < x + width && (long) obstacle.getX() + obstacle.getWidth() > x
+                && obstacle.getY() < y + height && (long) obstacle.getY() + obstacle.getHeight() > y;
+    }
+}
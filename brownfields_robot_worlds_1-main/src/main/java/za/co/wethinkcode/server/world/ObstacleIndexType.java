@@ -0,0 +1,13 @@
+package za.co.wethinkcode.server.world;
+
+/**
+ * The kinds of obstacle index a world can use.
+ */
+public enum ObstacleIndexType {
+    /** Dense per-cell grid; O(1) point and ray queries, memory grows with area. */
+    GRID,
+    /** Quadtree over obstacle rectangles; memory grows with the number of obstacles. */
+    QUADTREE,
+    /** Lazily allocated 64x64 chunks; memory grows with the number of chunks in use. */
+    CHUNKED
+}
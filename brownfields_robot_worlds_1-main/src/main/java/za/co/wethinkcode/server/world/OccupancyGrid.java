@@ -0,0 +1,122 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
+
+import java.util.Arrays;
+
+/**
+ * Packed cell-level index of the obstacles in a world.
+ * Stores one byte per cell holding the {@link ObstacleKind} that covers it,
+ * so checking whether a cell is blocked costs O(1) regardless of how many
+ * obstacles the world contains.
+ */
+public class OccupancyGrid {
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+
+    /**
+     * Creates an empty grid covering a world of the given size.
+     *
+     * @param width  the world width
+     * @param height the world height
+     */
+    public OccupancyGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[width * height];
+    }
+
+    /**
+     * Records the cells covered by an obstacle. Parts of the obstacle outside
+     * the world are ignored. Where obstacles overlap the first one wins, except
+     * that pits always take precedence since entering them destroys a robot.
+     *
+     * @param obstacle the obstacle to add
+     */
+    public void mark(Obstacle obstacle) {
+        byte code = ObstacleKind.of(obstacle).code();
+        int minX = Math.max(obstacle.getX(), 0);
+        int minY = Math.max(obstacle.getY(), 0);
+        int maxX = Math.min(obstacle.getX() + obstacle.getWidth(), width);
+        int maxY = Math.min(obstacle.getY() + obstacle.getHeight(), height);
+
+        for (int y = minY; y < maxY; y++) {
+            int row = y * width;
+            for (int x = minX; x < maxX; x++) {
+                byte existing = cells[row + x];
+                if (existing == ObstacleKind.NONE.code() || code == ObstacleKind.PIT.code()) {
+                    cells[row + x] = code;
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears the cells covered by a removed obstacle, then re-marks any of the
+     * remaining obstacles that overlapped it.
+     *
+     * @param obstacle  the obstacle that was removed
+     * @param remaining the obstacles still in the world
+     */
+    public void unmark(Obstacle obstacle, Iterable<Obstacle> remaining) {
+        int minX = Math.max(obstacle.getX(), 0);
+        int minY = Math.max(obstacle.getY(), 0);
+        int maxX = Math.min(obstacle.getX() + obstacle.getWidth(), width);
+        int maxY = Math.min(obstacle.getY() + obstacle.getHeight(), height);
+
+        for (int y = minY; y < maxY; y++) {
+            int row = y * width;
+            for (int x = minX; x < maxX; x++) {
+                cells[row + x] = ObstacleKind.NONE.code();
+            }
+        }
+
+        for (Obstacle other : remaining) {
+            if (overlaps(other, minX, minY, maxX, maxY)) {
+                mark(other);
+            }
+        }
+    }
+
+    /**
+     * Removes every obstacle from the grid.
+     */
+    public void clear() {
+        Arrays.fill(cells, ObstacleKind.NONE.code());
+    }
+
+    /**
+     * Returns the kind of obstacle covering a cell.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the obstacle kind, or {@code NONE} if the cell is free or outside the world
+     */
+    public ObstacleKind kindAt(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return ObstacleKind.NONE;
+        }
+        return ObstacleKind.fromCode(cells[y * width + x]);
+    }
+
+    /**
+     * Checks if a cell is covered by any obstacle.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return true if the cell is blocked; false if it is free or outside the world
+     */
+    public boolean isBlocked(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return false;
+        }
+        return cells[y * width + x] != ObstacleKind.NONE.code();
+    }
+
+    private boolean overlaps(Obstacle obstacle, int minX, int minY, int maxX, int maxY) {
+        return obstacle.getX() < maxX && obstacle.getX() + obstacle.getWidth() > minX &&
+                obstacle.getY() < maxY && obstacle.getY() + obstacle.getHeight() > minY;
+    }
+}
@@ -0,0 +1,165 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleGenerator;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Generates a world's obstacles one chunk at a time, the first time
+ * something touches the chunk, instead of all at once when the world is built.
+ *
+ * <p>A chunk's obstacles depend only on the world seed and the chunk's
+ * coordinates, and never leave the chunk, so the world ends up the same no
+ * matter in which order chunks are visited. Chunks share their size with
+ * {@link ChunkedWorldStore}.</p>
+ */
+public class ProceduralChunks {
+    private static final int CHUNK_SIZE = ChunkedWorldStore.CHUNK_SIZE;
+
+    private final int width;
+    private final int height;
+    private final long seed;
+    private final double density;
+    private final Consumer<Obstacle> sink;
+    private final Set<Long> generated = ConcurrentHashMap.newKeySet();
+    private final Set<Long> generating = new HashSet<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Creates a lazy generator for a world.
+     *
+     * @param width   the world width
+     * @param height  the world height
+     * @param seed    the world seed
+     * @param density the fraction of each chunk to cover with obstacles
+     * @param sink    receives each generated obstacle, normally {@link World#addObstacle}
+     */
+    public ProceduralChunks(int width, int height, long seed, double density, Consumer<Obstacle> sink) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.density = density;
+        this.sink = sink;
+    }
+
+    /**
+     * Generates the chunk holding a cell, if that has not happened yet.
+     * Cells outside the world are ignored.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     */
+    public void ensureCell(int x, int y) {
+        if (x >= 0 && x < width && y >= 0 && y < height) {
+            ensureChunk(x / CHUNK_SIZE, y / CHUNK_SIZE);
+        }
+    }
+
+    /**
+     * Generates every chunk that overlaps a region of the world.
+     *
+     * @param x            the region's x-coordinate
+     * @param y            the region's y-coordinate
+     * @param regionWidth  the region's width
+     * @param regionHeight the region's height
+     */
+    public void ensureRegion(long x, long y, long regionWidth, long regionHeight) {
+        long minX = Math.max(x, 0);
+        long minY = Math.max(y, 0);
+        long maxX = Math.min(x + regionWidth, width) - 1;
+        long maxY = Math.min(y + regionHeight, height) - 1;
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+        for (int cy = (int) (minY / CHUNK_SIZE); cy <= maxY / CHUNK_SIZE; cy++) {
+            for (int cx = (int) (minX / CHUNK_SIZE); cx <= maxX / CHUNK_SIZE; cx++) {
+                ensureChunk(cx, cy);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a chunk's obstacles have been generated.
+     *
+     * @param cx the chunk's x index
+     * @param cy the chunk's y index
+     * @return true if the chunk has been generated
+     */
+    public boolean isGenerated(int cx, int cy) {
+        return generated.contains(chunkKey(cx, cy));
+    }
+
+    /**
+     * Returns the number of chunks generated so far.
+     *
+     * @return the generated chunk count
+     */
+    public int getGeneratedCount() {
+        return generated.size();
+    }
+
+    /**
+     * Returns the obstacles of one chunk. The result depends only on the
+     * arguments, so it can be recomputed anywhere to check or replay a world.
+     *
+     * @param width   the world width
+     * @param height  the world height
+     * @param seed    the world seed
+     * @param density the fraction of the chunk to cover with obstacles
+     * @param cx      the chunk's x index
+     * @param cy      the chunk's y index
+     * @return the chunk's obstacles, all inside the chunk
+     */
+    public static List<Obstacle> generateChunk(int width, int height, long seed, double density, int cx, int cy) {
+        int originX = cx * CHUNK_SIZE;
+        int originY = cy * CHUNK_SIZE;
+        int chunkWidth = Math.min(CHUNK_SIZE, width - originX);
+        int chunkHeight = Math.min(CHUNK_SIZE, height - originY);
+        if (chunkWidth <= 0 || chunkHeight <= 0 || density <= 0) {
+            return List.of();
+        }
+        return new ObstacleGenerator(originX, originY, chunkWidth, chunkHeight, 1, 3, chunkSeed(seed, cx, cy))
+                .generateToDensity(density);
+    }
+
+    private void ensureChunk(int cx, int cy) {
+        long key = chunkKey(cx, cy);
+        if (generated.contains(key)) {
+            return;
+        }
+        // A lock rather than a monitor, so virtual threads waiting here do not pin their carriers
+        lock.lock();
+        try {
+            // A chunk being generated by this thread is reached again while its obstacles are added
+            if (generated.contains(key) || !generating.add(key)) {
+                return;
+            }
+            try {
+                generateChunk(width, height, seed, density, cx, cy).forEach(sink);
+            } finally {
+                generating.remove(key);
+                generated.add(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long chunkSeed(long seed, int cx, int cy) {
+        // SplitMix64 finaliser over the mixed coordinates, so neighbouring chunks get unrelated seeds
+        long z = seed ^ (cx * 0x9E3779B97F4A7C15L) ^ (cy * 0xC2B2AE3D27D4EB4FL);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long chunkKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+}
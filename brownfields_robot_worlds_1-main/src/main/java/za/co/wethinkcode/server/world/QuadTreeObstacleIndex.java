@@ -0,0 +1,197 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Obstacle index for huge, sparsely populated worlds. Obstacles are kept in a
+ * region quadtree over the world's bounds, so memory grows with the number of
+ * obstacles rather than the area, and point, rectangle and ray queries only
+ * visit the branches that overlap them.
+ *
+ * <p>Each obstacle lives in the smallest node that fully contains it. Obstacles
+ * that reach outside the world stay in the root.</p>
+ */
+public class QuadTreeObstacleIndex implements ObstacleIndex {
+    /** Obstacles a leaf holds before it is split into quadrants. */
+    private static final int NODE_CAPACITY = 8;
+    /** Nodes narrower or shorter than this are never split. */
+    private static final int MIN_NODE_SIZE = 4;
+
+    private final int width;
+    private final int height;
+    private Node root;
+
+    /**
+     * Creates an empty index for a world of the given size.
+     *
+     * @param width  the world width
+     * @param height the world height
+     */
+    public QuadTreeObstacleIndex(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.root = new Node(0, 0, width, height);
+    }
+
+    @Override
+    public void add(Obstacle obstacle) {
+        root.insert(obstacle);
+    }
+
+    @Override
+    public void remove(Obstacle obstacle) {
+        root.remove(obstacle);
+    }
+
+    @Override
+    public void clear() {
+        root = new Node(0, 0, width, height);
+    }
+
+    @Override
+    public ObstacleKind kindAt(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return ObstacleKind.NONE;
+        }
+
+        ObstacleKind found = ObstacleKind.NONE;
+        Node node = root;
+        while (node != null) {
+            for (Obstacle obstacle : node.items) {
+                if (obstacle.blocksPosition(x, y)) {
+                    ObstacleKind kind = ObstacleKind.of(obstacle);
+                    if (kind.destroysRobots()) {
+                        return kind;
+                    }
+                    if (found == ObstacleKind.NONE) {
+                        found = kind;
+                    }
+                }
+            }
+            node = node.childContaining(x, y);
+        }
+        return found;
+    }
+
+    @Override
+    public void forEachIntersecting(int x, int y, int width, int height, Consumer<Obstacle> action) {
+        // Clip to the world, so parts of obstacles outside it are never reported
+        long minX = Math.max(x, 0);
+        long minY = Math.max(y, 0);
+        long maxX = Math.min((long) x + width, this.width);
+        long maxY = Math.min((long) y + height, this.height);
+        if (minX < maxX && minY < maxY) {
+            root.query(minX, minY, maxX - minX, maxY - minY, action);
+        }
+    }
+
+    private static final class Node {
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+        private final List<Obstacle> items = new ArrayList<>();
+        private Node[] children;
+
+        Node(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        void insert(Obstacle obstacle) {
+            if (children != null) {
+                Node child = childEnclosing(obstacle);
+                if (child != null) {
+                    child.insert(obstacle);
+                    return;
+                }
+            }
+
+            items.add(obstacle);
+            if (children == null && items.size() > NODE_CAPACITY && width >= 2 * MIN_NODE_SIZE && height >= 2 * MIN_NODE_SIZE) {
+                split();
+            }
+        }
+
+        boolean remove(Obstacle obstacle) {
+            if (children != null) {
+                Node child = childEnclosing(obstacle);
+                if (child != null && child.remove(obstacle)) {
+                    return true;
+                }
+            }
+            return items.remove(obstacle);
+        }
+
+        void query(long qx, long qy, long qWidth, long qHeight, Consumer<Obstacle> action) {
+            for (Obstacle obstacle : items) {
+                if (ObstacleIndex.intersects(obstacle, qx, qy, qWidth, qHeight)) {
+                    action.accept(obstacle);
+                }
+            }
+            if (children == null) {
+                return;
+            }
+            for (Node child : children) {
+                if (child.overlaps(qx, qy, qWidth, qHeight)) {
+                    child.query(qx, qy, qWidth, qHeight, action);
+                }
+            }
+        }
+
+        Node childContaining(int px, int py) {
+            if (children == null) {
+                return null;
+            }
+            for (Node child : children) {
+                if (px >= child.x && px < child.x + child.width && py >= child.y && py < child.y + child.height) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        private Node childEnclosing(Obstacle obstacle) {
+            for (Node child : children) {
+                if (child.encloses(obstacle)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        private boolean encloses(Obstacle obstacle) {
+            return obstacle.getX() >= x && obstacle.getY() >= y
+                    && (long) obstacle.getX() + obstacle.getWidth() <= (long) x + width
+                    && (long) obstacle.getY() + obstacle.getHeight() <= (long) y + height;
+        }
+
+        private boolean overlaps(long qx, long qy, long qWidth, long qHeight) {
+            return x < qx + qWidth && (long) x + width > qx && y < qy + qHeight && (long) y + height > qy;
+        }
+
+        private void split() {
+            int leftWidth = width / 2;
+            int bottomHeight = height / 2;
+            children = new Node[] {
+                    new Node(x, y, leftWidth, bottomHeight),
+                    new Node(x + leftWidth, y, width - leftWidth, bottomHeight),
+                    new Node(x, y + bottomHeight, leftWidth, height - bottomHeight),
+                    new Node(x + leftWidth, y + bottomHeight, width - leftWidth, height - bottomHeight)
+            };
+
+            List<Obstacle> existing = new ArrayList<>(items);
+            items.clear();
+            for (Obstacle obstacle : existing) {
+                insert(obstacle);
+            }
+        }
+    }
+}
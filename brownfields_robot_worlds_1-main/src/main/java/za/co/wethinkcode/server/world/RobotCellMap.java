@@ -0,0 +1,192 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Robot;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Open-addressing hash map from a packed cell (see
+ * {@link za.co.wethinkcode.server.model.Coordinates}) to the robot on it.
+ * Keys are primitive longs, so lookups neither box nor allocate.
+ *
+ * <p>Reads are optimistic and only fall back to a read lock if a write
+ * happened at the same time; writes take the write lock. Removal uses
+ * backward-shift deletion, so the table never fills up with tombstones.</p>
+ */
+public class RobotCellMap {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final StampedLock lock = new StampedLock();
+    private Table table = new Table(INITIAL_CAPACITY);
+    private int size;
+
+    /**
+     * Returns the robot on a cell.
+     *
+     * @param cell the packed cell
+     * @return the robot, or {@code null} if the cell is empty
+     */
+    public Robot get(long cell) {
+        long stamp = lock.tryOptimisticRead();
+        Robot robot = find(table, cell);
+        if (lock.validate(stamp)) {
+            return robot;
+        }
+
+        stamp = lock.readLock();
+        try {
+            return find(table, cell);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Puts a robot on a cell unless another robot is already there.
+     *
+     * @param cell  the packed cell
+     * @param robot the robot
+     * @return true if the robot was stored; false if the cell was taken
+     */
+    public boolean putIfAbsent(long cell, Robot robot) {
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            int mask = current.keys.length - 1;
+            int index = hash(cell) & mask;
+            while (current.values[index] != null) {
+                if (current.keys[index] == cell) {
+                    return false;
+                }
+                index = (index + 1) & mask;
+            }
+            current.keys[index] = cell;
+            current.values[index] = robot;
+            size++;
+            if (size * 4 > current.keys.length * 3) {
+                resize(current.keys.length * 2);
+            }
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes a robot from a cell if it is the robot stored there.
+     *
+     * @param cell  the packed cell
+     * @param robot the robot expected on the cell
+     * @return true if the robot was removed
+     */
+    public boolean remove(long cell, Robot robot) {
+        long stamp = lock.writeLock();
+        try {
+            Table current = table;
+            int mask = current.keys.length - 1;
+            int index = hash(cell) & mask;
+            while (current.values[index] != null) {
+                if (current.keys[index] == cell) {
+                    if (current.values[index] != robot) {
+                        return false;
+                    }
+                    deleteAt(current, index);
+                    size--;
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+            return false;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of occupied cells.
+     *
+     * @return the number of cells holding a robot
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private static Robot find(Table current, long cell) {
+        long[] keys = current.keys;
+        Robot[] values = current.values;
+        int mask = keys.length - 1;
+        int index = hash(cell) & mask;
+
+        // Bounded so a read racing a writer can never spin forever
+        for (int probes = 0; probes < keys.length; probes++) {
+            Robot robot = values[index];
+            if (robot == null) {
+                return null;
+            }
+            if (keys[index] == cell) {
+                return robot;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private static void deleteAt(Table current, int index) {
+        long[] keys = current.keys;
+        Robot[] values = current.values;
+        int mask = keys.length - 1;
+
+        // Shift later entries of the probe run back into the gap
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (values[next] != null) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        values[gap] = null;
+        keys[gap] = 0L;
+    }
+
+    private void resize(int capacity) {
+        Table old = table;
+        Table resized = new Table(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < old.keys.length; i++) {
+            if (old.values[i] != null) {
+                int index = hash(old.keys[i]) & mask;
+                while (resized.values[index] != null) {
+                    index = (index + 1) & mask;
+                }
+                resized.keys[index] = old.keys[i];
+                resized.values[index] = old.values[i];
+            }
+        }
+        table = resized;
+    }
+
+    private static int hash(long cell) {
+        long h = cell * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** Keys and values are swapped together on resize, so a reader always sees a matching pair. */
+    private static final class Table {
+        private final long[] keys;
+        private final Robot[] values;
+
+        Table(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new Robot[capacity];
+        }
+    }
+}
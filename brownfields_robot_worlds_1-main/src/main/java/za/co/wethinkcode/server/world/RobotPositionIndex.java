@@ -0,0 +1,108 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Coordinates;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Spatial hash from cell position to the robot standing on it.
+ * Lets the world answer "which robot is on cell (x,y)" in constant time
+ * instead of walking every robot. Cells are keyed by packed coordinates,
+ * so lookups by x and y allocate nothing.
+ *
+ * <p>Robots are normally alone on their cell. If several robots do share a
+ * cell, only one of them is indexed; when it leaves, the next one is found
+ * by scanning the world's robots, which only happens while robots overlap.</p>
+ */
+public class RobotPositionIndex {
+    private final RobotCellMap cells = new RobotCellMap();
+    private final AtomicInteger robotCount = new AtomicInteger();
+    private final Supplier<? extends Iterable<Robot>> robots;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param robots supplies the world's robots, used to re-index robots sharing a vacated cell
+     */
+    public RobotPositionIndex(Supplier<? extends Iterable<Robot>> robots) {
+        this.robots = robots;
+    }
+
+    /**
+     * Adds a robot at its current position.
+     *
+     * @param robot the robot to index
+     */
+    public void add(Robot robot) {
+        robotCount.incrementAndGet();
+        occupy(robot, robot.getPosition());
+    }
+
+    /**
+     * Removes a robot from its current position.
+     *
+     * @param robot the robot to remove
+     */
+    public void remove(Robot robot) {
+        robotCount.decrementAndGet();
+        vacate(robot, robot.getPosition());
+    }
+
+    /**
+     * Moves a robot between cells.
+     *
+     * @param robot the robot that moved
+     * @param from  the cell it left, or {@code null}
+     * @param to    the cell it entered, or {@code null}
+     */
+    public void move(Robot robot, Position from, Position to) {
+        vacate(robot, from);
+        occupy(robot, to);
+    }
+
+    /**
+     * Returns the robot on a cell.
+     *
+     * @param position the cell to look up
+     * @return the robot on the cell, or {@code null} if the cell is empty
+     */
+    public Robot get(Position position) {
+        return get(position.getX(), position.getY());
+    }
+
+    /**
+     * Returns the robot on a cell without allocating.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the robot on the cell, or {@code null} if the cell is empty
+     */
+    public Robot get(int x, int y) {
+        return cells.get(Coordinates.pack(x, y));
+    }
+
+    private void occupy(Robot robot, Position position) {
+        if (position != null) {
+            cells.putIfAbsent(Coordinates.pack(position), robot);
+        }
+    }
+
+    private void vacate(Robot robot, Position position) {
+        if (position == null || !cells.remove(Coordinates.pack(position), robot)) {
+            return;
+        }
+
+        // More robots than occupied cells means some robots share a cell
+        if (robotCount.get() > cells.size()) {
+            for (Robot other : robots.get()) {
+                if (other != robot && position.equals(other.getPosition())) {
+                    cells.putIfAbsent(Coordinates.pack(position), other);
+                    return;
+                }
+            }
+        }
+    }
+}
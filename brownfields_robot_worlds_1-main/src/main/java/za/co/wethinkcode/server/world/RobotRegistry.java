@@ -0,0 +1,190 @@
+package za.co.wethinkcode.server.world;
+
+import za.co.wethinkcode.server.model.Robot;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrent registry of the robots in a world, keyed by case-insensitive name.
+ * Launch, removal and lookup never take a global lock, so client threads
+ * working on different robots do not serialize on the world.
+ */
+public class RobotRegistry {
+    private final ConcurrentMap<String, Robot> robots = new ConcurrentHashMap<>();
+    private final List<Robot> view = new RobotList();
+    private final World world;
+    private final int maxRobots;
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Creates an empty registry for a world.
+     *
+     * @param world the world that owns the registry; changes made through
+     *              {@link #asList()} are routed through it
+     */
+    public RobotRegistry(World world) {
+        this(world, 0);
+    }
+
+    /**
+     * Creates an empty registry for a world that holds a limited number of robots.
+     *
+     * @param world     the world that owns the registry
+     * @param maxRobots the most robots the world may hold, or 0 for no limit
+     */
+    public RobotRegistry(World world, int maxRobots) {
+        this.world = world;
+        this.maxRobots = maxRobots;
+    }
+
+    /**
+     * Checks whether the world holds as many robots as it may.
+     *
+     * @return true if no more robots can be registered
+     */
+    public boolean isFull() {
+        return maxRobots > 0 && count.get() >= maxRobots;
+    }
+
+    /**
+     * Registers a robot unless another robot already uses its name or the
+     * world is full. The limit holds even when clients launch at the same time.
+     *
+     * @param robot the robot to register
+     * @return true if the robot was registered; false if the name is taken
+     */
+    public boolean register(Robot robot) {
+        if (maxRobots > 0 && count.incrementAndGet() > maxRobots) {
+            count.decrementAndGet();
+            return false;
+        }
+        if (robots.putIfAbsent(key(robot.getName()), robot) != null) {
+            if (maxRobots > 0) {
+                count.decrementAndGet();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Removes a robot from the registry.
+     *
+     * @param robot the robot to remove
+     * @return the registered robot that was removed, or {@code null} if it was not registered
+     */
+    public Robot unregister(Robot robot) {
+        String key = key(robot.getName());
+        Robot registered = robots.get(key);
+        if (registered != null && registered.equals(robot) && robots.remove(key, registered)) {
+            if (maxRobots > 0) {
+                count.decrementAndGet();
+            }
+            return registered;
+        }
+        return null;
+    }
+
+    /**
+     * Removes a robot only if this exact instance is the one registered, so a
+     * robot that has since been replaced by a namesake is left alone.
+     *
+     * @param robot the robot to remove
+     * @return true if the robot was registered and has been removed
+     */
+    public boolean unregisterInstance(Robot robot) {
+        boolean[] removed = new boolean[1];
+        robots.computeIfPresent(key(robot.getName()), (key, registered) -> {
+            removed[0] = registered == robot;
+            return removed[0] ? null : registered;
+        });
+        if (removed[0] && maxRobots > 0) {
+            count.decrementAndGet();
+        }
+        return removed[0];
+    }
+
+    /**
+     * Finds a robot by name, ignoring case.
+     *
+     * @param name the robot's name
+     * @return the robot, or {@code null} if none is registered under that name
+     */
+    public Robot get(String name) {
+        return name == null ? null : robots.get(key(name));
+    }
+
+    /**
+     * Returns a live, non-copying list view of the registered robots.
+     * Iteration is weakly consistent: it never throws
+     * {@link java.util.ConcurrentModificationException} and reflects some or all
+     * changes made while iterating. Adding to or removing from the view
+     * registers or unregisters robots through the owning world.
+     *
+     * @return the robots view
+     */
+    public List<Robot> asList() {
+        return view;
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private class RobotList extends AbstractList<Robot> {
+        @Override
+        public Robot get(int index) {
+            if (index < 0) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            Iterator<Robot> iterator = iterator();
+            for (int i = 0; i < index && iterator.hasNext(); i++) {
+                iterator.next();
+            }
+            if (!iterator.hasNext()) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            return iterator.next();
+        }
+
+        @Override
+        public Iterator<Robot> iterator() {
+            return robots.values().iterator();
+        }
+
+        @Override
+        public int size() {
+            return robots.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return robots.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Robot robot && robot.equals(RobotRegistry.this.get(robot.getName()));
+        }
+
+        @Override
+        public boolean add(Robot robot) {
+            return world.addRobot(robot);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!(o instanceof Robot robot) || !contains(robot)) {
+                return false;
+            }
+            world.removeRobot(robot);
+            return true;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package za.co.wethinkcode.server.world;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A hashed timing wheel: one thread runs every delayed task, however many are
+ * waiting, instead of one sleeping thread per task.
+ *
+ * <p>Time is cut into ticks, and each task goes into the slot of the tick it
+ * is due in, modulo the number of slots. Each tick the thread looks only at
+ * that slot, running the tasks that are due and leaving those due on a later
+ * turn of the wheel. Scheduling and cancelling take constant time. Tasks run
+ * on the wheel's thread at most one tick late, so they must be short.</p>
+ *
+ * <p>The thread is started on the first schedule, and waits without ticking
+ * whenever no task is pending.</p>
+ */
+public final class TimingWheel {
+    private final String name;
+    private final long tickNanos;
+    private final Timer[] slots;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition scheduled = lock.newCondition();
+    private long startNanos;
+    /** The last tick whose slot has been run. */
+    private long tick;
+    private int pending;
+    private Thread worker;
+
+    /**
+     * Creates a wheel.
+     *
+     * @param name       the name of the wheel's thread
+     * @param tickMillis how long one tick lasts, which is how late a task may run
+     * @param slots      the number of slots; a task due further ahead than one
+     *                   turn of the wheel waits in its slot for later turns
+     */
+    public TimingWheel(String name, long tickMillis, int slots) {
+        if (tickMillis <= 0 || slots <= 0) {
+            throw new IllegalArgumentException("Tick and slot count must be positive");
+        }
+        this.name = name;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        this.slots = new Timer[slots];
+    }
+
+    /**
+     * Schedules a task to run once after a delay.
+     *
+     * @param delayMillis how long to wait
+     * @param task        the task, run on the wheel's thread
+     * @return the timer, which can be cancelled until the task runs
+     */
+    public Timer schedule(long delayMillis, Runnable task) {
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            if (worker == null) {
+                startNanos = now;
+                worker = Thread.ofPlatform().name(name).daemon().start(this::run);
+            } else if (pending == 0) {
+                // The wheel stood still while empty; move it to the present
+                tick = Math.max(tick, (now - startNanos) / tickNanos);
+            }
+            long due = now - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMillis));
+            long dueTick = Math.max(tick + 1, (due + tickNanos - 1) / tickNanos);
+            Timer timer = new Timer(task, dueTick);
+            link(timer);
+            if (pending++ == 0) {
+                scheduled.signal();
+            }
+            return timer;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting to run.
+     *
+     * @return the pending timer count
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void run() {
+        List<Timer> due = new ArrayList<>();
+        lock.lock();
+        try {
+            while (true) {
+                if (pending == 0) {
+                    scheduled.await();
+                    continue;
+                }
+                long wait = startNanos + (tick + 1) * tickNanos - System.nanoTime();
+                if (wait > 0) {
+                    scheduled.awaitNanos(wait);
+                    continue;
+                }
+                tick++;
+                collectDue(due);
+                if (due.isEmpty()) {
+                    continue;
+                }
+                lock.unlock();
+                try {
+                    runAll(due);
+                } finally {
+                    lock.lock();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void collectDue(List<Timer> due) {
+        Timer timer = slots[slotOf(tick)];
+        while (timer != null) {
+            Timer next = timer.next;
+            if (timer.dueTick <= tick) {
+                unlink(timer);
+                pending--;
+                due.add(timer);
+            }
+            timer = next;
+        }
+    }
+
+    private void runAll(List<Timer> due) {
+        for (Timer timer : due) {
+            try {
+                timer.task.run();
+            } catch (RuntimeException e) {
+                System.err.println("Timer task failed: " + e.getMessage());
+            }
+        }
+        due.clear();
+    }
+
+    private int slotOf(long tick) {
+        return (int) (tick % slots.length);
+    }
+
+    private void link(Timer timer) {
+        int slot = slotOf(timer.dueTick);
+        timer.next = slots[slot];
+        if (timer.next != null) {
+            timer.next.prev = timer;
+        }
+        slots[slot] = timer;
+        timer.linked = true;
+    }
+
+    private void unlink(Timer timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[slotOf(timer.dueTick)] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.linked = false;
+    }
+
+    /**
+     * A task waiting in the wheel.
+     */
+    public final class Timer {
+        private final Runnable task;
+        private final long dueTick;
+        private Timer prev;
+        private Timer next;
+        private boolean linked;
+
+        private Timer(Runnable task, long dueTick) {
+            this.task = task;
+            this.dueTick = dueTick;
+        }
+
+        /**
+         * Stops the task from running.
+         *
+         * @return true if the task had not yet run or been cancelled
+         */
+        public boolean cancel() {
+            lock.lock();
+            try {
+                if (!linked) {
+                    return false;
+                }
+                unlink(this);
+                pending--;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Checks whether the task is still waiting to run.
+         *
+         * @return true until the task runs or is cancelled
+         */
+        public boolean isPending() {
+            lock.lock();
+            try {
+                return linked;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
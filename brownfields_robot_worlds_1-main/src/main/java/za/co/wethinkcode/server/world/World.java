@@ -4,11 +4,14 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import netscape.javascript.JSObject;
 import za.co.wethinkcode.client.commands.LookCommand;
+import za.co.wethinkcode.server.model.Coordinates;
 import za.co.wethinkcode.server.model.Direction;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
 
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import za.co.wethinkcode.server.utils.MovementValidator;
 import za.co.wethinkcode.server.world.obstacles.*;
@@ -17,7 +20,16 @@ import za.co.wethinkcode.server.world.obstacles.*;
  * Represents the game world with a fixed size, obstacles, and robots.
  * Manages world boundaries, obstacle generation, robot tracking, and visibility.
  */
-public class World {
+public final class World {
+    /** Largest world, in cells, that keeps an index of its free cells for spawning. */
+    private static final long MAX_FREE_CELL_INDEX_CELLS = 1L << 22;
+    /** Guesses made when spawning in a world too large for a free-cell index. */
+    private static final int MAX_SPAWN_ATTEMPTS = 1000;
+    /** Resolution of the world's timers; reloads and repairs last whole seconds. */
+    private static final long TIMER_TICK_MILLIS = 100;
+    /** Timer slots, one turn of the wheel being 51.2 seconds. */
+    private static final int TIMER_SLOTS = 512;
+
     private final int width;
     private final int height;
     private final int visibilityRange;
@@ -26,9 +38,19 @@ public class World {
     private final int repairTime;
     private final int maxShots;
     private final List<Obstacle> obstacles;
-    private final List<Robot> robots;
-    private final Random random = new Random();
+    private final ObstacleIndex obstacleIndex;
+    private final ChunkedWorldStore chunks;
+    private final RobotRegistry robots;
+    private final RobotPositionIndex robotPositions;
+    private final FreeCellIndex freeCells;
+    private final ProceduralChunks procedural;
+    private final long seed;
+    private final ReentrantReadWriteLock commandLock = new ReentrantReadWriteLock();
     private final WorldConfig config;
+    private final TimingWheel timers = new TimingWheel("world-timer", TIMER_TICK_MILLIS, TIMER_SLOTS);
+    /** The timed action each robot is waiting on, by robot instance, so namesakes never share one. */
+    private final Map<Robot, TimingWheel.Timer> robotTimers = new IdentityHashMap<>();
+    private final ReentrantLock robotTimersLock = new ReentrantLock();
 
     public World(WorldConfig worldConfig) {
         this.config = worldConfig;
@@ -39,9 +61,26 @@ public class World {
         this.reloadTime = worldConfig.getReloadTime();
         this.repairTime = worldConfig.getRepairTime(); // Initialize repairTime
         this.maxShots = worldConfig.getMaxShots();
-        this.obstacles = new ArrayList<>();
-        this.robots = new ArrayList<>();
-        generateObstacles(worldConfig.getNumMountains(), worldConfig.getNumLakes(), worldConfig.getNumPits());
+        this.obstacles = new ObstacleList();
+        ObstacleIndexType indexType = worldConfig.getObstacleIndexType();
+        this.chunks = indexType == ObstacleIndexType.CHUNKED ? new ChunkedWorldStore(width, height) : null;
+        this.obstacleIndex = switch (indexType) {
+            case GRID -> new GridObstacleIndex(width, height);
+            case QUADTREE -> new QuadTreeObstacleIndex(width, height);
+            case CHUNKED -> chunks;
+        };
+        this.robots = new RobotRegistry(this, worldConfig.getMaxRobots());
+        this.robotPositions = new RobotPositionIndex(robots::asList);
+        this.seed = worldConfig.getSeed() != null ? worldConfig.getSeed() : new Random().nextLong();
+        if (worldConfig.isProcedural()) {
+            // A free-cell index would cost memory for every cell up front, which procedural worlds avoid
+            this.freeCells = null;
+            this.procedural = new ProceduralChunks(width, height, seed, worldConfig.getObstacleDensity(), this::addObstacle);
+        } else {
+            this.freeCells = (long) width * height <= MAX_FREE_CELL_INDEX_CELLS ? new FreeCellIndex(width, height) : null;
+            this.procedural = null;
+            generateObstacles(worldConfig);
+        }
     }
 
     /**
@@ -53,86 +92,120 @@ public class World {
         return repairTime;
     }
 
-    private void generateObstacles(int mountains, int lakes, int pits) {//generates each obs
-        Set<Position> occupiedPositions = new HashSet<>();
-
-        // Generate mountains
-        for (int i = 0; i < mountains; i++) {
-            obstacles.add(createRandomObstacle("mountain", occupiedPositions));
-        }
+    private void generateObstacles(WorldConfig worldConfig) {
+        ObstacleGenerator generator = new ObstacleGenerator(width, height, 1, 3, seed);
 
-        // Generate lakes
-        for (int i = 0; i < lakes; i++) {
-            obstacles.add(createRandomObstacle("lake", occupiedPositions));
-        }
-
-        // Generate pits
-        for (int i = 0; i < pits; i++) {
-            obstacles.add(createRandomObstacle("pit", occupiedPositions));
+        generator.generateObstacles(ObstacleKind.MOUNTAIN, worldConfig.getNumMountains()).forEach(this::addObstacle);
+        generator.generateObstacles(ObstacleKind.LAKE, worldConfig.getNumLakes()).forEach(this::addObstacle);
+        generator.generateObstacles(ObstacleKind.PIT, worldConfig.getNumPits()).forEach(this::addObstacle);
+        generator.generateObstacles(worldConfig.getNumObstacles()).forEach(this::addObstacle);
+        if (worldConfig.getObstacleDensity() > 0) {
+            generator.generateToDensity(worldConfig.getObstacleDensity()).forEach(this::addObstacle);
         }
     }
 
-    private Obstacle createRandomObstacle(String type, Set<Position> occupied) {
-        int maxAttempts = 100;
-        int attempts = 0;
+    /**
+     * Returns whether obstacles are generated lazily as chunks are first touched.
+     *
+     * @return True for a procedural world.
+     */
+    public boolean isProcedural() {
+        return procedural != null;
+    }
 
-        while (attempts < maxAttempts) {
-            attempts++;
-            int x = random.nextInt(width);
-            int y = random.nextInt(height);
-            int sizeX = 1 + random.nextInt(3);
-            int sizeY = 1 + random.nextInt(3);
+    /**
+     * Returns the number of chunks whose obstacles have been generated,
+     * or 0 for a world generated up front.
+     *
+     * @return The generated chunk count.
+     */
+    public int getGeneratedChunkCount() {
+        return procedural == null ? 0 : procedural.getGeneratedCount();
+    }
 
-            if (!isWithinBounds(x, y, sizeX, sizeY)) {
-                continue;
-            }
+    /**
+     * Returns the lock that orders client commands against the world. Single
+     * commands share the read lock and run side by side as before; a batch of
+     * commands holds the write lock, so nothing else changes the world between
+     * its steps.
+     *
+     * @return The world's command lock.
+     */
+    public ReentrantReadWriteLock getCommandLock() {
+        return commandLock;
+    }
 
-            if (!arePositionsAvailable(x, y, sizeX, sizeY, occupied)) {
-                continue;
+    /**
+     * Runs a robot's timed action, such as the end of a reload or repair, after
+     * a delay. A robot waits on at most one action, so scheduling another
+     * cancels the first. The action is dropped if the robot dies or leaves the
+     * world first.
+     *
+     * @param robot       the robot the action belongs to
+     * @param delayMillis how long to wait
+     * @param action      the action, which must be short since it runs on the world's timer thread
+     */
+    public void scheduleForRobot(Robot robot, long delayMillis, Runnable action) {
+        robotTimersLock.lock();
+        try {
+            TimingWheel.Timer timer = timers.schedule(delayMillis, () -> {
+                forgetFiredTimer(robot);
+                action.run();
+            });
+            TimingWheel.Timer previous = robotTimers.put(robot, timer);
+            if (previous != null) {
+                previous.cancel();
             }
-
-            markPositionsOccupied(x, y, sizeX, sizeY, occupied);
-            return createObstacle(type, x, y, sizeX, sizeY);
+        } finally {
+            robotTimersLock.unlock();
         }
-        return null;
     }
 
-    private boolean isWithinBounds(int x, int y, int sizeX, int sizeY) {
-        return x + sizeX <= width && y + sizeY <= height;
+    /**
+     * Cancels the timed action a robot is waiting on, if any.
+     *
+     * @param robot the robot
+     * @return true if an action was cancelled before it ran
+     */
+    public boolean cancelRobotTimer(Robot robot) {
+        robotTimersLock.lock();
+        try {
+            TimingWheel.Timer timer = robotTimers.remove(robot);
+            return timer != null && timer.cancel();
+        } finally {
+            robotTimersLock.unlock();
+        }
     }
 
-    private boolean arePositionsAvailable(int x, int y, int sizeX, int sizeY, Set<Position> occupied) {
-        for (int dx = 0; dx < sizeX; dx++) {
-            for (int dy = 0; dy < sizeY; dy++) {
-                if (occupied.contains(new Position(x + dx, y + dy))) {
-                    return false;
-                }
+    private void forgetFiredTimer(Robot robot) {
+        robotTimersLock.lock();
+        try {
+            TimingWheel.Timer timer = robotTimers.get(robot);
+            if (timer != null && !timer.isPending()) {
+                robotTimers.remove(robot);
             }
+        } finally {
+            robotTimersLock.unlock();
         }
-        return true;
     }
 
-    private void markPositionsOccupied(int x, int y, int sizeX, int sizeY, Set<Position> occupied) {
-        for (int dx = 0; dx < sizeX; dx++) {
-            for (int dy = 0; dy < sizeY; dy++) {
-                occupied.add(new Position(x + dx, y + dy));
-            }
-        }
+    /**
+     * Returns the number of timed actions waiting to run.
+     *
+     * @return the pending timer count
+     */
+    public int getPendingTimerCount() {
+        return timers.getPendingCount();
     }
 
-    private Obstacle createObstacle(String type, int x, int y, int sizeX, int sizeY) {
-        switch (type) {
-            case "mountain":
-                return new Mountain(x, y, sizeX, sizeY);
-            case "lake":
-                return new Lake(x, y, sizeX, sizeY);
-            case "pit":
-                return new Pit(x, y, sizeX, sizeY);
-                case "mine":
-                    return new Mine(x, y, sizeX, sizeY);
-            default:
-                return null;
-        }
+    /**
+     * Returns the seed the world's obstacles were generated from.
+     * A world built from the same configuration and seed has the same obstacles.
+     *
+     * @return The generation seed.
+     */
+    public long getSeed() {
+        return seed;
     }
 
     /**
@@ -142,8 +215,17 @@ public class World {
      * @return True if the position is inside the world bounds; false otherwise.
      */
     public boolean isPositionValid(Position position) {
-        int x = position.getX();
-        int y = position.getY();
+        return isPositionValid(position.getX(), position.getY());
+    }
+
+    /**
+     * Checks if a cell is within the world's boundaries, without allocating.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return True if the cell is inside the world bounds; false otherwise.
+     */
+    public boolean isPositionValid(int x, int y) {
         return x >= 0 && x < width &&   // 0 to width-1
                 y >= 0 && y < height;    // 0 to height-1
     }
@@ -154,13 +236,49 @@ public class World {
      * @param position The position to check.
      * @return True if blocked by an obstacle; false otherwise.
      */
-    public boolean isPositionBlocked(Position position) {//
-        for (Obstacle obstacle : obstacles) {
-            if (obstacle.blocksPosition(position.getX(), position.getY())) {
-                return true;
-            }
+    public boolean isPositionBlocked(Position position) {
+        return isPositionBlocked(position.getX(), position.getY());
+    }
+
+    /**
+     * Checks if a cell is blocked by any obstacle, without allocating.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return True if blocked by an obstacle; false otherwise.
+     */
+    public boolean isPositionBlocked(int x, int y) {
+        return getObstacleKindAt(x, y).isBlocking();
+    }
+
+    /**
+     * Returns the kind of obstacle covering a cell, using the world's obstacle index.
+     *
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The obstacle kind, or {@code NONE} if no obstacle covers the cell.
+     */
+    public ObstacleKind getObstacleKindAt(int x, int y) {
+        if (procedural != null) {
+            procedural.ensureCell(x, y);
         }
-        return false;
+        return obstacleIndex.kindAt(x, y);
+    }
+
+    /**
+     * Returns the obstacles that overlap a rectangular region of the world.
+     *
+     * @param x The region's x-coordinate.
+     * @param y The region's y-coordinate.
+     * @param regionWidth The region's width.
+     * @param regionHeight The region's height.
+     * @return The overlapping obstacles.
+     */
+    public List<Obstacle> getObstaclesInRegion(int x, int y, int regionWidth, int regionHeight) {
+        List<Obstacle> found = new ArrayList<>();
+        touchRegion(x, y, regionWidth, regionHeight);
+        obstacleIndex.forEachIntersecting(x, y, regionWidth, regionHeight, found::add);
+        return found;
     }
 
     /**
@@ -173,11 +291,15 @@ public class World {
         List<Obstacle> visible = new ArrayList<>();
         Position robotPos = robot.getPosition();
 
-        for (Obstacle obstacle : obstacles) {
-            if (isObstacleVisible(obstacle, robotPos, robot.getDirection())) {
-                visible.add(obstacle);
-            }
-        }
+        // Only obstacles anchored within range of the robot can be visible
+        touchRegion(robotPos.getX() - visibilityRange, robotPos.getY() - visibilityRange,
+                2 * visibilityRange + 1, 2 * visibilityRange + 1);
+        obstacleIndex.forEachIntersecting(robotPos.getX() - visibilityRange, robotPos.getY() - visibilityRange,
+                2 * visibilityRange + 1, 2 * visibilityRange + 1, obstacle -> {
+                    if (isObstacleVisible(obstacle, robotPos, robot.getDirection())) {
+                        visible.add(obstacle);
+                    }
+                });
         return visible;
     }
 
@@ -205,12 +327,36 @@ public class World {
     }
 
     /**
-     * Adds a robot to the world.
+     * Adds a robot to the world unless a robot with the same name
+     * (ignoring case) is already present or the world already holds
+     * MAX_ROBOTS robots.
      *
      * @param robot The robot to add.
+     * @return True if the robot was added; false if the name is taken or the world is full.
      */
-    public synchronized void addRobot(Robot robot) {
-        robots.add(robot);
+    public boolean addRobot(Robot robot) {
+        if (!robots.register(robot)) {
+            return false;
+        }
+        robotPositions.add(robot);
+        touchCell(robot.getPosition());
+        if (chunks != null) {
+            chunks.robotEntered(robot.getPosition());
+        }
+        refreshFreeCell(robot.getPosition());
+        robot.setPositionListener(this::robotMoved);
+        return true;
+    }
+
+    private void robotMoved(Robot robot, Position from, Position to) {
+        robotPositions.move(robot, from, to);
+        touchCell(to);
+        if (chunks != null) {
+            chunks.robotLeft(from);
+            chunks.robotEntered(to);
+        }
+        refreshFreeCell(from);
+        refreshFreeCell(to);
     }
 
     /**
@@ -218,32 +364,66 @@ public class World {
      *
      * @param robot The robot to remove.
      */
-    public synchronized void removeRobot(Robot robot) {
-        robots.remove(robot);
+    public void removeRobot(Robot robot) {
+        Robot removed = robots.unregister(robot);
+        if (removed != null) {
+            robotRemoved(removed);
+        }
+    }
+
+    /**
+     * Removes a robot only if this exact robot is still in the world. A client
+     * leaving uses this so it never removes another client's robot that has
+     * since been launched under the same name.
+     *
+     * @param robot The robot to remove.
+     * @return true if the robot was in the world and has been removed
+     */
+    public boolean releaseRobot(Robot robot) {
+        if (!robots.unregisterInstance(robot)) {
+            return false;
+        }
+        robotRemoved(robot);
+        return true;
+    }
+
+    private void robotRemoved(Robot removed) {
+        removed.setPositionListener(null);
+        cancelRobotTimer(removed);
+        robotPositions.remove(removed);
+        if (chunks != null) {
+            chunks.robotLeft(removed.getPosition());
+        }
+        refreshFreeCell(removed.getPosition());
+    }
+
+    /**
+     * Checks whether the world already holds the most robots its MAX_ROBOTS setting allows.
+     *
+     * @return true if no more robots can be launched
+     */
+    public boolean isFull() {
+        return robots.isFull();
     }
 
     /**
-     * Returns a copy of the list of robots currently in the world.
+     * Returns a live view of the robots currently in the world.
+     * The view does not copy; iterating it while robots join or leave is safe.
      *
      * @return List of robots.
      */
-    public synchronized List<Robot> getRobots() {
-        return new ArrayList<>(robots);
+    public List<Robot> getRobots() {
+        return robots.asList();
     }
 
     /**
-     * Finds and returns a robot by name (case-insensitive).
+     * Finds and returns a robot by name (case-insensitive) without locking.
      *
      * @param name The name of the robot.
      * @return The robot if found; null otherwise.
      */
-    public synchronized Robot getRobotByName(String name) {
-        for (Robot robot : robots) {
-            if (robot.getName().equalsIgnoreCase(name)) {
-                return robot;
-            }
-        }
-        return null;
+    public Robot getRobotByName(String name) {
+        return robots.get(name);
     }
 
     /**
@@ -265,7 +445,11 @@ public class World {
     }
 
     /**
-     * Returns the list of obstacles present in the world.
+     * Returns the live list of obstacles present in the world.
+     * Changes made through the list are reflected in the obstacle index.
+     * A procedural world only lists the obstacles of chunks generated so far.
+     * Iterating the list walks a snapshot, so a dump can run while commands
+     * generate new chunks.
      *
      * @return List of obstacles.
      */
@@ -292,20 +476,13 @@ public class World {
     }
 
 
-    public void addObstacle(Pit Pit) {
-        obstacles.add(Pit);
-    }
-
-    public void addObstacle(Lake Lake) {
-        obstacles.add(Lake);
-    }
-
-    public void addObstacle(Mountain mountain) {
-        obstacles.add(mountain);
-    }
-
-    public void addObstacle(Mine mine) {
-        obstacles.add(mine);
+    /**
+     * Adds an obstacle to the world and records it in the obstacle index.
+     *
+     * @param obstacle The obstacle to add.
+     */
+    public void addObstacle(Obstacle obstacle) {
+        obstacles.add(obstacle);
     }
 
     /**
@@ -326,42 +503,100 @@ public class World {
         return maxShots;
     }
 
-    /**A
-     * Retrieves a robot at the specified position.
+    /**
+     * Retrieves a robot at the specified position in constant time
+     * using the world's robot position index.
      *
      * @param pos The position to check.
      * @return The robot at the position, or null if none exists.
      */
     public Robot getRobotAtPosition(Position pos) {
-        for (Robot r : robots) {
-            if (r.getPosition().equals(pos)) {
-                return r;
-            }
-        }
-        return null;
+        return getRobotAt(pos.getX(), pos.getY());
     }
 
     /**
-     * Calculates the next position in the given direction from the current position.
+     * Retrieves the robot on a cell without allocating.
      *
-     * @param pos The starting position.
-     * @param dir The direction to move.
-     * @return The next position in the specified direction.
+     * @param x The x-coordinate.
+     * @param y The y-coordinate.
+     * @return The robot on the cell, or null if none exists.
      */
-    private Position getNextPosition(Position pos, Direction dir) {
-        int x = pos.getX();
-        int y = pos.getY();
+    public Robot getRobotAt(int x, int y) {
+        return robotPositions.get(x, y);
+    }
+
+    /**
+     * Returns how many steps it takes to reach the first cell in a direction
+     * that is covered by an obstacle or lies outside the world. Robots are not
+     * considered. The world edge is found arithmetically and the nearest
+     * obstacle comes from the obstacle index, so the cells in between are not visited.
+     *
+     * @param start The starting position.
+     * @param dir The direction to look.
+     * @param maxDistance The furthest distance of interest.
+     * @return The distance to the blocker, or {@code maxDistance + 1} if there is none within range.
+     */
+    public int getDistanceToBlocker(Position start, Direction dir, int maxDistance) {
+        return getDistanceToBlocker(start.getX(), start.getY(), dir, maxDistance);
+    }
+
+    /**
+     * Primitive form of {@link #getDistanceToBlocker(Position, Direction, int)}.
+     *
+     * @param x The starting x-coordinate.
+     * @param y The starting y-coordinate.
+     * @param dir The direction to look.
+     * @param maxDistance The furthest distance of interest.
+     * @return The distance to the blocker, or {@code maxDistance + 1} if there is none within range.
+     */
+    public int getDistanceToBlocker(int x, int y, Direction dir, int maxDistance) {
+        if (maxDistance <= 0) {
+            return maxDistance + 1;
+        }
+        if (isPositionValid(x, y)) {
+            int edge = getDistanceToEdge(x, y, dir);
+            touchRay(x, y, dir, Math.min(edge, maxDistance));
+            return Math.min(edge, obstacleIndex.distanceToObstacle(x, y, dir, maxDistance));
+        }
+
+        int dx = Coordinates.dx(dir);
+        int dy = Coordinates.dy(dir);
+        for (int i = 1; i <= maxDistance; i++) {
+            int cx = x + dx * i;
+            int cy = y + dy * i;
+            if (!isPositionValid(cx, cy) || isPositionBlocked(cx, cy)) {
+                return i;
+            }
+        }
+        return maxDistance + 1;
+    }
+
+    private int getDistanceToEdge(int x, int y, Direction dir) {
         switch (dir) {
-            case NORTH: return new Position(x, y + 1);
-            case EAST: return new Position(x + 1, y);
-            case SOUTH: return new Position(x, y - 1);
-            case WEST: return new Position(x - 1, y);
+            case NORTH: return height - y;
+            case EAST: return width - x;
+            case SOUTH: return y + 1;
+            case WEST: return x + 1;
             default: throw new IllegalArgumentException("Invalid direction");
         }
     }
 
+    /**
+     * Calculates the position a number of steps away in the given direction.
+     *
+     * @param start The starting position.
+     * @param dir The direction to move.
+     * @param steps The number of steps.
+     * @return The position reached.
+     */
+    public Position getPositionInDirection(Position start, Direction dir, int steps) {
+        return new Position(start.getX() + Coordinates.dx(dir) * steps, start.getY() + Coordinates.dy(dir) * steps);
+    }
+
     /**
      * Finds the closest obstacle or robot in the specified direction within the max distance.
+     * Terrain is resolved from the obstacle index, so only the cells in front of
+     * the nearest obstacle or edge are checked for robots.
      *
      * @param start The starting position.
      * @param dir The direction to look.
@@ -370,23 +605,262 @@ public class World {
      * @return An ObjectInDirection with type and distance, or null if none found.
      */
     public ObjectInDirection findClosestObjectInDirection(Position start, Direction dir, int maxDistance, Robot lookingRobot) {
-        Position current = start;
-        for (int i = 1; i <= maxDistance; i++) {
-            current = getNextPosition(current, dir);
-            if (!isPositionValid(current)) {
-                return null; // Reached edge
-            }
-            if (isPositionBlocked(current)) {
-                return new ObjectInDirection("OBSTACLE", i);
-            }
-            Robot robotAtPos = getRobotAtPosition(current);
+        int x = start.getX();
+        int y = start.getY();
+        int dx = Coordinates.dx(dir);
+        int dy = Coordinates.dy(dir);
+        int blocker = getDistanceToBlocker(x, y, dir, maxDistance);
+
+        for (int i = 1; i < blocker; i++) {
+            Robot robotAtPos = getRobotAt(x + dx * i, y + dy * i);
             if (robotAtPos != null && !robotAtPos.equals(lookingRobot)) {
                 return new ObjectInDirection("ROBOT", i);
             }
         }
+
+        if (blocker <= maxDistance && isPositionValid(x + dx * blocker, y + dy * blocker)) {
+            return new ObjectInDirection("OBSTACLE", blocker);
+        }
+        return null; // Reached edge, or nothing in range
+    }
+
+    /**
+     * Picks a cell that is inside the world, not covered by an obstacle and not
+     * occupied by a robot, uniformly at random. Uses the free-cell index when the
+     * world has one, so it only fails when the world is genuinely full.
+     *
+     * @param random The source of randomness.
+     * @return A free position, or null if none could be found.
+     */
+    public Position getRandomFreePosition(Random random) {
+        if (freeCells == null) {
+            for (int i = 0; i < MAX_SPAWN_ATTEMPTS; i++) {
+                int x = random.nextInt(width);
+                int y = random.nextInt(height);
+                if (isCellFree(x, y)) {
+                    return new Position(x, y);
+                }
+            }
+            return null;
+        }
+
+        Position candidate;
+        while ((candidate = freeCells.sample(random)) != null) {
+            // Concurrent moves can leave a stale entry behind; drop it and sample again
+            if (isCellFree(candidate.getX(), candidate.getY())) {
+                return candidate;
+            }
+            freeCells.update(candidate.getX(), candidate.getY(), false);
+        }
         return null;
     }
 
+    private void touchCell(Position position) {
+        if (procedural != null && position != null) {
+            procedural.ensureCell(position.getX(), position.getY());
+        }
+    }
+
+    private void touchRegion(long x, long y, long regionWidth, long regionHeight) {
+        if (procedural != null) {
+            procedural.ensureRegion(x, y, regionWidth, regionHeight);
+        }
+    }
+
+    private void touchRay(int x, int y, Direction dir, int steps) {
+        long endX = x + (long) Coordinates.dx(dir) * steps;
+        long endY = y + (long) Coordinates.dy(dir) * steps;
+        touchRegion(Math.min(x, endX), Math.min(y, endY), Math.abs(endX - x) + 1, Math.abs(endY - y) + 1);
+    }
+
+    private boolean isCellFree(int x, int y) {
+        return isPositionValid(x, y) && !isPositionBlocked(x, y) && getRobotAt(x, y) == null;
+    }
+
+    private void refreshFreeCell(Position position) {
+        if (freeCells != null && position != null) {
+            freeCells.update(position.getX(), position.getY(), isCellFree(position.getX(), position.getY()));
+        }
+    }
+
+    private void refreshFreeCells(Obstacle obstacle) {
+        if (freeCells == null) {
+            return;
+        }
+        int maxX = (int) Math.min((long) obstacle.getX() + obstacle.getWidth(), width);
+        int maxY = (int) Math.min((long) obstacle.getY() + obstacle.getHeight(), height);
+        for (int y = Math.max(obstacle.getY(), 0); y < maxY; y++) {
+            for (int x = Math.max(obstacle.getX(), 0); x < maxX; x++) {
+                freeCells.update(x, y, isCellFree(x, y));
+            }
+        }
+    }
+
+    private void obstacleAdded(Obstacle obstacle) {
+        obstacleIndex.add(obstacle);
+        refreshFreeCells(obstacle);
+    }
+
+    private void obstacleRemoved(Obstacle obstacle) {
+        obstacleIndex.remove(obstacle);
+        refreshFreeCells(obstacle);
+    }
+
+    private void obstaclesCleared(List<Obstacle> removed) {
+        obstacleIndex.clear();
+        for (Obstacle obstacle : removed) {
+            refreshFreeCells(obstacle);
+        }
+    }
+
+    /**
+     * Live list of the world's obstacles that keeps the obstacle index and the
+     * free cells in sync with every change, including changes made through {@link #getObstacles()}.
+     */
+    private class ObstacleList extends AbstractList<Obstacle> {
+        private final List<Obstacle> items = new ArrayList<>();
+        /** Guards the items only; the index is updated after the lock is released. */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        @Override
+        public Obstacle get(int index) {
+            lock.lock();
+            try {
+                return items.get(index);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            lock.lock();
+            try {
+                return items.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * In a procedural world, iterates a copy of the list, since chunks can be
+         * generated, and their obstacles added, by commands holding only the read
+         * lock. Other worlds only change obstacles under the write lock.
+         */
+        @Override
+        public Iterator<Obstacle> iterator() {
+            if (procedural == null) {
+                return super.iterator();
+            }
+            List<Obstacle> snapshot;
+            lock.lock();
+            try {
+                snapshot = List.copyOf(items);
+            } finally {
+                lock.unlock();
+            }
+            return new Iterator<>() {
+                private final Iterator<Obstacle> items = snapshot.iterator();
+                private Obstacle last;
+
+                @Override
+                public boolean hasNext() {
+                    return items.hasNext();
+                }
+
+                @Override
+                public Obstacle next() {
+                    last = items.next();
+                    return last;
+                }
+
+                @Override
+                public void remove() {
+                    if (last == null) {
+                        throw new IllegalStateException();
+                    }
+                    removeInstance(last);
+                    last = null;
+                }
+            };
+        }
+
+        @Override
+        public void add(int index, Obstacle obstacle) {
+            Objects.requireNonNull(obstacle, "obstacle");
+            lock.lock();
+            try {
+                items.add(index, obstacle);
+                modCount++;
+            } finally {
+                lock.unlock();
+            }
+            obstacleAdded(obstacle);
+        }
+
+        @Override
+        public Obstacle set(int index, Obstacle obstacle) {
+            Objects.requireNonNull(obstacle, "obstacle");
+            Obstacle previous;
+            lock.lock();
+            try {
+                previous = items.set(index, obstacle);
+            } finally {
+                lock.unlock();
+            }
+            obstacleRemoved(previous);
+            obstacleAdded(obstacle);
+            return previous;
+        }
+
+        @Override
+        public Obstacle remove(int index) {
+            Obstacle removed;
+            lock.lock();
+            try {
+                removed = items.remove(index);
+                modCount++;
+            } finally {
+                lock.unlock();
+            }
+            obstacleRemoved(removed);
+            return removed;
+        }
+
+        @Override
+        public void clear() {
+            List<Obstacle> removed;
+            lock.lock();
+            try {
+                removed = new ArrayList<>(items);
+                items.clear();
+                modCount++;
+            } finally {
+                lock.unlock();
+            }
+            obstaclesCleared(removed);
+        }
+
+        private void removeInstance(Obstacle obstacle) {
+            boolean found = false;
+            lock.lock();
+            try {
+                for (int i = 0; i < items.size() && !found; i++) {
+                    if (items.get(i) == obstacle) {
+                        items.remove(i);
+                        modCount++;
+                        found = true;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (found) {
+                obstacleRemoved(obstacle);
+            }
+        }
+    }
+
     public String displayJson(){
         JsonObject worldDetails = new JsonObject();
         worldDetails.addProperty("world size", "%d x %d".formatted(getHeight(), getWidth()));
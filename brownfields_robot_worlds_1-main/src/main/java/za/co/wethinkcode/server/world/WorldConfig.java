@@ -9,6 +9,16 @@ import java.io.IOException;
  * Supports loading from a properties file or using default values.
  */
 public class WorldConfig {
+    /** Largest world, in cells, that can be indexed with a dense occupancy grid. */
+    public static final long MAX_GRID_CELLS = 1L << 26;
+    /** Worlds up to this many cells always use the grid; it is cheap at this size. */
+    private static final long SMALL_WORLD_CELLS = 1L << 20;
+    /** Cells per obstacle above which a larger world is considered sparse. */
+    private static final long SPARSE_CELLS_PER_OBSTACLE = 64;
+    /** Cells per obstacle above which most chunks would hold nothing. */
+    private static final long EMPTY_CHUNK_CELLS_PER_OBSTACLE =
+            (long) ChunkedWorldStore.CHUNK_SIZE * ChunkedWorldStore.CHUNK_SIZE;
+
     public Properties properties;
     private boolean usingDefaults;
 
@@ -126,4 +136,88 @@ public class WorldConfig {
         return Integer.parseInt(properties.getProperty("MAX_SHOTS"));
     }
 
+    /**
+     * Returns the number of extra obstacles of random type to generate,
+     * on top of the mountains, lakes and pits.
+     *
+     * @return NUM_OBSTACLES, or 0 if it is not set.
+     */
+    public int getNumObstacles() {
+        return Integer.parseInt(properties.getProperty("NUM_OBSTACLES", "0").trim());
+    }
+
+    /**
+     * Returns the most robots that may be in the world at once.
+     *
+     * @return MAX_ROBOTS, or 0 if there is no limit.
+     */
+    public int getMaxRobots() {
+        return Integer.parseInt(properties.getProperty("MAX_ROBOTS", "0").trim());
+    }
+
+    /**
+     * Returns the fraction of the world that random obstacles should cover,
+     * on top of the counted obstacles.
+     *
+     * @return OBSTACLE_DENSITY between 0 and 1, or 0 if it is not set.
+     */
+    public double getObstacleDensity() {
+        return Double.parseDouble(properties.getProperty("OBSTACLE_DENSITY", "0").trim());
+    }
+
+    /**
+     * Returns the seed obstacle generation should use, so a world can be
+     * reproduced exactly.
+     *
+     * @return SEED, or null if the world should pick a random seed.
+     */
+    public Long getSeed() {
+        String seed = properties.getProperty("SEED");
+        return seed == null || seed.isBlank() ? null : Long.parseLong(seed.trim());
+    }
+
+    /**
+     * Returns whether obstacles are generated lazily, one chunk at a time, the
+     * first time a robot, look or dump touches the chunk. Procedural worlds cover
+     * each chunk to OBSTACLE_DENSITY and ignore the obstacle counts.
+     *
+     * @return PROCEDURAL, or false if it is not set.
+     */
+    public boolean isProcedural() {
+        return Boolean.parseBoolean(properties.getProperty("PROCEDURAL", "false").trim());
+    }
+
+    /**
+     * Returns the obstacle index the world should use. OBSTACLE_INDEX may be set
+     * to GRID, QUADTREE or CHUNKED; when it is missing or AUTO the choice is made
+     * from the world's size and obstacle density. Worlds too large for a grid
+     * never use one. Procedural worlds always use CHUNKED, whatever is set, since
+     * chunks are generated while other commands read the index and only the
+     * chunked store is safe to change under them.
+     *
+     * @return The obstacle index type.
+     */
+    public ObstacleIndexType getObstacleIndexType() {
+        long cells = (long) getWidth() * getHeight();
+        // Generated obstacles average 2x2 cells
+        long obstacles = (long) getNumMountains() + getNumLakes() + getNumPits() + getNumObstacles()
+                + (long) (getObstacleDensity() * cells / 4);
+        boolean gridFits = cells <= MAX_GRID_CELLS;
+
+        if (isProcedural()) {
+            // Only chunks that have been generated take up memory
+            return ObstacleIndexType.CHUNKED;
+        }
+        String configured = properties.getProperty("OBSTACLE_INDEX", "AUTO").trim().toUpperCase();
+        if (!configured.equals("AUTO")) {
+            ObstacleIndexType type = ObstacleIndexType.valueOf(configured);
+            return type != ObstacleIndexType.GRID || gridFits ? type : ObstacleIndexType.CHUNKED;
+        }
+
+        if (gridFits && (cells <= SMALL_WORLD_CELLS || obstacles * SPARSE_CELLS_PER_OBSTACLE >= cells)) {
+            return ObstacleIndexType.GRID;
+        }
+        return obstacles * EMPTY_CHUNK_CELLS_PER_OBSTACLE >= cells ? ObstacleIndexType.CHUNKED : ObstacleIndexType.QUADTREE;
+    }
+
 }
@@ -3,10 +3,14 @@ package za.co.wethinkcode.server.world;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import za.co.wethinkcode.protocol.JsonBuffer;
 import za.co.wethinkcode.server.world.obstacles.Obstacle;
 import za.co.wethinkcode.server.model.Position;
 import za.co.wethinkcode.server.model.Robot;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * WorldDumper is responsible for creating a JSON representation of the world state,
  * including all obstacles and robots present in the world.
@@ -38,9 +42,112 @@ public class WorldDumper {
         return worldDump;
     }
 
+    /**
+     * Creates a JSON dump of a rectangular region of the world, including the
+     * obstacles that overlap it and the robots standing inside it. Obstacles
+     * are looked up through the world's obstacle index, so the cost depends
+     * on what is in the region rather than on the size of the world.
+     *
+     * @param x      The region's x-coordinate.
+     * @param y      The region's y-coordinate.
+     * @param width  The region's width.
+     * @param height The region's height.
+     * @return A JsonObject representing the region.
+     */
+    public JsonObject createRegionDump(int x, int y, int width, int height) {
+        JsonObject worldDump = new JsonObject();
+        worldDump.addProperty("width", world.getWidth());
+        worldDump.addProperty("height", world.getHeight());
+        worldDump.add("region", new Gson().toJsonTree(new int[]{x, y, width, height}));
+        worldDump.add("obstacles", getObstaclesJson(world.getObstaclesInRegion(x, y, width, height)));
+        worldDump.add("robots", getRobotsJson(robotsInRegion(x, y, width, height)));
+        return worldDump;
+    }
+
+    /**
+     * Writes the same dump as {@link #createWorldDump()} straight into a
+     * response buffer, without building a JSON tree.
+     *
+     * @param json The buffer to write the dump object to.
+     */
+    public void writeWorldDump(JsonBuffer json) {
+        json.beginObject();
+        json.name("width").value(world.getWidth());
+        json.name("height").value(world.getHeight());
+        writeObstacles(json, world.getObstacles());
+        writeRobots(json, world.getRobots());
+        json.endObject();
+    }
+
+    /**
+     * Writes the same dump as {@link #createRegionDump(int, int, int, int)}
+     * straight into a response buffer, without building a JSON tree.
+     *
+     * @param json   The buffer to write the dump object to.
+     * @param x      The region's x-coordinate.
+     * @param y      The region's y-coordinate.
+     * @param width  The region's width.
+     * @param height The region's height.
+     */
+    public void writeRegionDump(JsonBuffer json, int x, int y, int width, int height) {
+        json.beginObject();
+        json.name("width").value(world.getWidth());
+        json.name("height").value(world.getHeight());
+        json.name("region").beginArray().value(x).value(y).value(width).value(height).endArray();
+        writeObstacles(json, world.getObstaclesInRegion(x, y, width, height));
+        writeRobots(json, robotsInRegion(x, y, width, height));
+        json.endObject();
+    }
+
+    private void writeObstacles(JsonBuffer json, List<Obstacle> obstacles) {
+        json.name("obstacles").beginArray();
+        for (Obstacle obstacle : obstacles) {
+            json.beginObject();
+            json.name("type").value(obstacle.getType());
+            json.name("position").position(obstacle.getX(), obstacle.getY());
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    private void writeRobots(JsonBuffer json, List<Robot> robots) {
+        json.name("robots").beginArray();
+        for (Robot robot : robots) {
+            Position pos = robot.getPosition();
+            json.beginObject();
+            json.name("name").value(robot.getName());
+            json.name("make").value(robot.getMake());
+            json.name("position").position(pos.getX(), pos.getY());
+            json.name("direction").value(robot.getDirection().name());
+            json.name("shields").value(robot.getShields());
+            json.name("shots").value(robot.getShots());
+            json.endObject();
+        }
+        json.endArray();
+    }
+
     private JsonArray getObstaclesJson() {
+        return getObstaclesJson(world.getObstacles());
+    }
+
+    private JsonArray getRobotsJson() {
+        return getRobotsJson(world.getRobots());
+    }
+
+    private List<Robot> robotsInRegion(int x, int y, int width, int height) {
+        List<Robot> inRegion = new ArrayList<>();
+        for (Robot robot : world.getRobots()) {
+            Position pos = robot.getPosition();
+            if (pos.getX() >= x && pos.getX() - x < width && pos.getY() >= y && pos.getY() - y < height) {
+                inRegion.add(robot);
+            }
+        }
+        return inRegion;
+    }
+
+    private JsonArray getObstaclesJson(List<Obstacle> obstacles) {
         JsonArray obstaclesArray = new JsonArray();
-        for (Obstacle obstacle : world.getObstacles()) {
+        for (Obstacle obstacle : obstacles) {
             JsonObject obstacleJson = new JsonObject();
             obstacleJson.addProperty("type", obstacle.getType());
             obstacleJson.add("position", new Gson().toJsonTree(new int[]{obstacle.getX(), obstacle.getY()}));
@@ -49,9 +156,9 @@ public class WorldDumper {
         return obstaclesArray;
     }
 
-    private JsonArray getRobotsJson() {
+    private JsonArray getRobotsJson(List<Robot> robots) {
         JsonArray robotsArray = new JsonArray();
-        for (Robot robot : world.getRobots()) {
+        for (Robot robot : robots) {
             JsonObject robotJson = new JsonObject();
             robotJson.addProperty("name", robot.getName());
             robotJson.addProperty("make", robot.getMake());
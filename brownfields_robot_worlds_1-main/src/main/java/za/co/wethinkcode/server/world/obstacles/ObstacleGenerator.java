@@ -1,23 +1,42 @@
 package za.co.wethinkcode.server.world.obstacles;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 /**
  * Generates random obstacles within a defined world area.
  * Ensures obstacles do not overlap and are within world boundaries.
+ *
+ * <p>Generation is reproducible: the same seed, world size and sequence of
+ * calls always produce the same obstacles. Occupied cells are tracked in a
+ * bitset, or in a coarse bucket map for worlds too large for one, so each
+ * placement is checked in constant time. Every call makes a bounded number
+ * of attempts and returns what it managed to place, even when the requested
+ * count or density cannot be reached.</p>
  */
 public class ObstacleGenerator {
+    /** Placement attempts allowed per obstacle before generation stops. */
+    private static final int ATTEMPTS_PER_OBSTACLE = 32;
+    /** Largest world, in cells, whose occupancy is tracked with a bitset. */
+    private static final long MAX_BITSET_CELLS = 1L << 28;
+
+    private final int originX;
+    private final int originY;
     private final int worldWidth;
     private final int worldHeight;
     private final int minSize;
     private final int maxSize;
-    private final Random random = new Random();
+    private final Random random;
+    private final Occupancy occupancy;
+    private long coveredCells;
 
     /**
      * Creates an ObstacleGenerator for a world of specified dimensions
-     * and obstacle size constraints.
+     * and obstacle size constraints, with a random seed.
      *
      * @param worldWidth  The width of the world.
      * @param worldHeight The height of the world.
@@ -25,57 +44,206 @@ public class ObstacleGenerator {
      * @param maxSize     The maximum width/height of obstacles.
      */
     public ObstacleGenerator(int worldWidth, int worldHeight, int minSize, int maxSize) {
-        this.worldWidth = worldWidth;
-        this.worldHeight = worldHeight;
+        this(worldWidth, worldHeight, minSize, maxSize, new Random().nextLong());
+    }
+
+    /**
+     * Creates an ObstacleGenerator that produces the same obstacles for the same seed.
+     *
+     * @param worldWidth  The width of the world.
+     * @param worldHeight The height of the world.
+     * @param minSize     The minimum width/height of obstacles.
+     * @param maxSize     The maximum width/height of obstacles.
+     * @param seed        The seed for placement, size and type choices.
+     */
+    public ObstacleGenerator(int worldWidth, int worldHeight, int minSize, int maxSize, long seed) {
+        this(0, 0, worldWidth, worldHeight, minSize, maxSize, seed);
+    }
+
+    /**
+     * Creates an ObstacleGenerator that only places obstacles inside one
+     * rectangle of the world, such as a single chunk.
+     *
+     * @param originX The x-coordinate of the rectangle.
+     * @param originY The y-coordinate of the rectangle.
+     * @param width   The width of the rectangle.
+     * @param height  The height of the rectangle.
+     * @param minSize The minimum width/height of obstacles.
+     * @param maxSize The maximum width/height of obstacles.
+     * @param seed    The seed for placement, size and type choices.
+     */
+    public ObstacleGenerator(int originX, int originY, int width, int height, int minSize, int maxSize, long seed) {
+        this.originX = originX;
+        this.originY = originY;
+        this.worldWidth = width;
+        this.worldHeight = height;
         this.minSize = minSize;
         this.maxSize = maxSize;
+        this.random = new Random(seed);
+        this.occupancy = (long) worldWidth * worldHeight <= MAX_BITSET_CELLS
+                ? new BitSetOccupancy() : new BucketOccupancy();
     }
 
     /**
-     * Generates a list of randomly sized and positioned obstacles.
-     * Obstacles will not overlap and will fit within the world boundaries.
+     * Generates a list of randomly sized, positioned and typed obstacles.
+     * Obstacles will not overlap each other, or any obstacle generated by an
+     * earlier call, and will fit within the world boundaries.
      *
      * @param numObstacles The number of obstacles to generate.
-     * @return A list of generated obstacles.
+     * @return The generated obstacles; fewer than requested if the world ran out of room.
      */
     public List<Obstacle> generateObstacles(int numObstacles) {
         List<Obstacle> obstacles = new ArrayList<>();
+        long attempts = (long) numObstacles * ATTEMPTS_PER_OBSTACLE;
+        while (obstacles.size() < numObstacles && attempts-- > 0) {
+            place(ObstacleKind.NONE, obstacles);
+        }
+        return obstacles;
+    }
 
-        while (obstacles.size() < numObstacles) {
-            int width = random.nextInt(maxSize - minSize + 1) + minSize;
-            int height = random.nextInt(maxSize - minSize + 1) + minSize;
+    /**
+     * Generates obstacles of a given kind.
+     *
+     * @param kind         The kind of obstacle: MOUNTAIN, LAKE, PIT or MINE.
+     * @param numObstacles The number of obstacles to generate.
+     * @return The generated obstacles; fewer than requested if the world ran out of room.
+     */
+    public List<Obstacle> generateObstacles(ObstacleKind kind, int numObstacles) {
+        List<Obstacle> obstacles = new ArrayList<>();
+        long attempts = (long) numObstacles * ATTEMPTS_PER_OBSTACLE;
+        while (obstacles.size() < numObstacles && attempts-- > 0) {
+            place(kind, obstacles);
+        }
+        return obstacles;
+    }
 
-            int x = random.nextInt(worldWidth - width + 1);
-            int y = random.nextInt(worldHeight - height + 1);
+    /**
+     * Generates random obstacles until the given fraction of the world is covered.
+     *
+     * @param density The target fraction of cells covered by obstacles, from 0 to 1.
+     * @return The generated obstacles; the density may fall short if the world ran out of room.
+     */
+    public List<Obstacle> generateToDensity(double density) {
+        List<Obstacle> obstacles = new ArrayList<>();
+        long area = (long) worldWidth * worldHeight;
+        long target = (long) Math.ceil(Math.min(Math.max(density, 0), 1) * area);
+        double averageSize = (minSize + maxSize) / 2.0;
+        long expected = (long) Math.ceil(Math.max(target - coveredCells, 0) / (averageSize * averageSize));
 
-            Obstacle newObstacle = createRandomObstacle(x, y, width, height);
+        long attempts = Math.max(expected, 1) * ATTEMPTS_PER_OBSTACLE;
+        while (coveredCells < target && attempts-- > 0) {
+            place(ObstacleKind.NONE, obstacles);
+        }
+        return obstacles;
+    }
 
-            boolean overlaps = obstacles.stream().anyMatch(o -> overlaps(o, newObstacle));
+    /**
+     * Returns how many cells are covered by the obstacles generated so far.
+     *
+     * @return The number of covered cells.
+     */
+    public long getCoveredCells() {
+        return coveredCells;
+    }
 
-            if (!overlaps) {
-                obstacles.add(newObstacle);
-            }
+    private void place(ObstacleKind kind, List<Obstacle> placed) {
+        int width = random.nextInt(maxSize - minSize + 1) + minSize;
+        int height = random.nextInt(maxSize - minSize + 1) + minSize;
+        ObstacleKind type = kind == ObstacleKind.NONE ? randomKind() : kind;
+        if (width > worldWidth || height > worldHeight) {
+            return;
         }
 
-        return obstacles;
+        int x = random.nextInt(worldWidth - width + 1);
+        int y = random.nextInt(worldHeight - height + 1);
+        if (occupancy.isFree(x, y, width, height)) {
+            occupancy.occupy(x, y, width, height);
+            coveredCells += (long) width * height;
+            placed.add(createObstacle(type, originX + x, originY + y, width, height));
+        }
     }
 
-    private Obstacle createRandomObstacle(int x, int y, int width, int height) {
+    private ObstacleKind randomKind() {
         // 0 = Mountain, 1 = Lake, 2 = Pit
-        int type = random.nextInt(3);
+        return switch (random.nextInt(3)) {
+            case 0 -> ObstacleKind.MOUNTAIN;
+            case 1 -> ObstacleKind.LAKE;
+            default -> ObstacleKind.PIT;
+        };
+    }
 
-        return switch (type) {
-            case 0 -> new Mountain(x, y, width, height);
-            case 1 -> new   Lake(x, y, width, height);
-            case 2 -> new Pit(x, y, width, height);
-            default -> throw new IllegalStateException("Unexpected obstacle type: " + type);
+    private Obstacle createObstacle(ObstacleKind kind, int x, int y, int width, int height) {
+        return switch (kind) {
+            case MOUNTAIN -> new Mountain(x, y, width, height);
+            case LAKE -> new Lake(x, y, width, height);
+            case PIT -> new Pit(x, y, width, height);
+            case MINE -> new Mine(x, y, width, height);
+            default -> throw new IllegalStateException("Unexpected obstacle type: " + kind);
         };
     }
 
-    private boolean overlaps(Obstacle a, Obstacle b) {
-        return a.getX() < b.getX() + b.getWidth() &&
-                a.getX() + a.getWidth() > b.getX() &&
-                a.getY() < b.getY() + b.getHeight() &&
-                a.getY() + a.getHeight() > b.getY();
+    private interface Occupancy {
+        boolean isFree(int x, int y, int width, int height);
+
+        void occupy(int x, int y, int width, int height);
+    }
+
+    /** One bit per cell. */
+    private class BitSetOccupancy implements Occupancy {
+        private final BitSet cells = new BitSet();
+
+        @Override
+        public boolean isFree(int x, int y, int width, int height) {
+            for (int row = y; row < y + height; row++) {
+                long start = (long) row * worldWidth + x;
+                int next = cells.nextSetBit((int) start);
+                if (next >= 0 && next < start + width) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void occupy(int x, int y, int width, int height) {
+            for (int row = y; row < y + height; row++) {
+                int start = (int) ((long) row * worldWidth + x);
+                cells.set(start, start + width);
+            }
+        }
+    }
+
+    /**
+     * Obstacles bucketed by maxSize x maxSize tiles. An obstacle is no larger than
+     * a tile, so a candidate can only overlap obstacles in its own or neighbouring tiles.
+     */
+    private class BucketOccupancy implements Occupancy {
+        private final Map<Long, List<int[]>> buckets = new HashMap<>();
+
+        @Override
+        public boolean isFree(int x, int y, int width, int height) {
+            int bx = x / maxSize;
+            int by = y / maxSize;
+            for (int cy = by - 1; cy <= by + 1; cy++) {
+                for (int cx = bx - 1; cx <= bx + 1; cx++) {
+                    for (int[] rect : buckets.getOrDefault(key(cx, cy), List.of())) {
+                        if (rect[0] < x + width && rect[0] + rect[2] > x && rect[1] < y + height && rect[1] + rect[3] > y) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void occupy(int x, int y, int width, int height) {
+            buckets.computeIfAbsent(key(x / maxSize, y / maxSize), k -> new ArrayList<>())
+                    .add(new int[]{x, y, width, height});
+        }
+
+        private long key(int bx, int by) {
+            return ((long) bx << 32) | (by & 0xffffffffL);
+        }
     }
 }
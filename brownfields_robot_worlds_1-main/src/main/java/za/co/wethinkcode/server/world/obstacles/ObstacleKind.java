@@ -0,0 +1,67 @@
+package za.co.wethinkcode.server.world.obstacles;
+
+/**
+ * Compact classification of the obstacles that can occupy a cell.
+ * Used by the world's spatial indexes, which store one kind per cell
+ * instead of a reference to the obstacle itself.
+ */
+public enum ObstacleKind {
+    NONE("None"),
+    MOUNTAIN("Mountain"),
+    LAKE("Lake"),
+    PIT("BottomlessPit"),
+    MINE("Mine"),
+    OTHER("Obstacle");
+
+    private static final ObstacleKind[] KINDS = values();
+
+    private final String typeName;
+
+    ObstacleKind(String typeName) {
+        this.typeName = typeName;
+    }
+
+    /**
+     * Returns the kind matching the given obstacle.
+     *
+     * @param obstacle the obstacle to classify
+     * @return the obstacle's kind, or {@code OTHER} for unknown obstacle types
+     */
+    public static ObstacleKind of(Obstacle obstacle) {
+        if (obstacle instanceof Mountain) return MOUNTAIN;
+        if (obstacle instanceof Lake) return LAKE;
+        if (obstacle instanceof Pit) return PIT;
+        if (obstacle instanceof Mine) return MINE;
+        return OTHER;
+    }
+
+    /**
+     * Returns the kind stored under the given code.
+     *
+     * @param code a value previously returned by {@link #code()}
+     * @return the matching kind
+     */
+    public static ObstacleKind fromCode(byte code) {
+        return KINDS[code];
+    }
+
+    /** Returns the single-byte code used to store this kind in a packed grid. */
+    public byte code() {
+        return (byte) ordinal();
+    }
+
+    /** Returns the type name reported for this kind, matching {@link Obstacle#getType()}. */
+    public String getTypeName() {
+        return typeName;
+    }
+
+    /** Returns true if a cell of this kind blocks movement, vision and shots. */
+    public boolean isBlocking() {
+        return this != NONE;
+    }
+
+    /** Returns true if a robot entering a cell of this kind is destroyed. */
+    public boolean destroysRobots() {
+        return this == PIT;
+    }
+}
@@ -16,6 +16,7 @@ import com.google.gson.JsonParser;
 import za.co.wethinkcode.server.world.WorldConfig;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class ReloadCommandTest {
     private World world;
@@ -89,6 +90,26 @@ class ReloadCommandTest {
                 jsonResponse.get("message").getAsString());
     }
 
+    @Test
+    void concurrentReloadsOnlyStartOnce() throws InterruptedException {
+        AtomicInteger started = new AtomicInteger();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = Thread.ofVirtual().start(() -> {
+                String response = new ReloadCommand(world, testRobot).execute();
+                if (response.contains("\"OK\"")) {
+                    started.incrementAndGet();
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, started.get());
+        assertEquals(Robot.Status.RELOAD, testRobot.getStatus());
+    }
+
     @Test
     @Timeout(value = 3000, unit = TimeUnit.MILLISECONDS)
     void executeShouldResetShotsAfterReloadTime() throws InterruptedException {
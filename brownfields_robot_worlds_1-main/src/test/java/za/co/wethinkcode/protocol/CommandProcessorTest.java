@@ -1,5 +1,8 @@
 package za.co.wethinkcode.protocol;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
@@ -49,4 +52,76 @@ class CommandProcessorTest {
         String response = processor.processMessage(json);
         assertTrue(response.contains("\"result\":\"ERROR\""), "Unknown command should return error");
     }
+
+    @Test
+    void processMessage_Batch_RunsCommandsInOrder() {
+        processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}");
+        String json = "{\"robot\":\"Bot1\",\"command\":\"batch\",\"arguments\":["
+                + "{\"command\":\"look\",\"arguments\":[]},"
+                + "{\"command\":\"turn\",\"arguments\":[\"right\"]},"
+                + "{\"command\":\"state\",\"arguments\":[]}]}";
+
+        JsonObject response = JsonParser.parseString(processor.processMessage(json)).getAsJsonObject();
+
+        assertEquals("OK", response.get("result").getAsString());
+        JsonArray results = response.getAsJsonObject("data").getAsJsonArray("results");
+        assertEquals(3, results.size());
+        assertEquals("EAST", results.get(2).getAsJsonObject().getAsJsonObject("state").get("direction").getAsString());
+    }
+
+    @Test
+    void processMessage_Batch_StopsAtFirstErrorWhenAsked() {
+        processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}");
+        String commands = "[{\"command\":\"turn\",\"arguments\":[\"sideways\"]},"
+                + "{\"command\":\"state\",\"arguments\":[]}]";
+
+        JsonObject stopped = JsonParser.parseString(processor.processMessage(
+                "{\"robot\":\"Bot1\",\"command\":\"batch\",\"stopOnError\":true,\"arguments\":" + commands + "}"))
+                .getAsJsonObject();
+        JsonObject continued = JsonParser.parseString(processor.processMessage(
+                "{\"robot\":\"Bot1\",\"command\":\"batch\",\"arguments\":" + commands + "}"))
+                .getAsJsonObject();
+
+        assertEquals("ERROR", stopped.get("result").getAsString());
+        assertEquals(1, stopped.getAsJsonObject("data").getAsJsonArray("results").size());
+        assertEquals("ERROR", continued.get("result").getAsString());
+        assertEquals(2, continued.getAsJsonObject("data").getAsJsonArray("results").size());
+    }
+
+    @Test
+    void processMessage_Batch_RejectsNestedBatches() {
+        String json = "{\"robot\":\"Bot1\",\"command\":\"batch\",\"arguments\":["
+                + "{\"command\":\"batch\",\"arguments\":[]}]}";
+
+        JsonObject response = JsonParser.parseString(processor.processMessage(json)).getAsJsonObject();
+
+        JsonObject inner = response.getAsJsonObject("data").getAsJsonArray("results").get(0).getAsJsonObject();
+        assertEquals("Batches cannot be nested", inner.getAsJsonObject("data").get("message").getAsString());
+    }
+
+    @Test
+    void removeAllRobots_OnlyRemovesThisConnectionsRobots() {
+        ServerCommandProcessor other = new ServerCommandProcessor(world);
+        processor.processMessage("{\"robot\":\"Mine\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}");
+        other.processMessage("{\"robot\":\"Theirs\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}");
+
+        processor.removeAllRobots();
+
+        assertNull(world.getRobotByName("Mine"));
+        assertNotNull(world.getRobotByName("Theirs"));
+        assertTrue(processor.getOwnedRobots().isEmpty());
+    }
+
+    @Test
+    void removeAllRobots_LeavesNamesakeLaunchedByAnotherClient() {
+        ServerCommandProcessor other = new ServerCommandProcessor(world);
+        processor.processMessage("{\"robot\":\"Bob\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}");
+        world.removeRobot(world.getRobotByName("Bob"));
+        other.processMessage("{\"robot\":\"Bob\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}");
+
+        processor.removeAllRobots();
+
+        assertNotNull(world.getRobotByName("Bob"));
+        assertEquals(other.getOwnedRobots().get(0), world.getRobotByName("Bob"));
+    }
 }
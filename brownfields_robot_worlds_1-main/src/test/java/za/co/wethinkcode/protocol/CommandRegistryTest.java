@@ -0,0 +1,88 @@
+package za.co.wethinkcode.protocol;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.protocol.server.BuiltInCommand;
+import za.co.wethinkcode.protocol.server.CommandHandler;
+import za.co.wethinkcode.protocol.server.CommandRegistry;
+import za.co.wethinkcode.protocol.server.RateLimit;
+import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CommandRegistryTest {
+    private World world;
+
+    @BeforeEach
+    public void setUp() {
+        world = new World(new WorldConfig() {{
+            properties.setProperty("WORLD_WIDTH", "10");
+            properties.setProperty("WORLD_HEIGHT", "10");
+        }});
+    }
+
+    @Test
+    public void defaultsHoldBuiltInsAndServicePlugins() {
+        CommandRegistry registry = CommandRegistry.defaults();
+        for (BuiltInCommand command : BuiltInCommand.values()) {
+            assertSame(command, registry.find(command.getName()));
+        }
+        assertTrue(registry.find("ping") instanceof PingHandler);
+        assertNull(registry.find("teleport"));
+    }
+
+    @Test
+    public void processorRunsPluggedInCommands() {
+        ServerCommandProcessor processor = new ServerCommandProcessor(world);
+        JsonObject response = parse(processor.processMessage("{\"command\":\"ping\"}"));
+        assertEquals("OK", response.get("result").getAsString());
+        assertEquals("pong", response.getAsJsonObject("data").get("message").getAsString());
+    }
+
+    @Test
+    public void onlyRegisteredCommandsRun() {
+        CommandRegistry registry = new CommandRegistry(List.of(BuiltInCommand.LAUNCH, BuiltInCommand.STATE));
+        ServerCommandProcessor processor = new ServerCommandProcessor(world, RateLimit.UNLIMITED, registry);
+
+        processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\"]}");
+        assertEquals("OK", parse(processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"state\"}"))
+                .get("result").getAsString());
+        JsonObject response = parse(processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"fire\"}"));
+        assertEquals("Unsupported command", response.getAsJsonObject("data").get("message").getAsString());
+    }
+
+    @Test
+    public void handlersAreSharedAcrossConnections() {
+        ServerCommandProcessor first = new ServerCommandProcessor(world);
+        ServerCommandProcessor second = new ServerCommandProcessor(world);
+        first.processMessage("{\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\"]}");
+        second.processMessage("{\"robot\":\"Bot2\",\"command\":\"launch\",\"arguments\":[\"Tank\"]}");
+
+        assertEquals("Bot1", first.getOwnedRobots().get(0).getName());
+        assertEquals("Bot2", second.getOwnedRobots().get(0).getName());
+        assertEquals(1, first.getOwnedRobots().size());
+    }
+
+    @Test
+    public void rejectsDuplicateAndReservedNames() {
+        CommandHandler batch = new PingHandler() {
+            @Override
+            public String getName() {
+                return "batch";
+            }
+        };
+        assertThrows(IllegalArgumentException.class,
+                () -> new CommandRegistry(List.of(BuiltInCommand.LOOK, BuiltInCommand.LOOK)));
+        assertThrows(IllegalArgumentException.class, () -> new CommandRegistry(List.of(batch)));
+    }
+
+    private static JsonObject parse(String response) {
+        return JsonParser.parseString(response).getAsJsonObject();
+    }
+}
@@ -0,0 +1,26 @@
+package za.co.wethinkcode.protocol;
+
+import za.co.wethinkcode.protocol.server.CommandContext;
+import za.co.wethinkcode.protocol.server.CommandHandler;
+
+/**
+ * A command plugged in as a service, to show that the server picks up handlers
+ * it does not know about. Registered in the test resources.
+ */
+public class PingHandler implements CommandHandler {
+
+    @Override
+    public String getName() {
+        return "ping";
+    }
+
+    @Override
+    public boolean actsOnRobot() {
+        return false;
+    }
+
+    @Override
+    public String handle(CommandContext context) {
+        return ResponseEncoder.ok("pong");
+    }
+}
@@ -0,0 +1,93 @@
+package za.co.wethinkcode.protocol;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.protocol.server.RateLimit;
+import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
+import za.co.wethinkcode.protocol.server.TokenBucket;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitTest {
+    private World world;
+
+    @BeforeEach
+    public void setUp() {
+        world = new World(new WorldConfig() {{
+            properties.setProperty("WORLD_WIDTH", "100");
+            properties.setProperty("WORLD_HEIGHT", "100");
+            properties.setProperty("MAX_ROBOTS", "2");
+        }});
+    }
+
+    @Test
+    public void bucketAllowsBurstThenAsksClientToWait() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+        assertEquals(0, bucket.tryConsume(1));
+        assertEquals(0, bucket.tryConsume(2));
+        long retryAfter = bucket.tryConsume(1);
+        assertTrue(retryAfter > 0 && retryAfter <= 1000, "retry after " + retryAfter);
+    }
+
+    @Test
+    public void expensiveCommandsUseUpTheAllowanceFaster() {
+        ServerCommandProcessor processor = new ServerCommandProcessor(world, RateLimit.of(0.001, 20));
+        processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}");
+
+        // launch cost 2 of 20, so three looks at 5 each fit and a fourth does not
+        for (int i = 0; i < 3; i++) {
+            assertFalse(processor.processMessage(look()).contains("retryAfterMs"));
+        }
+        String throttled = processor.processMessage(look());
+        assertTrue(throttled.contains("\"result\":\"ERROR\""), throttled);
+        assertTrue(throttled.contains("retryAfterMs"), throttled);
+    }
+
+    @Test
+    public void batchesPayForEveryCommandInThem() {
+        ServerCommandProcessor processor = new ServerCommandProcessor(world, RateLimit.of(0.001, 20));
+        String batch = "{\"robot\":\"Bot1\",\"command\":\"batch\",\"arguments\":["
+                + "{\"command\":\"look\"},{\"command\":\"look\"},{\"command\":\"look\"}]}";
+        assertFalse(processor.processMessage(batch).contains("retryAfterMs"));
+        assertTrue(processor.processMessage(batch).contains("retryAfterMs"));
+
+        String huge = "{\"robot\":\"Bot1\",\"command\":\"batch\",\"arguments\":["
+                + "{\"command\":\"dump\"},{\"command\":\"dump\"}]}";
+        assertTrue(processor.processMessage(huge).contains("more than the rate limit allows"));
+    }
+
+    @Test
+    public void burstMustCoverTheMostExpensiveCommand() {
+        assertThrows(IllegalArgumentException.class, () -> RateLimit.of(1, 5));
+    }
+
+    @Test
+    public void unlimitedProcessorNeverThrottles() {
+        ServerCommandProcessor processor = new ServerCommandProcessor(world);
+        for (int i = 0; i < 200; i++) {
+            assertFalse(processor.processMessage(look()).contains("retryAfterMs"));
+        }
+    }
+
+    @Test
+    public void launchesStopWhenTheWorldIsFull() {
+        ServerCommandProcessor processor = new ServerCommandProcessor(world);
+        assertTrue(processor.processMessage(launch("A")).contains("\"result\":\"OK\""));
+        assertTrue(processor.processMessage(launch("B")).contains("\"result\":\"OK\""));
+        String full = processor.processMessage(launch("C"));
+        assertTrue(full.contains("No more space in this world"), full);
+
+        world.removeRobot(world.getRobotByName("A"));
+        assertTrue(processor.processMessage(launch("C")).contains("\"result\":\"OK\""));
+    }
+
+    private static String look() {
+        return "{\"robot\":\"Bot1\",\"command\":\"look\",\"arguments\":[]}";
+    }
+
+    private static String launch(String name) {
+        return "{\"robot\":\"" + name + "\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,10]}";
+    }
+}
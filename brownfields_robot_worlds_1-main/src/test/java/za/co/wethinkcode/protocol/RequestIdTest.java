@@ -0,0 +1,185 @@
+package za.co.wethinkcode.protocol;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.protocol.server.BuiltInCommand;
+import za.co.wethinkcode.protocol.server.CommandContext;
+import za.co.wethinkcode.protocol.server.CommandHandler;
+import za.co.wethinkcode.protocol.server.CommandRegistry;
+import za.co.wethinkcode.protocol.server.RateLimit;
+import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestIdTest {
+    private World world;
+    private CountDownLatch release;
+    private ServerCommandProcessor processor;
+
+    @BeforeEach
+    public void setUp() {
+        world = new World(new WorldConfig() {{
+            properties.setProperty("WORLD_WIDTH", "10");
+            properties.setProperty("WORLD_HEIGHT", "10");
+        }});
+        release = new CountDownLatch(1);
+        CommandHandler slowDump = new CommandHandler() {
+            @Override
+            public String getName() {
+                return "slowdump";
+            }
+
+            @Override
+            public boolean actsOnRobot() {
+                return false;
+            }
+
+            @Override
+            public boolean canCompleteOutOfOrder() {
+                return true;
+            }
+
+            @Override
+            public String handle(CommandContext context) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ResponseEncoder.ok("dumped");
+            }
+        };
+        CommandRegistry registry = new CommandRegistry(List.of(BuiltInCommand.LAUNCH, BuiltInCommand.STATE,
+                BuiltInCommand.DUMP, slowDump));
+        processor = new ServerCommandProcessor(world, RateLimit.UNLIMITED, registry);
+    }
+
+    @Test
+    public void numericAndStringIdsAreEchoed() {
+        JsonObject launched = parse(processor.processMessage(
+                "{\"id\":7,\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\"]}"));
+        assertEquals(7, launched.get("id").getAsInt());
+        assertEquals("OK", launched.get("result").getAsString());
+
+        String state = processor.processMessage("{\"id\":\"a<1>\",\"robot\":\"Bot1\",\"command\":\"state\"}");
+        assertTrue(state.startsWith("{\"id\":\"a\\u003c1\\u003e\","));
+        assertEquals("a<1>", parse(state).get("id").getAsString());
+    }
+
+    @Test
+    public void errorsCarryTheIdAndRequestsWithoutOneAreUnchanged() {
+        JsonObject error = parse(processor.processMessage("{\"id\":3,\"robot\":\"Bot1\",\"command\":\"teleport\"}"));
+        assertEquals(3, error.get("id").getAsInt());
+        assertEquals("ERROR", error.get("result").getAsString());
+
+        assertFalse(processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"state\"}").contains("\"id\""));
+    }
+
+    @Test
+    public void slowRequestDoesNotHoldUpLaterOnes() throws InterruptedException {
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        processor.processMessage("{\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\"]}", replies::add);
+        replies.take();
+
+        processor.processMessage("{\"id\":1,\"command\":\"slowdump\"}", replies::add);
+        assertTrue(processor.hasRequestsInFlight());
+        processor.processMessage("{\"id\":2,\"robot\":\"Bot1\",\"command\":\"state\"}", replies::add);
+        assertEquals(2, parse(replies.poll(5, TimeUnit.SECONDS)).get("id").getAsInt());
+
+        release.countDown();
+        JsonObject dump = parse(replies.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, dump.get("id").getAsInt());
+        assertEquals("dumped", dump.getAsJsonObject("data").get("message").getAsString());
+        assertTrue(processor.awaitInFlight(1000));
+    }
+
+    @Test
+    public void requestsWithoutIdStayInOrder() throws InterruptedException {
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        release.countDown();
+        processor.processMessage("{\"command\":\"slowdump\"}", replies::add);
+        assertFalse(processor.hasRequestsInFlight());
+        assertEquals(1, replies.size());
+    }
+
+    @Test
+    public void responsesAreDroppedOnceClosed() throws InterruptedException {
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        processor.processMessage("{\"id\":1,\"command\":\"slowdump\"}", replies::add);
+        processor.close();
+        release.countDown();
+        assertTrue(processor.awaitInFlight(5000));
+        assertTrue(replies.isEmpty());
+    }
+
+    @Test
+    public void detachedDumpsNeverSeeHalfABatch() throws Exception {
+        World open = new World(new WorldConfig() {{
+            properties.setProperty("WORLD_WIDTH", "20");
+            properties.setProperty("WORLD_HEIGHT", "20");
+            properties.setProperty("NUM_PITS", "0");
+            properties.setProperty("NUM_LAKES", "0");
+            properties.setProperty("NUM_MOUNTAINS", "0");
+        }});
+        ServerCommandProcessor spinner = new ServerCommandProcessor(open);
+        ServerCommandProcessor runner = new ServerCommandProcessor(open);
+        ServerCommandProcessor dumper = new ServerCommandProcessor(open);
+        spinner.processMessage("{\"robot\":\"Spinner\",\"command\":\"launch\",\"arguments\":[\"Sniper\"]}");
+        runner.processMessage("{\"robot\":\"Runner\",\"command\":\"launch\",\"arguments\":[\"Sniper\"]}");
+        String facing = open.getRobotByName("Spinner").getDirection().name();
+
+        // Each batch turns the spinner away and back, so only a half-done batch shows another direction
+        String batch = "{\"robot\":\"Spinner\",\"command\":\"batch\",\"arguments\":["
+                + "{\"command\":\"turn\",\"arguments\":[\"right\"]},"
+                + "{\"command\":\"turn\",\"arguments\":[\"right\"]},"
+                + "{\"command\":\"turn\",\"arguments\":[\"left\"]},"
+                + "{\"command\":\"turn\",\"arguments\":[\"left\"]}]}";
+        AtomicBoolean done = new AtomicBoolean();
+        Thread spinning = Thread.ofPlatform().start(() -> {
+            while (!done.get()) {
+                spinner.processMessage(batch);
+            }
+        });
+        Thread running = Thread.ofPlatform().start(() -> {
+            for (int i = 0; !done.get(); i++) {
+                String command = i % 2 == 0 ? "forward" : "back";
+                runner.processMessage("{\"robot\":\"Runner\",\"command\":\"" + command + "\",\"arguments\":[\"1\"]}");
+            }
+        });
+
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        try {
+            for (int i = 0; i < 500; i++) {
+                dumper.processMessage("{\"id\":" + i + ",\"command\":\"dump\"}", replies::add);
+                JsonObject dump = parse(replies.poll(5, TimeUnit.SECONDS));
+                assertEquals("OK", dump.get("result").getAsString(), dump.toString());
+                for (var robot : dump.getAsJsonObject("data").getAsJsonArray("robots")) {
+                    JsonObject state = robot.getAsJsonObject();
+                    if (state.get("name").getAsString().equals("Spinner")) {
+                        assertEquals(facing, state.get("direction").getAsString());
+                    }
+                }
+            }
+        } finally {
+            done.set(true);
+            spinning.join();
+            running.join();
+        }
+        assertTrue(dumper.awaitInFlight(1000));
+    }
+
+    private JsonObject parse(String json) {
+        return JsonParser.parseString(json).getAsJsonObject();
+    }
+}
@@ -0,0 +1,118 @@
+package za.co.wethinkcode.protocol;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.protocol.server.Request;
+import za.co.wethinkcode.protocol.server.RequestReader;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RequestReaderTest {
+    private Request request;
+
+    @BeforeEach
+    public void setUp() {
+        request = new Request();
+    }
+
+    @Test
+    public void readsCommandRobotAndArguments() throws IOException {
+        RequestReader.read("{\"robot\":\"Bot1\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,true]}", request);
+
+        assertEquals("launch", request.getCommand());
+        assertEquals("Bot1", request.getRobot());
+        assertTrue(request.hasArguments());
+        assertEquals(3, request.getArgumentCount());
+        assertEquals("Sniper", request.getArgument(0));
+        assertEquals(5, request.getIntArgument(1));
+        assertEquals("true", request.getArgument(2));
+    }
+
+    @Test
+    public void skipsUnknownFields() throws IOException {
+        RequestReader.read("{\"extra\":{\"deep\":[1,{\"a\":2}]},\"command\":\"state\",\"robot\":\"Bot1\",\"n\":null}",
+                request);
+
+        assertEquals("state", request.getCommand());
+        assertEquals("Bot1", request.getRobot());
+        assertFalse(request.hasArguments());
+    }
+
+    @Test
+    public void readsBatchEntries() throws IOException {
+        RequestReader.read("{\"robot\":\"Bot1\",\"command\":\"batch\",\"stopOnError\":true,\"arguments\":["
+                + "{\"command\":\"forward\",\"arguments\":[2]},\"look\",{\"command\":\"turn\",\"robot\":\"Bot2\"}]}",
+                request);
+
+        assertTrue(request.isStopOnError());
+        assertEquals(3, request.getArgumentCount());
+        assertEquals("forward", request.getEntry(0).getCommand());
+        assertEquals(2, request.getEntry(0).getIntArgument(0));
+        assertNull(request.getEntry(0).getRobot());
+        assertNull(request.getEntry(1));
+        assertEquals("look", request.getArgument(1));
+        assertEquals("Bot2", request.getEntry(2).getRobot());
+    }
+
+    @Test
+    public void reusesRequestWithoutLeftovers() throws IOException {
+        RequestReader.read("{\"robot\":\"Bot1\",\"command\":\"batch\",\"arguments\":[{\"command\":\"look\"}]}", request);
+        Request entry = request.getEntry(0);
+
+        RequestReader.read("{\"command\":\"robots\"}", request);
+        assertEquals("robots", request.getCommand());
+        assertNull(request.getRobot());
+        assertEquals(0, request.getArgumentCount());
+
+        RequestReader.read("{\"command\":\"batch\",\"arguments\":[{\"command\":\"fire\"}]}", request);
+        assertSame(entry, request.getEntry(0), "batch entries are pooled");
+        assertEquals("fire", request.getEntry(0).getCommand());
+    }
+
+    @Test
+    public void rejectsInvalidJson() {
+        assertThrows(IOException.class, () -> RequestReader.read("{\"command\":", request));
+        assertThrows(IOException.class, () -> RequestReader.read("{\"command\":\"look\"} trailing", request));
+        assertThrows(IllegalStateException.class, () -> RequestReader.read("[1,2]", request));
+    }
+
+    @Test
+    public void oneReaderServesEveryLineOfAConnection() throws IOException {
+        RequestReader reader = new RequestReader();
+        reader.decode("{\"id\":1,\"robot\":\"Bot1\",\"command\":\"state\"}", request);
+        assertEquals("1", request.getId());
+        assertTrue(request.hasNumericId());
+
+        assertThrows(IOException.class, () -> reader.decode("{\"command\":[\"look\"", request));
+
+        reader.decode("{\"command\":\"look\",\"robot\":\"Bot2\"}", request);
+        assertEquals("look", request.getCommand());
+        assertEquals("Bot2", request.getRobot());
+        assertNull(request.getId());
+    }
+
+    @Test
+    public void readsEscapesAndLenientForms() throws IOException {
+        RequestReader.read("{ command : 'launch', 'robot':\"B\\u00f6t \\\"1\\\"\", arguments:[sniper, -2.5e1, null], id:abc }",
+                request);
+
+        assertEquals("launch", request.getCommand());
+        assertEquals("B\u00f6t \"1\"", request.getRobot());
+        assertEquals("sniper", request.getArgument(0));
+        assertEquals("-2.5e1", request.getArgument(1));
+        assertEquals(3, request.getArgumentCount());
+        assertEquals("abc", request.getId());
+        assertFalse(request.hasNumericId());
+    }
+
+    @Test
+    public void skipsDeeplyNestedFieldsWithoutRecursing() throws IOException {
+        String deep = "[".repeat(100_000) + "]".repeat(100_000);
+        RequestReader.read("{\"extra\":" + deep + ",\"command\":\"state\"}", request);
+        assertEquals("state", request.getCommand());
+
+        assertThrows(IOException.class, () -> RequestReader.read("{\"extra\":[{]},\"command\":\"state\"}", request));
+    }
+}
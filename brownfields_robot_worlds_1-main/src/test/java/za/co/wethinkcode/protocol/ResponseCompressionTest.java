@@ -0,0 +1,91 @@
+package za.co.wethinkcode.protocol;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.protocol.client.ResponseDecompressor;
+import za.co.wethinkcode.protocol.server.ResponseCompressor;
+import za.co.wethinkcode.protocol.server.ServerCommandProcessor;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCompressionTest {
+    private ResponseCompressor compressor;
+    private ResponseDecompressor decompressor;
+
+    @BeforeEach
+    public void setUp() {
+        compressor = new ResponseCompressor();
+        decompressor = new ResponseDecompressor();
+    }
+
+    @Test
+    public void responsesPassThroughUntilNegotiated() {
+        String large = "{\"result\":\"OK\",\"data\":\"" + "x".repeat(5000) + "\"}";
+        assertEquals(large, compressor.encode(large));
+    }
+
+    @Test
+    public void largeResponsesRoundTripInOrder() {
+        compressor.enable(Compression.MIN_THRESHOLD);
+        for (int i = 0; i < 5; i++) {
+            String response = "{\"result\":\"OK\",\"data\":{\"objects\":[" + "{\"type\":\"OBSTACLE\"},".repeat(200 + i) + "]}}";
+            String line = compressor.encode(response);
+            assertTrue(line.startsWith(Compression.ENVELOPE_PREFIX));
+            assertFalse(line.contains("\n"));
+            assertTrue(line.length() < response.length() / 4, "compressed line is " + line.length());
+            assertEquals(response, decompressor.decode(line));
+        }
+    }
+
+    @Test
+    public void smallResponsesStayPlain() {
+        compressor.enable(Compression.MIN_THRESHOLD);
+        String small = "{\"result\":\"OK\",\"state\":{\"shields\":5}}";
+        assertEquals(small, compressor.encode(small));
+        assertEquals(small, decompressor.decode(small));
+    }
+
+    @Test
+    public void thresholdCountsUtf8Bytes() {
+        compressor.enable(Compression.MIN_THRESHOLD);
+        // 200 chars, but 389 bytes once encoded
+        String wide = "{\"data\":\"" + "\u00e9".repeat(189) + "\"}";
+        assertEquals(200, wide.length());
+        String line = compressor.encode(wide);
+        assertTrue(line.startsWith(Compression.ENVELOPE_PREFIX));
+        assertEquals(wide, decompressor.decode(line));
+
+        String narrow = "{\"data\":\"" + "e".repeat(189) + "\"}";
+        assertEquals(narrow, compressor.encode(narrow));
+    }
+
+    @Test
+    public void thresholdBelowMinimumIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> compressor.enable(10));
+        assertFalse(compressor.isEnabled());
+    }
+
+    @Test
+    public void negotiationThroughTheProcessor() {
+        World world = new World(new WorldConfig() {{
+            properties.setProperty("WORLD_WIDTH", "100");
+            properties.setProperty("WORLD_HEIGHT", "100");
+        }});
+        ServerCommandProcessor processor = new ServerCommandProcessor(world);
+
+        String refused = processor.processMessage("{\"command\":\"compress\",\"arguments\":[\"gzip\"]}");
+        assertTrue(refused.contains("Unsupported encoding"), refused);
+        String tooSmall = processor.processMessage(Compression.negotiationRequest(1));
+        assertTrue(tooSmall.contains("ERROR"), tooSmall);
+
+        String accepted = processor.processMessage(Compression.negotiationRequest(Compression.MIN_THRESHOLD));
+        assertTrue(accepted.contains("\"result\":\"OK\""), accepted);
+
+        String dump = processor.processMessage("{\"command\":\"dump\",\"arguments\":[]}");
+        assertTrue(dump.startsWith(Compression.ENVELOPE_PREFIX), dump);
+        assertTrue(decompressor.decode(dump).contains("\"result\""));
+        processor.close();
+    }
+}
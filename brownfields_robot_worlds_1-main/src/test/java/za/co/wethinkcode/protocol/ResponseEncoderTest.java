@@ -0,0 +1,132 @@
+package za.co.wethinkcode.protocol;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.client.commands.StateCommand;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.utils.VisionFinder;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.WorldDumper;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseEncoderTest {
+    private final Gson gson = new Gson();
+    private World world;
+    private Robot robot;
+
+    @BeforeEach
+    public void setUp() {
+        world = new World(new WorldConfig() {{
+            properties.setProperty("WORLD_WIDTH", "20");
+            properties.setProperty("WORLD_HEIGHT", "20");
+            properties.setProperty("NUM_PITS", "0");
+            properties.setProperty("NUM_MOUNTAINS", "0");
+            properties.setProperty("NUM_LAKES", "0");
+            properties.setProperty("VISIBILITY_RANGE", "5");
+        }});
+        world.getObstacles().add(new Mountain(5, 2, 1, 1));
+        robot = new Robot("R<1>", new Position(5, 5));
+        robot.setMake("Sniper");
+        robot.setDirection(Direction.EAST);
+        robot.setShields(3);
+        robot.setShots(4);
+        world.addRobot(robot);
+    }
+
+    @Test
+    public void stateMatchesTheGsonTree() {
+        JsonObject expected = new JsonObject();
+        expected.addProperty("result", "OK");
+        JsonObject data = new JsonObject();
+        data.addProperty("message", "Done");
+        expected.add("data", data);
+        expected.add("state", new StateCommand(robot).toJson());
+
+        assertEquals(gson.toJson(expected), ResponseEncoder.ok("Done", robot));
+    }
+
+    @Test
+    public void dumpsMatchTheGsonTree() {
+        WorldDumper dumper = new WorldDumper(world);
+
+        JsonBuffer json = JsonBuffer.acquire();
+        dumper.writeWorldDump(json);
+        assertEquals(gson.toJson(dumper.createWorldDump()), json.finish());
+
+        json = JsonBuffer.acquire();
+        dumper.writeRegionDump(json, 0, 0, 6, 6);
+        assertEquals(gson.toJson(dumper.createRegionDump(0, 0, 6, 6)), json.finish());
+    }
+
+    @Test
+    public void visionMatchesTheGsonTree() {
+        VisionFinder finder = new VisionFinder(world, robot);
+
+        JsonBuffer json = JsonBuffer.acquire();
+        finder.writeInAbsoluteDirections(json, robot);
+        assertEquals(gson.toJson(finder.findInAbsoluteDirections(robot)), json.finish());
+    }
+
+    @Test
+    public void escapesStringsAndLeavesOutNulls() {
+        JsonObject expected = new JsonObject();
+        expected.addProperty("result", "ERROR");
+        expected.add("data", new JsonObject());
+        assertEquals(gson.toJson(expected), ResponseEncoder.error(null));
+
+        String message = "quote \" slash \\ tag <b> & 'tick'\n\u0001";
+        String encoded = ResponseEncoder.error(message);
+        assertFalse(encoded.contains("<"));
+        assertEquals(message, JsonParser.parseString(encoded).getAsJsonObject()
+                .getAsJsonObject("data").get("message").getAsString());
+    }
+
+    @Test
+    public void nestedWritersGetTheirOwnBuffer() {
+        JsonBuffer outer = JsonBuffer.acquire();
+        outer.beginArray().rawValue(ResponseEncoder.ok("Miss"));
+        assertEquals("[{\"result\":\"OK\",\"data\":{\"message\":\"Miss\"}}]", outer.endArray().finish());
+        assertTrue(ResponseEncoder.isError(ResponseEncoder.commandError("No shots available")));
+    }
+
+    @Test
+    public void failedWritesHandTheBufferBack() {
+        JsonBuffer.Pool pool = new JsonBuffer.Pool();
+        JsonBuffer failed = pool.use(() -> {
+            JsonBuffer json = JsonBuffer.acquire();
+            try (json) {
+                json.beginObject().name("result");
+                throw new IllegalStateException("encoding failed");
+            } catch (IllegalStateException e) {
+                return json;
+            }
+        });
+
+        assertEquals(1, pool.getIdleCount());
+        String next = pool.use(() -> {
+            try (JsonBuffer json = JsonBuffer.acquire()) {
+                assertSame(failed, json);
+                return json.beginObject().name("result").value("OK").endObject().finish();
+            }
+        });
+        assertEquals("{\"result\":\"OK\"}", next);
+    }
+
+    @Test
+    public void connectionBuffersAreReusedAcrossThreads() throws InterruptedException {
+        JsonBuffer.Pool pool = new JsonBuffer.Pool();
+        for (int i = 0; i < 20; i++) {
+            Thread thread = Thread.ofVirtual().start(() -> pool.use(() -> ResponseEncoder.ok("Done", robot)));
+            thread.join();
+        }
+        assertEquals(1, pool.getIdleCount());
+    }
+}
@@ -0,0 +1,90 @@
+package za.co.wethinkcode.robots.server;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.handler.ClientHandler;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Lake;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RobotWorldJsonClientTest {
+    private ServerSocket serverSocket;
+    private RobotWorldJsonClient client;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "1000");
+        props.setProperty("WORLD_HEIGHT", "1000");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        World world = new World(new WorldConfig(props));
+        // Enough obstacles that a dump takes far longer than a state
+        Random random = new Random(3);
+        for (int i = 0; i < 10_000; i++) {
+            world.addObstacle(new Lake(random.nextInt(1000), random.nextInt(1000), 1, 1));
+        }
+
+        serverSocket = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Thread.ofVirtual().start(new ClientHandler(serverSocket.accept(), world));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+        client = new RobotWorldJsonClient();
+        client.connect("localhost", serverSocket.getLocalPort());
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        client.disconnect();
+        serverSocket.close();
+    }
+
+    @Test
+    public void outOfOrderResponsesAreMatchedToTheirRequests() {
+        assertEquals("OK", client.sendRequest(
+                "{\"robot\":\"Hal\",\"command\":\"launch\",\"arguments\":[\"Sniper\"]}").get("result").asText());
+
+        List<String> requests = new ArrayList<>();
+        requests.add("{\"robot\":\"Hal\",\"command\":\"state\",\"arguments\":[]}");
+        requests.add("{\"id\":1,\"command\":\"dump\"}");
+        for (int i = 0; i < 10; i++) {
+            requests.add("{\"robot\":\"Hal\",\"command\":\"state\",\"arguments\":[]}");
+        }
+        requests.add("{\"id\":\"1\",\"robot\":\"Hal\",\"command\":\"state\",\"arguments\":[]}");
+        List<JsonNode> responses = client.sendRequests(requests);
+
+        assertEquals(requests.size(), responses.size());
+        assertEquals(1, responses.get(1).get("id").asInt());
+        assertTrue(responses.get(1).get("id").isNumber());
+        assertEquals(10_000, responses.get(1).path("data").path("obstacles").size());
+        for (int i = 0; i < responses.size(); i++) {
+            if (i != 1) {
+                assertTrue(responses.get(i).has("state"), "response " + i + ": " + responses.get(i));
+            }
+        }
+        assertTrue(responses.get(requests.size() - 1).get("id").isTextual());
+    }
+}
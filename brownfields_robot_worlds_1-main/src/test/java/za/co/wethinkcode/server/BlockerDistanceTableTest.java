@@ -0,0 +1,124 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.ObjectInDirection;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Lake;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BlockerDistanceTableTest {
+    private World world;
+
+    @BeforeEach
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "12");
+        props.setProperty("WORLD_HEIGHT", "9");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "20");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        world = new World(new WorldConfig(props));
+    }
+
+    @Test
+    public void emptyWorldMeasuresDistanceToTheEdge() {
+        Position start = new Position(3, 4);
+
+        assertEquals(5, world.getDistanceToBlocker(start, Direction.NORTH, 20));
+        assertEquals(9, world.getDistanceToBlocker(start, Direction.EAST, 20));
+        assertEquals(5, world.getDistanceToBlocker(start, Direction.SOUTH, 20));
+        assertEquals(4, world.getDistanceToBlocker(start, Direction.WEST, 20));
+        assertEquals(3, world.getDistanceToBlocker(start, Direction.EAST, 2));
+    }
+
+    @Test
+    public void addingAndRemovingObstaclesUpdatesDistances() {
+        Position start = new Position(1, 4);
+        Mountain mountain = new Mountain(6, 3, 2, 3);
+
+        world.addObstacle(mountain);
+        assertEquals(5, world.getDistanceToBlocker(start, Direction.EAST, 20));
+
+        world.addObstacle(new Lake(3, 4, 1, 1));
+        assertEquals(2, world.getDistanceToBlocker(start, Direction.EAST, 20));
+
+        world.getObstacles().remove(mountain);
+        assertEquals(2, world.getDistanceToBlocker(start, Direction.EAST, 20));
+
+        world.getObstacles().clear();
+        assertEquals(11, world.getDistanceToBlocker(start, Direction.EAST, 20));
+    }
+
+    @Test
+    public void incrementalUpdatesMatchAFullScan() {
+        Random random = new Random(42);
+        for (int i = 0; i < 60; i++) {
+            Obstacle obstacle = new Mountain(random.nextInt(12), random.nextInt(9),
+                    1 + random.nextInt(3), 1 + random.nextInt(3));
+            if (random.nextInt(3) == 0 && !world.getObstacles().isEmpty()) {
+                world.getObstacles().remove(random.nextInt(world.getObstacles().size()));
+            } else {
+                world.addObstacle(obstacle);
+            }
+            assertMatchesScan();
+        }
+    }
+
+    @Test
+    public void lookOnlyReportsRobotsInFrontOfTheObstacle() {
+        Robot looker = new Robot("Looker", new Position(0, 0));
+        Robot hidden = new Robot("Hidden", new Position(6, 0));
+        world.addRobot(looker);
+        world.addRobot(hidden);
+        world.addObstacle(new Mountain(4, 0, 1, 1));
+
+        ObjectInDirection seen = world.findClosestObjectInDirection(looker.getPosition(), Direction.EAST, 10, looker);
+        assertEquals("OBSTACLE", seen.type);
+        assertEquals(4, seen.distance);
+
+        Robot visible = new Robot("Visible", new Position(2, 0));
+        world.addRobot(visible);
+        seen = world.findClosestObjectInDirection(looker.getPosition(), Direction.EAST, 10, looker);
+        assertEquals("ROBOT", seen.type);
+        assertEquals(2, seen.distance);
+
+        assertNull(world.findClosestObjectInDirection(looker.getPosition(), Direction.NORTH, 20, looker));
+    }
+
+    private void assertMatchesScan() {
+        for (int x = 0; x < world.getWidth(); x++) {
+            for (int y = 0; y < world.getHeight(); y++) {
+                Position start = new Position(x, y);
+                for (Direction direction : Direction.values()) {
+                    assertEquals(scan(start, direction), world.getDistanceToBlocker(start, direction, 100),
+                            direction + " from " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    private int scan(Position start, Direction direction) {
+        for (int step = 1; ; step++) {
+            Position current = world.getPositionInDirection(start, direction, step);
+            if (!world.isPositionValid(current) || world.isPositionBlocked(current)) {
+                return step;
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.ChunkedWorldStore;
+import za.co.wethinkcode.server.world.ObstacleIndexType;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Lake;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
+import za.co.wethinkcode.server.world.obstacles.Pit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkedWorldStoreTest {
+    private ChunkedWorldStore store;
+
+    @BeforeEach
+    public void setUp() {
+        store = new ChunkedWorldStore(1000000, 1000000);
+    }
+
+    @Test
+    public void chunksAreOnlyAllocatedWhenTouched() {
+        assertEquals(0, store.getChunkCount());
+
+        store.add(new Mountain(10, 10, 2, 2));
+        store.robotEntered(new Position(900000, 900000));
+
+        assertEquals(2, store.getChunkCount());
+        assertEquals(ObstacleKind.MOUNTAIN, store.kindAt(11, 11));
+        assertEquals(ObstacleKind.NONE, store.kindAt(12, 11));
+        assertEquals(ObstacleKind.NONE, store.kindAt(500000, 500000));
+    }
+
+    @Test
+    public void emptyChunksAreReleased() {
+        Lake lake = new Lake(60, 60, 10, 10);
+        store.add(lake);
+        assertEquals(4, store.getChunkCount());
+
+        store.robotEntered(new Position(65, 65));
+        store.remove(lake);
+        assertEquals(1, store.getChunkCount());
+        assertFalse(store.kindAt(65, 65).isBlocking());
+
+        store.robotLeft(new Position(65, 65));
+        assertEquals(0, store.getChunkCount());
+    }
+
+    @Test
+    public void queriesRunSafelyAlongsideChanges() throws InterruptedException {
+        Mountain fixed = new Mountain(0, 0, 1, 1);
+        store.add(fixed);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread writer = Thread.ofPlatform().start(() -> {
+            for (int i = 0; i < 2000; i++) {
+                Obstacle obstacle = new Lake(1 + i % 60, 1 + i % 60, 3, 3);
+                store.add(obstacle);
+                store.robotEntered(new Position(5, 5));
+                store.robotLeft(new Position(5, 5));
+                store.remove(obstacle);
+            }
+        });
+        Thread reader = Thread.ofPlatform().start(() -> {
+            try {
+                while (writer.isAlive()) {
+                    List<Obstacle> seen = new ArrayList<>();
+                    store.forEachIntersecting(0, 0, 64, 64, seen::add);
+                    assertTrue(seen.contains(fixed));
+                    assertEquals(ObstacleKind.MOUNTAIN, store.kindAt(0, 0));
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        writer.join();
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(1, store.getChunkCount());
+    }
+
+    @Test
+    public void obstacleSpanningChunksIsReportedOnce() {
+        Lake lake = new Lake(60, 60, 10, 10);
+        store.add(lake);
+        store.add(new Pit(300, 300, 1, 1));
+
+        List<Obstacle> found = new ArrayList<>();
+        store.forEachIntersecting(0, 0, 200, 200, found::add);
+
+        assertEquals(List.of(lake), found);
+    }
+
+    @Test
+    public void worldTracksRobotsAcrossChunks() {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "1000");
+        props.setProperty("WORLD_HEIGHT", "1000");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "10");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        props.setProperty("OBSTACLE_INDEX", "chunked");
+        WorldConfig config = new WorldConfig(props);
+        assertEquals(ObstacleIndexType.CHUNKED, config.getObstacleIndexType());
+
+        World world = new World(config);
+        world.addObstacle(new Mountain(70, 62, 1, 1));
+        Robot robot = new Robot("Roamer", new Position(62, 62));
+        world.addRobot(robot);
+
+        robot.setPosition(new Position(66, 62));
+
+        assertSame(robot, world.getRobotAtPosition(new Position(66, 62)));
+        assertTrue(world.isPositionBlocked(new Position(70, 62)));
+        assertEquals(4, world.getDistanceToBlocker(robot.getPosition(), Direction.EAST, 10));
+        assertEquals(1, world.getObstaclesInRegion(64, 0, 64, 64 * 2).size());
+    }
+}
@@ -0,0 +1,72 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Coordinates;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.RobotCellMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoordinatesTest {
+
+    @Test
+    public void packedCellsRoundTripNegativeCoordinates() {
+        long packed = Coordinates.pack(-3, -7);
+
+        assertEquals(-3, Coordinates.x(packed));
+        assertEquals(-7, Coordinates.y(packed));
+        assertEquals(new Position(-3, -7), Coordinates.toPosition(packed));
+        assertEquals(packed, Coordinates.pack(new Position(-3, -7)));
+    }
+
+    @Test
+    public void stepFollowsWorldDirections() {
+        long start = Coordinates.pack(5, 5);
+
+        assertEquals(Coordinates.pack(5, 8), Coordinates.step(start, Direction.NORTH, 3));
+        assertEquals(Coordinates.pack(7, 5), Coordinates.step(start, Direction.EAST, 2));
+        assertEquals(Coordinates.pack(5, 4), Coordinates.step(start, Direction.SOUTH, 1));
+        assertEquals(Coordinates.pack(6, 5), Coordinates.step(start, Direction.WEST, -1));
+    }
+
+    @Test
+    public void equalPositionsShareAHashCode() {
+        assertEquals(new Position(12, -4).hashCode(), new Position(12, -4).hashCode());
+        assertNotEquals(new Position(1, 2).hashCode(), new Position(2, 1).hashCode());
+    }
+
+    @Test
+    public void robotCellMapMatchesAHashMap() {
+        RobotCellMap map = new RobotCellMap();
+        Map<Long, Robot> expected = new HashMap<>();
+        Random random = new Random(3);
+
+        for (int i = 0; i < 5000; i++) {
+            long cell = Coordinates.pack(random.nextInt(40) - 20, random.nextInt(40) - 20);
+            if (random.nextBoolean()) {
+                Robot robot = new Robot("R" + i, Coordinates.toPosition(cell));
+                assertEquals(!expected.containsKey(cell), map.putIfAbsent(cell, robot));
+                expected.putIfAbsent(cell, robot);
+            } else {
+                Robot current = expected.get(cell);
+                if (current != null) {
+                    assertTrue(map.remove(cell, current));
+                    expected.remove(cell);
+                } else {
+                    assertFalse(map.remove(cell, new Robot("Nobody", new Position(0, 0))));
+                }
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Robot> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.utils.PositionFinder;
+import za.co.wethinkcode.server.world.FreeCellIndex;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FreeCellIndexTest {
+    private World world;
+
+    @BeforeEach
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "10");
+        props.setProperty("WORLD_HEIGHT", "10");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        world = new World(new WorldConfig(props));
+    }
+
+    @Test
+    public void sampleOnlyReturnsFreeCells() {
+        FreeCellIndex index = new FreeCellIndex(3, 2);
+        index.update(0, 0, false);
+        index.update(2, 1, false);
+        index.update(2, 1, false);
+
+        assertEquals(4, index.getFreeCount());
+        Set<Position> seen = new HashSet<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 200; i++) {
+            seen.add(index.sample(random));
+        }
+        assertEquals(Set.of(new Position(1, 0), new Position(2, 0), new Position(0, 1), new Position(1, 1)), seen);
+    }
+
+    @Test
+    public void lastFreeCellIsFoundInACrowdedWorld() {
+        world.addObstacle(new Mountain(0, 0, 10, 5));
+        int count = 0;
+        for (int x = 0; x < 10; x++) {
+            for (int y = 5; y < 10; y++) {
+                if (x != 7 || y != 8) {
+                    world.addRobot(new Robot("Bot" + count++, new Position(x, y)));
+                }
+            }
+        }
+
+        assertEquals(new Position(7, 8), new PositionFinder(world).findRandomOpenPosition());
+
+        world.addRobot(new Robot("Last", new Position(7, 8)));
+        assertNull(new PositionFinder(world).findRandomOpenPosition());
+    }
+
+    @Test
+    public void cellsAreFreedWhenRobotsAndObstaclesLeave() {
+        world.addObstacle(new Mountain(0, 0, 10, 10));
+        assertNull(new PositionFinder(world).findRandomOpenPosition());
+
+        world.getObstacles().clear();
+        world.addObstacle(new Mountain(0, 0, 10, 9));
+        Robot robot = new Robot("Mover", new Position(0, 9));
+        world.addRobot(robot);
+        for (int x = 1; x < 10; x++) {
+            world.addRobot(new Robot("Bot" + x, new Position(x, 9)));
+        }
+        assertNull(new PositionFinder(world).findRandomOpenPosition());
+
+        world.removeRobot(robot);
+        assertEquals(new Position(0, 9), new PositionFinder(world).findRandomOpenPosition());
+    }
+}
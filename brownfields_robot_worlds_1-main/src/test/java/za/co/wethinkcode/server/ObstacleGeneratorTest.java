@@ -0,0 +1,102 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleGenerator;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObstacleGeneratorTest {
+
+    @Test
+    public void sameSeedGivesSameObstacles() {
+        List<Obstacle> first = new ObstacleGenerator(200, 200, 1, 3, 42L).generateObstacles(500);
+        List<Obstacle> second = new ObstacleGenerator(200, 200, 1, 3, 42L).generateObstacles(500);
+
+        assertEquals(describe(first), describe(second));
+    }
+
+    @Test
+    public void obstaclesNeverOverlapAcrossCalls() {
+        ObstacleGenerator generator = new ObstacleGenerator(60, 60, 1, 3, 7L);
+        List<Obstacle> obstacles = new ArrayList<>(generator.generateObstacles(ObstacleKind.MOUNTAIN, 150));
+        obstacles.addAll(generator.generateObstacles(ObstacleKind.PIT, 150));
+
+        boolean[][] covered = new boolean[60][60];
+        for (Obstacle obstacle : obstacles) {
+            for (int x = obstacle.getX(); x < obstacle.getX() + obstacle.getWidth(); x++) {
+                for (int y = obstacle.getY(); y < obstacle.getY() + obstacle.getHeight(); y++) {
+                    assertFalse(covered[x][y], "cell (" + x + "," + y + ") covered twice");
+                    covered[x][y] = true;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void unreachableDensityStillFinishes() {
+        ObstacleGenerator generator = new ObstacleGenerator(20, 20, 2, 3, 1L);
+        generator.generateToDensity(1.0);
+
+        assertTrue(generator.getCoveredCells() < 400);
+        assertTrue(generator.getCoveredCells() > 100);
+    }
+
+    @Test
+    public void hugeWorldsUseBucketsWithoutOverlap() {
+        ObstacleGenerator generator = new ObstacleGenerator(100_000, 100_000, 1, 3, 9L);
+        List<Obstacle> obstacles = generator.generateObstacles(100_000);
+
+        assertEquals(100_000, obstacles.size());
+        long covered = 0;
+        for (Obstacle obstacle : obstacles) {
+            covered += (long) obstacle.getWidth() * obstacle.getHeight();
+        }
+        assertEquals(covered, generator.getCoveredCells());
+    }
+
+    @Test
+    public void worldSeedReproducesTheWorld() {
+        World first = new World(new WorldConfig(properties("1234")));
+        World second = new World(new WorldConfig(properties("1234")));
+
+        assertEquals(1234L, first.getSeed());
+        assertEquals(describe(first.getObstacles()), describe(second.getObstacles()));
+        assertTrue(first.getObstacles().size() >= 30);
+    }
+
+    private static Properties properties(String seed) {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "100");
+        props.setProperty("WORLD_HEIGHT", "100");
+        props.setProperty("NUM_PITS", "5");
+        props.setProperty("NUM_LAKES", "5");
+        props.setProperty("NUM_MOUNTAINS", "5");
+        props.setProperty("NUM_OBSTACLES", "20");
+        props.setProperty("OBSTACLE_DENSITY", "0.05");
+        props.setProperty("SEED", seed);
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        return props;
+    }
+
+    private static String describe(List<Obstacle> obstacles) {
+        StringBuilder description = new StringBuilder();
+        for (Obstacle obstacle : obstacles) {
+            description.append(obstacle.getType()).append(' ')
+                    .append(obstacle.getX()).append(',').append(obstacle.getY()).append(' ')
+                    .append(obstacle.getWidth()).append('x').append(obstacle.getHeight()).append('\n');
+        }
+        return description.toString();
+    }
+}
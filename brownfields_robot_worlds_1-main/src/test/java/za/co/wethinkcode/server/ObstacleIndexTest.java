@@ -0,0 +1,155 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.GridObstacleIndex;
+import za.co.wethinkcode.server.world.ObstacleIndex;
+import za.co.wethinkcode.server.world.ObstacleIndexType;
+import za.co.wethinkcode.server.world.QuadTreeObstacleIndex;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Lake;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.Pit;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ObstacleIndexTest {
+
+    private Properties worldProperties(String width, String height, String obstacles) {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", width);
+        props.setProperty("WORLD_HEIGHT", height);
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", obstacles);
+        props.setProperty("VISIBILITY_RANGE", "10");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        return props;
+    }
+
+    @Test
+    public void indexTypeIsChosenFromSizeAndDensity() {
+        assertEquals(ObstacleIndexType.GRID, new WorldConfig().getObstacleIndexType());
+        assertEquals(ObstacleIndexType.QUADTREE,
+                new WorldConfig(worldProperties("1000000", "1000000", "0")).getObstacleIndexType());
+        assertEquals(ObstacleIndexType.QUADTREE,
+                new WorldConfig(worldProperties("4000", "4000", "10")).getObstacleIndexType());
+        assertEquals(ObstacleIndexType.GRID,
+                new WorldConfig(worldProperties("4000", "4000", "500000")).getObstacleIndexType());
+
+        Properties forced = worldProperties("50", "50", "0");
+        forced.setProperty("OBSTACLE_INDEX", "quadtree");
+        assertEquals(ObstacleIndexType.QUADTREE, new WorldConfig(forced).getObstacleIndexType());
+    }
+
+    @Test
+    public void quadTreeAnswersTheSameQueriesAsTheGrid() {
+        Random random = new Random(7);
+        List<Obstacle> obstacles = new ArrayList<>();
+        GridObstacleIndex grid = new GridObstacleIndex(64, 48);
+        QuadTreeObstacleIndex tree = new QuadTreeObstacleIndex(64, 48);
+
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(64);
+            int y = random.nextInt(48);
+            Obstacle obstacle = random.nextInt(5) == 0
+                    ? new Pit(x, y, 1, 1)
+                    : new Lake(x, y, 1 + random.nextInt(4), 1 + random.nextInt(4));
+            obstacles.add(obstacle);
+            grid.add(obstacle);
+            tree.add(obstacle);
+        }
+        for (int i = 0; i < 50; i++) {
+            Obstacle removed = obstacles.remove(random.nextInt(obstacles.size()));
+            grid.remove(removed);
+            tree.remove(removed);
+        }
+
+        for (int x = 0; x < 64; x++) {
+            for (int y = 0; y < 48; y++) {
+                assertEquals(grid.kindAt(x, y), tree.kindAt(x, y), "kind at " + x + "," + y);
+                for (Direction direction : Direction.values()) {
+                    assertEquals(grid.distanceToObstacle(x, y, direction, 20), tree.distanceToObstacle(x, y, direction, 20),
+                            direction + " from " + x + "," + y);
+                }
+            }
+        }
+
+        Set<Obstacle> fromGrid = new HashSet<>();
+        Set<Obstacle> fromTree = new HashSet<>();
+        grid.forEachIntersecting(10, 5, 20, 15, fromGrid::add);
+        tree.forEachIntersecting(10, 5, 20, 15, fromTree::add);
+        assertEquals(fromGrid, fromTree);
+    }
+
+    @Test
+    public void gridRegionQueriesReportEachOverlappingObstacleOnce() {
+        Random random = new Random(11);
+        List<Obstacle> obstacles = new ArrayList<>();
+        GridObstacleIndex grid = new GridObstacleIndex(100, 70);
+        for (int i = 0; i < 300; i++) {
+            // Some obstacles span several buckets, and some hang over the edge
+            Obstacle obstacle = new Lake(random.nextInt(110) - 5, random.nextInt(80) - 5,
+                    1 + random.nextInt(20), 1 + random.nextInt(20));
+            obstacles.add(obstacle);
+            grid.add(obstacle);
+        }
+        for (int i = 0; i < 100; i++) {
+            grid.remove(obstacles.remove(random.nextInt(obstacles.size())));
+        }
+
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(120) - 10;
+            int y = random.nextInt(90) - 10;
+            int width = 1 + random.nextInt(40);
+            int height = 1 + random.nextInt(40);
+            List<Obstacle> reported = new ArrayList<>();
+            grid.forEachIntersecting(x, y, width, height, reported::add);
+
+            Set<Obstacle> expected = new HashSet<>();
+            long minX = Math.max(x, 0);
+            long minY = Math.max(y, 0);
+            long clippedWidth = Math.min(x + width, 100) - minX;
+            long clippedHeight = Math.min(y + height, 70) - minY;
+            for (Obstacle obstacle : obstacles) {
+                if (clippedWidth > 0 && clippedHeight > 0
+                        && ObstacleIndex.intersects(obstacle, minX, minY, clippedWidth, clippedHeight)) {
+                    expected.add(obstacle);
+                }
+            }
+            assertEquals(expected.size(), reported.size(), "region " + x + "," + y + " " + width + "x" + height);
+            assertEquals(expected, new HashSet<>(reported));
+        }
+    }
+
+    @Test
+    public void hugeSparseWorldUsesTheQuadTree() {
+        World world = new World(new WorldConfig(worldProperties("1000000", "1000000", "0")));
+        Robot robot = new Robot("Explorer", new Position(500000, 500000));
+        robot.setDirection(Direction.EAST);
+        world.addRobot(robot);
+        world.addObstacle(new Mountain(500004, 500000, 2, 2));
+        world.addObstacle(new Lake(10, 10, 1, 1));
+
+        assertTrue(world.isPositionBlocked(new Position(500005, 500001)));
+        assertFalse(world.isPositionBlocked(new Position(500003, 500000)));
+        assertEquals(4, world.getDistanceToBlocker(robot.getPosition(), Direction.EAST, 10));
+        assertEquals(11, world.getDistanceToBlocker(robot.getPosition(), Direction.WEST, 10));
+        assertEquals(1, world.getVisibleObstacles(robot).size());
+        assertEquals(1, world.getObstaclesInRegion(0, 0, 100, 100).size());
+    }
+}
@@ -0,0 +1,97 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.world.OccupancyGrid;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.obstacles.Lake;
+import za.co.wethinkcode.server.world.obstacles.Mountain;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
+import za.co.wethinkcode.server.world.obstacles.Pit;
+
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OccupancyGridTest {
+    private World world;
+
+    @BeforeEach
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "10");
+        props.setProperty("WORLD_HEIGHT", "10");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        world = new World(new WorldConfig(props));
+    }
+
+    @Test
+    public void markRecordsKindForEveryCoveredCell() {
+        OccupancyGrid grid = new OccupancyGrid(10, 10);
+        grid.mark(new Lake(2, 3, 2, 2));
+
+        assertEquals(ObstacleKind.LAKE, grid.kindAt(2, 3));
+        assertEquals(ObstacleKind.LAKE, grid.kindAt(3, 4));
+        assertEquals(ObstacleKind.NONE, grid.kindAt(4, 3));
+        assertFalse(grid.isBlocked(1, 3));
+    }
+
+    @Test
+    public void cellsOutsideTheGridAreNeverBlocked() {
+        OccupancyGrid grid = new OccupancyGrid(3, 3);
+        grid.mark(new Mountain(2, 2, 3, 3));
+
+        assertTrue(grid.isBlocked(2, 2));
+        assertFalse(grid.isBlocked(3, 3));
+        assertEquals(ObstacleKind.NONE, grid.kindAt(-1, 0));
+    }
+
+    @Test
+    public void pitTakesPrecedenceOverOverlappingObstacle() {
+        OccupancyGrid grid = new OccupancyGrid(10, 10);
+        grid.mark(new Mountain(0, 0, 2, 2));
+        grid.mark(new Pit(1, 1, 1, 1));
+
+        assertEquals(ObstacleKind.MOUNTAIN, grid.kindAt(0, 0));
+        assertEquals(ObstacleKind.PIT, grid.kindAt(1, 1));
+    }
+
+    @Test
+    public void unmarkRestoresOverlappingObstacles() {
+        OccupancyGrid grid = new OccupancyGrid(10, 10);
+        Mountain mountain = new Mountain(0, 0, 3, 1);
+        Pit pit = new Pit(1, 0, 1, 1);
+        grid.mark(mountain);
+        grid.mark(pit);
+
+        grid.unmark(pit, List.of(mountain));
+
+        assertEquals(ObstacleKind.MOUNTAIN, grid.kindAt(1, 0));
+    }
+
+    @Test
+    public void worldKeepsGridInSyncWithObstacleList() {
+        Mountain mountain = new Mountain(4, 4, 1, 1);
+        world.addObstacle(mountain);
+        assertTrue(world.isPositionBlocked(new Position(4, 4)));
+
+        world.getObstacles().remove(mountain);
+        assertFalse(world.isPositionBlocked(new Position(4, 4)));
+
+        world.getObstacles().add(new Pit(5, 5, 1, 1));
+        assertEquals(ObstacleKind.PIT, world.getObstacleKindAt(5, 5));
+
+        world.getObstacles().clear();
+        assertFalse(world.isPositionBlocked(new Position(5, 5)));
+    }
+}
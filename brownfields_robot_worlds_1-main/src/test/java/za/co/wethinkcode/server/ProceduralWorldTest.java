@@ -0,0 +1,182 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.ChunkedWorldStore;
+import za.co.wethinkcode.server.world.ObstacleIndexType;
+import za.co.wethinkcode.server.world.ProceduralChunks;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+import za.co.wethinkcode.server.world.WorldDumper;
+import za.co.wethinkcode.server.world.obstacles.Obstacle;
+import za.co.wethinkcode.server.world.obstacles.ObstacleKind;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProceduralWorldTest {
+    private static final int SIZE = ChunkedWorldStore.CHUNK_SIZE;
+
+    @Test
+    public void nothingIsGeneratedUntilTouched() {
+        World world = new World(new WorldConfig(properties(1_000_000, 99L)));
+
+        assertTrue(world.isProcedural());
+        assertEquals(0, world.getGeneratedChunkCount());
+        assertTrue(world.getObstacles().isEmpty());
+
+        world.getObstaclesInRegion(10, 10, 5, 5);
+        assertEquals(1, world.getGeneratedChunkCount());
+        assertFalse(world.getObstacles().isEmpty());
+    }
+
+    @Test
+    public void robotsAndLooksGenerateTheChunksTheyReach() {
+        World world = new World(new WorldConfig(properties(10 * SIZE, 5L)));
+        Robot robot = new Robot("Scout", new Position(SIZE * 3 + 1, SIZE * 3 + 1));
+        robot.setDirection(Direction.EAST);
+
+        world.addRobot(robot);
+        assertEquals(1, world.getGeneratedChunkCount());
+
+        world.getDistanceToBlocker(robot.getPosition(), Direction.EAST, SIZE);
+        assertTrue(world.getGeneratedChunkCount() >= 2);
+    }
+
+    @Test
+    public void dumpsRunWhileChunksAreGenerated() throws InterruptedException {
+        World world = new World(new WorldConfig(properties(64 * SIZE, 7L)));
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread explorer = Thread.ofPlatform().start(() -> {
+            for (int c = 0; c < 64 * 64; c++) {
+                world.isPositionBlocked((c % 64) * SIZE, (c / 64) * SIZE);
+            }
+        });
+        Thread dumper = Thread.ofPlatform().start(() -> {
+            try {
+                while (explorer.isAlive()) {
+                    new WorldDumper(world).createWorldDump();
+                }
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        explorer.join();
+        dumper.join();
+
+        assertNull(failure.get());
+        assertEquals(64 * 64, world.getGeneratedChunkCount());
+    }
+
+    @Test
+    public void readersRunWhileChunksAreGenerated() throws InterruptedException {
+        Properties props = properties(10_000, 3L);
+        props.setProperty("OBSTACLE_INDEX", "QUADTREE");
+        WorldConfig config = new WorldConfig(props);
+        assertEquals(ObstacleIndexType.CHUNKED, config.getObstacleIndexType());
+
+        World world = new World(config);
+        int area = 4 * SIZE;
+        List<String> known = describe(world.getObstaclesInRegion(0, 0, area, area));
+        List<ObstacleKind> kinds = new ArrayList<>();
+        for (int i = 0; i < area; i++) {
+            kinds.add(world.getObstacleKindAt(i, i));
+        }
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> generators = new ArrayList<>();
+        for (int g = 0; g < 2; g++) {
+            int row = 10 + g;
+            generators.add(Thread.ofPlatform().start(() -> {
+                for (int c = 0; c < 150; c++) {
+                    world.isPositionBlocked(c * SIZE, row * SIZE);
+                }
+            }));
+        }
+        List<Thread> readers = new ArrayList<>();
+        for (int r = 0; r < 6; r++) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    while (generators.stream().anyMatch(Thread::isAlive)) {
+                        for (int i = 0; i < area; i++) {
+                            assertEquals(kinds.get(i), world.getObstacleKindAt(i, i));
+                        }
+                        assertEquals(known, describe(world.getObstaclesInRegion(0, 0, area, area)));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }));
+        }
+        for (Thread thread : generators) {
+            thread.join();
+        }
+        for (Thread thread : readers) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(16 + 2 * 150, world.getGeneratedChunkCount());
+    }
+
+    @Test
+    public void accessOrderDoesNotChangeTheWorld() {
+        World forward = new World(new WorldConfig(properties(8 * SIZE, 1234L)));
+        World backward = new World(new WorldConfig(properties(8 * SIZE, 1234L)));
+
+        for (int c = 0; c < 8; c++) {
+            forward.getObstaclesInRegion(c * SIZE, c * SIZE, 1, 1);
+            backward.getObstaclesInRegion((7 - c) * SIZE, (7 - c) * SIZE, 1, 1);
+        }
+        backward.isPositionBlocked(SIZE * 5 + 3, SIZE * 2);
+
+        assertEquals(describe(forward.getObstaclesInRegion(0, 0, 8 * SIZE, 8 * SIZE)),
+                describe(backward.getObstaclesInRegion(0, 0, 8 * SIZE, 8 * SIZE)));
+    }
+
+    @Test
+    public void chunkObstaclesStayInsideTheirChunk() {
+        List<Obstacle> obstacles = ProceduralChunks.generateChunk(1000, 1000, 7L, 0.2, 3, 15);
+
+        assertFalse(obstacles.isEmpty());
+        for (Obstacle obstacle : obstacles) {
+            assertTrue(obstacle.getX() >= 3 * SIZE && obstacle.getX() + obstacle.getWidth() <= 4 * SIZE);
+            assertTrue(obstacle.getY() >= 15 * SIZE && obstacle.getY() + obstacle.getHeight() <= 1000);
+        }
+        assertEquals(describe(obstacles), describe(ProceduralChunks.generateChunk(1000, 1000, 7L, 0.2, 3, 15)));
+    }
+
+    private static Properties properties(int size, long seed) {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", String.valueOf(size));
+        props.setProperty("WORLD_HEIGHT", String.valueOf(size));
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("PROCEDURAL", "true");
+        props.setProperty("OBSTACLE_DENSITY", "0.1");
+        props.setProperty("SEED", String.valueOf(seed));
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        return props;
+    }
+
+    private static List<String> describe(List<Obstacle> obstacles) {
+        List<String> description = new ArrayList<>();
+        for (Obstacle obstacle : obstacles) {
+            description.add(obstacle.getType() + " " + obstacle.getX() + "," + obstacle.getY()
+                    + " " + obstacle.getWidth() + "x" + obstacle.getHeight());
+        }
+        description.sort(null);
+        return description;
+    }
+}
@@ -0,0 +1,80 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.client.commands.ForwardCommand;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RobotPositionIndexTest {
+    private World world;
+
+    @BeforeEach
+    public void setUp() {
+        world = new World(new WorldConfig());
+        // The default world has random obstacles that could block the walking tests
+        world.getObstacles().clear();
+    }
+
+    @Test
+    public void addedRobotIsFoundAtItsPosition() {
+        Robot robot = new Robot("Indexed", new Position(3, 4));
+        world.addRobot(robot);
+
+        assertSame(robot, world.getRobotAtPosition(new Position(3, 4)));
+        assertNull(world.getRobotAtPosition(new Position(4, 3)));
+    }
+
+    @Test
+    public void indexFollowsPositionChanges() {
+        Robot robot = new Robot("Mover", new Position(3, 4));
+        world.addRobot(robot);
+
+        robot.setPosition(new Position(7, 7));
+
+        assertNull(world.getRobotAtPosition(new Position(3, 4)));
+        assertSame(robot, world.getRobotAtPosition(new Position(7, 7)));
+    }
+
+    @Test
+    public void indexFollowsForwardCommand() {
+        Robot robot = new Robot("Walker", new Position(10, 10));
+        robot.setDirection(Direction.NORTH);
+        world.addRobot(robot);
+
+        new ForwardCommand(world, robot, 3).execute();
+
+        assertNull(world.getRobotAtPosition(new Position(10, 10)));
+        assertSame(robot, world.getRobotAtPosition(new Position(10, 13)));
+    }
+
+    @Test
+    public void removedRobotIsNoLongerIndexed() {
+        Robot robot = new Robot("Leaver", new Position(1, 1));
+        world.addRobot(robot);
+        world.removeRobot(robot);
+
+        assertNull(world.getRobotAtPosition(new Position(1, 1)));
+
+        robot.setPosition(new Position(2, 2));
+        assertNull(world.getRobotAtPosition(new Position(2, 2)));
+    }
+
+    @Test
+    public void robotSharingACellIsFoundAfterTheOtherLeaves() {
+        Robot first = new Robot("First", new Position(5, 5));
+        Robot second = new Robot("Second", new Position(5, 5));
+        world.addRobot(first);
+        world.addRobot(second);
+
+        first.setPosition(new Position(6, 5));
+
+        assertSame(first, world.getRobotAtPosition(new Position(6, 5)));
+        assertSame(second, world.getRobotAtPosition(new Position(5, 5)));
+    }
+}
@@ -0,0 +1,81 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RobotRegistryTest {
+    private World world;
+
+    @BeforeEach
+    public void setUp() {
+        world = new World(new WorldConfig());
+    }
+
+    @Test
+    public void lookupIgnoresCase() {
+        Robot robot = new Robot("HAL", new Position(1, 1));
+        world.addRobot(robot);
+
+        assertSame(robot, world.getRobotByName("hal"));
+        assertSame(robot, world.getRobotByName("Hal"));
+        assertNull(world.getRobotByName("HAL-9000"));
+    }
+
+    @Test
+    public void duplicateNameIsRejected() {
+        assertTrue(world.addRobot(new Robot("Twin", new Position(1, 1))));
+        assertFalse(world.addRobot(new Robot("twin", new Position(2, 2))));
+
+        assertEquals(1, world.getRobots().size());
+        assertEquals(new Position(1, 1), world.getRobotByName("TWIN").getPosition());
+    }
+
+    @Test
+    public void robotsViewIsLiveAndDoesNotCopy() {
+        List<Robot> robots = world.getRobots();
+        assertSame(robots, world.getRobots());
+
+        Robot robot = new Robot("Live", new Position(0, 0));
+        world.addRobot(robot);
+        assertTrue(robots.contains(robot));
+
+        world.removeRobot(robot);
+        assertTrue(robots.isEmpty());
+    }
+
+    @Test
+    public void concurrentLaunchesRegisterEveryRobotOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String name = "bot" + (i % 200);
+            int x = i;
+            results.add(pool.submit(() -> world.addRobot(new Robot(name, new Position(x % 100, x / 100)))));
+        }
+
+        int added = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                added++;
+            }
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+
+        assertEquals(200, added);
+        assertEquals(200, world.getRobots().size());
+    }
+}
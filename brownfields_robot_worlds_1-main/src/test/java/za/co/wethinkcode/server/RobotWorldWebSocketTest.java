@@ -0,0 +1,138 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.WebServer.WebApiLayer.RobotWorldApiServer;
+import za.co.wethinkcode.protocol.server.RateLimit;
+import za.co.wethinkcode.server.handler.AdmissionControl;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RobotWorldWebSocketTest {
+    private static final int PORT = 7081;
+
+    private World world;
+    private RobotWorldApiServer server;
+
+    @BeforeEach
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "20");
+        props.setProperty("WORLD_HEIGHT", "20");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        world = new World(new WorldConfig(props));
+        RobotWorldServer.setWorld(world);
+
+        server = new RobotWorldApiServer();
+        server.start(PORT);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+        RobotWorldServer.setAdmission(AdmissionControl.UNLIMITED);
+    }
+
+    @Test
+    public void sessionSpeaksTheSocketProtocol() throws Exception {
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        WebSocket socket = HttpClient.newHttpClient().newWebSocketBuilder()
+                .buildAsync(URI.create("ws://localhost:" + PORT + "/ws"), collectInto(replies))
+                .get(5, TimeUnit.SECONDS);
+
+        socket.sendText("{\"robot\":\"Webby\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}", true);
+        String launched = replies.poll(5, TimeUnit.SECONDS);
+        assertNotNull(launched);
+        assertTrue(launched.contains("\"result\":\"OK\""), launched);
+        assertNotNull(world.getRobotByName("Webby"));
+
+        socket.sendText("{\"robot\":\"Webby\",\"command\":\"state\",\"arguments\":[]}", true);
+        String state = replies.poll(5, TimeUnit.SECONDS);
+        assertTrue(state.contains("\"state\""), state);
+
+        socket.sendText("not json", true);
+        assertTrue(replies.poll(5, TimeUnit.SECONDS).contains("ERROR"));
+
+        // Closing the session removes the robots it launched
+        socket.sendClose(WebSocket.NORMAL_CLOSURE, "done").get(5, TimeUnit.SECONDS);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (world.getRobotByName("Webby") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(world.getRobotByName("Webby"));
+    }
+
+    @Test
+    public void sessionsShareTheServerAdmissionControl() throws Exception {
+        AdmissionControl admission = new AdmissionControl(1, RateLimit.of(0.001, 20));
+        RobotWorldServer.setAdmission(admission);
+        HttpClient client = HttpClient.newHttpClient();
+        URI uri = URI.create("ws://localhost:" + PORT + "/ws");
+
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        WebSocket admitted = client.newWebSocketBuilder().buildAsync(uri, collectInto(replies)).get(5, TimeUnit.SECONDS);
+        admitted.sendText("{\"robot\":\"Looker\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}", true);
+        assertTrue(replies.poll(5, TimeUnit.SECONDS).contains("\"result\":\"OK\""));
+        assertEquals(1, admission.getConnections());
+
+        // A second session does not fit, just as a second TCP client would not
+        BlockingQueue<String> refusedReplies = new LinkedBlockingQueue<>();
+        client.newWebSocketBuilder().buildAsync(uri, collectInto(refusedReplies)).get(5, TimeUnit.SECONDS);
+        String refusal = refusedReplies.poll(5, TimeUnit.SECONDS);
+        assertNotNull(refusal);
+        assertTrue(refusal.contains("Server is full"), refusal);
+        assertEquals(1, admission.getConnections());
+
+        // launch cost 2 of 20 tokens, so the fourth look is throttled
+        for (int i = 0; i < 3; i++) {
+            admitted.sendText("{\"robot\":\"Looker\",\"command\":\"look\",\"arguments\":[]}", true);
+            assertTrue(replies.poll(5, TimeUnit.SECONDS).contains("\"result\":\"OK\""));
+        }
+        admitted.sendText("{\"robot\":\"Looker\",\"command\":\"look\",\"arguments\":[]}", true);
+        String throttled = replies.poll(5, TimeUnit.SECONDS);
+        assertTrue(throttled.contains("retryAfterMs"), throttled);
+
+        admitted.sendClose(WebSocket.NORMAL_CLOSURE, "done").get(5, TimeUnit.SECONDS);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (admission.getConnections() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, admission.getConnections());
+    }
+
+    private static WebSocket.Listener collectInto(BlockingQueue<String> replies) {
+        return new WebSocket.Listener() {
+            private final StringBuilder partial = new StringBuilder();
+
+            @Override
+            public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                partial.append(data);
+                if (last) {
+                    replies.add(partial.toString());
+                    partial.setLength(0);
+                }
+                webSocket.request(1);
+                return null;
+            }
+        };
+    }
+}
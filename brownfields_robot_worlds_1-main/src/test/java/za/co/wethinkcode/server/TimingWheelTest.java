@@ -0,0 +1,123 @@
+package za.co.wethinkcode.server;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.client.commands.ReloadCommand;
+import za.co.wethinkcode.client.commands.RepairCommand;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.TimingWheel;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimingWheelTest {
+    private TimingWheel wheel;
+
+    @BeforeEach
+    public void setUp() {
+        wheel = new TimingWheel("test-timer", 10, 8);
+    }
+
+    @Test
+    public void tasksRunAfterTheirDelay() throws InterruptedException {
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        wheel.schedule(50, ran::countDown);
+
+        assertEquals(1, wheel.getPendingCount());
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    public void tasksBeyondOneTurnWaitForLaterTurns() throws InterruptedException {
+        // Eight slots of 10 ms make one turn of 80 ms
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        wheel.schedule(200, ran::countDown);
+
+        assertTrue(ran.await(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void cancelledTasksNeverRun() throws InterruptedException {
+        AtomicInteger runs = new AtomicInteger();
+        TimingWheel.Timer timer = wheel.schedule(30, runs::incrementAndGet);
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(60, later::countDown);
+
+        assertTrue(timer.cancel());
+        assertFalse(timer.isPending());
+        assertFalse(timer.cancel());
+        assertEquals(1, wheel.getPendingCount());
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    public void oneThreadRunsManyTimers() throws InterruptedException {
+        int count = 10_000;
+        CountDownLatch ran = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            wheel.schedule(i % 100, ran::countDown);
+        }
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    public void reloadAndRepairFinishOnTheWorldTimer() throws InterruptedException {
+        World world = new World(new WorldConfig() {{
+            properties.setProperty("RELOAD_TIME", "1");
+            properties.setProperty("REPAIR_TIME", "1");
+            properties.setProperty("MAX_SHIELD_STRENGTH", "5");
+        }});
+        Robot gunner = new Robot("Gunner", new Position(0, 0));
+        gunner.setShots(0);
+        Robot medic = new Robot("Medic", new Position(1, 1));
+        medic.setShields(1);
+        world.addRobot(gunner);
+        world.addRobot(medic);
+
+        new ReloadCommand(world, gunner).execute();
+        new RepairCommand(world, medic).execute();
+        assertEquals(2, world.getPendingTimerCount());
+
+        waitForTimers(world);
+        assertEquals(Robot.Status.NORMAL, gunner.getStatus());
+        assertEquals(world.getMaxShots(), gunner.getShots());
+        assertEquals(Robot.Status.NORMAL, medic.getStatus());
+        assertEquals(5, medic.getShields());
+    }
+
+    @Test
+    public void robotsLeavingTheWorldCancelTheirTimers() {
+        World world = new World(new WorldConfig());
+        Robot robot = new Robot("Leaver", new Position(0, 0));
+        world.addRobot(robot);
+
+        new ReloadCommand(world, robot).execute();
+        assertEquals(1, world.getPendingTimerCount());
+        world.releaseRobot(robot);
+        assertEquals(0, world.getPendingTimerCount());
+        assertFalse(world.cancelRobotTimer(robot));
+    }
+
+    private void waitForTimers(World world) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (world.getPendingTimerCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        // The count drops just before a task runs, so give the last one a moment
+        Thread.sleep(50);
+        assertEquals(0, world.getPendingTimerCount());
+    }
+}
@@ -0,0 +1,108 @@
+package za.co.wethinkcode.server.handler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.protocol.server.RateLimit;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControlTest {
+    private World world;
+    private AdmissionControl admission;
+    private ServerSocket serverSocket;
+    private NioServer nioServer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "50");
+        props.setProperty("WORLD_HEIGHT", "50");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        world = new World(new WorldConfig(props));
+        admission = new AdmissionControl(1, RateLimit.of(0.001, 20));
+
+        serverSocket = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Thread.ofVirtual().start(new ClientHandler(serverSocket.accept(), world,
+                            OutboundPolicy.DEFAULT, 0, admission));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+
+        nioServer = new NioServer(0, world, 1, OutboundPolicy.DEFAULT, 0, admission);
+        Thread acceptor = new Thread(nioServer::serve);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        serverSocket.close();
+        nioServer.stop();
+    }
+
+    @Test
+    public void blockingHandlerEnforcesLimits() throws Exception {
+        assertLimitsEnforced(serverSocket.getLocalPort());
+    }
+
+    @Test
+    public void nioServerEnforcesLimits() throws Exception {
+        assertLimitsEnforced(nioServer.getPort());
+    }
+
+    private void assertLimitsEnforced(int port) throws Exception {
+        try (Socket admitted = new Socket("localhost", port)) {
+            PrintWriter out = new PrintWriter(admitted.getOutputStream(), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(admitted.getInputStream()));
+            out.println("{\"robot\":\"Looker\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}");
+            assertTrue(in.readLine().contains("\"result\":\"OK\""));
+
+            // A second client does not fit
+            try (Socket refused = new Socket("localhost", port)) {
+                BufferedReader refusedIn = new BufferedReader(new InputStreamReader(refused.getInputStream()));
+                String refusal = refusedIn.readLine();
+                assertTrue(refusal.contains("Server is full"), refusal);
+                assertTrue(refusal.contains("retryAfterMs"), refusal);
+                assertNull(refusedIn.readLine());
+            }
+
+            // launch cost 2 of 20 tokens, so the fourth look is throttled
+            for (int i = 0; i < 3; i++) {
+                out.println("{\"robot\":\"Looker\",\"command\":\"look\",\"arguments\":[]}");
+                assertTrue(in.readLine().contains("\"result\":\"OK\""));
+            }
+            out.println("{\"robot\":\"Looker\",\"command\":\"look\",\"arguments\":[]}");
+            String throttled = in.readLine();
+            assertTrue(throttled.contains("retryAfterMs"), throttled);
+        }
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (admission.getConnections() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, admission.getConnections());
+    }
+}
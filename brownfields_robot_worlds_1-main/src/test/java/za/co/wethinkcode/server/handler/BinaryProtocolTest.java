@@ -0,0 +1,185 @@
+package za.co.wethinkcode.server.handler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.protocol.BinaryProtocol;
+import za.co.wethinkcode.protocol.client.BinaryClientCodec;
+import za.co.wethinkcode.protocol.client.BinaryResponse;
+import za.co.wethinkcode.server.model.Direction;
+import za.co.wethinkcode.server.model.Position;
+import za.co.wethinkcode.server.model.Robot;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryProtocolTest {
+    private World world;
+    private ServerSocket serverSocket;
+    private NioServer nioServer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "10");
+        props.setProperty("WORLD_HEIGHT", "10");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "20");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        world = new World(new WorldConfig(props));
+        world.getObstacles().clear();
+
+        serverSocket = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Thread.ofVirtual().start(new ClientHandler(serverSocket.accept(), world));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+
+        nioServer = new NioServer(0, world, 1);
+        Thread acceptor = new Thread(nioServer::serve);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        serverSocket.close();
+        nioServer.stop();
+    }
+
+    @Test
+    public void blockingHandlerSpeaksBinaryAfterHandshake() throws IOException {
+        playRound(serverSocket.getLocalPort(), "Blocky");
+    }
+
+    @Test
+    public void nioServerSpeaksBinaryAfterHandshake() throws IOException {
+        playRound(nioServer.getPort(), "Selecty");
+    }
+
+    @Test
+    public void jsonClientsAreUnaffected() throws IOException {
+        for (int port : new int[]{serverSocket.getLocalPort(), nioServer.getPort()}) {
+            try (Socket socket = new Socket("localhost", port)) {
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                out.println("{\"robot\":\"Json" + port + "\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}");
+                String response = in.readLine();
+                assertTrue(response.contains("\"result\":\"OK\""), response);
+            }
+        }
+    }
+
+    @Test
+    public void malformedFramesGetErrorResponses() throws IOException {
+        try (Socket socket = new Socket("localhost", serverSocket.getLocalPort())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            BinaryClientCodec.handshake(out, in);
+
+            BinaryClientCodec.writeFrame(out, new byte[]{42});
+            out.flush();
+            BinaryResponse response = BinaryClientCodec.decodeResponse((byte) 42, BinaryClientCodec.readFrame(in));
+            assertFalse(response.ok());
+            assertNull(response.state());
+        }
+    }
+
+    @Test
+    public void hitsAndRefusalsAreEncodedFromTheCommand() throws IOException {
+        try (Socket socket = new Socket("localhost", serverSocket.getLocalPort())) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            BinaryClientCodec.handshake(out, in);
+
+            assertTrue(send(out, in, BinaryProtocol.LAUNCH, BinaryClientCodec.launch("Shooter", "Sniper")).ok());
+            Robot shooter = world.getRobotByName("Shooter");
+            shooter.setPosition(new Position(5, 5));
+            Robot target = new Robot("Target", world.getPositionInDirection(shooter.getPosition(), Direction.NORTH, 1));
+            target.setShields(3);
+            world.addRobot(target);
+
+            BinaryResponse fired = send(out, in, BinaryProtocol.FIRE, BinaryClientCodec.command(BinaryProtocol.FIRE, "Shooter"));
+            assertTrue(fired.ok(), fired.message());
+            assertEquals("Hit", fired.message());
+            assertEquals("Target", fired.target());
+            assertEquals(1, fired.distance());
+            assertEquals(2, target.getShields());
+            assertEquals(5, fired.state().x());
+
+            BinaryResponse reloading = send(out, in, BinaryProtocol.RELOAD, BinaryClientCodec.command(BinaryProtocol.RELOAD, "Shooter"));
+            assertTrue(reloading.ok(), reloading.message());
+            assertEquals(Robot.Status.RELOAD, reloading.state().status());
+
+            BinaryResponse busy = send(out, in, BinaryProtocol.REPAIR, BinaryClientCodec.command(BinaryProtocol.REPAIR, "Shooter"));
+            assertFalse(busy.ok());
+            assertEquals("Robot is currently busy and cannot repair", busy.message());
+            assertNull(busy.state());
+        }
+    }
+
+    private void playRound(int port, String name) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            BinaryClientCodec.handshake(out, in);
+
+            BinaryResponse launched = send(out, in, BinaryProtocol.LAUNCH, BinaryClientCodec.launch(name, "Sniper"));
+            assertTrue(launched.ok(), launched.message());
+            assertNotNull(launched.state());
+            assertEquals(Direction.NORTH, launched.state().direction());
+            assertEquals(world.getRobotByName(name).getPosition().getX(), launched.state().x());
+            assertEquals(world.getRobotByName(name).getPosition().getY(), launched.state().y());
+
+            BinaryResponse turned = send(out, in, BinaryProtocol.TURN, BinaryClientCodec.turn(name, true));
+            assertTrue(turned.ok(), turned.message());
+            assertEquals(Direction.EAST, turned.state().direction());
+
+            BinaryResponse looked = send(out, in, BinaryProtocol.LOOK, BinaryClientCodec.command(BinaryProtocol.LOOK, name));
+            assertTrue(looked.ok(), looked.message());
+            assertFalse(looked.objects().isEmpty());
+            assertTrue(looked.objects().stream().anyMatch(object -> object.type().equals("EDGE")));
+
+            BinaryResponse state = send(out, in, BinaryProtocol.STATE, BinaryClientCodec.command(BinaryProtocol.STATE, name));
+            assertTrue(state.ok(), state.message());
+            assertEquals(turned.state(), state.state());
+
+            BinaryResponse fired = send(out, in, BinaryProtocol.FIRE, BinaryClientCodec.command(BinaryProtocol.FIRE, name));
+            assertTrue(fired.ok(), fired.message());
+            assertEquals(state.state().shots() - 1, fired.state().shots());
+
+            BinaryResponse unknown = send(out, in, BinaryProtocol.STATE, BinaryClientCodec.command(BinaryProtocol.STATE, "Nobody"));
+            assertFalse(unknown.ok());
+        }
+    }
+
+    private static BinaryResponse send(DataOutputStream out, DataInputStream in, byte opcode, byte[] request)
+            throws IOException {
+        BinaryClientCodec.writeFrame(out, request);
+        out.flush();
+        return BinaryClientCodec.decodeResponse(opcode, BinaryClientCodec.readFrame(in));
+    }
+}
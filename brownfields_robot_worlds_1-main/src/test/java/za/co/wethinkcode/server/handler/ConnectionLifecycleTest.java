@@ -0,0 +1,121 @@
+package za.co.wethinkcode.server.handler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Properties;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionLifecycleTest {
+    private static final int IDLE_TIMEOUT_MILLIS = 300;
+
+    private World world;
+    private ServerSocket serverSocket;
+    private NioServer nioServer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "50");
+        props.setProperty("WORLD_HEIGHT", "50");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        world = new World(new WorldConfig(props));
+
+        serverSocket = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Thread.ofVirtual().start(new ClientHandler(serverSocket.accept(), world,
+                            OutboundPolicy.DEFAULT, IDLE_TIMEOUT_MILLIS));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+
+        nioServer = new NioServer(0, world, 1, OutboundPolicy.DEFAULT, IDLE_TIMEOUT_MILLIS);
+        Thread acceptor = new Thread(nioServer::serve);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        serverSocket.close();
+        nioServer.stop();
+    }
+
+    @Test
+    public void blockingHandlerReleasesOnlyItsOwnRobots() throws Exception {
+        assertDisconnectReleasesOwnRobots(serverSocket.getLocalPort());
+    }
+
+    @Test
+    public void nioServerReleasesOnlyItsOwnRobots() throws Exception {
+        assertDisconnectReleasesOwnRobots(nioServer.getPort());
+    }
+
+    @Test
+    public void blockingHandlerReapsSilentClients() throws Exception {
+        assertSilentClientIsReaped(serverSocket.getLocalPort());
+    }
+
+    @Test
+    public void nioServerReapsSilentClients() throws Exception {
+        assertSilentClientIsReaped(nioServer.getPort());
+    }
+
+    private void assertDisconnectReleasesOwnRobots(int port) throws Exception {
+        try (Socket stayer = new Socket("localhost", port)) {
+            assertLaunched(stayer, "Stayer");
+            try (Socket leaver = new Socket("localhost", port)) {
+                assertLaunched(leaver, "Leaver");
+            }
+            waitFor(() -> world.getRobotByName("Leaver") == null);
+            assertNotNull(world.getRobotByName("Stayer"));
+        }
+    }
+
+    private void assertSilentClientIsReaped(int port) throws Exception {
+        try (Socket silent = new Socket("localhost", port)) {
+            assertLaunched(silent, "Silent");
+            silent.setSoTimeout(10_000);
+            assertEquals(-1, silent.getInputStream().read(), "server should close the idle connection");
+            waitFor(() -> world.getRobotByName("Silent") == null);
+        }
+    }
+
+    private static void assertLaunched(Socket socket, String name) throws IOException {
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        out.println("{\"robot\":\"" + name + "\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}");
+        String response = in.readLine();
+        assertTrue(response.contains("\"result\":\"OK\""), response);
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,97 @@
+package za.co.wethinkcode.server.handler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NioServerTest {
+    private World world;
+    private NioServer server;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "10");
+        props.setProperty("WORLD_HEIGHT", "10");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        world = new World(new WorldConfig(props));
+        server = new NioServer(0, world, 2);
+        Thread acceptor = new Thread(server::serve);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void clientsShareTheWorldOverOneConnectionEach() throws Exception {
+        try (Socket first = new Socket("localhost", server.getPort());
+             Socket second = new Socket("localhost", server.getPort())) {
+            String launched = send(first, "{\"robot\":\"Alpha\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}");
+            assertTrue(launched.contains("\"result\":\"OK\""), launched);
+
+            String duplicate = send(second, "{\"robot\":\"Alpha\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}");
+            assertTrue(duplicate.contains("ERROR"), duplicate);
+            assertEquals(1, world.getRobots().size());
+
+            String invalid = send(second, "not json");
+            assertTrue(invalid.contains("ERROR"), invalid);
+        }
+    }
+
+    @Test
+    public void requestsSentTogetherAreAnsweredInOrder() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            out.print("{\"robot\":\"Beta\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}\r\n"
+                    + "{\"robot\":\"Beta\",\"command\":\"state\",\"arguments\":[]}\n");
+            out.flush();
+
+            assertTrue(in.readLine().contains("\"result\":\"OK\""));
+            assertTrue(in.readLine().contains("\"state\""));
+        }
+    }
+
+    @Test
+    public void disconnectingRemovesTheClientsRobots() throws Exception {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            send(socket, "{\"robot\":\"Gamma\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}");
+            assertNotNull(world.getRobotByName("Gamma"));
+        }
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (world.getRobotByName("Gamma") != null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertNull(world.getRobotByName("Gamma"));
+    }
+
+    private static String send(Socket socket, String request) throws IOException {
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+        out.println(request);
+        return in.readLine();
+    }
+}
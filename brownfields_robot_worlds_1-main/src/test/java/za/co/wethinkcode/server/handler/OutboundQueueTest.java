@@ -0,0 +1,105 @@
+package za.co.wethinkcode.server.handler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutboundQueueTest {
+    private OutboundQueue queue;
+
+    @BeforeEach
+    public void setUp() {
+        queue = new OutboundQueue(new OutboundPolicy(10, 60_000, true));
+    }
+
+    @Test
+    public void messagesComeOutInOrderAndFreeTheirSpace() throws InterruptedException {
+        assertTrue(queue.offer(ByteBuffer.wrap(new byte[]{1, 2, 3}), true));
+        assertTrue(queue.offer(ByteBuffer.wrap(new byte[]{4}), true));
+        assertEquals(4, queue.getQueuedBytes());
+
+        assertEquals(1, queue.awaitNext().get(0));
+        queue.remove();
+        assertEquals(4, queue.peek().get(0));
+        queue.remove();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.getQueuedBytes());
+    }
+
+    @Test
+    public void essentialMessagesThatDoNotFitDisconnect() {
+        assertTrue(queue.offer(ByteBuffer.allocate(8), true));
+        assertFalse(queue.offer(ByteBuffer.allocate(3), true));
+    }
+
+    @Test
+    public void nonEssentialMessagesThatDoNotFitAreDropped() {
+        long dropped = OutboundMetrics.getDropped();
+        assertTrue(queue.offer(ByteBuffer.allocate(8), true));
+        assertTrue(queue.offer(ByteBuffer.allocate(3), false));
+        assertEquals(8, queue.getQueuedBytes());
+        assertEquals(dropped + 1, OutboundMetrics.getDropped());
+    }
+
+    @Test
+    public void disconnectPolicyDoesNotDrop() {
+        queue = new OutboundQueue(new OutboundPolicy(10, 60_000, false));
+        assertTrue(queue.offer(ByteBuffer.allocate(8), true));
+        assertFalse(queue.offer(ByteBuffer.allocate(3), false));
+    }
+
+    @Test
+    public void staleQueuesDisconnect() throws InterruptedException {
+        queue = new OutboundQueue(new OutboundPolicy(100, 1, true));
+        assertTrue(queue.offer(ByteBuffer.allocate(1), true));
+        Thread.sleep(10);
+        assertTrue(queue.isStalled());
+        assertFalse(queue.offer(ByteBuffer.allocate(1), true));
+    }
+
+    @Test
+    public void watchdogNoticesStallsWithoutAnOffer() throws InterruptedException {
+        queue = new OutboundQueue(new OutboundPolicy(100, 50, true));
+        assertTrue(queue.offer(ByteBuffer.allocate(1), true));
+        CountDownLatch stalled = new CountDownLatch(1);
+        queue.watchForStalls(stalled::countDown);
+        assertTrue(stalled.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void watchdogStopsOnceTheQueueCloses() throws InterruptedException {
+        queue = new OutboundQueue(new OutboundPolicy(100, 50, true));
+        assertTrue(queue.offer(ByteBuffer.allocate(1), true));
+        AtomicInteger stalls = new AtomicInteger();
+        queue.watchForStalls(stalls::incrementAndGet);
+        queue.close();
+        Thread.sleep(300);
+        assertEquals(0, stalls.get());
+    }
+
+    @Test
+    public void connectionQueuesAreListedUntilDiscarded() {
+        queue = new OutboundQueue(new OutboundPolicy(100, 60_000, true), "client-a");
+        assertTrue(queue.offer(ByteBuffer.allocate(7), true));
+        assertTrue(OutboundMetrics.summary().contains("client-a: 7 bytes in 1 messages"));
+
+        queue.discard();
+        assertFalse(OutboundMetrics.summary().contains("client-a"));
+    }
+
+    @Test
+    public void closedQueueDrainsThenEnds() throws InterruptedException {
+        assertTrue(queue.offer(ByteBuffer.allocate(1), true));
+        queue.close();
+        assertFalse(queue.offer(ByteBuffer.allocate(1), true));
+        assertNotNull(queue.awaitNext());
+        queue.remove();
+        assertNull(queue.awaitNext());
+    }
+}
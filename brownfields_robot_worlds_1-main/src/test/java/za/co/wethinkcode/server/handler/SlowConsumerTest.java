@@ -0,0 +1,141 @@
+package za.co.wethinkcode.server.handler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlowConsumerTest {
+    private static final OutboundPolicy TIGHT = new OutboundPolicy(16 * 1024, 2_000, true);
+
+    private World world;
+    private ServerSocket serverSocket;
+    private NioServer nioServer;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "50");
+        props.setProperty("WORLD_HEIGHT", "50");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        world = new World(new WorldConfig(props));
+
+        serverSocket = new ServerSocket(0);
+        Thread.ofVirtual().start(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Thread.ofVirtual().start(new ClientHandler(serverSocket.accept(), world, TIGHT));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+
+        nioServer = new NioServer(0, world, 1, TIGHT);
+        Thread acceptor = new Thread(nioServer::serve);
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        serverSocket.close();
+        nioServer.stop();
+    }
+
+    @Test
+    public void blockingHandlerDropsClientThatStopsReading() throws Exception {
+        assertSlowClientIsDropped(serverSocket.getLocalPort());
+    }
+
+    @Test
+    public void nioServerDropsClientThatStopsReading() throws Exception {
+        assertSlowClientIsDropped(nioServer.getPort());
+    }
+
+    @Test
+    public void blockingHandlerDropsClientThatStopsReadingAndSending() throws Exception {
+        // Room for every response, so only the stall limit can end the connection
+        OutboundPolicy roomy = new OutboundPolicy(64 << 20, 3_000, true);
+        try (ServerSocket server = new ServerSocket(0)) {
+            Thread.ofVirtual().start(() -> {
+                try {
+                    new ClientHandler(server.accept(), world, roomy).run();
+                } catch (IOException e) {
+                    // The test has finished
+                }
+            });
+
+            long disconnects = OutboundMetrics.getOverflowDisconnects();
+            try (Socket silent = new Socket()) {
+                silent.setReceiveBufferSize(1024);
+                silent.connect(server.getLocalSocketAddress());
+                OutputStream out = silent.getOutputStream();
+                byte[] request = "{\"robot\":\"Nobody\",\"command\":\"state\",\"arguments\":[]}\n".getBytes();
+                // Far more response bytes than the socket buffers hold, then silence in both directions
+                for (int i = 0; i < 150_000; i++) {
+                    out.write(request);
+                }
+                out.flush();
+
+                long deadline = System.currentTimeMillis() + 10_000;
+                while (OutboundMetrics.getOverflowDisconnects() == disconnects
+                        && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(50);
+                }
+                assertTrue(OutboundMetrics.getOverflowDisconnects() > disconnects);
+            }
+        }
+    }
+
+    private void assertSlowClientIsDropped(int port) throws Exception {
+        long disconnects = OutboundMetrics.getOverflowDisconnects();
+        try (Socket slow = new Socket("localhost", port)) {
+            slow.setReceiveBufferSize(1024);
+            OutputStream out = slow.getOutputStream();
+            byte[] request = "{\"robot\":\"Nobody\",\"command\":\"state\",\"arguments\":[]}\n".getBytes();
+            long deadline = System.currentTimeMillis() + 20_000;
+            try {
+                // Never read; the server must give up on this client rather than block on it
+                while (OutboundMetrics.getOverflowDisconnects() == disconnects
+                        && System.currentTimeMillis() < deadline) {
+                    for (int i = 0; i < 100; i++) {
+                        out.write(request);
+                    }
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // The server closed the connection
+            }
+            assertTrue(OutboundMetrics.getOverflowDisconnects() > disconnects);
+
+            // Other clients are still served
+            try (Socket fast = new Socket("localhost", port)) {
+                PrintWriter writer = new PrintWriter(fast.getOutputStream(), true);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(fast.getInputStream()));
+                writer.println("{\"robot\":\"Fast" + port + "\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}");
+                String response = reader.readLine();
+                assertTrue(response.contains("\"result\":\"OK\""), response);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package za.co.wethinkcode.server.handler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares request throughput with ClientHandler on platform threads against
+ * virtual threads, the two "-io" modes of the server, under the same load:
+ * many clients each sending a run of pipelined commands.
+ *
+ * <p>A wall-clock benchmark, so it is left out of the unit tests and only runs
+ * with the benchmark profile: {@code mvn test -Pbenchmark}.</p>
+ */
+@Tag("benchmark")
+public class ThreadModeThroughputTest {
+    private static final int CLIENTS = 100;
+    private static final int REQUESTS_PER_CLIENT = 200;
+
+    private World world;
+
+    @BeforeEach
+    public void setUp() {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "200");
+        props.setProperty("WORLD_HEIGHT", "200");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        world = new World(new WorldConfig(props));
+    }
+
+    @Test
+    public void virtualThreadsKeepUpWithPlatformThreads() throws Exception {
+        // Warm up both paths so the comparison is not dominated by class loading and JIT
+        requestsPerSecond(false, "warm-p");
+        requestsPerSecond(true, "warm-v");
+
+        double platform = requestsPerSecond(false, "plat");
+        double virtual = requestsPerSecond(true, "virt");
+
+        // Loose bound: the point is that virtual threads cost no throughput, not which mode wins on this machine
+        assertTrue(virtual >= platform / 4, "virtual " + virtual + " req/s against platform " + platform + " req/s");
+    }
+
+    private double requestsPerSecond(boolean virtualThreads, String prefix) throws Exception {
+        try (ServerSocket serverSocket = new ServerSocket(0, CLIENTS * 2)) {
+            Thread acceptor = Thread.ofPlatform().daemon().start(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        ClientHandler handler = new ClientHandler(serverSocket.accept(), world);
+                        if (virtualThreads) {
+                            Thread.ofVirtual().start(handler);
+                        } else {
+                            new Thread(handler).start();
+                        }
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            });
+
+            AtomicInteger answered = new AtomicInteger();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Thread> clients = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < CLIENTS; i++) {
+                String robot = prefix + i;
+                clients.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        answered.addAndGet(runClient(serverSocket.getLocalPort(), robot));
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    }
+                }));
+            }
+            for (Thread client : clients) {
+                client.join();
+            }
+            long elapsed = System.nanoTime() - start;
+            acceptor.interrupt();
+
+            assertNull(failure.get());
+            assertEquals(CLIENTS * (REQUESTS_PER_CLIENT + 1), answered.get());
+            return answered.get() / (elapsed / 1e9);
+        }
+    }
+
+    private int runClient(int port, String robot) throws IOException {
+        try (Socket socket = new Socket("localhost", port)) {
+            StringBuilder requests = new StringBuilder();
+            requests.append("{\"robot\":\"").append(robot).append("\",\"command\":\"launch\",\"arguments\":[\"Sniper\"]}\n");
+            for (int i = 0; i < REQUESTS_PER_CLIENT; i++) {
+                String command = i % 2 == 0 ? "state" : "look";
+                requests.append("{\"robot\":\"").append(robot).append("\",\"command\":\"").append(command).append("\"}\n");
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(requests.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            int answered = 0;
+            for (int i = 0; i <= REQUESTS_PER_CLIENT; i++) {
+                String response = in.readLine();
+                assertNotNull(response, robot + " missing response " + i);
+                answered++;
+            }
+            return answered;
+        }
+    }
+}
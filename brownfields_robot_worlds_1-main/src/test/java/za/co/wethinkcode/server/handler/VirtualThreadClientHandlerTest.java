@@ -0,0 +1,99 @@
+package za.co.wethinkcode.server.handler;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import za.co.wethinkcode.server.world.World;
+import za.co.wethinkcode.server.world.WorldConfig;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadClientHandlerTest {
+    private ServerSocket serverSocket;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        Properties props = new Properties();
+        props.setProperty("WORLD_WIDTH", "50");
+        props.setProperty("WORLD_HEIGHT", "50");
+        props.setProperty("NUM_PITS", "0");
+        props.setProperty("NUM_LAKES", "0");
+        props.setProperty("NUM_MOUNTAINS", "0");
+        props.setProperty("VISIBILITY_RANGE", "5");
+        props.setProperty("MAX_SHIELD_STRENGTH", "5");
+        props.setProperty("REPAIR_TIME", "5");
+        props.setProperty("RELOAD_TIME", "5");
+        props.setProperty("MAX_SHOTS", "10");
+        World world = new World(new WorldConfig(props));
+
+        serverSocket = new ServerSocket(0, 1000);
+        Thread.ofVirtual().start(() -> {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Thread.ofVirtual().start(new ClientHandler(serverSocket.accept(), world));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        serverSocket.close();
+    }
+
+    @Test
+    public void idleConnectionsAreAllServedOnVirtualThreads() throws IOException {
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 200; i++) {
+                sockets.add(new Socket("localhost", serverSocket.getLocalPort()));
+            }
+
+            for (int i = 0; i < sockets.size(); i++) {
+                Socket socket = sockets.get(i);
+                PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                out.println("{\"robot\":\"Bot" + i + "\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}");
+                String response = in.readLine();
+                assertTrue(response.contains("\"result\":\"OK\""), response);
+            }
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    @Test
+    public void pipelinedRequestsAreAnsweredInOrder() throws IOException {
+        try (Socket socket = new Socket("localhost", serverSocket.getLocalPort())) {
+            StringBuilder batch = new StringBuilder();
+            batch.append("{\"robot\":\"Piper\",\"command\":\"launch\",\"arguments\":[\"Sniper\",5,5]}\n");
+            for (int i = 1; i <= 50; i++) {
+                batch.append("{\"robot\":\"Piper\",\"command\":\"forward\",\"arguments\":[\"1\"]}\n");
+            }
+            socket.getOutputStream().write(batch.toString().getBytes());
+            socket.getOutputStream().flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            assertTrue(in.readLine().contains("\"result\":\"OK\""));
+            for (int i = 1; i <= 50; i++) {
+                String response = in.readLine();
+                assertNotNull(response, "missing response " + i);
+                assertTrue(response.contains("\"result\""), response);
+            }
+        }
+    }
+}